@@ -111,6 +111,22 @@ public class DataTable<T> extends JTable {
 		}
 	}
 
+	/**
+	 * Specifies whether a row sorter should be created for the table whenever
+	 * its model changes. The row sorter created for a DataTableModel is a
+	 * DataTableRowSorter.
+	 * 
+	 * @param autoCreateRowSorter
+	 *            A boolean value that is true if a row sorter should be
+	 *            created automatically.
+	 * @see javax.swing.JTable#setAutoCreateRowSorter(boolean)
+	 */
+	@Override
+	public void setAutoCreateRowSorter(boolean autoCreateRowSorter) {
+		super.setAutoCreateRowSorter(autoCreateRowSorter);
+		createDataTableRowSorter();
+	}
+
 	/**
 	 * Returns a default table header for the DataTable.
 	 * 
@@ -215,6 +231,7 @@ public class DataTable<T> extends JTable {
 	 */
 	public void setModel(TableModel dataModel) {
 		super.setModel(dataModel);
+		createDataTableRowSorter();
 	}
 
 	/**
@@ -243,6 +260,18 @@ public class DataTable<T> extends JTable {
 		return false;
 	}
 
+	/**
+	 * Replaces the row sorter created by the JTable with a DataTableRowSorter
+	 * when row sorters are created automatically.
+	 */
+	@SuppressWarnings("unchecked")
+	private void createDataTableRowSorter() {
+		if (getAutoCreateRowSorter() && getModel() instanceof DataTableModel) {
+			setRowSorter(new DataTableRowSorter<T>(
+					(DataTableModel<T>) getModel()));
+		}
+	}
+
 	/**
 	 * Returns a popup menu.
 	 * 
@@ -18,7 +18,10 @@ package com.att.aro.commonui;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableColumnModel;
@@ -29,13 +32,21 @@ import javax.swing.table.TableColumnModel;
  * Represents a base implementation for a table model that is used to display
  * data in JTables. The DataTableModel its table data as a collection of generic
  * objects whose type is defined when the class is used.
+ * 
+ * A list that is set as the table data is displayed in place rather than
+ * copied, and the cell values of a row are only extracted from its data
+ * object when the row is displayed or sorted. The model never modifies the
+ * data list; methods that add or remove rows replace it with a modified copy.
  */
 public abstract class DataTableModel<T> extends AbstractTableModel {
 	private static final long serialVersionUID = 1L;
 
-	private List<T> data = new ArrayList<T>();
+	private List<T> data = Collections.emptyList();
 	private String[] columns;
 
+	// Row index of each data object, built on first use
+	private Map<T, Integer> indexes;
+
 	/**
 	 * Initializes a new instance of an empty DataTableModel class.
 	 * 
@@ -136,18 +147,22 @@ public abstract class DataTableModel<T> extends AbstractTableModel {
 	}
 
 	/**
-	 * Sets the data to be displayed in the data table.
+	 * Sets the data to be displayed in the data table. A random access
+	 * java.util.List is displayed without being copied, and must not be
+	 * modified while it is displayed.
 	 * 
 	 * @param data
 	 *            The data to be displayed in the table. If this parameter is
 	 *            set to null, it will clear the existing table data.
 	 */
 	public synchronized void setData(Collection<T> data) {
-		this.data.clear();
-		if (data != null) {
-			this.data.addAll(data);
+		if (data instanceof List && data instanceof RandomAccess) {
+			replaceData((List<T>) data);
+		} else if (data != null) {
+			replaceData(new ArrayList<T>(data));
+		} else {
+			replaceData(Collections.<T> emptyList());
 		}
-		fireTableDataChanged();
 	}
 
 	/**
@@ -157,8 +172,9 @@ public abstract class DataTableModel<T> extends AbstractTableModel {
 	 *            The new row to be added.
 	 */
 	public synchronized void addRow(T row) {
-		this.data.add(row);
-		fireTableDataChanged();
+		List<T> newData = new ArrayList<T>(this.data);
+		newData.add(row);
+		replaceData(newData);
 	}
 
 	/**
@@ -170,8 +186,9 @@ public abstract class DataTableModel<T> extends AbstractTableModel {
 	 *            The new row to be added.
 	 */
 	public synchronized void addRow(int location, T row) {
-		this.data.add(location, row);
-		fireTableDataChanged();
+		List<T> newData = new ArrayList<T>(this.data);
+		newData.add(location, row);
+		replaceData(newData);
 	}
 
 	/**
@@ -183,8 +200,9 @@ public abstract class DataTableModel<T> extends AbstractTableModel {
 	 */
 	public synchronized void addRows(Collection<T> rows) {
 		if (rows != null && rows.size() > 0) {
-			this.data.addAll(rows);
-			fireTableDataChanged();
+			List<T> newData = new ArrayList<T>(this.data);
+			newData.addAll(rows);
+			replaceData(newData);
 		}
 	}
 
@@ -196,8 +214,9 @@ public abstract class DataTableModel<T> extends AbstractTableModel {
 	 * @return The data object that was removed.
 	 */
 	public synchronized T removeRow(int index) {
-		T removed = this.data.remove(index);
-		fireTableDataChanged();
+		List<T> newData = new ArrayList<T>(this.data);
+		T removed = newData.remove(index);
+		replaceData(newData);
 		return removed;
 	}
 
@@ -217,20 +236,27 @@ public abstract class DataTableModel<T> extends AbstractTableModel {
 	 * Removes all data from the data table.
 	 */
 	public synchronized void removeAllRows() {
-		this.data.clear();
-		fireTableDataChanged();
+		replaceData(Collections.<T> emptyList());
 	}
 
 	/**
 	 * Returns the index of the first occurrence of the specified item in the
-	 * data table.
+	 * data table. The indexes of all of the items are looked up in a map that
+	 * is built on the first call after the data changes.
 	 * 
 	 * @param item
 	 *            The item to return the index for.
 	 * @return The index of the specified item, or -1 if the item is not found.
 	 */
-	public int indexOf(T item) {
-		return this.data.indexOf(item);
+	public synchronized int indexOf(T item) {
+		if (indexes == null) {
+			indexes = new HashMap<T, Integer>(data.size() * 4 / 3 + 1);
+			for (int i = data.size() - 1; i >= 0; --i) {
+				indexes.put(data.get(i), i);
+			}
+		}
+		Integer index = indexes.get(item);
+		return index != null ? index : -1;
 	}
 
 	/**
@@ -269,4 +295,13 @@ public abstract class DataTableModel<T> extends AbstractTableModel {
 	 */
 	protected abstract Object getColumnValue(T item, int columnIndex);
 
+	/**
+	 * Replaces the table data and notifies the listeners.
+	 */
+	private void replaceData(List<T> newData) {
+		this.data = newData;
+		this.indexes = null;
+		fireTableDataChanged();
+	}
+
 }
@@ -0,0 +1,318 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.commonui;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingWorker;
+import javax.swing.table.TableRowSorter;
+
+/**
+ * A row sorter for a DataTableModel that sorts rows by precomputed ranks.
+ * Whenever the table data changes, the rank of each row in the sort order of
+ * each column is computed once on a background thread, by extracting every
+ * cell value of the column a single time. Sorting then only compares integer
+ * ranks, rather than extracting and comparing cell values for every
+ * comparison. If a column is sorted before its ranks are ready, the ranks of
+ * that column are computed right away.
+ *
+ * Cell values are ordered in the same way as by a TableRowSorter, based on
+ * the class of the column. Values of a String column are compared using a
+ * Collator, values of a column with any other Comparable class in their
+ * natural order, and values of other columns by their string values using a
+ * Collator. Null values sort first, except in columns that are compared by
+ * string value, where they are compared as empty strings. Row filters are
+ * applied to the ranks, not to the cell values.
+ */
+public class DataTableRowSorter<T> extends TableRowSorter<DataTableModel<T>> {
+	private static final Logger logger = Logger
+			.getLogger(DataTableRowSorter.class.getName());
+
+	private static final Comparator<Integer> RANK_COMPARATOR = new Comparator<Integer>() {
+		@Override
+		public int compare(Integer o1, Integer o2) {
+			return o1.compareTo(o2);
+		}
+	};
+
+	/**
+	 * Provides the rank of each cell to the sorter in place of its value.
+	 */
+	private class RankModelWrapper extends ModelWrapper<DataTableModel<T>, Integer> {
+
+		@Override
+		public DataTableModel<T> getModel() {
+			return model;
+		}
+
+		@Override
+		public int getColumnCount() {
+			return model.getColumnCount();
+		}
+
+		@Override
+		public int getRowCount() {
+			return model.getRowCount();
+		}
+
+		@Override
+		public Object getValueAt(int row, int column) {
+			return getRanks(column)[row];
+		}
+
+		@Override
+		public Integer getIdentifier(int row) {
+			return row;
+		}
+	}
+
+	private DataTableModel<T> model;
+
+	// Ranks of the rows by column for the current data, null until computed
+	private int[][] ranks;
+	private int generation;
+	private SwingWorker<int[][], Void> rankWorker;
+
+	/**
+	 * Initializes a new instance of the DataTableRowSorter class for the
+	 * specified table model.
+	 *
+	 * @param model
+	 *            The table model.
+	 */
+	public DataTableRowSorter(DataTableModel<T> model) {
+		super(model);
+		this.model = model;
+		setModelWrapper(new RankModelWrapper());
+	}
+
+	/**
+	 * Returns the comparator for the ranks that replace the cell values of
+	 * every column.
+	 *
+	 * @see javax.swing.table.TableRowSorter#getComparator(int)
+	 */
+	@Override
+	public Comparator<?> getComparator(int column) {
+		return RANK_COMPARATOR;
+	}
+
+	/**
+	 * Ranks are always compared directly.
+	 *
+	 * @see javax.swing.table.TableRowSorter#useToString(int)
+	 */
+	@Override
+	protected boolean useToString(int column) {
+		return false;
+	}
+
+	/**
+	 * @see javax.swing.DefaultRowSorter#modelStructureChanged()
+	 */
+	@Override
+	public void modelStructureChanged() {
+		dataChanged();
+		super.modelStructureChanged();
+	}
+
+	/**
+	 * @see javax.swing.DefaultRowSorter#allRowsChanged()
+	 */
+	@Override
+	public void allRowsChanged() {
+		dataChanged();
+		super.allRowsChanged();
+	}
+
+	/**
+	 * @see javax.swing.DefaultRowSorter#rowsInserted(int, int)
+	 */
+	@Override
+	public void rowsInserted(int firstRow, int endRow) {
+		dataChanged();
+		super.rowsInserted(firstRow, endRow);
+	}
+
+	/**
+	 * @see javax.swing.DefaultRowSorter#rowsDeleted(int, int)
+	 */
+	@Override
+	public void rowsDeleted(int firstRow, int endRow) {
+		dataChanged();
+		super.rowsDeleted(firstRow, endRow);
+	}
+
+	/**
+	 * @see javax.swing.DefaultRowSorter#rowsUpdated(int, int)
+	 */
+	@Override
+	public void rowsUpdated(int firstRow, int endRow) {
+		dataChanged();
+		super.rowsUpdated(firstRow, endRow);
+	}
+
+	/**
+	 * @see javax.swing.DefaultRowSorter#rowsUpdated(int, int, int)
+	 */
+	@Override
+	public void rowsUpdated(int firstRow, int endRow, int column) {
+		dataChanged();
+		super.rowsUpdated(firstRow, endRow, column);
+	}
+
+	/**
+	 * Drops the ranks of the previous data and starts computing the ranks of
+	 * the current data on a background thread.
+	 */
+	private void dataChanged() {
+		if (model == null) {
+
+			// Called from the super class constructor
+			return;
+		}
+		++generation;
+		ranks = new int[model.getColumnCount()][];
+		if (rankWorker != null) {
+			rankWorker.cancel(true);
+		}
+
+		final int workerGeneration = generation;
+		final List<T> data = model.getData();
+		final int columnCount = model.getColumnCount();
+		rankWorker = new SwingWorker<int[][], Void>() {
+
+			@Override
+			protected int[][] doInBackground() {
+				int[][] result = new int[columnCount][];
+				for (int column = 0; column < columnCount && !isCancelled(); ++column) {
+					result[column] = computeRanks(data, column);
+				}
+				return result;
+			}
+
+			@Override
+			protected void done() {
+				if (isCancelled() || workerGeneration != generation) {
+					return;
+				}
+				try {
+					int[][] result = get();
+					for (int column = 0; column < ranks.length; ++column) {
+						if (ranks[column] == null) {
+							ranks[column] = result[column];
+						}
+					}
+				} catch (InterruptedException e) {
+					logger.log(Level.FINE, "Ranking of table rows interrupted", e);
+				} catch (ExecutionException e) {
+					logger.log(Level.WARNING, "Unable to rank table rows", e);
+				}
+			}
+		};
+		rankWorker.execute();
+	}
+
+	/**
+	 * Returns the ranks of the rows for the specified column, computing them
+	 * if they are not ready yet.
+	 */
+	private int[] getRanks(int column) {
+		if (ranks[column] == null) {
+			ranks[column] = computeRanks(model.getData(), column);
+		}
+		return ranks[column];
+	}
+
+	/**
+	 * Computes the rank of each row in the sort order of the specified column.
+	 * Rows with equal values have the same rank.
+	 */
+	private int[] computeRanks(List<T> data, int column) {
+		int rowCount = data.size();
+		final Collator collator = Collator.getInstance();
+		final Object[] values = new Object[rowCount];
+		Integer[] order = new Integer[rowCount];
+		Class<?> columnClass = model.getColumnClass(column);
+		boolean stringColumn = columnClass == String.class;
+		boolean useToString = !stringColumn
+				&& !Comparable.class.isAssignableFrom(columnClass);
+		for (int row = 0; row < rowCount; ++row) {
+			Object value = model.getColumnValue(data.get(row), column);
+
+			// Values that are compared as strings are compared by collation
+			// key, which is computed once per value
+			if (useToString) {
+				value = collator.getCollationKey(value != null ? value
+						.toString() : "");
+			} else if (value != null
+					&& (stringColumn || !(value instanceof Comparable))) {
+				value = collator.getCollationKey(value.toString());
+			}
+			values[row] = value;
+			order[row] = row;
+		}
+
+		final Comparator<Object> valueComparator = new Comparator<Object>() {
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			@Override
+			public int compare(Object o1, Object o2) {
+				if (o1 == null) {
+					return o2 == null ? 0 : -1;
+				} else if (o2 == null) {
+					return 1;
+				} else if (o1.getClass() == o2.getClass()) {
+					return ((Comparable) o1).compareTo(o2);
+				} else {
+					return collator.compare(getString(o1), getString(o2));
+				}
+			}
+		};
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return valueComparator.compare(values[o1], values[o2]);
+			}
+		});
+
+		int[] result = new int[rowCount];
+		int rank = 0;
+		for (int i = 0; i < rowCount; ++i) {
+			if (i > 0
+					&& valueComparator.compare(values[order[i - 1]],
+							values[order[i]]) != 0) {
+				++rank;
+			}
+			result[order[i]] = rank;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the string value of a cell value or of its collation key.
+	 */
+	private static String getString(Object value) {
+		return value instanceof CollationKey ? ((CollationKey) value)
+				.getSourceString() : value.toString();
+	}
+}
@@ -30,7 +30,6 @@ import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTabbedPane;
 import javax.swing.JTable;
-import javax.swing.JTextArea;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import javax.swing.event.ListSelectionEvent;
@@ -81,8 +80,7 @@ public class AROAdvancedTabb extends JPanel {
 	private DataTable<PacketInfo> jPacketViewTable;
 
 	// Content view
-	private JScrollPane jContentViewScrollPane; // Content View
-	private JTextArea jContentTextArea; // Context text
+	private TCPContentPanel jContentViewPanel; // Content View
 
 	// network profile panel
 	private DeviceNetworkProfilePanel deviceNetworkProfilePanel;
@@ -95,6 +93,9 @@ public class AROAdvancedTabb extends JPanel {
 	// Trace data currently displayed
 	private TraceData.Analysis analysisData;
 
+	// Lookup of the TCP session packets by time, built on first use
+	private TcpSessionTimeIndex sessionTimeIndex;
+
 	/**
 	 * Initializes a new instance of the AROAdvancedTabb class.
 	 */
@@ -119,6 +120,7 @@ public class AROAdvancedTabb extends JPanel {
 	 */
 	public synchronized void setAnalysisData(TraceData.Analysis analysisData) {
 		this.analysisData = analysisData;
+		this.sessionTimeIndex = null;
 		if (analysisData != null) {
 			jTCPFlowsTableModel.setData(analysisData.getTcpSessions());
 		} else {
@@ -216,19 +218,14 @@ public class AROAdvancedTabb extends JPanel {
 			jTCPFlowsContentTabbedPane.addTab(rb.getString("tcp.tab.packet"),
 					null, getJPacketViewTapScrollPane(), null);
 			jTCPFlowsContentTabbedPane.addTab(rb.getString("tcp.tab.content"),
-					null, getJContentViewScrollPane(), null);
+					null, getJContentViewPanel(), null);
 			jTCPFlowsContentTabbedPane.addChangeListener(new ChangeListener() {
 
 				@Override
 				public void stateChanged(ChangeEvent e) {
-					if (jTCPFlowsContentTabbedPane.getSelectedComponent() == getJContentViewScrollPane()) {
-						TCPSession sess = jTCPFlowsTable.getSelectedItem();
-						if (sess != null) {
-							jContentTextArea.setText(sess.getDataText());
-							jContentTextArea.setCaretPosition(0);
-						} else {
-							jContentTextArea.setText(null);
-						}
+					if (jTCPFlowsContentTabbedPane.getSelectedComponent() == getJContentViewPanel()) {
+						getJContentViewPanel().setData(
+								jTCPFlowsTable.getSelectedItem());
 					}
 				}
 			});
@@ -305,7 +302,9 @@ public class AROAdvancedTabb extends JPanel {
 								graphPanel.setGraphView(crossHairValue,
 										centerGraph);
 								getJHttpReqResPanel().select(
-										packetInfo.getRequestResponseInfo());
+										analysisData.getPacketAnnotations()
+												.getRequestResponseInfo(
+														packetInfo));
 								if (aroVideoPlayer != null) {
 									aroVideoPlayer
 											.setMediaDisplayTime(graphPanel
@@ -320,20 +319,15 @@ public class AROAdvancedTabb extends JPanel {
 	}
 
 	/**
-	 * Initializes and returns the Scroll Pane for the Content View tab at the
+	 * Initializes and returns the Panel for the Content View tab at the
 	 * bottom.
 	 */
-	private JScrollPane getJContentViewScrollPane() {
-		if (jContentViewScrollPane == null) {
-			if (jContentTextArea == null) {
-				jContentTextArea = new JTextArea(10, 20);
-			}
-			jContentViewScrollPane = new JScrollPane(jContentTextArea);
-			jContentTextArea.setLineWrap(true);
-			jContentTextArea.setCaretPosition(0);
-			jContentViewScrollPane.setPreferredSize(new Dimension(100, 200));
+	private TCPContentPanel getJContentViewPanel() {
+		if (jContentViewPanel == null) {
+			jContentViewPanel = new TCPContentPanel();
+			jContentViewPanel.setPreferredSize(new Dimension(100, 200));
 		}
-		return jContentViewScrollPane;
+		return jContentViewPanel;
 	}
 
 	/**
@@ -367,7 +361,8 @@ public class AROAdvancedTabb extends JPanel {
 							if (tcp != this.tcp) {
 								if (tcp != null) {
 									jPacketViewTableModel.setData(tcp
-											.getPackets());
+											.getPackets(), analysisData
+											.getPacketAnnotations());
 									jPacketViewTable
 											.setGridColor(Color.LIGHT_GRAY);
 									if (!tcp.getPackets().isEmpty()) {
@@ -375,17 +370,15 @@ public class AROAdvancedTabb extends JPanel {
 												.setSelectionInterval(0, 0);
 									}
 									if (jTCPFlowsContentTabbedPane
-											.getSelectedComponent() == getJContentViewScrollPane()) {
-										jContentTextArea.setText(tcp
-												.getDataText());
+											.getSelectedComponent() == getJContentViewPanel()) {
+										getJContentViewPanel().setData(tcp);
 									}
-									jContentTextArea.setCaretPosition(0);
 									getJHttpReqResPanel().setData(
 											tcp.getRequestResponseInfo());
 								} else {
 									jPacketViewTableModel.removeAllRows();
 									getJHttpReqResPanel().setData(null);
-									jContentTextArea.setText(null);
+									getJContentViewPanel().setData(null);
 								}
 								this.tcp = tcp;
 							}
@@ -445,39 +438,28 @@ public class AROAdvancedTabb extends JPanel {
 
 		if (analysisData != null) {
 			boolean bTCPTimeStampFound = false;
-			boolean bExactMatch = false;
 
 			// Do exact match of dTimeInterval == 0.0;
 			// If dTimeInterval < 0.0, don't try to match up with the TCP_Flow
 			// or packets when click comes from graph or video
-			if (dTimeRangeInterval == 0.0) {
-				bExactMatch = true;
-			} else if (dTimeRangeInterval < 0.0) {
+			if (dTimeRangeInterval < 0.0) {
 				repaint();
 				return;
 			}
 
 			// Attempt to find corresponding packet for time.
-			double packetTimeStamp = 0.0;
-			double packetTimeStampDiff = 0.0;
-			double previousPacketTimeStampDiff = 9999.0;
+			if (sessionTimeIndex == null) {
+				sessionTimeIndex = new TcpSessionTimeIndex(
+						analysisData.getTcpSessions());
+			}
+			TcpSessionTimeIndex.Match match = sessionTimeIndex.getBestMatch(
+					timeStamp, dTimeRangeInterval);
 			TCPSession bestMatchingTcpSession = null;
 			PacketInfo bestMatchingPacketInfo = null;
-			for (TCPSession tcpSess : analysisData.getTcpSessions()) {
-				PacketInfo packetInfo = getBestMatchingPacketInTcpSession(
-						tcpSess, bExactMatch, timeStamp, dTimeRangeInterval);
-				if (packetInfo != null) {
-					packetTimeStamp = packetInfo.getTimeStamp();
-					packetTimeStampDiff = timeStamp - packetTimeStamp;
-					if (packetTimeStampDiff < 0.0) {
-						packetTimeStampDiff *= -1.0;
-					}
-					if (packetTimeStampDiff < previousPacketTimeStampDiff) {
-						bestMatchingTcpSession = tcpSess;
-						bestMatchingPacketInfo = packetInfo;
-						bTCPTimeStampFound = true;
-					}
-				}
+			if (match != null) {
+				bestMatchingTcpSession = match.getSession();
+				bestMatchingPacketInfo = match.getPacket();
+				bTCPTimeStampFound = true;
 			}
 
 			if (bTCPTimeStampFound) {
@@ -485,8 +467,8 @@ public class AROAdvancedTabb extends JPanel {
 				jPacketViewTable.selectItem(bestMatchingPacketInfo);
 				jPacketViewTable.setGridColor(Color.LIGHT_GRAY);
 				if (bestMatchingPacketInfo != null) {
-					jHttpReqResPanel.select(bestMatchingPacketInfo
-							.getRequestResponseInfo());
+					jHttpReqResPanel.select(analysisData.getPacketAnnotations()
+							.getRequestResponseInfo(bestMatchingPacketInfo));
 				} else {
 					jHttpReqResPanel.select(null);
 				}
@@ -502,30 +484,6 @@ public class AROAdvancedTabb extends JPanel {
 		}
 	}
 
-	/**
-	 * Provides the Best matching packet info from the provided tcp session.
-	 */
-	private PacketInfo getBestMatchingPacketInTcpSession(TCPSession tcpSession,
-			boolean bExactMatch, double timeStamp, double dTimeRangeInterval) {
-
-		// Try to eliminate session before iterating through packets
-		if (tcpSession.getSessionStartTime() > timeStamp
-				|| tcpSession.getSessionEndTime() < timeStamp) {
-			return null;
-		}
-
-		double packetTimeStamp = 0.0;
-		PacketInfo matchedPacket = null;
-		for (PacketInfo p : tcpSession.getPackets()) {
-			packetTimeStamp = p.getTimeStamp();
-			if ((bExactMatch && (packetTimeStamp == timeStamp))
-					|| ((packetTimeStamp >= (timeStamp - dTimeRangeInterval)) && (packetTimeStamp <= (timeStamp + dTimeRangeInterval)))) {
-				matchedPacket = p;
-			}
-		}
-		return matchedPacket;
-	}
-
 	/**
 	 * Highlights the specified TCP session in the TCP flows table.
 	 * 
@@ -544,8 +502,10 @@ public class AROAdvancedTabb extends JPanel {
 	 *            highlighted.
 	 **/
 	public void setHighlightedPacketView(PacketInfo packetInfo) {
-		if (packetInfo.getSession() != null) {
-			setHighlightedTCP(packetInfo.getSession());
+		TCPSession session = analysisData != null ? analysisData
+				.getPacketAnnotations().getSession(packetInfo) : null;
+		if (session != null) {
+			setHighlightedTCP(session);
 			getJPacketViewTableAsDataTable().selectItem(packetInfo);
 		}
 	}
@@ -36,8 +36,13 @@ import java.io.File;
 import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Properties;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -104,6 +109,8 @@ public class ApplicationResourceOptimizer extends JFrame {
 	private JMenu jToolMenu;
 	private JMenuItem wiresharkMenuItem;
 	private JMenuItem timeRangeAnalysisMenuItem;
+	private JMenuItem rrcSweepMenuItem;
+	private JMenuItem cacheSimulationMenuItem;
 
 	// View menu
 	private JMenu jViewMenu;
@@ -151,6 +158,11 @@ public class ApplicationResourceOptimizer extends JFrame {
 
 	private Profile profile;
 
+	// Analyses of the current trace for other profiles, and the profiles
+	// used most recently in this session
+	private ProfileAnalysisCache analysisCache;
+	private LinkedList<Profile> recentProfiles = new LinkedList<Profile>();
+
 	/**
 	 * Initializes a new instance of the ApplicationResourceOptimizer class.
 	 */
@@ -318,6 +330,10 @@ public class ApplicationResourceOptimizer extends JFrame {
 		if (this.traceData != null) {
 
 			this.traceData = null;
+			if (this.analysisCache != null) {
+				this.analysisCache.shutdown();
+				this.analysisCache = null;
+			}
 			clearAnalysis();
 		}
 	}
@@ -333,7 +349,6 @@ public class ApplicationResourceOptimizer extends JFrame {
 			if (getAroVideoPlayer() != null) {
 				getAroVideoPlayer().clear();
 			}
-			this.analysisData.clear();
 			displayAnalysis(null, this.profile, null);
 
 			// Free memory from previous trace
@@ -858,6 +873,8 @@ public class ApplicationResourceOptimizer extends JFrame {
 				jToolMenu.add(getWiresharkMenuItem());
 			}
 			jToolMenu.add(getTimeRangeAnalysisMenuItem());
+			jToolMenu.add(getRrcSweepMenuItem());
+			jToolMenu.add(getCacheSimulationMenuItem());
 		}
 		return jToolMenu;
 	}
@@ -899,6 +916,62 @@ public class ApplicationResourceOptimizer extends JFrame {
 		return timeRangeAnalysisMenuItem;
 	}
 
+	/**
+	 * Initializes and returns the RRC Parameter Sweep menu item under the
+	 * Tools menu.
+	 */
+	private JMenuItem getRrcSweepMenuItem() {
+		if (rrcSweepMenuItem == null) {
+			rrcSweepMenuItem = new JMenuItem(
+					rb.getString("menu.tools.rrcsweep"));
+			rrcSweepMenuItem.addActionListener(new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent arg0) {
+					if (analysisData == null) {
+						MessageDialogFactory.showMessageDialog(
+								ApplicationResourceOptimizer.this,
+								rb.getString("Error.notrace"),
+								rb.getString("Error.title"),
+								JOptionPane.ERROR_MESSAGE);
+						return;
+					}
+					new RrcParameterSweepDialog(
+							ApplicationResourceOptimizer.this, analysisData)
+							.setVisible(true);
+				}
+			});
+		}
+		return rrcSweepMenuItem;
+	}
+
+	/**
+	 * Initializes and returns the HTTP Cache Simulation menu item under the
+	 * Tools menu.
+	 */
+	private JMenuItem getCacheSimulationMenuItem() {
+		if (cacheSimulationMenuItem == null) {
+			cacheSimulationMenuItem = new JMenuItem(
+					rb.getString("menu.tools.cachesim"));
+			cacheSimulationMenuItem.addActionListener(new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent arg0) {
+					if (analysisData == null) {
+						MessageDialogFactory.showMessageDialog(
+								ApplicationResourceOptimizer.this,
+								rb.getString("Error.notrace"),
+								rb.getString("Error.title"),
+								JOptionPane.ERROR_MESSAGE);
+						return;
+					}
+					new HttpCacheSimulationDialog(
+							ApplicationResourceOptimizer.this, analysisData)
+							.setVisible(true);
+				}
+			});
+		}
+		return cacheSimulationMenuItem;
+	}
+
 	/**
 	 * Initializes and returns the Exclude Time Range Analysis menu item under
 	 * the Tools menu.
@@ -1276,25 +1349,60 @@ public class ApplicationResourceOptimizer extends JFrame {
 
 	/**
 	 * Refreshes the view with updated app/ip settings.  This method should
-	 * be run on the event dispatch thread
-	 */
-	private synchronized void refresh(final Profile profile,
+	 * be run on the event dispatch thread. The analysis is taken from the
+	 * profile analysis cache when it has already been computed, and once it
+	 * is displayed, analyses for the profiles the user is likely to switch to
+	 * are computed in the background. Only the selection of the cache holds
+	 * the lock on this object, so that the event dispatch thread does not
+	 * wait for a trace that is being opened by another thread.
+	 */
+	private void refresh(final Profile profile,
 			final AnalysisFilter filter) throws IOException {
 		
-		if (traceData != null) {
+		final ProfileAnalysisCache cache;
+		synchronized (this) {
+			if (traceData != null) {
+				if (analysisCache == null
+						|| analysisCache.getTraceData() != traceData
+						|| analysisCache.getFilter() != filter) {
+					if (analysisCache != null) {
+						analysisCache.shutdown();
+					}
+					analysisCache = new ProfileAnalysisCache(traceData, filter);
+				}
+				addRecentProfile(profile);
+			}
+			cache = traceData != null ? analysisCache : null;
+		}
+
+		if (cache != null) {
+			if (cache.isAnalysisDone(profile)) {
+				try {
+					displayAnalysis(cache.getAnalysis(profile), profile,
+							filter);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(e);
+				}
+				cache.speculate(getSpeculativeProfiles(profile));
+				return;
+			}
+
 			final AROProgressDialog dialog = new AROProgressDialog(this, rb.getString("progress.loadingTrace"));
 			dialog.setVisible(true);
 			new SwingWorker<TraceData.Analysis, Object>() {
 
 				@Override
-				protected TraceData.Analysis doInBackground() throws IOException {
-					return traceData.runAnalysis(profile, filter);
+				protected TraceData.Analysis doInBackground()
+						throws IOException, InterruptedException {
+					return cache.getAnalysis(profile);
 				}
 				
 				@Override
 				protected void done() {
 					try {
 						displayAnalysis(get(), profile, filter);
+						cache.speculate(getSpeculativeProfiles(profile));
 					} catch (Exception e) {
 						logger.log(Level.SEVERE, "Unexpected exception analyzing trace", e);
 						MessageDialogFactory.showUnexpectedExceptionDialog(ApplicationResourceOptimizer.this, e);
@@ -1417,11 +1525,79 @@ public class ApplicationResourceOptimizer extends JFrame {
 	 * @throws IOException
 	 */
 	public void setProfile(Profile profile) throws IOException {
-		AnalysisFilter filter = this.analysisData != null ? analysisData.getFilter() : null;
+		AnalysisFilter filter;
+		if (this.analysisCache != null) {
+
+			// Same filter object keeps the analyses already in the cache
+			filter = this.analysisCache.getFilter();
+		} else {
+			filter = this.analysisData != null ? analysisData.getFilter() : null;
+		}
 		clearAnalysis();
 		refresh(profile, filter);
 	}
 
+	/**
+	 * Moves the specified profile to the front of the list of recently used
+	 * profiles. A copy of the profile is kept, so that later changes to the
+	 * profile do not affect the list. Must be called while holding the lock on
+	 * this object.
+	 * 
+	 * @param profile
+	 *            The profile that is being used.
+	 */
+	private void addRecentProfile(Profile profile) {
+		Properties props = profile.getProperties();
+		for (Iterator<Profile> iter = recentProfiles.iterator(); iter.hasNext();) {
+			if (iter.next().getProperties().equals(props)) {
+				iter.remove();
+			}
+		}
+		try {
+			recentProfiles.addFirst(Profile.createFromProperties(
+					profile.getName(), props));
+		} catch (ProfileException e) {
+			logger.log(Level.WARNING, "Unable to copy profile", e);
+		}
+		while (recentProfiles.size() > ProfileAnalysisCache.MAX_ENTRIES) {
+			recentProfiles.removeLast();
+		}
+	}
+
+	/**
+	 * Returns the profiles to be analyzed speculatively while the specified
+	 * profile is displayed, in order of priority: the built-in profile of the
+	 * other network type, the recently used profiles, and the built-in profile
+	 * of the same network type.
+	 * 
+	 * @param profile
+	 *            The profile that is displayed.
+	 * @return The list of profiles, excluding the displayed profile.
+	 */
+	private List<Profile> getSpeculativeProfiles(Profile profile) {
+		ProfileManager profileManager = ProfileManager.getInstance();
+		ProfileType type = profile.getProfileType();
+		ProfileType otherType = type == ProfileType.LTE ? ProfileType.T3G
+				: ProfileType.LTE;
+
+		List<Profile> candidates = new ArrayList<Profile>();
+		candidates.add(profileManager.getDefaultProfile(otherType));
+		synchronized (this) {
+			candidates.addAll(recentProfiles);
+		}
+		candidates.add(profileManager.getDefaultProfile(type));
+
+		List<Profile> result = new ArrayList<Profile>(candidates.size());
+		Set<Properties> seen = new HashSet<Properties>();
+		seen.add(profile.getProperties());
+		for (Profile candidate : candidates) {
+			if (seen.add(candidate.getProperties())) {
+				result.add(candidate);
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * This listener checks to see if the ApplicationResourceOptimizer window
 	 * has been maximized. If it has been then it calls 2 methods. One sets the
@@ -125,7 +125,7 @@ public class BurstCollectionInfoTableModel extends DataTableModel<Burst> {
 		case BYTES_COL:
 			return item.getBurstBytes();
 		case PACKET_COUNT_COL:
-			return item.getPackets().size();
+			return item.getPacketCount();
 		default:
 			return null;
 		}
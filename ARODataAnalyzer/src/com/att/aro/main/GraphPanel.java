@@ -30,6 +30,8 @@ import java.awt.Stroke;
 import java.awt.TexturePaint;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
@@ -40,6 +42,7 @@ import java.text.DecimalFormat;
 import java.text.MessageFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -48,6 +51,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.ImageIcon;
@@ -60,6 +69,7 @@ import javax.swing.JScrollPane;
 import javax.swing.JViewport;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.filechooser.FileFilter;
 
 import org.jfree.chart.ChartMouseEvent;
@@ -93,7 +103,6 @@ import org.jfree.data.xy.XYDataset;
 import org.jfree.data.xy.XYIntervalSeries;
 import org.jfree.data.xy.XYIntervalSeriesCollection;
 import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
 import org.jfree.ui.RectangleEdge;
 
 import com.att.aro.commonui.MessageDialogFactory;
@@ -370,6 +379,7 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 	private TraceData traceData;
 
 	private int zoomCounter = 0;
+	private int resetCount = 0;
 	private int maxZoom = 5;
 	private double zoomFactor = 2;
 
@@ -492,10 +502,14 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 	 * of the GraphPanel is preserved, along with the current zoom state. The
 	 * scroll bar is moved to position 0.
 	 * 
+	 * The datasets of the plots are built concurrently on background threads,
+	 * and are set on the plots together in a single event dispatch thread step
+	 * once all of them are finished.
+	 * 
 	 * @param Analysis
 	 *            - An Analysis object containing the new trace analysis data.
 	 */
-	public synchronized void resetChart(TraceData.Analysis analysis) {
+	public synchronized void resetChart(final TraceData.Analysis analysis) {
 
 		this.traceData = analysis != null ? analysis.getTraceData() : null;
 		getSaveGraphButton().setEnabled(analysis != null);
@@ -506,44 +520,29 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 				.getTraceDuration() : DEFAULT_TIMELINE));
 
 		setGraphView(0);
-		for (Map.Entry<ChartPlotOptions, GraphPanelPlotLabels> entry : subplotMap.entrySet()) {
-			switch (entry.getKey()) {
-			case BATTERY:
-				populateBatteryPlot(entry.getValue().getPlot(), analysis);
-				break;
-			case BLUETOOTH:
-				populateBluetoothPlot(entry.getValue().getPlot(), analysis);
-				break;
-			case BURSTS:
-				populateBurstPlot(entry.getValue().getPlot(), analysis);
-				break;
-			case CAMERA:
-				populateCameraPlot(entry.getValue().getPlot(), analysis);
-				break;
-			case GPS:
-				populateGpsPlot(entry.getValue().getPlot(), analysis);
-				break;
-			case RADIO:
-				populateRadioPlot(entry.getValue().getPlot(), analysis);
-				break;
-			case RRC:
-				populateRrcPlot(entry.getValue().getPlot(), analysis);
-				break;
-			case SCREEN:
-				populateScreenStatePlot(entry.getValue().getPlot(), analysis);
-				break;
-			case THROUGHPUT:
-				populateThroughputPlot(entry.getValue().getPlot(), analysis);
-				break;
-			case USER_INPUT:
-				populateUserEventPlot(entry.getValue().getPlot(), analysis);
-				break;
-			case WIFI:
-				populateWifiPlot(entry.getValue().getPlot(), analysis);
-				break;
+		final int resetNumber = ++this.resetCount;
+		new SwingWorker<List<PlotDatasetUpdate>, Object>() {
+
+			@Override
+			protected List<PlotDatasetUpdate> doInBackground() {
+				return createPlotUpdates(analysis);
 			}
-		}
-		this.pp.populatePacketPlots(analysis);
+
+			@Override
+			protected void done() {
+
+				// Datasets of an earlier reset are dropped
+				if (resetNumber != resetCount) {
+					return;
+				}
+				try {
+					applyPlotUpdates(get());
+				} catch (Exception e) {
+					logger.log(Level.SEVERE, "Unexpected exception building chart datasets", e);
+					MessageDialogFactory.showUnexpectedExceptionDialog(GraphPanel.this, e);
+				}
+			}
+		}.execute();
 		this.getZoomInButton().setEnabled(analysis != null);
 		this.getZoomOutButton().setEnabled(analysis != null);
 		this.getSaveGraphButton().setEnabled(analysis != null);
@@ -1063,6 +1062,14 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 			advancedGraphPanel.setRefreshBuffer(true);
 			advancedGraphPanel.setMaximumDrawWidth(100000);
 
+			// Zooming resizes the chart, which changes the level of detail
+			advancedGraphPanel.addComponentListener(new ComponentAdapter() {
+				@Override
+				public void componentResized(ComponentEvent e) {
+					updateResolution();
+				}
+			});
+
 		}
 		return advancedGraphPanel;
 	}
@@ -1144,7 +1151,130 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 		return this.plot;
 	}
 
-	private static void populateGpsPlot(XYPlot plot, TraceData.Analysis analysis) {
+	/**
+	 * Builds the updates of all plots from the specified analysis, running the
+	 * builder of each plot concurrently on a thread pool.
+	 * 
+	 * @param analysis
+	 *            The trace analysis, or null to clear the plots.
+	 * @return The plot updates.
+	 */
+	private List<PlotDatasetUpdate> createPlotUpdates(final TraceData.Analysis analysis) {
+		List<Callable<List<PlotDatasetUpdate>>> tasks = new ArrayList<Callable<List<PlotDatasetUpdate>>>();
+		for (Map.Entry<ChartPlotOptions, GraphPanelPlotLabels> entry : subplotMap.entrySet()) {
+			final ChartPlotOptions option = entry.getKey();
+			final XYPlot plot = entry.getValue().getPlot();
+			if (option != ChartPlotOptions.UL_PACKETS && option != ChartPlotOptions.DL_PACKETS) {
+				tasks.add(new Callable<List<PlotDatasetUpdate>>() {
+					@Override
+					public List<PlotDatasetUpdate> call() {
+						return Collections.singletonList(createPlotUpdate(option, plot, analysis));
+					}
+				});
+			}
+		}
+		tasks.add(new Callable<List<PlotDatasetUpdate>>() {
+			@Override
+			public List<PlotDatasetUpdate> call() {
+				return pp.createPacketPlotUpdates(analysis);
+			}
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(Runtime.getRuntime()
+				.availableProcessors(), tasks.size()));
+		try {
+			List<Future<List<PlotDatasetUpdate>>> futures = new ArrayList<Future<List<PlotDatasetUpdate>>>(
+					tasks.size());
+			for (Callable<List<PlotDatasetUpdate>> task : tasks) {
+				futures.add(executor.submit(task));
+			}
+
+			List<PlotDatasetUpdate> result = new ArrayList<PlotDatasetUpdate>();
+			for (Future<List<PlotDatasetUpdate>> future : futures) {
+				try {
+					result.addAll(future.get());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(e);
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					throw new IllegalStateException(cause);
+				}
+			}
+			return result;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Builds the update of the specified plot from the specified analysis.
+	 * This method may be called on any thread.
+	 * 
+	 * @param option
+	 *            The chart plot option of the plot.
+	 * @param plot
+	 *            The plot.
+	 * @param analysis
+	 *            The trace analysis, or null to clear the plot.
+	 * @return The plot update.
+	 */
+	private static PlotDatasetUpdate createPlotUpdate(ChartPlotOptions option, XYPlot plot,
+			TraceData.Analysis analysis) {
+		switch (option) {
+		case BATTERY:
+			return createBatteryPlotUpdate(plot, analysis);
+		case BLUETOOTH:
+			return createBluetoothPlotUpdate(plot, analysis);
+		case BURSTS:
+			return createBurstPlotUpdate(plot, analysis);
+		case CAMERA:
+			return createCameraPlotUpdate(plot, analysis);
+		case GPS:
+			return createGpsPlotUpdate(plot, analysis);
+		case RADIO:
+			return createRadioPlotUpdate(plot, analysis);
+		case RRC:
+			return createRrcPlotUpdate(plot, analysis);
+		case SCREEN:
+			return createScreenStatePlotUpdate(plot, analysis);
+		case THROUGHPUT:
+			return createThroughputPlotUpdate(plot, analysis);
+		case USER_INPUT:
+			return createUserEventPlotUpdate(plot, analysis);
+		case WIFI:
+			return createWifiPlotUpdate(plot, analysis);
+		default:
+			throw new IllegalArgumentException("No dataset builder for plot: " + option);
+		}
+	}
+
+	/**
+	 * Sets the new datasets on the plots with a single chart redraw, and
+	 * selects their level of detail. This method must be called on the event
+	 * dispatch thread.
+	 * 
+	 * @param updates
+	 *            The plot updates.
+	 */
+	private void applyPlotUpdates(List<PlotDatasetUpdate> updates) {
+		JFreeChart chart = getAdvancedGraph();
+		chart.setNotify(false);
+		try {
+			for (PlotDatasetUpdate update : updates) {
+				update.apply();
+			}
+			updateResolution();
+		} finally {
+			chart.setNotify(true);
+		}
+	}
+
+	private static PlotDatasetUpdate createGpsPlotUpdate(XYPlot plot, TraceData.Analysis analysis) {
+		PlotDatasetUpdate update = new PlotDatasetUpdate(plot);
 		final XYIntervalSeriesCollection gpsData = new XYIntervalSeriesCollection();
 		if (analysis != null) {
 
@@ -1168,12 +1298,11 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 				}
 			}
 
-			XYItemRenderer renderer = plot.getRenderer();
-			renderer.setSeriesPaint(gpsData.indexOf(GpsState.GPS_STANDBY), Color.YELLOW);
-			renderer.setSeriesPaint(gpsData.indexOf(GpsState.GPS_ACTIVE), new Color(34, 177, 76));
+			update.setSeriesPaint(gpsData.indexOf(GpsState.GPS_STANDBY), Color.YELLOW);
+			update.setSeriesPaint(gpsData.indexOf(GpsState.GPS_ACTIVE), new Color(34, 177, 76));
 
 			// Assign ToolTip to renderer
-			renderer.setBaseToolTipGenerator(new XYToolTipGenerator() {
+			update.setBaseToolTipGenerator(new XYToolTipGenerator() {
 				@Override
 				public String generateToolTip(XYDataset dataset, int series, int item) {
 					GpsState eventType = (GpsState) gpsData.getSeries(series).getKey();
@@ -1184,7 +1313,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 			});
 
 		}
-		plot.setDataset(gpsData);
+		update.setDataset(gpsData);
+		return update;
 	}
 
 	/**
@@ -1213,7 +1343,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 		return gpsPlot;
 	}
 
-	private static void populateBluetoothPlot(XYPlot plot, TraceData.Analysis analysis) {
+	private static PlotDatasetUpdate createBluetoothPlotUpdate(XYPlot plot, TraceData.Analysis analysis) {
+		PlotDatasetUpdate update = new PlotDatasetUpdate(plot);
 
 		// create the dataset...
 		final XYIntervalSeriesCollection bluetoothData = new XYIntervalSeriesCollection();
@@ -1253,14 +1384,13 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 
 			}
 
-			XYItemRenderer renderer = plot.getRenderer();
-			renderer.setSeriesPaint(bluetoothData.indexOf(BluetoothState.BLUETOOTH_CONNECTED),
+			update.setSeriesPaint(bluetoothData.indexOf(BluetoothState.BLUETOOTH_CONNECTED),
 					new Color(34, 177, 76));
-			renderer.setSeriesPaint(bluetoothData.indexOf(BluetoothState.BLUETOOTH_DISCONNECTED),
+			update.setSeriesPaint(bluetoothData.indexOf(BluetoothState.BLUETOOTH_DISCONNECTED),
 					Color.YELLOW);
 
 			// Assign ToolTip to renderer
-			renderer.setBaseToolTipGenerator(new XYToolTipGenerator() {
+			update.setBaseToolTipGenerator(new XYToolTipGenerator() {
 				@Override
 				public String generateToolTip(XYDataset dataset, int series, int item) {
 					BluetoothState eventType = (BluetoothState) bluetoothData.getSeries(series)
@@ -1272,7 +1402,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 			});
 
 		}
-		plot.setDataset(bluetoothData);
+		update.setDataset(bluetoothData);
+		return update;
 	}
 
 	/**
@@ -1302,7 +1433,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 
 	}
 
-	private static void populateWifiPlot(XYPlot plot, TraceData.Analysis analysis) {
+	private static PlotDatasetUpdate createWifiPlotUpdate(XYPlot plot, TraceData.Analysis analysis) {
+		PlotDatasetUpdate update = new PlotDatasetUpdate(plot);
 
 		// create the dataset...
 		final XYIntervalSeriesCollection wifiData = new XYIntervalSeriesCollection();
@@ -1337,7 +1469,6 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 				}
 			}
 
-			XYItemRenderer renderer = plot.getRenderer();
 			for (WifiState eventType : WifiState.values()) {
 				Color paint;
 				switch (eventType) {
@@ -1357,12 +1488,12 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 
 				int index = wifiData.indexOf(eventType);
 				if (index >= 0) {
-					renderer.setSeriesPaint(index, paint);
+					update.setSeriesPaint(index, paint);
 				}
 			}
 
 			// Assign ToolTip to renderer
-			renderer.setBaseToolTipGenerator(new XYToolTipGenerator() {
+			update.setBaseToolTipGenerator(new XYToolTipGenerator() {
 				@Override
 				public String generateToolTip(XYDataset dataset, int series, int item) {
 					WifiState eventType = (WifiState) wifiData.getSeries(series).getKey();
@@ -1390,7 +1521,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 
 		}
 
-		plot.setDataset(wifiData);
+		update.setDataset(wifiData);
+		return update;
 	}
 
 	/**
@@ -1419,7 +1551,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 
 	}
 
-	private static void populateCameraPlot(XYPlot plot, TraceData.Analysis analysis) {
+	private static PlotDatasetUpdate createCameraPlotUpdate(XYPlot plot, TraceData.Analysis analysis) {
+		PlotDatasetUpdate update = new PlotDatasetUpdate(plot);
 
 		XYIntervalSeriesCollection cameraData = new XYIntervalSeriesCollection();
 
@@ -1442,8 +1575,7 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 			}
 
 			// Assign ToolTip to renderer
-			XYItemRenderer renderer = plot.getRenderer();
-			renderer.setBaseToolTipGenerator(new XYToolTipGenerator() {
+			update.setBaseToolTipGenerator(new XYToolTipGenerator() {
 				@Override
 				public String generateToolTip(XYDataset dataset, int series, int item) {
 					return MessageFormat.format(rb.getString("camera.tooltip"), dataset.getX(
@@ -1454,7 +1586,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 
 		}
 
-		plot.setDataset(cameraData);
+		update.setDataset(cameraData);
+		return update;
 	}
 
 	/**
@@ -1480,7 +1613,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 		return cameraPlot;
 	}
 
-	private static void populateScreenStatePlot(XYPlot plot, TraceData.Analysis analysis) {
+	private static PlotDatasetUpdate createScreenStatePlotUpdate(XYPlot plot, TraceData.Analysis analysis) {
+		PlotDatasetUpdate update = new PlotDatasetUpdate(plot);
 
 		final XYIntervalSeriesCollection screenData = new XYIntervalSeriesCollection();
 		if (analysis != null) {
@@ -1504,8 +1638,7 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 			}
 
 			// Assign ToolTip to renderer
-			XYItemRenderer renderer = plot.getRenderer();
-			renderer.setBaseToolTipGenerator(new XYToolTipGenerator() {
+			update.setBaseToolTipGenerator(new XYToolTipGenerator() {
 
 				@Override
 				public String generateToolTip(XYDataset dataset, int series, int item) {
@@ -1529,7 +1662,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 			});
 		}
 
-		plot.setDataset(screenData);
+		update.setDataset(screenData);
+		return update;
 	}
 
 	/**
@@ -1557,7 +1691,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 
 	}
 
-	private static void populateBatteryPlot(XYPlot plot, TraceData.Analysis analysis) {
+	private static PlotDatasetUpdate createBatteryPlotUpdate(XYPlot plot, TraceData.Analysis analysis) {
+		PlotDatasetUpdate update = new PlotDatasetUpdate(plot);
 
 		XYSeries series = new XYSeries(0);
 
@@ -1585,13 +1720,14 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 				}
 			}
 
-			XYItemRenderer renderer = plot.getRenderer();
-			renderer.setBaseToolTipGenerator(new XYToolTipGenerator() {
+			update.setBaseToolTipGenerator(new XYToolTipGenerator() {
 
 				@Override
 				public String generateToolTip(XYDataset dataset, int series, int item) {
 
-					BatteryInfo bi = batteryInfos.get(Math.min(item, batteryInfos.size() - 1));
+					int index = ((MultiResolutionXYDataset) dataset).getSourceIndex(series,
+							item);
+					BatteryInfo bi = batteryInfos.get(Math.min(index, batteryInfos.size() - 1));
 					StringBuffer displayInfo = new StringBuffer(rb
 							.getString("battery.tooltip.prefix"));
 					displayInfo.append(MessageFormat.format(
@@ -1608,7 +1744,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 			});
 		}
 
-		plot.setDataset(new XYSeriesCollection(series));
+		update.setDataset(createDataset(series));
+		return update;
 	}
 
 	/**
@@ -1640,7 +1777,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 
 	}
 
-	private static void populateUserEventPlot(XYPlot plot, TraceData.Analysis analysis) {
+	private static PlotDatasetUpdate createUserEventPlotUpdate(XYPlot plot, TraceData.Analysis analysis) {
+		PlotDatasetUpdate update = new PlotDatasetUpdate(plot);
 
 		final XYIntervalSeriesCollection userInputData = new XYIntervalSeriesCollection();
 		if (analysis != null) {
@@ -1660,12 +1798,11 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 			}
 
 			// Assign ToolTip to renderer
-			XYItemRenderer renderer = plot.getRenderer();
-			renderer.setSeriesPaint(userInputData.indexOf(UserEventType.SCREEN_LANDSCAPE),
+			update.setSeriesPaint(userInputData.indexOf(UserEventType.SCREEN_LANDSCAPE),
 					Color.BLUE);
-			renderer.setSeriesPaint(userInputData.indexOf(UserEventType.SCREEN_PORTRAIT),
+			update.setSeriesPaint(userInputData.indexOf(UserEventType.SCREEN_PORTRAIT),
 					Color.BLUE);
-			renderer.setBaseToolTipGenerator(new XYToolTipGenerator() {
+			update.setBaseToolTipGenerator(new XYToolTipGenerator() {
 
 				@Override
 				public String generateToolTip(XYDataset dataset, int series, int item) {
@@ -1677,7 +1814,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 
 		}
 
-		plot.setDataset(userInputData);
+		update.setDataset(userInputData);
+		return update;
 	}
 
 	/**
@@ -1704,7 +1842,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 		return userInputPlot;
 	}
 
-	private static void populateRadioPlot(XYPlot plot, TraceData.Analysis analysis) {
+	private static PlotDatasetUpdate createRadioPlotUpdate(XYPlot plot, TraceData.Analysis analysis) {
+		PlotDatasetUpdate update = new PlotDatasetUpdate(plot);
 
 		XYSeries series = new XYSeries(0);
 		if (analysis != null) {
@@ -1732,13 +1871,14 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 			}
 
 			// Assign ToolTip to renderer
-			XYItemRenderer renderer = plot.getRenderer();
-			renderer.setBaseToolTipGenerator(new XYToolTipGenerator() {
+			update.setBaseToolTipGenerator(new XYToolTipGenerator() {
 
 				@Override
 				public String generateToolTip(XYDataset dataset, int series, int item) {
 
-					RadioInfo ri = radioInfos.get(Math.min(item, radioInfos.size() - 1));
+					int index = ((MultiResolutionXYDataset) dataset).getSourceIndex(series,
+							item);
+					RadioInfo ri = radioInfos.get(Math.min(index, radioInfos.size() - 1));
 					if (ri.getSignalStrength() < 0) {
 						if (ri.isLte()) {
 							return MessageFormat.format(rb.getString("radio.tooltip.lte"),
@@ -1756,7 +1896,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 
 		}
 
-		plot.setDataset(new XYSeriesCollection(series));
+		update.setDataset(createDataset(series));
+		return update;
 	}
 
 	/**
@@ -1788,7 +1929,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 
 	}
 
-	private static void populateThroughputPlot(XYPlot plot, TraceData.Analysis analysis) {
+	private static PlotDatasetUpdate createThroughputPlotUpdate(XYPlot plot, TraceData.Analysis analysis) {
+		PlotDatasetUpdate update = new PlotDatasetUpdate(plot);
 
 		XYSeries series = new XYSeries(0);
 		if (analysis != null) {
@@ -1828,19 +1970,21 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 
 				lastTime = time;
 			}
-			plot.getRenderer().setBaseToolTipGenerator(new XYToolTipGenerator() {
+			update.setBaseToolTipGenerator(new XYToolTipGenerator() {
 
 				@Override
 				public String generateToolTip(XYDataset dataset, int series, int item) {
 
 					// Tooltip displays throughput value
-					return tooltipList.get(item);
+					return tooltipList.get(((MultiResolutionXYDataset) dataset)
+							.getSourceIndex(series, item));
 				}
 
 			});
 		}
 
-		plot.setDataset(new XYSeriesCollection(series));
+		update.setDataset(createDataset(series));
+		return update;
 	}
 
 	/**
@@ -1866,7 +2010,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 		return throughputPlot;
 	}
 
-	private static void populateBurstPlot(XYPlot plot, TraceData.Analysis analysis) {
+	private static PlotDatasetUpdate createBurstPlotUpdate(XYPlot plot, TraceData.Analysis analysis) {
+		PlotDatasetUpdate update = new PlotDatasetUpdate(plot);
 
 		final XYIntervalSeriesCollection burstDataCollection = new XYIntervalSeriesCollection();
 		if (analysis != null) {
@@ -1897,43 +2042,42 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 			Color myGreen = new Color(34, 177, 76);
 			Color lightGreen = new Color(134, 232, 162);
 
-			XYItemRenderer renderer = plot.getRenderer();
-			renderer.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_PROTOCOL),
+			update.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_PROTOCOL),
 					Color.blue);
 
-			renderer.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_LOSS),
+			update.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_LOSS),
 					Color.black);
 
-			renderer.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_USER),
+			update.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_USER),
 					myGreen);
 
-			renderer.setSeriesPaint(
+			update.setSeriesPaint(
 					burstDataCollection.indexOf(BurstCategory.BURSTCAT_SCREEN_ROTATION), lightGreen);
 
-			renderer.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_CLIENT),
+			update.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_CLIENT),
 					Color.red);
 
-			renderer.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_SERVER),
+			update.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_SERVER),
 					Color.yellow);
-			renderer.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_BKG),
+			update.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_BKG),
 					Color.lightGray);
 
-			renderer.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_LONG),
+			update.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_LONG),
 					Color.gray);
-			renderer.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_PERIODICAL),
+			update.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_PERIODICAL),
 					Color.magenta);
 
-			renderer.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_USERDEF1),
+			update.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_USERDEF1),
 					Color.magenta);
 
-			renderer.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_USERDEF2),
+			update.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_USERDEF2),
 					Color.magenta);
 
-			renderer.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_USERDEF3),
+			update.setSeriesPaint(burstDataCollection.indexOf(BurstCategory.BURSTCAT_USERDEF3),
 					Color.magenta);
 
 			// Assign ToolTip to renderer
-			renderer.setBaseToolTipGenerator(new XYToolTipGenerator() {
+			update.setBaseToolTipGenerator(new XYToolTipGenerator() {
 				@Override
 				public String generateToolTip(XYDataset dataset, int series, int item) {
 					BurstCategory eventType = (BurstCategory) burstDataCollection.getSeries(series)
@@ -1941,13 +2085,14 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 					Burst b = burstMap.get(eventType).get(item);
 					final String PREFIX = "BurstCategory.";
 					return MessageFormat.format(rb.getString(PREFIX + eventType.getResourceKey()),
-							b.getPackets().size(), b.getBurstBytes(), b.getBurstThroughPut());
+							b.getPacketCount(), b.getBurstBytes(), b.getBurstThroughPut());
 				}
 			});
 
 		}
 
-		plot.setDataset(burstDataCollection);
+		update.setDataset(burstDataCollection);
+		return update;
 	}
 
 	private static XYPlot createBurstPlot() {
@@ -1969,7 +2114,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 		return burstPlot;
 	}
 
-	private static void populateRrcPlot(XYPlot plot, final TraceData.Analysis analysis) {
+	private static PlotDatasetUpdate createRrcPlotUpdate(XYPlot plot, final TraceData.Analysis analysis) {
+		PlotDatasetUpdate update = new PlotDatasetUpdate(plot);
 
 		final XYIntervalSeriesCollection rrcDataCollection = new XYIntervalSeriesCollection();
 		if (analysis != null) {
@@ -1995,36 +2141,35 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 				}
 
 			}
-			XYItemRenderer renderer = plot.getRenderer();
 			Color dchGreen = new Color(34, 177, 76);
 			Color fachOrange = new Color(255, 201, 14);
 
-			renderer.setSeriesPaint(rrcDataCollection.indexOf(RRCState.STATE_IDLE), Color.white);
-			renderer.setSeriesPaint(rrcDataCollection.indexOf(RRCState.LTE_IDLE), Color.white);
+			update.setSeriesPaint(rrcDataCollection.indexOf(RRCState.STATE_IDLE), Color.white);
+			update.setSeriesPaint(rrcDataCollection.indexOf(RRCState.LTE_IDLE), Color.white);
 
-			renderer.setSeriesPaint(rrcDataCollection.indexOf(RRCState.PROMO_IDLE_DCH), Color.red);
-			renderer.setSeriesPaint(rrcDataCollection.indexOf(RRCState.LTE_PROMOTION), Color.red);
+			update.setSeriesPaint(rrcDataCollection.indexOf(RRCState.PROMO_IDLE_DCH), Color.red);
+			update.setSeriesPaint(rrcDataCollection.indexOf(RRCState.LTE_PROMOTION), Color.red);
 
-			renderer.setSeriesPaint(rrcDataCollection.indexOf(RRCState.STATE_DCH), fachOrange);
-			renderer.setSeriesPaint(rrcDataCollection.indexOf(RRCState.LTE_CONTINUOUS), fachOrange);
+			update.setSeriesPaint(rrcDataCollection.indexOf(RRCState.STATE_DCH), fachOrange);
+			update.setSeriesPaint(rrcDataCollection.indexOf(RRCState.LTE_CONTINUOUS), fachOrange);
 
-			renderer.setSeriesPaint(rrcDataCollection.indexOf(RRCState.TAIL_DCH),
+			update.setSeriesPaint(rrcDataCollection.indexOf(RRCState.TAIL_DCH),
 					getTailPaint(fachOrange));
-			renderer.setSeriesPaint(rrcDataCollection.indexOf(RRCState.LTE_CR_TAIL),
+			update.setSeriesPaint(rrcDataCollection.indexOf(RRCState.LTE_CR_TAIL),
 					getTailPaint(fachOrange));
-			renderer.setSeriesPaint(rrcDataCollection.indexOf(RRCState.LTE_DRX_SHORT),
+			update.setSeriesPaint(rrcDataCollection.indexOf(RRCState.LTE_DRX_SHORT),
 					getTailPaint(fachOrange));
-			renderer.setSeriesPaint(rrcDataCollection.indexOf(RRCState.LTE_DRX_LONG),
+			update.setSeriesPaint(rrcDataCollection.indexOf(RRCState.LTE_DRX_LONG),
 					getTailPaint(fachOrange));
 
-			renderer.setSeriesPaint(rrcDataCollection.indexOf(RRCState.STATE_FACH), dchGreen);
-			renderer.setSeriesPaint(rrcDataCollection.indexOf(RRCState.TAIL_FACH),
+			update.setSeriesPaint(rrcDataCollection.indexOf(RRCState.STATE_FACH), dchGreen);
+			update.setSeriesPaint(rrcDataCollection.indexOf(RRCState.TAIL_FACH),
 					getTailPaint(dchGreen));
 
-			renderer.setSeriesPaint(rrcDataCollection.indexOf(RRCState.PROMO_FACH_DCH), Color.red);
+			update.setSeriesPaint(rrcDataCollection.indexOf(RRCState.PROMO_FACH_DCH), Color.red);
 
 			// Assign ToolTip to renderer
-			renderer.setBaseToolTipGenerator(new XYToolTipGenerator() {
+			update.setBaseToolTipGenerator(new XYToolTipGenerator() {
 				@Override
 				public String generateToolTip(XYDataset dataset, int series, int item) {
 					RRCState eventType = (RRCState) rrcDataCollection.getSeries(series).getKey();
@@ -2040,7 +2185,8 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 
 		}
 
-		plot.setDataset(rrcDataCollection);
+		update.setDataset(rrcDataCollection);
+		return update;
 	}
 
 	/**
@@ -2070,6 +2216,43 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 		return rrcStatesPlot;
 	}
 
+	/**
+	 * Creates a multi-resolution dataset that holds the items of the specified
+	 * series, in the order of the series.
+	 * 
+	 * @param series
+	 *            The XY series.
+	 * @return The dataset.
+	 */
+	private static MultiResolutionXYDataset createDataset(XYSeries series) {
+		int n = series.getItemCount();
+		double[] x = new double[n];
+		double[] y = new double[n];
+		for (int i = 0; i < n; ++i) {
+			x[i] = series.getX(i).doubleValue();
+			y[i] = series.getY(i).doubleValue();
+		}
+		MultiResolutionXYDataset result = new MultiResolutionXYDataset();
+		result.addSeries(series.getKey(), x, y);
+		return result;
+	}
+
+	/**
+	 * Selects the level of detail of the multi-resolution datasets of the
+	 * plots for the current width of the chart, so that about one item per
+	 * pixel is drawn.
+	 */
+	private void updateResolution() {
+		int width = getChartPanel().getWidth();
+		double xPerPixel = width > 0 ? this.axis.getRange().getLength() / width : 0;
+		for (GraphPanelPlotLabels subplot : subplotMap.values()) {
+			XYDataset dataset = subplot.getPlot().getDataset();
+			if (dataset instanceof MultiResolutionXYDataset) {
+				((MultiResolutionXYDataset) dataset).setResolution(xPerPixel);
+			}
+		}
+	}
+
 	/**
 	 * Creating DchTail and FachTail Cross Hatch
 	 * 
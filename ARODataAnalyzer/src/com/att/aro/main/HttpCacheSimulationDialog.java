@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.main;
+
+import java.awt.Window;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+
+import com.att.aro.commonui.MessageDialogFactory;
+import com.att.aro.model.HttpCacheSimulator;
+import com.att.aro.model.TraceData;
+
+/**
+ * Represents the HTTP Cache Simulation dialog that replays the cacheable
+ * requests of the current trace against client caches of limited capacity and
+ * displays the hit ratio, bytes saved and energy saved of each eviction policy
+ * and capacity.
+ */
+public class HttpCacheSimulationDialog extends
+		SimulationDialog<HttpCacheSimulator.Result> {
+	private static final long serialVersionUID = 1L;
+
+	private static final ResourceBundle rb = ResourceBundleManager
+			.getDefaultBundle();
+
+	private static final String DEFAULT_CAPACITIES = "1, 5, 10, 25, 50";
+	private static final long BYTES_PER_MB = 1024 * 1024;
+
+	private JTextField capacitiesField;
+
+	/**
+	 * Initializes a new instance of the HttpCacheSimulationDialog class.
+	 *
+	 * @param owner
+	 *            The owner window.
+	 * @param analysisData
+	 *            The analysis of the trace to be simulated.
+	 */
+	public HttpCacheSimulationDialog(Window owner,
+			TraceData.Analysis analysisData) {
+		super(owner, analysisData, new HttpCacheSimulationTableModel());
+		initialize();
+	}
+
+	/**
+	 * Initializes the dialog.
+	 */
+	private void initialize() {
+		capacitiesField = new JTextField(DEFAULT_CAPACITIES, 20);
+		JPanel capacitiesPanel = new JPanel();
+		capacitiesPanel.add(new JLabel(rb.getString("cachesim.capacities")));
+		capacitiesPanel.add(capacitiesField);
+		initialize(rb.getString("cachesim.title"), capacitiesPanel);
+	}
+
+	/**
+	 * Reads the cache capacities and creates the simulation.
+	 *
+	 * @see com.att.aro.main.SimulationDialog#createSimulation()
+	 */
+	@Override
+	protected Callable<List<HttpCacheSimulator.Result>> createSimulation() {
+		final long[] capacities;
+		try {
+			String[] values = capacitiesField.getText().split(",");
+			capacities = new long[values.length];
+			for (int i = 0; i < values.length; ++i) {
+				double mb = Double.parseDouble(values[i].trim());
+				if (mb <= 0.0) {
+					throw new NumberFormatException();
+				}
+				capacities[i] = (long) (mb * BYTES_PER_MB);
+			}
+		} catch (NumberFormatException e) {
+			MessageDialogFactory.showErrorDialog(this,
+					rb.getString("cachesim.capacityError"));
+			return null;
+		}
+
+		final HttpCacheSimulator simulator = new HttpCacheSimulator(
+				getAnalysisData().getCacheAnalysis(),
+				getAnalysisData().getRrcStateMachine());
+		return new Callable<List<HttpCacheSimulator.Result>>() {
+			@Override
+			public List<HttpCacheSimulator.Result> call() {
+				return simulator.run(capacities);
+			}
+		};
+	}
+
+	/**
+	 * @see com.att.aro.main.SimulationDialog#getProgressMessage()
+	 */
+	@Override
+	protected String getProgressMessage() {
+		return rb.getString("cachesim.progress");
+	}
+}
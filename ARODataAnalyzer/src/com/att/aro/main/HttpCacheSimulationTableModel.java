@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.main;
+
+import java.text.DecimalFormat;
+import java.util.ResourceBundle;
+
+import javax.swing.table.TableColumnModel;
+
+import com.att.aro.commonui.DataTableModel;
+import com.att.aro.commonui.NumberFormatRenderer;
+import com.att.aro.model.HttpCacheSimulator;
+
+/**
+ * Represents the data table model for the results of an HTTP cache
+ * simulation. Each row holds the eviction policy and capacity of one simulated
+ * cache and the hit ratio, bytes saved and energy saved by it.
+ */
+public class HttpCacheSimulationTableModel extends
+		DataTableModel<HttpCacheSimulator.Result> {
+	private static final long serialVersionUID = 1L;
+
+	private static final int POLICY_COL = 0;
+	private static final int CAPACITY_COL = 1;
+	private static final int HITS_COL = 2;
+	private static final int HIT_RATIO_COL = 3;
+	private static final int BYTES_COL = 4;
+	private static final int ENERGY_COL = 5;
+	private static final double BYTES_PER_MB = 1024 * 1024;
+	private static final ResourceBundle rb = ResourceBundleManager
+			.getDefaultBundle();
+	private static final String[] columns = { rb.getString("cachesim.policy"),
+			rb.getString("cachesim.capacity"), rb.getString("cachesim.hits"),
+			rb.getString("cachesim.hitRatio"),
+			rb.getString("cachesim.bytesSaved"),
+			rb.getString("cachesim.energySaved") };
+
+	/**
+	 * Initializes a new instance of the HttpCacheSimulationTableModel class.
+	 */
+	public HttpCacheSimulationTableModel() {
+		super(columns);
+	}
+
+	/**
+	 * Returns a class representing the specified column. This method is
+	 * primarily used to sort numeric columns.
+	 *
+	 * @param columnIndex
+	 *            The index of the specified column.
+	 *
+	 * @return A class representing the specified column.
+	 */
+	@Override
+	public Class<?> getColumnClass(int columnIndex) {
+		switch (columnIndex) {
+		case CAPACITY_COL:
+		case HIT_RATIO_COL:
+		case ENERGY_COL:
+			return Double.class;
+		case HITS_COL:
+			return Integer.class;
+		case BYTES_COL:
+			return Long.class;
+		default:
+			return super.getColumnClass(columnIndex);
+		}
+	}
+
+	/**
+	 * Returns a TableColumnModel that is based on the default table column
+	 * model for the DataTableModel class, with number renderers for the
+	 * result columns.
+	 *
+	 * @return A TableColumnModel object.
+	 */
+	@Override
+	public TableColumnModel createDefaultTableColumnModel() {
+		TableColumnModel cols = super.createDefaultTableColumnModel();
+		NumberFormatRenderer renderer = new NumberFormatRenderer(
+				new DecimalFormat("0.00"));
+		cols.getColumn(CAPACITY_COL).setCellRenderer(renderer);
+		cols.getColumn(HIT_RATIO_COL).setCellRenderer(renderer);
+		cols.getColumn(ENERGY_COL).setCellRenderer(renderer);
+		return cols;
+	}
+
+	/**
+	 * Defines how the data object managed by this table model is mapped to its
+	 * columns when displayed in a row of the table.
+	 *
+	 * @param item
+	 *            An object containing the column information.
+	 * @param columnIndex
+	 *            The index of the specified column.
+	 *
+	 * @return The table column value calculated for the object.
+	 */
+	@Override
+	protected Object getColumnValue(HttpCacheSimulator.Result item,
+			int columnIndex) {
+		switch (columnIndex) {
+		case POLICY_COL:
+			return ResourceBundleManager.getEnumString(item.getPolicy());
+		case CAPACITY_COL:
+			return item.getCapacity() / BYTES_PER_MB;
+		case HITS_COL:
+			return item.getHitCount();
+		case HIT_RATIO_COL:
+			return item.getHitRatio() * 100.0;
+		case BYTES_COL:
+			return item.getBytesSaved();
+		case ENERGY_COL:
+			return item.getEnergySaved();
+		default:
+			return null;
+		}
+	}
+}
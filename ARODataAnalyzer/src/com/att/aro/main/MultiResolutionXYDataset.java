@@ -0,0 +1,387 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jfree.data.DomainOrder;
+import org.jfree.data.xy.AbstractIntervalXYDataset;
+
+/**
+ * An XY interval dataset that holds each of its series at several levels of
+ * detail. Every level divides the x range of a series into buckets of equal
+ * width, twice as wide as those of the level below, and keeps only the items
+ * with the lowest start y value and the highest end y value in each bucket. A
+ * line through the kept items has the same envelope as a line through all of
+ * the items, so the chart looks the same while drawing far fewer items.
+ *
+ * The dataset shows the coarsest level whose buckets are no wider than one
+ * pixel at the current resolution, and full detail once the chart is zoomed
+ * in far enough. The items of each series must be in ascending x order.
+ */
+class MultiResolutionXYDataset extends AbstractIntervalXYDataset {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The finest level divides the x range of a series into 2 to the power of
+	 * this value buckets, which is more than the widest chart can show.
+	 */
+	private static final int FINEST_LEVEL_BITS = 17;
+
+	/**
+	 * A series and its levels of detail.
+	 */
+	private static class Series {
+		private Comparable<?> key;
+		private double[] x;
+		private double[] y;
+		private double[] startY;
+		private double[] endY;
+
+		// Bucket widths in ascending order and the item indexes of each level
+		private List<Double> levelWidths = new ArrayList<Double>();
+		private List<int[]> levelItems = new ArrayList<int[]>();
+
+		// Item indexes of the displayed level, or null for full detail
+		private int[] items;
+
+		private int getItemCount() {
+			return items != null ? items.length : x.length;
+		}
+
+		private int getSourceIndex(int item) {
+			return items != null ? items[item] : item;
+		}
+	}
+
+	private List<Series> seriesList = new ArrayList<Series>();
+	private double xPerPixel;
+
+	/**
+	 * Adds a series of XY items.
+	 *
+	 * @param key
+	 *            The series key.
+	 * @param x
+	 *            The x values in ascending order.
+	 * @param y
+	 *            The y values.
+	 */
+	public void addSeries(Comparable<?> key, double[] x, double[] y) {
+		addSeries(key, x, y, y, y);
+	}
+
+	/**
+	 * Adds a series of XY items with a y interval.
+	 *
+	 * @param key
+	 *            The series key.
+	 * @param x
+	 *            The x values in ascending order.
+	 * @param y
+	 *            The y values.
+	 * @param startY
+	 *            The start y values of the intervals.
+	 * @param endY
+	 *            The end y values of the intervals.
+	 */
+	public void addSeries(Comparable<?> key, double[] x, double[] y,
+			double[] startY, double[] endY) {
+		Series series = new Series();
+		series.key = key;
+		series.x = x;
+		series.y = y;
+		series.startY = startY;
+		series.endY = endY;
+		buildLevels(series);
+		series.items = getLevelItems(series, xPerPixel);
+		seriesList.add(series);
+		fireDatasetChanged();
+	}
+
+	/**
+	 * Sets the resolution at which the dataset is drawn, and selects the
+	 * matching level of detail for each series. Listeners are only notified
+	 * when the displayed items change.
+	 *
+	 * @param xPerPixel
+	 *            The width of one pixel in x units, or 0 for full detail.
+	 */
+	public void setResolution(double xPerPixel) {
+		this.xPerPixel = xPerPixel;
+		boolean changed = false;
+		for (Series series : seriesList) {
+			int[] items = getLevelItems(series, xPerPixel);
+			if (items != series.items) {
+				series.items = items;
+				changed = true;
+			}
+		}
+		if (changed) {
+			fireDatasetChanged();
+		}
+	}
+
+	/**
+	 * Returns the index that an item of the displayed level has in the full
+	 * series, as it was added to the dataset.
+	 *
+	 * @param series
+	 *            The series index.
+	 * @param item
+	 *            The item index in the displayed level.
+	 * @return The item index in the full series.
+	 */
+	public int getSourceIndex(int series, int item) {
+		return seriesList.get(series).getSourceIndex(item);
+	}
+
+	/**
+	 * @see org.jfree.data.general.AbstractSeriesDataset#getSeriesCount()
+	 */
+	@Override
+	public int getSeriesCount() {
+		return seriesList.size();
+	}
+
+	/**
+	 * @see org.jfree.data.general.AbstractSeriesDataset#getSeriesKey(int)
+	 */
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Comparable getSeriesKey(int series) {
+		return seriesList.get(series).key;
+	}
+
+	/**
+	 * Items are kept in ascending x order, which lets the renderers skip the
+	 * items outside of the visible domain.
+	 *
+	 * @see org.jfree.data.xy.AbstractXYDataset#getDomainOrder()
+	 */
+	@Override
+	public DomainOrder getDomainOrder() {
+		return DomainOrder.ASCENDING;
+	}
+
+	/**
+	 * @see org.jfree.data.xy.XYDataset#getItemCount(int)
+	 */
+	@Override
+	public int getItemCount(int series) {
+		return seriesList.get(series).getItemCount();
+	}
+
+	/**
+	 * @see org.jfree.data.xy.XYDataset#getX(int, int)
+	 */
+	@Override
+	public Number getX(int series, int item) {
+		return getXValue(series, item);
+	}
+
+	/**
+	 * @see org.jfree.data.xy.AbstractXYDataset#getXValue(int, int)
+	 */
+	@Override
+	public double getXValue(int series, int item) {
+		Series s = seriesList.get(series);
+		return s.x[s.getSourceIndex(item)];
+	}
+
+	/**
+	 * @see org.jfree.data.xy.XYDataset#getY(int, int)
+	 */
+	@Override
+	public Number getY(int series, int item) {
+		return getYValue(series, item);
+	}
+
+	/**
+	 * @see org.jfree.data.xy.AbstractXYDataset#getYValue(int, int)
+	 */
+	@Override
+	public double getYValue(int series, int item) {
+		Series s = seriesList.get(series);
+		return s.y[s.getSourceIndex(item)];
+	}
+
+	/**
+	 * @see org.jfree.data.xy.IntervalXYDataset#getStartX(int, int)
+	 */
+	@Override
+	public Number getStartX(int series, int item) {
+		return getXValue(series, item);
+	}
+
+	/**
+	 * @see org.jfree.data.xy.IntervalXYDataset#getEndX(int, int)
+	 */
+	@Override
+	public Number getEndX(int series, int item) {
+		return getXValue(series, item);
+	}
+
+	/**
+	 * @see org.jfree.data.xy.IntervalXYDataset#getStartY(int, int)
+	 */
+	@Override
+	public Number getStartY(int series, int item) {
+		return getStartYValue(series, item);
+	}
+
+	/**
+	 * @see org.jfree.data.xy.AbstractIntervalXYDataset#getStartYValue(int,
+	 *      int)
+	 */
+	@Override
+	public double getStartYValue(int series, int item) {
+		Series s = seriesList.get(series);
+		return s.startY[s.getSourceIndex(item)];
+	}
+
+	/**
+	 * @see org.jfree.data.xy.IntervalXYDataset#getEndY(int, int)
+	 */
+	@Override
+	public Number getEndY(int series, int item) {
+		return getEndYValue(series, item);
+	}
+
+	/**
+	 * @see org.jfree.data.xy.AbstractIntervalXYDataset#getEndYValue(int,
+	 *      int)
+	 */
+	@Override
+	public double getEndYValue(int series, int item) {
+		Series s = seriesList.get(series);
+		return s.endY[s.getSourceIndex(item)];
+	}
+
+	/**
+	 * Returns the item indexes of the coarsest level whose buckets are no
+	 * wider than the specified pixel width, or null for full detail.
+	 */
+	private static int[] getLevelItems(Series series, double xPerPixel) {
+		int[] result = null;
+		for (int i = 0; i < series.levelWidths.size()
+				&& series.levelWidths.get(i) <= xPerPixel; ++i) {
+			result = series.levelItems.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Builds the levels of detail of a series. Each level is merged from the
+	 * buckets of the level below, and is only kept when it holds at most half
+	 * as many items as the last level kept, which bounds the memory used by
+	 * all levels to the size of the series.
+	 */
+	private static void buildLevels(Series series) {
+		int n = series.x.length;
+		if (n < 2) {
+			return;
+		}
+		double x0 = series.x[0];
+		double span = series.x[n - 1] - x0;
+		if (span <= 0) {
+			return;
+		}
+
+		// Buckets of the finest level, in ascending order
+		int maxBucket = (1 << FINEST_LEVEL_BITS) - 1;
+		double width = span / (maxBucket + 1);
+		int[] buckets = new int[n];
+		int[] minItems = new int[n];
+		int[] maxItems = new int[n];
+		int count = 0;
+		for (int i = 0; i < n; ++i) {
+			int bucket = Math.min((int) ((series.x[i] - x0) / width), maxBucket);
+			if (count > 0 && buckets[count - 1] == bucket) {
+				mergeItem(series, minItems, maxItems, count - 1, i, i);
+			} else {
+				buckets[count] = bucket;
+				minItems[count] = i;
+				maxItems[count] = i;
+				++count;
+			}
+		}
+
+		int lastKept = n;
+		for (int level = 1; level <= FINEST_LEVEL_BITS; ++level) {
+			if (level > 1) {
+
+				// Merge pairs of buckets into the buckets of the next level
+				width *= 2;
+				int merged = 0;
+				for (int i = 0; i < count; ++i) {
+					int bucket = buckets[i] >> 1;
+					if (merged > 0 && buckets[merged - 1] == bucket) {
+						mergeItem(series, minItems, maxItems, merged - 1,
+								minItems[i], maxItems[i]);
+					} else {
+						buckets[merged] = bucket;
+						minItems[merged] = minItems[i];
+						maxItems[merged] = maxItems[i];
+						++merged;
+					}
+				}
+				count = merged;
+			}
+
+			int[] items = getBucketItems(minItems, maxItems, count);
+			if (items.length * 2 <= lastKept) {
+				series.levelWidths.add(width);
+				series.levelItems.add(items);
+				lastKept = items.length;
+			}
+		}
+	}
+
+	/**
+	 * Merges the lowest and highest items of another bucket into a bucket.
+	 */
+	private static void mergeItem(Series series, int[] minItems,
+			int[] maxItems, int bucket, int minItem, int maxItem) {
+		if (series.startY[minItem] < series.startY[minItems[bucket]]) {
+			minItems[bucket] = minItem;
+		}
+		if (series.endY[maxItem] > series.endY[maxItems[bucket]]) {
+			maxItems[bucket] = maxItem;
+		}
+	}
+
+	/**
+	 * Returns the lowest and highest item of each bucket in ascending order.
+	 */
+	private static int[] getBucketItems(int[] minItems, int[] maxItems,
+			int count) {
+		int[] result = new int[count * 2];
+		int size = 0;
+		for (int i = 0; i < count; ++i) {
+			int first = Math.min(minItems[i], maxItems[i]);
+			int second = Math.max(minItems[i], maxItems[i]);
+			result[size++] = first;
+			if (second != first) {
+				result[size++] = second;
+			}
+		}
+		int[] items = new int[size];
+		System.arraycopy(result, 0, items, 0, size);
+		return items;
+	}
+}
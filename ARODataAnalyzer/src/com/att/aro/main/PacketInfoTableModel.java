@@ -17,6 +17,7 @@
 package com.att.aro.main;
 
 import java.text.DecimalFormat;
+import java.util.Collection;
 import java.util.ResourceBundle;
 
 import javax.swing.table.TableColumn;
@@ -24,6 +25,7 @@ import javax.swing.table.TableColumnModel;
 
 import com.att.aro.commonui.DataTableModel;
 import com.att.aro.commonui.NumberFormatRenderer;
+import com.att.aro.model.PacketAnnotations;
 import com.att.aro.model.PacketInfo;
 
 /**
@@ -45,6 +47,8 @@ public class PacketInfoTableModel extends DataTableModel<PacketInfo> {
 	private static final int PAYLOAD_COL = 4;
 	private static final int FLAGS_COL = 5;
 
+	private PacketAnnotations annotations;
+
 	/**
 	 * Initializes a new instance of the PacketInfoTableModel class.
 	 */
@@ -52,6 +56,21 @@ public class PacketInfoTableModel extends DataTableModel<PacketInfo> {
 		super(columns);
 	}
 
+	/**
+	 * Sets the packets to be displayed in the table, along with the packet
+	 * annotations of the trace analysis that they belong to.
+	 * 
+	 * @param data
+	 *            The packets to be displayed in the table.
+	 * @param annotations
+	 *            The packet annotations of the trace analysis.
+	 */
+	public synchronized void setData(Collection<PacketInfo> data,
+			PacketAnnotations annotations) {
+		this.annotations = annotations;
+		setData(data);
+	}
+
 	/**
 	 * Returns a TableColumnModel that is based on the default table column
 	 * model for the DataTableModel class. The TableColumnModel returned by this
@@ -99,7 +118,8 @@ public class PacketInfoTableModel extends DataTableModel<PacketInfo> {
 		case DIR_COL:
 			return item.getDir();
 		case TYPE_COL:
-			return ResourceBundleManager.getEnumString(item.getTcpInfo());
+			return annotations != null ? ResourceBundleManager
+					.getEnumString(annotations.getTcpInfo(item)) : null;
 		case PAYLOAD_COL:
 			return item.getPacket().getPayloadLen();
 		case FLAGS_COL:
@@ -27,6 +27,7 @@ import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
 import java.text.MessageFormat;
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ResourceBundle;
@@ -41,18 +42,15 @@ import org.jfree.chart.plot.CrosshairState;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.plot.PlotRenderingInfo;
 import org.jfree.chart.plot.XYPlot;
-import org.jfree.chart.renderer.xy.XYItemRenderer;
 import org.jfree.chart.renderer.xy.XYItemRendererState;
 import org.jfree.chart.renderer.xy.YIntervalRenderer;
 import org.jfree.data.xy.IntervalXYDataset;
 import org.jfree.data.xy.XYDataset;
-import org.jfree.data.xy.YIntervalDataItem;
-import org.jfree.data.xy.YIntervalSeries;
-import org.jfree.data.xy.YIntervalSeriesCollection;
 import org.jfree.ui.RectangleEdge;
 
 import com.att.aro.model.AnalysisFilter;
 import com.att.aro.model.HttpRequestResponseInfo;
+import com.att.aro.model.PacketAnnotations;
 import com.att.aro.model.PacketInfo;
 import com.att.aro.model.TCPSession;
 import com.att.aro.model.TraceData;
@@ -63,112 +61,28 @@ import com.att.aro.model.TraceData;
  */
 public class PacketPlots {
 
-	/**
-	 * Data item that stores the packet so it is available for tooltips
-	 */
-	private static class PacketDataItem extends YIntervalDataItem {
-		private static final long serialVersionUID = 1L;
-
-		private static final ResourceBundle rb = ResourceBundleManager
-				.getDefaultBundle();
-		private static final String TOOLTIP_PREFIX = rb
-				.getString("packet.tooltip.prefix");
-		private static final String PACKET_TOOLTIP = rb
-				.getString("packet.tooltip.packet");
-		private static final String SESSION_TOOLTIP = rb
-				.getString("packet.tooltip.session");
-		private static final String RR_TOOLTIP = rb
-				.getString("packet.tooltip.reqresp");
-		private static final String TOOLTIP_SUFFIX = rb
-				.getString("packet.tooltip.suffix");
-
-		private String tooltip;
-
-		/**
-		 * Initializes a new instance of the PacketPlots class.
-		 * 
-		 * @param packet
-		 *            The PacketInfo instance containing the the various
-		 *            informations about the packet to be plotted.
-		 */
-		public PacketDataItem(PacketInfo packet) {
-			super(packet.getTimeStamp(), 0, 0, 1);
-
-			// Build tooltip message
-			StringBuffer displayInfo = new StringBuffer(TOOLTIP_PREFIX);
-
-			// Packet info for tooltip
-			displayInfo.append(MessageFormat.format(PACKET_TOOLTIP,
-					packet.getId(), packet.getTimeStamp(),
-					checkNull(packet.getAppName())));
-
-			// Session info for tooltip
-			TCPSession session = packet.getSession();
-			if (session != null) {
-				List<PacketInfo> packets = session.getPackets();
-				double beginTime = packets.get(0).getTimeStamp();
-				double endTime = packets.get(packets.size() - 1).getTimeStamp();
-
-				displayInfo.append(MessageFormat.format(SESSION_TOOLTIP,
-						beginTime, endTime, session.getRemoteIP()
-								.getHostAddress(),
-						new Integer(session.getRemotePort()).toString(),
-						new Integer(session.getLocalPort()).toString()));
-			}
-
-			// Request/response info for tooltip
-			HttpRequestResponseInfo httpRequestResponse = packet
-					.getRequestResponseInfo();
-			if (httpRequestResponse != null) {
-				HttpRequestResponseInfo req;
-				HttpRequestResponseInfo resp;
-				if (httpRequestResponse.getDirection() == HttpRequestResponseInfo.Direction.REQUEST) {
-					req = httpRequestResponse;
-					resp = httpRequestResponse.getAssocReqResp();
-				} else {
-					req = httpRequestResponse.getAssocReqResp();
-					resp = httpRequestResponse;
-				}
-
-				String objName = req != null ? req.getObjNameWithoutParams()
-						: null;
-				String length = resp != null ? NumberFormat
-						.getIntegerInstance().format(resp.getContentLength())
-						: null;
-				String type = resp != null ? resp.getContentType() : null;
-
-				displayInfo
-						.append(MessageFormat.format(RR_TOOLTIP,
-								checkNull(objName), checkNull(length),
-								checkNull(type)));
-			}
-
-			displayInfo.append(TOOLTIP_SUFFIX);
-			this.tooltip = displayInfo.toString();
-		}
-
-		/**
-		 * Returns the tooltip text for the plot.
-		 * 
-		 * @return The tooltip text for the plot.
-		 */
-		public String getTooltip() {
-			return tooltip;
-		}
-
-	}
+	private static final ResourceBundle rb = ResourceBundleManager
+			.getDefaultBundle();
+	private static final String TOOLTIP_PREFIX = rb
+			.getString("packet.tooltip.prefix");
+	private static final String PACKET_TOOLTIP = rb
+			.getString("packet.tooltip.packet");
+	private static final String SESSION_TOOLTIP = rb
+			.getString("packet.tooltip.session");
+	private static final String RR_TOOLTIP = rb
+			.getString("packet.tooltip.reqresp");
+	private static final String TOOLTIP_SUFFIX = rb
+			.getString("packet.tooltip.suffix");
 
 	/**
 	 * Used to represent a series of packets which is all packets related to a
 	 * single application.
 	 */
-	private class PacketSeries extends YIntervalSeries {
-		private static final long serialVersionUID = 1L;
-
+	private static class PacketSeries {
 		private Color color;
-		
+		private List<PacketInfo> packets = new ArrayList<PacketInfo>();
+
 		public PacketSeries(Color color) {
-			super(color.getRGB(), false, true);
 			this.color = color;
 		}
 
@@ -179,31 +93,37 @@ public class PacketPlots {
 			return color;
 		}
 
-		public void add(PacketDataItem item) {
-			super.add(item, true);
-		}
-
 		/**
-		 * @see org.jfree.data.xy.YIntervalSeries#getDataItem(int)
+		 * @return the packets in the series
 		 */
-		@Override
-		public PacketDataItem getDataItem(int index) {
-			return (PacketDataItem) super.getDataItem(index);
+		public List<PacketInfo> getPackets() {
+			return packets;
 		}
 
 	}
 
 	/**
-	 * Tooltip generator for a hovered packet
+	 * Tooltip generator for a hovered packet. Tooltips are built when they are
+	 * requested, since only a few of the packets are ever hovered.
 	 */
-	private class PacketToolTipGenerator implements XYToolTipGenerator {
+	private static class PacketToolTipGenerator implements XYToolTipGenerator {
+
+		private List<PacketSeries> seriesList;
+		private PacketAnnotations annotations;
+
+		public PacketToolTipGenerator(List<PacketSeries> seriesList,
+				PacketAnnotations annotations) {
+			this.seriesList = seriesList;
+			this.annotations = annotations;
+		}
 
 		@Override
 		public String generateToolTip(XYDataset dataset, int series, int item) {
 
-			PacketSeries pSeries = (PacketSeries) ((YIntervalSeriesCollection) dataset)
-					.getSeries(series);
-			return pSeries.getDataItem(item).getTooltip();
+			int index = ((MultiResolutionXYDataset) dataset).getSourceIndex(
+					series, item);
+			return getTooltip(seriesList.get(series).getPackets().get(index),
+					annotations);
 		}
 
 	}
@@ -222,13 +142,15 @@ public class PacketPlots {
 	}
 
 	/**
-	 * Creates the plot for the uplink and downlink packets using the specified
-	 * trace analysis data.
+	 * Creates the updates of the plots for the uplink and downlink packets
+	 * using the specified trace analysis data. This method may be called on
+	 * any thread; the updates must be applied on the event dispatch thread.
 	 * 
 	 * @param analysis
 	 *            - The trace analysis data.
+	 * @return The updates of the downlink and uplink plots.
 	 */
-	public void populatePacketPlots(TraceData.Analysis analysis) {
+	List<PlotDatasetUpdate> createPacketPlotUpdates(TraceData.Analysis analysis) {
 
 		LinkedHashMap<Color, PacketSeries> ulDatasets = new LinkedHashMap<Color, PacketSeries>();
 		LinkedHashMap<Color, PacketSeries> dlDatasets = new LinkedHashMap<Color, PacketSeries>();
@@ -260,13 +182,17 @@ public class PacketPlots {
 					series = new PacketSeries(color);
 					datasets.put(color, series);
 				}
-				series.add(new PacketDataItem(packet));
+				series.getPackets().add(packet);
 
 			}
 		}
 
-		populatePacketPlot(dlPlot, dlDatasets);
-		populatePacketPlot(ulPlot, ulDatasets);
+		PacketAnnotations annotations = analysis != null ? analysis
+				.getPacketAnnotations() : null;
+		List<PlotDatasetUpdate> result = new ArrayList<PlotDatasetUpdate>(2);
+		result.add(createPacketPlotUpdate(dlPlot, dlDatasets, annotations));
+		result.add(createPacketPlotUpdate(ulPlot, ulDatasets, annotations));
+		return result;
 	}
 
 	/**
@@ -291,31 +217,113 @@ public class PacketPlots {
 	}
 
 	/**
-	 * Creates the XYIntervalSeries for the uplink and downlink packets plot.
+	 * Creates the update with the multi-resolution dataset for the uplink and downlink packets
+	 * plot. Each packet is drawn as a vertical line, so only one packet per
+	 * pixel is drawn at the lower levels of detail.
 	 * 
 	 * @param plot
 	 *            The XYPlot for the uplink/downlink plots.
-	 * @param filter
-	 *            The filter settings for the analysis
 	 * @param dataset
 	 *            The uplink/downlink datasets.
+	 * @param annotations
+	 *            The packet annotations of the trace analysis.
+	 * @return The update of the plot.
 	 */
-	private void populatePacketPlot(XYPlot plot,
-			LinkedHashMap<Color, PacketSeries> dataset) {
+	private PlotDatasetUpdate createPacketPlotUpdate(XYPlot plot,
+			LinkedHashMap<Color, PacketSeries> dataset,
+			PacketAnnotations annotations) {
 
 		// Create the XY data set
-		YIntervalSeriesCollection coll = new YIntervalSeriesCollection();
-		XYItemRenderer renderer = plot.getRenderer();
-		for (PacketSeries series : dataset.values()) {
-			coll.addSeries(series);
+		PlotDatasetUpdate update = new PlotDatasetUpdate(plot);
+		MultiResolutionXYDataset coll = new MultiResolutionXYDataset();
+		List<PacketSeries> seriesList = new ArrayList<PacketSeries>(
+				dataset.values());
+		for (PacketSeries series : seriesList) {
+			List<PacketInfo> packets = series.getPackets();
+			int n = packets.size();
+			double[] x = new double[n];
+			double[] low = new double[n];
+			double[] high = new double[n];
+			for (int i = 0; i < n; ++i) {
+				x[i] = packets.get(i).getTimeStamp();
+				high[i] = 1;
+			}
+			coll.addSeries(series.getColor().getRGB(), x, low, low, high);
 
-			renderer.setSeriesPaint(coll.indexOf(series.getKey()), series.getColor());
+			update.setSeriesPaint(coll.getSeriesCount() - 1, series.getColor());
 		}
 
 		// Create tooltip generator
-		renderer.setBaseToolTipGenerator(new PacketToolTipGenerator());
+		update.setBaseToolTipGenerator(new PacketToolTipGenerator(
+				seriesList, annotations));
+
+		update.setDataset(coll);
+		return update;
+	}
+
+	/**
+	 * Builds the tooltip text for a packet.
+	 * 
+	 * @param packet
+	 *            The packet.
+	 * @param annotations
+	 *            The packet annotations of the trace analysis.
+	 * @return The tooltip text.
+	 */
+	private static String getTooltip(PacketInfo packet,
+			PacketAnnotations annotations) {
+
+		// Build tooltip message
+		StringBuffer displayInfo = new StringBuffer(TOOLTIP_PREFIX);
+
+		// Packet info for tooltip
+		displayInfo.append(MessageFormat.format(PACKET_TOOLTIP,
+				packet.getId(), packet.getTimeStamp(),
+				checkNull(packet.getAppName())));
+
+		// Session info for tooltip
+		TCPSession session = annotations.getSession(packet);
+		if (session != null) {
+			List<PacketInfo> packets = session.getPackets();
+			double beginTime = packets.get(0).getTimeStamp();
+			double endTime = packets.get(packets.size() - 1).getTimeStamp();
+
+			displayInfo.append(MessageFormat.format(SESSION_TOOLTIP,
+					beginTime, endTime, session.getRemoteIP()
+							.getHostAddress(),
+					new Integer(session.getRemotePort()).toString(),
+					new Integer(session.getLocalPort()).toString()));
+		}
+
+		// Request/response info for tooltip
+		HttpRequestResponseInfo httpRequestResponse = annotations
+				.getRequestResponseInfo(packet);
+		if (httpRequestResponse != null) {
+			HttpRequestResponseInfo req;
+			HttpRequestResponseInfo resp;
+			if (httpRequestResponse.getDirection() == HttpRequestResponseInfo.Direction.REQUEST) {
+				req = httpRequestResponse;
+				resp = httpRequestResponse.getAssocReqResp();
+			} else {
+				req = httpRequestResponse.getAssocReqResp();
+				resp = httpRequestResponse;
+			}
+
+			String objName = req != null ? req.getObjNameWithoutParams()
+					: null;
+			String length = resp != null ? NumberFormat
+					.getIntegerInstance().format(resp.getContentLength())
+					: null;
+			String type = resp != null ? resp.getContentType() : null;
+
+			displayInfo
+					.append(MessageFormat.format(RR_TOOLTIP,
+							checkNull(objName), checkNull(length),
+							checkNull(type)));
+		}
 
-		plot.setDataset(coll);
+		displayInfo.append(TOOLTIP_SUFFIX);
+		return displayInfo.toString();
 	}
 
 	/**
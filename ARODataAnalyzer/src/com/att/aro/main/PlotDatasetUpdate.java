@@ -0,0 +1,97 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.main;
+
+import java.awt.Paint;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jfree.chart.labels.XYToolTipGenerator;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYItemRenderer;
+import org.jfree.data.xy.XYDataset;
+
+/**
+ * Collects the new dataset of a plot, along with the series paints and tooltip
+ * generator of its renderer. An update may be built on any thread, since it
+ * does not touch the plot until it is applied on the event dispatch thread.
+ */
+class PlotDatasetUpdate {
+
+	private XYPlot plot;
+	private XYDataset dataset;
+	private XYToolTipGenerator toolTipGenerator;
+	private Map<Integer, Paint> seriesPaints = new LinkedHashMap<Integer, Paint>();
+
+	/**
+	 * Initializes an instance of the PlotDatasetUpdate class for the specified
+	 * plot.
+	 *
+	 * @param plot
+	 *            The plot to be updated.
+	 */
+	PlotDatasetUpdate(XYPlot plot) {
+		this.plot = plot;
+	}
+
+	/**
+	 * Sets the dataset of the plot.
+	 *
+	 * @param dataset
+	 *            The new dataset.
+	 */
+	void setDataset(XYDataset dataset) {
+		this.dataset = dataset;
+	}
+
+	/**
+	 * Sets the paint of a series of the plot renderer.
+	 *
+	 * @param series
+	 *            The series index.
+	 * @param paint
+	 *            The paint.
+	 */
+	void setSeriesPaint(int series, Paint paint) {
+		seriesPaints.put(series, paint);
+	}
+
+	/**
+	 * Sets the base tooltip generator of the plot renderer. The tooltip
+	 * generator is left unchanged if this method is not called.
+	 *
+	 * @param toolTipGenerator
+	 *            The tooltip generator.
+	 */
+	void setBaseToolTipGenerator(XYToolTipGenerator toolTipGenerator) {
+		this.toolTipGenerator = toolTipGenerator;
+	}
+
+	/**
+	 * Applies the update to the plot. This method must be called on the event
+	 * dispatch thread.
+	 */
+	void apply() {
+		XYItemRenderer renderer = plot.getRenderer();
+		for (Map.Entry<Integer, Paint> entry : seriesPaints.entrySet()) {
+			renderer.setSeriesPaint(entry.getKey(), entry.getValue());
+		}
+		if (toolTipGenerator != null) {
+			renderer.setBaseToolTipGenerator(toolTipGenerator);
+		}
+		plot.setDataset(dataset);
+	}
+}
@@ -0,0 +1,270 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.main;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.att.aro.model.AnalysisFilter;
+import com.att.aro.model.Profile;
+import com.att.aro.model.TraceData;
+
+/**
+ * Holds the analyses of one trace and analysis filter for a bounded number of
+ * device profiles. Analyses for profiles that the user is likely to switch to
+ * are computed speculatively on low priority background threads, so that a
+ * profile switch only has to wait for an analysis that is not already in the
+ * cache.
+ *
+ * Profiles are identified by their property values, so an edited profile is
+ * never matched with an analysis of its previous values. When the cache is
+ * full, the least recently used analysis is dropped. A dropped analysis that
+ * has not started is never run. One that has started is left to finish for
+ * the callers that are waiting for it.
+ */
+class ProfileAnalysisCache {
+	private static final Logger logger = Logger
+			.getLogger(ProfileAnalysisCache.class.getName());
+
+	/**
+	 * The maximum number of analyses held by the cache.
+	 */
+	static final int MAX_ENTRIES = 4;
+
+	/**
+	 * The maximum number of speculative analyses. One entry of the cache is
+	 * kept for the analysis of the profile that is displayed.
+	 */
+	static final int MAX_SPECULATIVE_ENTRIES = MAX_ENTRIES - 1;
+
+	/**
+	 * An analysis task that records whether it has been started, either by a
+	 * background thread or by a caller that waits for its result.
+	 */
+	private static class AnalysisTask extends FutureTask<TraceData.Analysis> {
+		private volatile boolean started;
+
+		private AnalysisTask(Callable<TraceData.Analysis> callable) {
+			super(callable);
+		}
+
+		@Override
+		public void run() {
+			started = true;
+			super.run();
+		}
+	}
+
+	private TraceData traceData;
+	private AnalysisFilter filter;
+	private ExecutorService executor;
+	private Map<Properties, AnalysisTask> analyses = new LinkedHashMap<Properties, AnalysisTask>(
+			MAX_ENTRIES + 1, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<Properties, AnalysisTask> eldest) {
+			if (size() > MAX_ENTRIES) {
+
+				// A speculative analysis that has not started is never run.
+				// A started one may have callers waiting for it.
+				if (!eldest.getValue().started) {
+					eldest.getValue().cancel(false);
+				}
+				return true;
+			}
+			return false;
+		}
+	};
+
+	/**
+	 * Initializes an instance of the ProfileAnalysisCache class for the
+	 * specified trace and analysis filter.
+	 *
+	 * @param traceData
+	 *            The trace data to be analyzed.
+	 * @param filter
+	 *            The analysis filter, or null for the default filter.
+	 */
+	ProfileAnalysisCache(TraceData traceData, AnalysisFilter filter) {
+		this.traceData = traceData;
+		this.filter = filter != null ? new AnalysisFilter(filter) : null;
+
+		int threads = Math.max(1,
+				Runtime.getRuntime().availableProcessors() - 1);
+		this.executor = Executors.newFixedThreadPool(threads,
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "SpeculativeAnalysis");
+						thread.setDaemon(true);
+						thread.setPriority(Thread.MIN_PRIORITY);
+						return thread;
+					}
+				});
+	}
+
+	/**
+	 * Returns the trace data that this cache holds analyses of.
+	 *
+	 * @return The trace data.
+	 */
+	TraceData getTraceData() {
+		return traceData;
+	}
+
+	/**
+	 * Returns the copy of the analysis filter that this cache holds analyses
+	 * for. The cache may only be reused for a refresh with this same filter
+	 * object.
+	 *
+	 * @return The analysis filter, or null for the default filter.
+	 */
+	AnalysisFilter getFilter() {
+		return filter;
+	}
+
+	/**
+	 * Returns a value indicating whether the analysis for the specified
+	 * profile has been completed.
+	 *
+	 * @param profile
+	 *            The device profile.
+	 * @return true if the analysis can be returned without waiting.
+	 */
+	synchronized boolean isAnalysisDone(Profile profile) {
+		AnalysisTask task = analyses.get(profile
+				.getProperties());
+		return task != null && task.isDone() && !task.isCancelled();
+	}
+
+	/**
+	 * Returns the analysis for the specified profile. If the analysis is not
+	 * in the cache it is run on the calling thread. If a speculative analysis
+	 * for the profile is already running, its result is awaited instead. If
+	 * the analysis is cancelled while waiting because the cache is shut down,
+	 * it is run again.
+	 *
+	 * @param profile
+	 *            The device profile.
+	 * @return The trace analysis.
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	TraceData.Analysis getAnalysis(Profile profile) throws IOException,
+			InterruptedException {
+		while (true) {
+			AnalysisTask task;
+			synchronized (this) {
+				task = getTask(profile);
+			}
+
+			// Does nothing if the task has already been started by a worker
+			task.run();
+			try {
+				return task.get();
+			} catch (CancellationException e) {
+				logger.log(Level.FINE, "Analysis for profile " + profile.getName()
+						+ " cancelled, running it again");
+			} catch (ExecutionException e) {
+				synchronized (this) {
+					if (analyses.get(profile.getProperties()) == task) {
+						analyses.remove(profile.getProperties());
+					}
+				}
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				} else if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else {
+					throw new IllegalStateException(cause);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Queues speculative analyses for the specified profiles on the background
+	 * threads. Profiles that are already in the cache are skipped.
+	 *
+	 * @param profiles
+	 *            The device profiles, in order of priority. Only the first
+	 *            MAX_SPECULATIVE_ENTRIES profiles are used.
+	 */
+	synchronized void speculate(Collection<Profile> profiles) {
+		int count = 0;
+		for (Profile profile : profiles) {
+			if (count++ == MAX_SPECULATIVE_ENTRIES) {
+				break;
+			}
+			if (!analyses.containsKey(profile.getProperties())) {
+				executor.execute(getTask(profile));
+			}
+		}
+	}
+
+	/**
+	 * Stops the background threads and drops all of the analyses.
+	 */
+	synchronized void shutdown() {
+		for (AnalysisTask task : analyses.values()) {
+			task.cancel(false);
+		}
+		analyses.clear();
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Returns the cached task for a profile, creating it if needed. Must be
+	 * called while holding the lock on this object.
+	 */
+	private AnalysisTask getTask(final Profile profile) {
+		Properties key = profile.getProperties();
+		AnalysisTask task = analyses.get(key);
+		if (task == null || task.isCancelled()) {
+			task = new AnalysisTask(
+					new Callable<TraceData.Analysis>() {
+						@Override
+						public TraceData.Analysis call() throws IOException {
+							long start = System.currentTimeMillis();
+							TraceData.Analysis result = traceData.runAnalysis(
+									profile, filter);
+							logger.log(Level.FINE, "Analysis for profile "
+									+ profile.getName() + " took "
+									+ (System.currentTimeMillis() - start)
+									+ " ms");
+							return result;
+						}
+					});
+			analyses.put(key, task);
+		}
+		return task;
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.main;
+
+import java.awt.GridLayout;
+import java.awt.Window;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+
+import com.att.aro.commonui.MessageDialogFactory;
+import com.att.aro.model.Profile;
+import com.att.aro.model.Profile3G;
+import com.att.aro.model.ProfileLTE;
+import com.att.aro.model.RrcParameterSweep;
+import com.att.aro.model.TraceData;
+
+/**
+ * Represents the RRC Parameter Sweep dialog that simulates the RRC state
+ * machine of the current trace for ranges of device profile timer values and
+ * displays the energy, promotion count and tail ratio of every combination.
+ */
+public class RrcParameterSweepDialog extends
+		SimulationDialog<RrcParameterSweep.Result> {
+	private static final long serialVersionUID = 1L;
+
+	private static final ResourceBundle rb = ResourceBundleManager
+			.getDefaultBundle();
+
+	private static final String[] PARAMETERS_3G = { Profile3G.DCH_FACH_TIMER,
+			Profile3G.FACH_IDLE_TIMER, Profile3G.DCH_TIMER_RESET_WIN,
+			Profile3G.DCH_TIMER_RESET_SIZE, Profile3G.IDLE_DCH_PROMO_AVG,
+			Profile3G.FACH_DCH_PROMO_AVG };
+	private static final String[] LABELS_3G = {
+			"configuration.DCH_FACH_TIMER", "configuration.FACH_IDLE_TIMER",
+			"configuration.DCH_TIMER_RESET_WIN",
+			"configuration.DCH_TIMER_RESET_SIZE",
+			"configuration.IDLE_DCH_PROMO_AVG",
+			"configuration.FACH_DCH_PROMO_AVG" };
+	private static final String[] PARAMETERS_LTE = {
+			ProfileLTE.INACTIVITY_TIMER, ProfileLTE.T_SHORT_DRX,
+			ProfileLTE.T_LONG_DRX, ProfileLTE.T_PROMOTION };
+	private static final String[] LABELS_LTE = { "configuration.TI_DRX",
+			"configuration.TIS_DRX", "configuration.T_TAIL_DRX",
+			"configuration.T_PROMOTION" };
+
+	private String[] parameters;
+	@SuppressWarnings("rawtypes")
+	private JComboBox[] parameterCombos = new JComboBox[2];
+	private JTextField[] fromFields = new JTextField[2];
+	private JTextField[] toFields = new JTextField[2];
+	private JTextField[] stepFields = new JTextField[2];
+
+	/**
+	 * Initializes a new instance of the RrcParameterSweepDialog class.
+	 *
+	 * @param owner
+	 *            The owner window.
+	 * @param analysisData
+	 *            The analysis of the trace to be simulated.
+	 */
+	public RrcParameterSweepDialog(Window owner, TraceData.Analysis analysisData) {
+		super(owner, analysisData, new RrcParameterSweepTableModel());
+		initialize();
+	}
+
+	/**
+	 * Initializes the dialog.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void initialize() {
+		String[] labels;
+		if (getAnalysisData().getProfile() instanceof ProfileLTE) {
+			parameters = PARAMETERS_LTE;
+			labels = LABELS_LTE;
+		} else {
+			parameters = PARAMETERS_3G;
+			labels = LABELS_3G;
+		}
+
+		JPanel selectionPanel = new JPanel(new GridLayout(3, 4, 5, 5));
+		selectionPanel.add(new JLabel(rb.getString("rrcsweep.parameter")));
+		selectionPanel.add(new JLabel(rb.getString("rrcsweep.from")));
+		selectionPanel.add(new JLabel(rb.getString("rrcsweep.to")));
+		selectionPanel.add(new JLabel(rb.getString("rrcsweep.step")));
+		for (int i = 0; i < parameterCombos.length; ++i) {
+			parameterCombos[i] = new JComboBox();
+			if (i > 0) {
+				parameterCombos[i].addItem(rb.getString("rrcsweep.none"));
+			}
+			for (String label : labels) {
+				parameterCombos[i].addItem(rb.getString(label));
+			}
+			fromFields[i] = new JTextField(6);
+			toFields[i] = new JTextField(6);
+			stepFields[i] = new JTextField(6);
+			selectionPanel.add(parameterCombos[i]);
+			selectionPanel.add(fromFields[i]);
+			selectionPanel.add(toFields[i]);
+			selectionPanel.add(stepFields[i]);
+		}
+		initialize(rb.getString("rrcsweep.title"), selectionPanel);
+	}
+
+	/**
+	 * Reads the parameter ranges and creates the sweep.
+	 *
+	 * @see com.att.aro.main.SimulationDialog#createSimulation()
+	 */
+	@Override
+	protected Callable<List<RrcParameterSweep.Result>> createSimulation() {
+		if (parameterCombos[1].getSelectedIndex() - 1 == parameterCombos[0]
+				.getSelectedIndex()) {
+			MessageDialogFactory.showErrorDialog(this,
+					rb.getString("rrcsweep.sameParameterError"));
+			return null;
+		}
+
+		final RrcParameterSweep sweep;
+		try {
+			Profile profile = getAnalysisData().getProfile();
+			sweep = new RrcParameterSweep(getAnalysisData(), profile);
+			for (int i = 0; i < parameterCombos.length; ++i) {
+				int index = parameterCombos[i].getSelectedIndex();
+				if (i > 0) {
+					if (index == 0) {
+						continue;
+					}
+					--index;
+				}
+				sweep.addParameter(new RrcParameterSweep.Parameter(
+						parameters[index], Double.parseDouble(fromFields[i]
+								.getText()), Double.parseDouble(toFields[i]
+								.getText()), Double.parseDouble(stepFields[i]
+								.getText())));
+			}
+		} catch (IllegalArgumentException e) {
+			MessageDialogFactory.showErrorDialog(this,
+					rb.getString("rrcsweep.rangeError"));
+			return null;
+		}
+
+		return new Callable<List<RrcParameterSweep.Result>>() {
+			@Override
+			public List<RrcParameterSweep.Result> call() throws Exception {
+				return sweep.run();
+			}
+		};
+	}
+
+	/**
+	 * @see com.att.aro.main.SimulationDialog#getProgressMessage()
+	 */
+	@Override
+	protected String getProgressMessage() {
+		return rb.getString("rrcsweep.progress");
+	}
+}
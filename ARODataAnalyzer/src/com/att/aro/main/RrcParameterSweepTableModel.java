@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.main;
+
+import java.text.DecimalFormat;
+import java.util.Iterator;
+import java.util.ResourceBundle;
+
+import javax.swing.table.TableColumnModel;
+
+import com.att.aro.commonui.DataTableModel;
+import com.att.aro.commonui.NumberFormatRenderer;
+import com.att.aro.model.RrcParameterSweep;
+
+/**
+ * Represents the data table model for the results of an RRC parameter sweep.
+ * Each row holds the swept parameter values of one profile configuration and
+ * the energy, promotion count and tail ratio simulated for it.
+ */
+public class RrcParameterSweepTableModel extends
+		DataTableModel<RrcParameterSweep.Result> {
+	private static final long serialVersionUID = 1L;
+
+	private static final int PARAM1_COL = 0;
+	private static final int PARAM2_COL = 1;
+	private static final int ENERGY_COL = 2;
+	private static final int PROMOTION_COL = 3;
+	private static final int TAIL_RATIO_COL = 4;
+	private static final ResourceBundle rb = ResourceBundleManager
+			.getDefaultBundle();
+	private static final String[] columns = {
+			rb.getString("rrcsweep.parameter1"),
+			rb.getString("rrcsweep.parameter2"),
+			rb.getString("rrcsweep.energy"),
+			rb.getString("rrcsweep.promotions"),
+			rb.getString("rrcsweep.tailRatio") };
+
+	/**
+	 * Initializes a new instance of the RrcParameterSweepTableModel class.
+	 */
+	public RrcParameterSweepTableModel() {
+		super(columns);
+	}
+
+	/**
+	 * Returns a class representing the specified column. This method is
+	 * primarily used to sort numeric columns.
+	 *
+	 * @param columnIndex
+	 *            The index of the specified column.
+	 *
+	 * @return A class representing the specified column.
+	 */
+	@Override
+	public Class<?> getColumnClass(int columnIndex) {
+		switch (columnIndex) {
+		case PARAM1_COL:
+		case PARAM2_COL:
+		case ENERGY_COL:
+		case TAIL_RATIO_COL:
+			return Double.class;
+		case PROMOTION_COL:
+			return Integer.class;
+		default:
+			return super.getColumnClass(columnIndex);
+		}
+	}
+
+	/**
+	 * Returns a TableColumnModel that is based on the default table column
+	 * model for the DataTableModel class, with number renderers for the
+	 * result columns.
+	 *
+	 * @return A TableColumnModel object.
+	 */
+	@Override
+	public TableColumnModel createDefaultTableColumnModel() {
+		TableColumnModel cols = super.createDefaultTableColumnModel();
+		NumberFormatRenderer renderer = new NumberFormatRenderer(
+				new DecimalFormat("0.00"));
+		NumberFormatRenderer ratioRenderer = new NumberFormatRenderer(
+				new DecimalFormat("0.000"));
+		cols.getColumn(ENERGY_COL).setCellRenderer(renderer);
+		cols.getColumn(TAIL_RATIO_COL).setCellRenderer(ratioRenderer);
+		return cols;
+	}
+
+	/**
+	 * Defines how the data object managed by this table model is mapped to its
+	 * columns when displayed in a row of the table.
+	 *
+	 * @param item
+	 *            An object containing the column information.
+	 * @param columnIndex
+	 *            The index of the specified column.
+	 *
+	 * @return The table column value calculated for the object.
+	 */
+	@Override
+	protected Object getColumnValue(RrcParameterSweep.Result item,
+			int columnIndex) {
+		switch (columnIndex) {
+		case PARAM1_COL:
+		case PARAM2_COL:
+			Iterator<Double> values = item.getParameterValues().values()
+					.iterator();
+			Double value = values.hasNext() ? values.next() : null;
+			if (columnIndex == PARAM2_COL) {
+				value = values.hasNext() ? values.next() : null;
+			}
+			return value;
+		case ENERGY_COL:
+			return item.getEnergy();
+		case PROMOTION_COL:
+			return item.getPromotionCount();
+		case TAIL_RATIO_COL:
+			return item.getTailRatio();
+		default:
+			return null;
+		}
+	}
+}
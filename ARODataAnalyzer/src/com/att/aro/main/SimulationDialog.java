@@ -0,0 +1,181 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.main;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.SwingWorker;
+
+import com.att.aro.commonui.AROProgressDialog;
+import com.att.aro.commonui.DataTable;
+import com.att.aro.commonui.DataTableModel;
+import com.att.aro.commonui.MessageDialogFactory;
+import com.att.aro.model.TraceData;
+
+/**
+ * Base class for the dialogs that run a simulation of the current trace for a
+ * set of input values in the background, and display one row of results for
+ * each simulated case.
+ *
+ * @param <T>
+ *            The type of the simulation results.
+ */
+public abstract class SimulationDialog<T> extends JDialog {
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger logger = Logger
+			.getLogger(SimulationDialog.class.getName());
+	private static final ResourceBundle rb = ResourceBundleManager
+			.getDefaultBundle();
+
+	private TraceData.Analysis analysisData;
+	private DataTableModel<T> tableModel;
+
+	/**
+	 * Initializes a new instance of the SimulationDialog class.
+	 *
+	 * @param owner
+	 *            The owner window.
+	 * @param analysisData
+	 *            The analysis of the trace to be simulated.
+	 * @param tableModel
+	 *            The table model that displays the simulation results.
+	 */
+	protected SimulationDialog(Window owner, TraceData.Analysis analysisData,
+			DataTableModel<T> tableModel) {
+		super(owner);
+		this.analysisData = analysisData;
+		this.tableModel = tableModel;
+	}
+
+	/**
+	 * Returns the analysis of the trace to be simulated.
+	 *
+	 * @return The trace analysis.
+	 */
+	protected TraceData.Analysis getAnalysisData() {
+		return analysisData;
+	}
+
+	/**
+	 * Lays out the dialog with the specified input panel above the start and
+	 * close buttons, and the result table below them.
+	 *
+	 * @param title
+	 *            The dialog title.
+	 * @param inputPanel
+	 *            The panel that holds the simulation inputs.
+	 */
+	protected void initialize(String title, JComponent inputPanel) {
+		this.setSize(700, 450);
+		this.setTitle(title);
+		this.setLocationRelativeTo(getOwner());
+
+		JButton runButton = new JButton(rb.getString("Button.start"));
+		runButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				runSimulation();
+			}
+		});
+		JButton closeButton = new JButton(rb.getString("Button.close"));
+		closeButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				SimulationDialog.this.dispose();
+			}
+		});
+		JPanel buttonPanel = new JPanel();
+		buttonPanel.add(runButton);
+		buttonPanel.add(closeButton);
+
+		JPanel northPanel = new JPanel(new BorderLayout());
+		northPanel.add(inputPanel, BorderLayout.CENTER);
+		northPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+		DataTable<T> table = new DataTable<T>(tableModel);
+		table.setGridColor(Color.LIGHT_GRAY);
+
+		JPanel panel = new JPanel(new BorderLayout());
+		panel.add(northPanel, BorderLayout.NORTH);
+		panel.add(new JScrollPane(table), BorderLayout.CENTER);
+		this.setContentPane(panel);
+	}
+
+	/**
+	 * Reads the simulation inputs and creates the task that runs the
+	 * simulation. Shows an error message if the inputs are not valid.
+	 *
+	 * @return The simulation task, or null if the inputs are not valid.
+	 */
+	protected abstract Callable<List<T>> createSimulation();
+
+	/**
+	 * Returns the message that is displayed while the simulation runs.
+	 *
+	 * @return The progress message.
+	 */
+	protected abstract String getProgressMessage();
+
+	/**
+	 * Reads the inputs and runs the simulation in the background.
+	 */
+	private void runSimulation() {
+		final Callable<List<T>> simulation = createSimulation();
+		if (simulation == null) {
+			return;
+		}
+
+		final AROProgressDialog progress = new AROProgressDialog(this,
+				getProgressMessage());
+		progress.setVisible(true);
+		new SwingWorker<List<T>, Object>() {
+
+			@Override
+			protected List<T> doInBackground() throws Exception {
+				return simulation.call();
+			}
+
+			@Override
+			protected void done() {
+				try {
+					tableModel.setData(get());
+				} catch (Exception e) {
+					logger.log(Level.SEVERE, "Unexpected exception running "
+							+ getTitle(), e);
+					MessageDialogFactory.showUnexpectedExceptionDialog(
+							SimulationDialog.this, e);
+				} finally {
+					progress.dispose();
+				}
+			}
+		}.execute();
+	}
+}
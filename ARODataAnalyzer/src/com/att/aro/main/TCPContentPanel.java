@@ -0,0 +1,512 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.main;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.ResourceBundle;
+
+import javax.swing.AbstractListModel;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+
+import com.att.aro.commonui.MessageDialogFactory;
+import com.att.aro.model.TCPSession;
+
+/**
+ * Represents the panel that displays the reassembled uplink and downlink
+ * content of a TCP session in the Content View section of the Diagnostic tab.
+ * The content is shown as a list of lines that are decoded from the session
+ * storage only when they are displayed, so that large sessions can be viewed
+ * without building a string of their entire content. The content can be shown
+ * as UTF-8 text or as a hex dump, and searched for a string.
+ */
+public class TCPContentPanel extends JPanel {
+	private static final long serialVersionUID = 1L;
+
+	private static final ResourceBundle rb = ResourceBundleManager
+			.getDefaultBundle();
+
+	/**
+	 * The maximum number of bytes in a line of text. Longer lines are wrapped.
+	 */
+	private static final int TEXT_LINE_LENGTH = 128;
+
+	/**
+	 * The number of bytes in a line of the hex dump.
+	 */
+	private static final int HEX_LINE_LENGTH = 16;
+
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+	/**
+	 * The character set used to decode the text lines and encode the search
+	 * text.
+	 */
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+
+	/**
+	 * Provides the lines of the session content. The uplink storage is
+	 * followed by the downlink storage, and neither is copied.
+	 */
+	private static class ContentListModel extends AbstractListModel {
+		private static final long serialVersionUID = 1L;
+
+		private byte[] storageUl;
+		private byte[] storageDl;
+		private boolean hex;
+
+		// Offsets of the start of each text line, built on first use
+		private int[] textLineStarts;
+		private int textLineCount;
+
+		/**
+		 * Sets the session whose content is provided.
+		 */
+		private void setData(TCPSession session, boolean hex) {
+			int oldSize = getSize();
+			this.storageUl = session != null ? session.getStorageUl() : null;
+			this.storageDl = session != null ? session.getStorageDl() : null;
+			this.hex = hex;
+			this.textLineStarts = null;
+			this.textLineCount = 0;
+			if (oldSize > 0) {
+				fireIntervalRemoved(this, 0, oldSize - 1);
+			}
+			int size = getSize();
+			if (size > 0) {
+				fireIntervalAdded(this, 0, size - 1);
+			}
+		}
+
+		/**
+		 * Returns the total number of content bytes.
+		 */
+		private int getLength() {
+			return storageUl != null ? storageUl.length + storageDl.length : 0;
+		}
+
+		/**
+		 * Returns the content byte at the specified offset.
+		 */
+		private byte byteAt(int offset) {
+			return offset < storageUl.length ? storageUl[offset]
+					: storageDl[offset - storageUl.length];
+		}
+
+		/**
+		 * Copies the specified range of content bytes.
+		 */
+		private byte[] getBytes(int offset, int length) {
+			byte[] result = new byte[length];
+			int ulLength = Math.max(0,
+					Math.min(length, storageUl.length - offset));
+			if (ulLength > 0) {
+				System.arraycopy(storageUl, offset, result, 0, ulLength);
+			}
+			if (ulLength < length) {
+				System.arraycopy(storageDl, offset + ulLength
+						- storageUl.length, result, ulLength, length
+						- ulLength);
+			}
+			return result;
+		}
+
+		/**
+		 * Splits the content into text lines at line feeds, wrapping lines
+		 * that are longer than the maximum text line length. A line is not
+		 * wrapped inside a UTF-8 character, so that each line can be decoded
+		 * on its own.
+		 */
+		private void indexTextLines() {
+			int length = getLength();
+			int[] starts = new int[Math.max(16, length / 64)];
+			int count = 0;
+			int lineStart = 0;
+			while (lineStart < length) {
+				if (count == starts.length) {
+					starts = Arrays.copyOf(starts, count * 2);
+				}
+				starts[count++] = lineStart;
+				int lineEnd = Math.min(length, lineStart + TEXT_LINE_LENGTH);
+				int i = lineStart;
+				while (i < lineEnd && byteAt(i) != '\n') {
+					++i;
+				}
+				if (i < lineEnd) {
+					lineStart = i + 1;
+				} else {
+					lineStart = getCharacterStart(lineStart, lineEnd);
+				}
+			}
+			textLineStarts = starts;
+			textLineCount = count;
+		}
+
+		/**
+		 * Returns the offset of the first byte of the UTF-8 character that
+		 * contains the byte at the specified offset, or the offset itself if
+		 * it is not inside a valid character that starts after the line start.
+		 */
+		private int getCharacterStart(int lineStart, int offset) {
+			int i = offset;
+			while (i < getLength() && i > lineStart + 1 && offset - i < 3
+					&& (byteAt(i) & 0xC0) == 0x80) {
+				--i;
+			}
+			return i < offset && (byteAt(i) & 0xC0) == 0xC0 ? i : offset;
+		}
+
+		/**
+		 * Returns the offset of the first byte of the specified line.
+		 */
+		private int getLineStart(int line) {
+			if (hex) {
+				return line * HEX_LINE_LENGTH;
+			}
+			if (textLineStarts == null) {
+				indexTextLines();
+			}
+			return textLineStarts[line];
+		}
+
+		/**
+		 * Returns the line that contains the byte at the specified offset.
+		 */
+		private int getLineAt(int offset) {
+			if (hex) {
+				return offset / HEX_LINE_LENGTH;
+			}
+			if (textLineStarts == null) {
+				indexTextLines();
+			}
+			int index = Arrays.binarySearch(textLineStarts, 0, textLineCount,
+					offset);
+			return index >= 0 ? index : -index - 2;
+		}
+
+		/**
+		 * @see javax.swing.ListModel#getSize()
+		 */
+		@Override
+		public int getSize() {
+			int length = getLength();
+			if (hex) {
+				return (length + HEX_LINE_LENGTH - 1) / HEX_LINE_LENGTH;
+			}
+			if (length > 0 && textLineStarts == null) {
+				indexTextLines();
+			}
+			return textLineCount;
+		}
+
+		/**
+		 * Decodes the specified line.
+		 *
+		 * @see javax.swing.ListModel#getElementAt(int)
+		 */
+		@Override
+		public Object getElementAt(int index) {
+			int start = getLineStart(index);
+			int end = index + 1 < getSize() ? getLineStart(index + 1)
+					: getLength();
+			byte[] bytes = getBytes(start, end - start);
+			return hex ? toHexLine(start, bytes) : toTextLine(bytes);
+		}
+
+		/**
+		 * Formats a line of the hex dump with its offset, bytes and printable
+		 * characters.
+		 */
+		private static String toHexLine(int offset, byte[] bytes) {
+			StringBuilder result = new StringBuilder(12 + HEX_LINE_LENGTH * 4);
+			for (int shift = 28; shift >= 0; shift -= 4) {
+				result.append(HEX_DIGITS[(offset >>> shift) & 0xF]);
+			}
+			result.append("  ");
+			for (int i = 0; i < HEX_LINE_LENGTH; ++i) {
+				if (i < bytes.length) {
+					result.append(HEX_DIGITS[(bytes[i] >> 4) & 0xF]);
+					result.append(HEX_DIGITS[bytes[i] & 0xF]);
+					result.append(' ');
+				} else {
+					result.append("   ");
+				}
+			}
+			result.append(' ');
+			for (byte b : bytes) {
+				result.append(b >= 0x20 && b < 0x7F ? (char) b : '.');
+			}
+			return result.toString();
+		}
+
+		/**
+		 * Decodes a line of text, replacing the characters that a list cell
+		 * cannot display.
+		 */
+		private static String toTextLine(byte[] bytes) {
+			String line = new String(bytes, CHARSET);
+			StringBuilder result = new StringBuilder(line.length());
+			for (int i = 0; i < line.length(); ++i) {
+				char c = line.charAt(i);
+				if (c == '\t') {
+					result.append("    ");
+				} else if (c != '\n' && c != '\r') {
+					result.append(Character.isISOControl(c) ? ' ' : c);
+				}
+			}
+
+			// An empty cell would be rendered with no height
+			return result.length() > 0 ? result.toString() : " ";
+		}
+	}
+
+	private TCPSession session;
+	private ContentListModel contentListModel = new ContentListModel();
+	private JList contentList;
+	private JScrollPane contentScrollPane;
+	private JPanel searchPanel;
+	private JCheckBox hexCheckBox;
+	private JTextField searchField;
+	private JButton findButton;
+
+	// Offset of the last match of the search text, or -1 if there is none
+	private int lastMatchOffset = -1;
+	private String lastSearchText;
+
+	/**
+	 * Initializes a new instance of the TCPContentPanel class.
+	 */
+	public TCPContentPanel() {
+		super(new BorderLayout());
+		add(getSearchPanel(), BorderLayout.NORTH);
+		add(getContentScrollPane(), BorderLayout.CENTER);
+	}
+
+	/**
+	 * Sets the TCP session whose content is displayed.
+	 *
+	 * @param session
+	 *            - The TCP session, or null to clear the panel.
+	 */
+	public void setData(TCPSession session) {
+		this.session = session;
+		this.lastMatchOffset = -1;
+		contentListModel.setData(session, getHexCheckBox().isSelected());
+		getContentList().clearSelection();
+		getContentList().ensureIndexIsVisible(0);
+	}
+
+	/**
+	 * Returns the panel containing the display and search controls.
+	 */
+	private JPanel getSearchPanel() {
+		if (searchPanel == null) {
+			searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+			searchPanel.add(getHexCheckBox());
+			searchPanel.add(getSearchField());
+			searchPanel.add(getFindButton());
+		}
+		return searchPanel;
+	}
+
+	/**
+	 * Returns the check box that switches between text and hex display.
+	 */
+	private JCheckBox getHexCheckBox() {
+		if (hexCheckBox == null) {
+			hexCheckBox = new JCheckBox(rb.getString("tcp.content.hex"));
+			hexCheckBox.addActionListener(new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					int offset = getCurrentOffset();
+					contentListModel.setData(session, hexCheckBox.isSelected());
+					updatePrototypeCell();
+					if (offset >= 0) {
+						selectOffset(offset);
+					}
+				}
+			});
+		}
+		return hexCheckBox;
+	}
+
+	/**
+	 * Returns the search text field.
+	 */
+	private JTextField getSearchField() {
+		if (searchField == null) {
+			searchField = new JTextField(20);
+			searchField.addActionListener(new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					find();
+				}
+			});
+		}
+		return searchField;
+	}
+
+	/**
+	 * Returns the button that finds the next match of the search text.
+	 */
+	private JButton getFindButton() {
+		if (findButton == null) {
+			findButton = new JButton(rb.getString("tcp.content.find"));
+			findButton.addActionListener(new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					find();
+				}
+			});
+		}
+		return findButton;
+	}
+
+	/**
+	 * Returns the scroll pane of the content list.
+	 */
+	private JScrollPane getContentScrollPane() {
+		if (contentScrollPane == null) {
+			contentScrollPane = new JScrollPane(getContentList());
+		}
+		return contentScrollPane;
+	}
+
+	/**
+	 * Returns the list of content lines.
+	 */
+	private JList getContentList() {
+		if (contentList == null) {
+			contentList = new JList(contentListModel);
+			contentList.setFont(new Font(Font.MONOSPACED, Font.PLAIN,
+					contentList.getFont().getSize()));
+			contentList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+			updatePrototypeCell();
+		}
+		return contentList;
+	}
+
+	/**
+	 * Sets a prototype cell as wide as the longest line, so that the list
+	 * never measures the lines themselves.
+	 */
+	private void updatePrototypeCell() {
+		int width = getHexCheckBox().isSelected() ? 12 + HEX_LINE_LENGTH * 4
+				: TEXT_LINE_LENGTH;
+		char[] prototype = new char[width];
+		Arrays.fill(prototype, '0');
+		getContentList().setPrototypeCellValue(new String(prototype));
+	}
+
+	/**
+	 * Returns the offset of the first byte of the selected line, or -1 if no
+	 * line is selected.
+	 */
+	private int getSelectedOffset() {
+		int line = getContentList().getSelectedIndex();
+		return line >= 0 ? contentListModel.getLineStart(line) : -1;
+	}
+
+	/**
+	 * Returns the offset of the last match if it is in the selected line, or
+	 * the offset of the first byte of the selected line otherwise. Returns -1
+	 * if no line is selected.
+	 */
+	private int getCurrentOffset() {
+		int line = getContentList().getSelectedIndex();
+		if (line >= 0 && lastMatchOffset >= 0
+				&& lastMatchOffset < contentListModel.getLength()
+				&& contentListModel.getLineAt(lastMatchOffset) == line) {
+			return lastMatchOffset;
+		}
+		return getSelectedOffset();
+	}
+
+	/**
+	 * Selects and scrolls to the line containing the specified offset.
+	 */
+	private void selectOffset(int offset) {
+		int line = contentListModel.getLineAt(offset);
+		getContentList().setSelectedIndex(line);
+		getContentList().ensureIndexIsVisible(line);
+	}
+
+	/**
+	 * Finds the next match of the search text after the last match, or after
+	 * the start of the selected line if the last match is not selected,
+	 * continuing from the start of the content when the end is reached. The
+	 * content bytes are compared with the encoded search text, so no text is
+	 * decoded during the search.
+	 */
+	private void find() {
+		String text = getSearchField().getText();
+		int length = contentListModel.getLength();
+		if (text.length() == 0 || length == 0) {
+			return;
+		}
+		if (!text.equals(lastSearchText)) {
+			lastSearchText = text;
+			lastMatchOffset = -1;
+		}
+		byte[] pattern = text.getBytes(CHARSET);
+		int start = getCurrentOffset() + 1;
+		int match = indexOf(pattern, start, length);
+		if (match < 0) {
+			match = indexOf(pattern, 0, Math.min(length, start
+					+ pattern.length - 1));
+		}
+		lastMatchOffset = match;
+		if (match >= 0) {
+			selectOffset(match);
+		} else {
+			MessageDialogFactory.showMessageDialog(this,
+					rb.getString("tcp.content.notFound"));
+		}
+	}
+
+	/**
+	 * Returns the offset of the first occurrence of the pattern that lies
+	 * entirely within the specified range, or -1 if there is none.
+	 */
+	private int indexOf(byte[] pattern, int from, int to) {
+		byte first = pattern[0];
+		for (int i = from, last = to - pattern.length; i <= last; ++i) {
+			if (contentListModel.byteAt(i) != first) {
+				continue;
+			}
+			int j = 1;
+			while (j < pattern.length
+					&& contentListModel.byteAt(i + j) == pattern[j]) {
+				++j;
+			}
+			if (j == pattern.length) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import com.att.aro.model.PacketInfo;
+import com.att.aro.model.TCPSession;
+
+/**
+ * Finds the TCP session packet that is closest to a point in time. The
+ * sessions are held in an interval tree over their start and end times, and
+ * the packet timestamps of each session in a sorted array, so a lookup only
+ * visits the sessions that contain the point in time and takes logarithmic
+ * time within each of them.
+ *
+ * The interval tree is implicit: the sessions are sorted by start time, the
+ * middle session of every range is the root of the subtree over that range,
+ * and each root records the latest end time in its subtree.
+ */
+class TcpSessionTimeIndex {
+
+	/**
+	 * A session and the matching packet in it.
+	 */
+	static class Match {
+		private TCPSession session;
+		private PacketInfo packet;
+
+		private Match(TCPSession session, PacketInfo packet) {
+			this.session = session;
+			this.packet = packet;
+		}
+
+		/**
+		 * Returns the TCP session of the matching packet.
+		 *
+		 * @return The TCPSession object.
+		 */
+		TCPSession getSession() {
+			return session;
+		}
+
+		/**
+		 * Returns the matching packet.
+		 *
+		 * @return The PacketInfo object.
+		 */
+		PacketInfo getPacket() {
+			return packet;
+		}
+	}
+
+	private TCPSession[] sessions;
+	private double[] startTimes;
+	private double[] endTimes;
+	private double[] maxEndTimes;
+	private double[][] packetTimes;
+
+	/**
+	 * Initializes an instance of the TcpSessionTimeIndex class for the
+	 * specified TCP sessions.
+	 *
+	 * @param tcpSessions
+	 *            The TCP sessions. The packets of each session must be in
+	 *            ascending timestamp order.
+	 */
+	TcpSessionTimeIndex(Collection<TCPSession> tcpSessions) {
+		sessions = tcpSessions.toArray(new TCPSession[tcpSessions.size()]);
+		Arrays.sort(sessions, new Comparator<TCPSession>() {
+			@Override
+			public int compare(TCPSession o1, TCPSession o2) {
+				return Double.compare(o1.getSessionStartTime(),
+						o2.getSessionStartTime());
+			}
+		});
+
+		int n = sessions.length;
+		startTimes = new double[n];
+		endTimes = new double[n];
+		maxEndTimes = new double[n];
+		packetTimes = new double[n][];
+		for (int i = 0; i < n; ++i) {
+			List<PacketInfo> packets = sessions[i].getPackets();
+			double[] times = new double[packets.size()];
+			int j = 0;
+			for (PacketInfo packet : packets) {
+				times[j++] = packet.getTimeStamp();
+			}
+			packetTimes[i] = times;
+			startTimes[i] = sessions[i].getSessionStartTime();
+			endTimes[i] = sessions[i].getSessionEndTime();
+		}
+		buildMaxEndTimes(0, n);
+	}
+
+	/**
+	 * Returns the packet closest to the specified time within the specified
+	 * range, from the sessions that are active at that time. When several
+	 * packets of a session are in range, the latest one is used for that
+	 * session.
+	 *
+	 * @param timeStamp
+	 *            The time in seconds from the start of the trace.
+	 * @param range
+	 *            The maximum time difference of a matching packet, or 0 for an
+	 *            exact match.
+	 * @return The match, or null if no packet is in range.
+	 */
+	Match getBestMatch(double timeStamp, double range) {
+		List<Integer> active = new ArrayList<Integer>();
+		findSessionsAt(0, sessions.length, timeStamp, active);
+
+		Match result = null;
+		double bestDiff = Double.MAX_VALUE;
+		for (int i : active) {
+			double[] times = packetTimes[i];
+
+			// Latest packet at or before the end of the range
+			int index = Arrays.binarySearch(times, timeStamp + range);
+			if (index < 0) {
+				index = -index - 2;
+			} else {
+				while (index + 1 < times.length
+						&& times[index + 1] == times[index]) {
+					++index;
+				}
+			}
+			if (index < 0 || times[index] < timeStamp - range) {
+				continue;
+			}
+
+			double diff = Math.abs(timeStamp - times[index]);
+			if (diff < bestDiff) {
+				bestDiff = diff;
+				result = new Match(sessions[i], sessions[i].getPackets().get(
+						index));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Records the latest end time in the subtree rooted at the middle of the
+	 * specified range, and returns it.
+	 */
+	private double buildMaxEndTimes(int from, int to) {
+		if (from >= to) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		int mid = (from + to) >>> 1;
+		double max = Math.max(endTimes[mid], Math.max(
+				buildMaxEndTimes(from, mid), buildMaxEndTimes(mid + 1, to)));
+		maxEndTimes[mid] = max;
+		return max;
+	}
+
+	/**
+	 * Adds the indexes of the sessions in the specified range that contain the
+	 * specified time, in start time order.
+	 */
+	private void findSessionsAt(int from, int to, double timeStamp,
+			List<Integer> result) {
+		if (from >= to) {
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		if (maxEndTimes[mid] < timeStamp) {
+			return;
+		}
+		findSessionsAt(from, mid, timeStamp, result);
+		if (startTimes[mid] > timeStamp) {
+
+			// The sessions after the middle one start even later
+			return;
+		}
+		if (endTimes[mid] >= timeStamp) {
+			result.add(mid);
+		}
+		findSessionsAt(mid + 1, to, timeStamp, result);
+	}
+}
@@ -36,6 +36,8 @@ import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.border.BevelBorder;
 import javax.swing.border.Border;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 import com.att.aro.commonui.MessageDialogFactory;
 import com.att.aro.model.ProfileType;
@@ -60,6 +62,7 @@ public class TimeRangeAnalysisDialog extends JDialog {
 	private JTextArea timeRangeAnalysisResultsTextArea;
 	private JTextField startTimeTextField;
 	private JTextField endTimeTextField;
+	private DocumentListener timeFieldListener;
 	private Double traceEndTime;
 	private double timeRangeStartTime;
 	private double timeRangeEndTime;
@@ -198,25 +201,7 @@ public class TimeRangeAnalysisDialog extends JDialog {
 							if (((startTime >= 0.0) && (startTime <= traceEndTimeRounded))
 									&& ((endTime >= 0.0) && (endTime <= traceEndTimeRounded))) {
 
-								TimeRangeAnalysis timeRangeAnalysis = analysisData
-										.performTimeRangeAnalysis(startTime,
-												endTime);
-								String msg = analysisData.getProfile()
-										.getProfileType() == ProfileType.LTE ? rb
-										.getString("timerangeanalysis.lte")
-										: rb.getString("timerangeanalysis.3g");
-								timeRangeAnalysisResultsTextArea.setText(MessageFormat.format(
-										msg, decimalFormat.format(startTime),
-										decimalFormat.format(endTime),
-										timeRangeAnalysis.getPayloadLen(),
-										timeRangeAnalysis.getTotalBytes(),
-										decimalFormat.format(timeRangeAnalysis
-												.getEnergy()), decimalFormat
-												.format(timeRangeAnalysis
-														.getActiveTime()),
-										decimalFormat.format(timeRangeAnalysis
-												.getKbps())));
-
+								showResults(startTime, endTime);
 								timeRangeStartTime = startTime;
 								timeRangeEndTime = endTime;
 							} else {
@@ -252,6 +237,72 @@ public class TimeRangeAnalysisDialog extends JDialog {
 		return startButton;
 	}
 
+	/**
+	 * Performs the time range analysis and displays the results.
+	 */
+	private void showResults(double startTime, double endTime) {
+		TimeRangeAnalysis timeRangeAnalysis = analysisData
+				.performTimeRangeAnalysis(startTime, endTime);
+		String msg = analysisData.getProfile().getProfileType() == ProfileType.LTE ? rb
+				.getString("timerangeanalysis.lte") : rb
+				.getString("timerangeanalysis.3g");
+		timeRangeAnalysisResultsTextArea.setText(MessageFormat.format(msg,
+				decimalFormat.format(startTime), decimalFormat.format(endTime),
+				timeRangeAnalysis.getPayloadLen(),
+				timeRangeAnalysis.getTotalBytes(),
+				decimalFormat.format(timeRangeAnalysis.getEnergy()),
+				decimalFormat.format(timeRangeAnalysis.getActiveTime()),
+				decimalFormat.format(timeRangeAnalysis.getKbps())));
+	}
+
+	/**
+	 * Updates the results while the time range is being edited. Range queries
+	 * are answered from the analysis indexes, so this is cheap enough to do on
+	 * every change. Invalid input is ignored until the start button is used.
+	 */
+	private void updateResults() {
+		if (analysisData == null || !isVisible()) {
+			return;
+		}
+		double startTime;
+		double endTime;
+		try {
+			startTime = getTimeValue(startTimeTextField);
+			endTime = getTimeValue(endTimeTextField);
+		} catch (NumberFormatException e) {
+			return;
+		}
+		if (startTime >= 0.0 && startTime < endTime && endTime <= traceEndTime) {
+			showResults(startTime, endTime);
+		}
+	}
+
+	/**
+	 * Returns a document listener that updates the results on each edit.
+	 */
+	private DocumentListener getTimeFieldListener() {
+		if (timeFieldListener == null) {
+			timeFieldListener = new DocumentListener() {
+
+				@Override
+				public void insertUpdate(DocumentEvent e) {
+					updateResults();
+				}
+
+				@Override
+				public void removeUpdate(DocumentEvent e) {
+					updateResults();
+				}
+
+				@Override
+				public void changedUpdate(DocumentEvent e) {
+					updateResults();
+				}
+			};
+		}
+		return timeFieldListener;
+	}
+
 	/**
 	 * Initializes and returns the cancel button.
 	 */
@@ -279,6 +330,7 @@ public class TimeRangeAnalysisDialog extends JDialog {
 			startTimeTextField = new JTextField(8);
 			String strStartTime = decimalFormat.format(timeRangeStartTime);
 			startTimeTextField.setText(strStartTime);
+			startTimeTextField.getDocument().addDocumentListener(getTimeFieldListener());
 		}
 		return startTimeTextField;
 	}
@@ -298,6 +350,7 @@ public class TimeRangeAnalysisDialog extends JDialog {
 			endTimeTextField = new JTextField(8);
 			String strEndTime = decimalFormat.format(timeRangeEndTime);
 			endTimeTextField.setText(strEndTime);
+			endTimeTextField.getDocument().addDocumentListener(getTimeFieldListener());
 		}
 		return endTimeTextField;
 	}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.att.aro.model;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the worker threads of the thread pools that an analysis uses
+ * internally. The workers get the priority and daemon status of the thread
+ * that runs the analysis, so that an analysis that runs in the background on
+ * a low priority thread does not compete with the user interface through its
+ * workers.
+ */
+class AnalysisThreadFactory implements ThreadFactory {
+
+	private String name;
+	private int priority;
+	private boolean daemon;
+
+	/**
+	 * Initializes an instance of the AnalysisThreadFactory class for the
+	 * calling thread.
+	 *
+	 * @param name
+	 *            The name of the worker threads.
+	 */
+	AnalysisThreadFactory(String name) {
+		Thread current = Thread.currentThread();
+		this.name = name;
+		this.priority = current.getPriority();
+		this.daemon = current.isDaemon();
+	}
+
+	/**
+	 * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+	 */
+	@Override
+	public Thread newThread(Runnable r) {
+		Thread thread = new Thread(r, name);
+		thread.setDaemon(daemon);
+		thread.setPriority(priority);
+		return thread;
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.model;
+
+import java.util.Set;
+
+/**
+ * Defines a best practice check that is evaluated against a trace analysis.
+ * Each rule declares the parts of the analysis that it reads, and is run
+ * concurrently with the other rules as soon as those parts are available.
+ *
+ * Additional rules are discovered with {@link java.util.ServiceLoader} from
+ * META-INF/services/com.att.aro.model.BestPracticeRule files on the class
+ * path. A new instance of each rule is created for every analysis, so a rule
+ * may keep its results in its own fields.
+ */
+public interface BestPracticeRule {
+
+	/**
+	 * The BestPracticeRule.Input Enumeration specifies constant values that
+	 * describe the parts of a trace analysis that a rule may read.
+	 */
+	public enum Input {
+		/**
+		 * The trace data, the analysis filter and the peripheral active
+		 * durations.
+		 */
+		TRACE_DATA,
+		/**
+		 * The TCP sessions and their HTTP requests and responses.
+		 */
+		TCP_SESSIONS,
+		/**
+		 * The cache analysis.
+		 */
+		CACHE_ANALYSIS,
+		/**
+		 * The RRC state machine.
+		 */
+		RRC_STATE_MACHINE,
+		/**
+		 * The burst collection analysis.
+		 */
+		BURST_ANALYSIS
+	}
+
+	/**
+	 * Returns the name of the rule.
+	 *
+	 * @return The rule name.
+	 */
+	public String getName();
+
+	/**
+	 * Returns the parts of the trace analysis that the rule reads.
+	 *
+	 * @return The set of inputs of the rule.
+	 */
+	public Set<Input> getInputs();
+
+	/**
+	 * Evaluates the rule. This method may be called on any thread, and only
+	 * after all of the inputs of the rule are available.
+	 *
+	 * @param analysis
+	 *            - The trace analysis.
+	 */
+	public void evaluate(TraceData.Analysis analysis);
+
+}
@@ -15,19 +15,50 @@
 */
 package com.att.aro.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.att.aro.model.BestPracticeRule.Input;
 
 /**
  * A bean class that contains the information that appears on the Best Practices tab, 
  * such as the pass/fail status of the test, and the test results.
+ * 
+ * Each best practice is checked by a {@link BestPracticeRule}. The rules are run 
+ * concurrently, each one as soon as the parts of the analysis that it reads are 
+ * available, and the execution time of every rule is recorded.
  */
 public class BestPractices {
 
+	private static final Logger logger = Logger.getLogger(BestPractices.class
+			.getName());
+
 	private static final int PERIPHERAL_ACTIVE_LIMIT = 5;
 
 	private TraceData.Analysis analysisData;
 	private TraceData traceData;
 
+	private List<BestPracticeRule> rules = new ArrayList<BestPracticeRule>();
+	private List<BestPracticeRule> pendingRules;
+	private Set<Input> readyInputs = EnumSet.noneOf(Input.class);
+	private Map<BestPracticeRule, Future<Long>> ruleFutures = new LinkedHashMap<BestPracticeRule, Future<Long>>();
+	private Map<String, Long> ruleExecutionTimes = new LinkedHashMap<String, Long>();
+	private ExecutorService executor;
+
 	private int http1_0HeaderCount = 0;
 	private TCPSession http10Session = null;
 
@@ -47,6 +78,9 @@ public class BestPractices {
 	private double duplicateContentBytesRatio = 0;
 	private int duplicateContentsize = 0;
 	private long duplicateContentBytes = 0;
+	private int contentDuplicateCount = 0;
+	private long contentDuplicateBytes = 0;
+	private double contentDuplicateEnergy = 0;
 	private long totalContentBytes = 0;
 	private double gpsActiveStateRatio = 0;
 	private double bluetoothActiveStateRatio = 0;
@@ -59,6 +93,30 @@ public class BestPractices {
 	private double largestEnergyTime = 0.0;
 	private double screenRotationBurstTime = 0.0;
 
+	/**
+	 * Base class of the built in rules, which store their results in the
+	 * fields of the BestPractices object.
+	 */
+	private abstract class Rule implements BestPracticeRule {
+		private String name;
+		private Set<Input> inputs;
+
+		private Rule(String name, Input first, Input... rest) {
+			this.name = name;
+			this.inputs = Collections.unmodifiableSet(EnumSet.of(first, rest));
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public Set<Input> getInputs() {
+			return inputs;
+		}
+	}
+
 	/**
 	 * Initializes an instance of the BestPractices class, using the specified set of 
 	 * trace analysis data.
@@ -66,158 +124,332 @@ public class BestPractices {
 	 * @param analysisData  An Analysis object containing the set of trace analysis data.
 	 */
 	public BestPractices(TraceData.Analysis analysisData) {
+		this(analysisData, EnumSet.allOf(Input.class));
+		try {
+			awaitRules();
+		} finally {
+			shutdown();
+		}
+	}
+
+	/**
+	 * Initializes an instance of the BestPractices class while the analysis is 
+	 * still being run. The rules whose inputs are ready are started right away, 
+	 * and the others are started as the remaining inputs are reported with 
+	 * {@link #setInputReady(Input)}.
+	 * 
+	 * @param analysisData - An Analysis object containing the set of trace analysis data.
+	 * @param readyInputs - The inputs that are already available.
+	 */
+	BestPractices(TraceData.Analysis analysisData, Set<Input> readyInputs) {
 		this.analysisData = analysisData;
 		this.traceData = analysisData.getTraceData();
 
-		BurstCollectionAnalysis bcAnalysis = analysisData.getBcAnalysis();
+		addBuiltInRules();
+		for (BestPracticeRule rule : ServiceLoader.load(BestPracticeRule.class)) {
+			rules.add(rule);
+		}
+		this.pendingRules = new ArrayList<BestPracticeRule>(rules);
+		this.executor = Executors.newFixedThreadPool(Runtime.getRuntime()
+				.availableProcessors(), new AnalysisThreadFactory("BestPractices"));
 
-		// Setting the best practices
-		this.multipleTcpCon = (bcAnalysis.getTightlyCoupledBurstCount() == 0);
-		this.periodicTrans = (bcAnalysis.getMinimumPeriodicRepeatTime() == 0.0);
+		this.readyInputs.addAll(readyInputs);
+		submitReadyRules();
+	}
 
-		double largestBurstTime = 0.0;
-		double largestBurstBeginTime = 0.0;
-		int burstCategoryCount = 0;
-		int userInputBurstCount = 0;
-		double wastedBurstEnergy = 0.0;
-		double maxEnergy = 0.0;
-		double largestEnergyTime = 0.0;
+	/**
+	 * Reports that an input of the rules is available, and starts the rules 
+	 * that were waiting for it.
+	 * 
+	 * @param input - The input that is now available.
+	 */
+	void setInputReady(Input input) {
+		readyInputs.add(input);
+		submitReadyRules();
+	}
 
-		// Burst Best practices.
-		for (Burst burst : analysisData.getBcAnalysis().getBurstCollection()) {
+	/**
+	 * Waits for all of the rules to finish and records their execution times.
+	 * 
+	 * @throws IllegalStateException when an input of a rule was never reported, 
+	 * or a rule could not be evaluated.
+	 */
+	void awaitRules() {
+		if (!pendingRules.isEmpty()) {
+			throw new IllegalStateException("Inputs are not available for rule "
+					+ pendingRules.get(0).getName());
+		}
+		for (BestPracticeRule rule : rules) {
+			try {
+				long nanos = ruleFutures.get(rule).get();
+				ruleExecutionTimes.put(rule.getName(), nanos);
+				if (logger.isLoggable(Level.FINE)) {
+					logger.fine("Best practice rule " + rule.getName() + ": "
+							+ (nanos / 1000000.0) + " ms");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw new IllegalStateException(cause);
+			}
+		}
+	}
 
-			// Largest burst time
-			double time = burst.getEndTime() - burst.getBeginTime();
-			if (time > largestBurstTime) {
-				largestBurstTime = time;
-				largestBurstBeginTime = burst.getBeginTime();
+	/**
+	 * Stops the threads that evaluate the rules.
+	 */
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Starts every pending rule whose inputs are all available.
+	 */
+	private void submitReadyRules() {
+		for (Iterator<BestPracticeRule> iter = pendingRules.iterator(); iter
+				.hasNext();) {
+			final BestPracticeRule rule = iter.next();
+			if (readyInputs.containsAll(rule.getInputs())) {
+				iter.remove();
+				ruleFutures.put(rule, executor.submit(new Callable<Long>() {
+					@Override
+					public Long call() {
+						long start = System.nanoTime();
+						rule.evaluate(analysisData);
+						return System.nanoTime() - start;
+					}
+				}));
 			}
+		}
+	}
 
-			// To validate 5 user input bursts in a row
-			if (BurstCategory.BURSTCAT_USER == burst.getBurstCategory()) {
-				burstCategoryCount++;
-			} else {
-				burstCategoryCount = 0;
+	/**
+	 * Creates the rules for the best practices displayed on the Best Practices tab.
+	 */
+	private void addBuiltInRules() {
+		rules.add(new Rule("multipleTcpConnections", Input.BURST_ANALYSIS) {
+			@Override
+			public void evaluate(TraceData.Analysis analysis) {
+				multipleTcpCon = (analysis.getBcAnalysis()
+						.getTightlyCoupledBurstCount() == 0);
+			}
+		});
+		rules.add(new Rule("periodicTransfers", Input.BURST_ANALYSIS) {
+			@Override
+			public void evaluate(TraceData.Analysis analysis) {
+				periodicTrans = (analysis.getBcAnalysis()
+						.getMinimumPeriodicRepeatTime() == 0.0);
 			}
-			userInputBurstCount = Math.max(userInputBurstCount, burstCategoryCount);
-
-			if (burst.getBurstCategory() == BurstCategory.BURSTCAT_PROTOCOL) {
-				double currentEnergy = burst.getEnergy();
-				wastedBurstEnergy += currentEnergy;
-				if (currentEnergy > maxEnergy) {
-					maxEnergy = currentEnergy;
-					largestEnergyTime = burst.getBeginTime();
+		});
+		rules.add(new Rule("prefetching", Input.BURST_ANALYSIS) {
+			@Override
+			public void evaluate(TraceData.Analysis analysis) {
+
+				// To validate 5 user input bursts in a row
+				int burstCategoryCount = 0;
+				int count = 0;
+				for (Burst burst : analysis.getBcAnalysis().getBurstCollection()) {
+					if (BurstCategory.BURSTCAT_USER == burst.getBurstCategory()) {
+						burstCategoryCount++;
+					} else {
+						burstCategoryCount = 0;
+					}
+					count = Math.max(count, burstCategoryCount);
 				}
+				userInputBurstCount = count;
 			}
-			
-			//Verifying burst category to update screen rotation flag value which 
-			//shows whether screen rotation triggered network activity or not.
-			if (BurstCategory.BURSTCAT_SCREEN_ROTATION == burst.getBurstCategory() && this.screenRotation) {
-				this.screenRotation = false;
-				this.screenRotationBurstTime = burst.getBeginTime();
+		});
+		rules.add(new Rule("connectionClosing", Input.BURST_ANALYSIS) {
+			@Override
+			public void evaluate(TraceData.Analysis analysis) {
+				BurstCollectionAnalysis bcAnalysis = analysis.getBcAnalysis();
+				double wastedBurstEnergy = 0.0;
+				double maxEnergy = 0.0;
+				double maxEnergyTime = 0.0;
+				for (Burst burst : bcAnalysis.getBurstCollection()) {
+					if (burst.getBurstCategory() == BurstCategory.BURSTCAT_PROTOCOL) {
+						double currentEnergy = burst.getEnergy();
+						wastedBurstEnergy += currentEnergy;
+						if (currentEnergy > maxEnergy) {
+							maxEnergy = currentEnergy;
+							maxEnergyTime = burst.getBeginTime();
+						}
+					}
+				}
+				if (bcAnalysis.getTotalEnergy() > 0) {
+					double percentageWasted = wastedBurstEnergy / bcAnalysis.getTotalEnergy();
+					conClosingProb = (percentageWasted < 0.05);
+					tcpControlEnergy = wastedBurstEnergy;
+					tcpControlEnergyRatio = percentageWasted;
+					largestEnergyTime = maxEnergyTime;
+				}
 			}
-		}
-		this.largeBurstTime = largestBurstBeginTime;
-		this.userInputBurstCount = userInputBurstCount;
-		this.offloadingToWiFi = (bcAnalysis.getLongBurstCount() <= 3);
-		if (bcAnalysis.getTotalEnergy() > 0) {
-			double percentageWasted = wastedBurstEnergy / bcAnalysis.getTotalEnergy();
-			this.conClosingProb = (percentageWasted < 0.05);
-			this.tcpControlEnergy = wastedBurstEnergy;
-			this.tcpControlEnergyRatio = percentageWasted;
-			this.largestEnergyTime = largestEnergyTime;
-		}
-
-		// Check HTTP 1.0 best practice
-		for (TCPSession s : analysisData.getTcpSessions()) {
-			for (HttpRequestResponseInfo reqRessInfo : s.getRequestResponseInfo()) {
-				if (HttpRequestResponseInfo.HTTP10.equals(reqRessInfo.getVersion())) {
-					++http1_0HeaderCount;
-					if (null == http10Session) {
-						http10Session = s;
+		});
+		rules.add(new Rule("screenRotation", Input.BURST_ANALYSIS) {
+			@Override
+			public void evaluate(TraceData.Analysis analysis) {
+
+				//Verifying burst category to update screen rotation flag value which 
+				//shows whether screen rotation triggered network activity or not.
+				for (Burst burst : analysis.getBcAnalysis().getBurstCollection()) {
+					if (BurstCategory.BURSTCAT_SCREEN_ROTATION == burst.getBurstCategory()) {
+						screenRotation = false;
+						screenRotationBurstTime = burst.getBeginTime();
+						break;
 					}
 				}
 			}
-		}
-        TimeRange timeRange = analysisData.getFilter().getTimeRange();
-        
-		double traceDuration = traceData.getTraceDuration();
-		double activeGPSRatio = 0.0;
-		double activeBluetoothRatio = 0.0;
-		double activeCameraRatio = 0.0;
-		
-		if(timeRange != null){
-			
-			double timeRangeDuration = timeRange.getEndTime() - timeRange.getBeginTime();
-			
-			activeGPSRatio = (analysisData.getGPSActiveDuration() * 100) / timeRangeDuration;
-			activeBluetoothRatio = (analysisData.getBluetoothActiveDuration() * 100)
-					/ timeRangeDuration;
-			activeCameraRatio = (analysisData.getCameraActiveDuration() * 100) / timeRangeDuration;
-			
-		}else{
-			
-			activeGPSRatio = (analysisData.getGPSActiveDuration() * 100) / traceDuration;
-			activeBluetoothRatio = (analysisData.getBluetoothActiveDuration() * 100)
-					/ traceDuration;
-			activeCameraRatio = (analysisData.getCameraActiveDuration() * 100) / traceDuration;
-		}
-
-		this.accessingPeripherals = ((activeGPSRatio > PERIPHERAL_ACTIVE_LIMIT
-				|| activeBluetoothRatio > PERIPHERAL_ACTIVE_LIMIT || activeCameraRatio > PERIPHERAL_ACTIVE_LIMIT) ? false
-				: true);
-
-		this.gpsActiveStateRatio = activeGPSRatio;
-		this.bluetoothActiveStateRatio = activeBluetoothRatio;
-		this.cameraActiveStateRatio = activeCameraRatio;
-
-		// Cache best practices
-		CacheAnalysis cacheAnalysis = analysisData.getCacheAnalysis();
-		List<CacheEntry> diagnosisResults = cacheAnalysis.getDiagnosisResults();
-		int hitNotExpiredDup = 0;
-		int hitExpired304 = 0;
-		int validCount = 0;
-		int noCacheHeadersCount = 0;
-		for (CacheEntry entry : diagnosisResults) {
-			switch (entry.getDiagnosis()) {
-			case CACHING_DIAG_NOT_EXPIRED_DUP:
-			case CACHING_DIAG_NOT_EXPIRED_DUP_PARTIALHIT:
-				hitNotExpiredDup++;
-				break;
-
-			case CACHING_DIAG_OBJ_NOT_CHANGED_304:
-				hitExpired304++;
-				break;
+		});
+		rules.add(new Rule("offloadingToWifi", Input.BURST_ANALYSIS) {
+			@Override
+			public void evaluate(TraceData.Analysis analysis) {
+				BurstCollectionAnalysis bcAnalysis = analysis.getBcAnalysis();
+				double largestBurstTime = 0.0;
+				double largestBurstBeginTime = 0.0;
+				for (Burst burst : bcAnalysis.getBurstCollection()) {
+					double time = burst.getEndTime() - burst.getBeginTime();
+					if (time > largestBurstTime) {
+						largestBurstTime = time;
+						largestBurstBeginTime = burst.getBeginTime();
+					}
+				}
+				largeBurstTime = largestBurstBeginTime;
+				offloadingToWiFi = (bcAnalysis.getLongBurstCount() <= 3);
 			}
-
-			// Check for cache headers missing
-			switch (entry.getDiagnosis()) {
-			case CACHING_DIAG_REQUEST_NOT_FOUND:
-			case CACHING_DIAG_INVALID_OBJ_NAME:
-			case CACHING_DIAG_INVALID_REQUEST:
-			case CACHING_DIAG_INVALID_RESPONSE:
-				// Only test non-error request/response pairs
-				break;
-			default:
-				++validCount;
-				if (!entry.hasCacheHeaders()) {
-					++noCacheHeadersCount;
+		});
+		rules.add(new Rule("http10Usage", Input.TCP_SESSIONS) {
+			@Override
+			public void evaluate(TraceData.Analysis analysis) {
+				for (TCPSession s : analysis.getTcpSessions()) {
+					for (HttpRequestResponseInfo reqRessInfo : s.getRequestResponseInfo()) {
+						if (HttpRequestResponseInfo.HTTP10.equals(reqRessInfo.getVersion())) {
+							++http1_0HeaderCount;
+							if (null == http10Session) {
+								http10Session = s;
+							}
+						}
+					}
 				}
 			}
-		}
-		this.hitExpired304 = hitExpired304;
-		this.hitNotExpiredDup = hitNotExpiredDup;
-		this.cacheControl = (hitNotExpiredDup > hitExpired304 ? false : true);
-
-		this.cacheHeaderRatio = validCount > 0 ? (100.0 * noCacheHeadersCount) / validCount : 0.0;
-		this.usingCache = cacheHeaderRatio <= 10.0;
+		});
+		rules.add(new Rule("accessingPeripherals", Input.TRACE_DATA) {
+			@Override
+			public void evaluate(TraceData.Analysis analysis) {
+				TimeRange timeRange = analysis.getFilter().getTimeRange();
+				double duration = timeRange != null ? timeRange.getEndTime()
+						- timeRange.getBeginTime() : traceData.getTraceDuration();
+
+				double activeGPSRatio = (analysis.getGPSActiveDuration() * 100) / duration;
+				double activeBluetoothRatio = (analysis.getBluetoothActiveDuration() * 100)
+						/ duration;
+				double activeCameraRatio = (analysis.getCameraActiveDuration() * 100) / duration;
+
+				accessingPeripherals = ((activeGPSRatio > PERIPHERAL_ACTIVE_LIMIT
+						|| activeBluetoothRatio > PERIPHERAL_ACTIVE_LIMIT || activeCameraRatio > PERIPHERAL_ACTIVE_LIMIT) ? false
+						: true);
+
+				gpsActiveStateRatio = activeGPSRatio;
+				bluetoothActiveStateRatio = activeBluetoothRatio;
+				cameraActiveStateRatio = activeCameraRatio;
+			}
+		});
+		rules.add(new Rule("cacheControl", Input.CACHE_ANALYSIS) {
+			@Override
+			public void evaluate(TraceData.Analysis analysis) {
+				int notExpiredDupCount = 0;
+				int expired304Count = 0;
+				for (CacheEntry entry : analysis.getCacheAnalysis().getDiagnosisResults()) {
+					switch (entry.getDiagnosis()) {
+					case CACHING_DIAG_NOT_EXPIRED_DUP:
+					case CACHING_DIAG_NOT_EXPIRED_DUP_PARTIALHIT:
+						notExpiredDupCount++;
+						break;
+
+					case CACHING_DIAG_OBJ_NOT_CHANGED_304:
+						expired304Count++;
+						break;
+					}
+				}
+				hitExpired304 = expired304Count;
+				hitNotExpiredDup = notExpiredDupCount;
+				cacheControl = (notExpiredDupCount > expired304Count ? false : true);
+			}
+		});
+		rules.add(new Rule("usingCache", Input.CACHE_ANALYSIS) {
+			@Override
+			public void evaluate(TraceData.Analysis analysis) {
+				int validCount = 0;
+				int noCacheHeadersCount = 0;
+				for (CacheEntry entry : analysis.getCacheAnalysis().getDiagnosisResults()) {
+
+					// Check for cache headers missing
+					switch (entry.getDiagnosis()) {
+					case CACHING_DIAG_REQUEST_NOT_FOUND:
+					case CACHING_DIAG_INVALID_OBJ_NAME:
+					case CACHING_DIAG_INVALID_REQUEST:
+					case CACHING_DIAG_INVALID_RESPONSE:
+						// Only test non-error request/response pairs
+						break;
+					default:
+						++validCount;
+						if (!entry.hasCacheHeaders()) {
+							++noCacheHeadersCount;
+						}
+					}
+				}
+				cacheHeaderRatio = validCount > 0 ? (100.0 * noCacheHeadersCount) / validCount : 0.0;
+				usingCache = cacheHeaderRatio <= 10.0;
+			}
+		});
+		rules.add(new Rule("duplicateContent", Input.CACHE_ANALYSIS) {
+			@Override
+			public void evaluate(TraceData.Analysis analysis) {
+				CacheAnalysis cacheAnalysis = analysis.getCacheAnalysis();
+				duplicateContentBytes = cacheAnalysis.getDuplicateContentBytes();
+				totalContentBytes = cacheAnalysis.getTotalBytesDownloaded();
+				duplicateContentBytesRatio = cacheAnalysis.getDuplicateContentBytesRatio();
+				duplicateContentsize = cacheAnalysis.getDuplicateContent().size();
+				duplicateContent = duplicateContentsize <= 3;
+			}
+		});
+		rules.add(new Rule("contentDuplicates", Input.CACHE_ANALYSIS,
+				Input.RRC_STATE_MACHINE) {
+			@Override
+			public void evaluate(TraceData.Analysis analysis) {
+
+				// Identical content downloaded from different URLs
+				CacheAnalysis cacheAnalysis = analysis.getCacheAnalysis();
+				contentDuplicateCount = cacheAnalysis.getContentDuplicates().size();
+				contentDuplicateBytes = cacheAnalysis.getContentDuplicateBytes();
+				contentDuplicateEnergy = cacheAnalysis
+						.getContentDuplicateEnergy(analysis.getRrcStateMachine());
+			}
+		});
+	}
 
-		this.duplicateContentBytes = cacheAnalysis.getDuplicateContentBytes();
-		this.totalContentBytes = cacheAnalysis.getTotalBytesDownloaded();
-		this.duplicateContentBytesRatio = cacheAnalysis.getDuplicateContentBytesRatio();
-		this.duplicateContentsize = cacheAnalysis.getDuplicateContent().size();
-		this.duplicateContent = duplicateContentsize <= 3;
+	/**
+	 * Returns the rules that were evaluated, including any rules discovered on 
+	 * the class path.
+	 * 
+	 * @return A List of BestPracticeRule objects.
+	 */
+	public List<BestPracticeRule> getRules() {
+		return Collections.unmodifiableList(rules);
+	}
 
+	/**
+	 * Returns the time taken to evaluate each rule. 
+	 * 
+	 * @return A Map of rule names to execution times in nanoseconds, in the order 
+	 * of the rules.
+	 */
+	public Map<String, Long> getRuleExecutionTimes() {
+		return Collections.unmodifiableMap(ruleExecutionTimes);
 	}
 
 	/**
@@ -408,6 +640,36 @@ public class BestPractices {
 		return duplicateContentBytes;
 	}
 
+	/**
+	 * Returns the number of responses whose content was identical to content
+	 * previously downloaded from a different URL.
+	 * 
+	 * @return The number of identical content downloads.
+	 */
+	public int getContentDuplicateCount() {
+		return contentDuplicateCount;
+	}
+
+	/**
+	 * Returns the amount of content in bytes that was downloaded again from a
+	 * different URL.
+	 * 
+	 * @return The amount of identical content in bytes.
+	 */
+	public long getContentDuplicateBytes() {
+		return contentDuplicateBytes;
+	}
+
+	/**
+	 * Returns the RRC energy consumed while downloading content that was
+	 * identical to content previously downloaded from a different URL.
+	 * 
+	 * @return The energy in joules.
+	 */
+	public double getContentDuplicateEnergy() {
+		return contentDuplicateEnergy;
+	}
+
 	/**
 	 * Returns the total amount of content in bytes. 
 	 * 
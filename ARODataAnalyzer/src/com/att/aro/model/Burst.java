@@ -17,16 +17,17 @@ package com.att.aro.model;
 
 import java.io.Serializable;
 import java.text.MessageFormat;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.ResourceBundle;
 import java.util.Set;
 
 import com.att.aro.main.ResourceBundleManager;
+import com.att.aro.model.PacketInfo.Direction;
+import com.att.aro.model.PacketInfo.TcpInfo;
 
 /**
  * A bean class that contains the Burst information that appears on the Diagnostics View 
@@ -41,7 +42,9 @@ public class Burst implements Serializable {
 
 	private double beginTime; // <--- updated by what-if
 	private double endTime; // <--- updated by what-if
-	private List<PacketInfo> packets;
+	private List<PacketInfo> allPackets;
+	private int beginIndex;
+	private int endIndex;
 	private PacketInfo beginPacket;
 	private PacketInfo endPacket;
 	private PacketInfo firstUplinkDataPacket;
@@ -55,30 +58,74 @@ public class Burst implements Serializable {
 	// burst analysis
 	private Set<BurstInfo> burstInfos = new HashSet<BurstInfo>();
 
+	// aggregates of the packets in the burst
+	private long burstBytes;
+	private int appPayloadLen;
+	private PacketInfo firstAppPacket;
+	private PacketInfo firstUplinkPayloadPacket;
+	private Set<TcpInfo> appTcpInfos = EnumSet.noneOf(TcpInfo.class);
+
 	/**
-	 * Initializes an instance of the Burst class, using the specified packet information.
+	 * Initializes an instance of the Burst class that covers a contiguous range of the 
+	 * specified packets, and computes the aggregates of the packets in that range.
+	 * 
+	 * @param packets  The packets of the trace analysis. They MUST be sorted by time.
+	 * 
+	 * @param beginIndex  The index of the first packet in the burst.
 	 * 
-	 * @param packets  A collection of PacketInfo objects that MUST be sorted by time.
+	 * @param endIndex  The index after the last packet in the burst.
+	 * 
+	 * @param annotations  The packet annotations of the trace analysis.
 	 */
-	public Burst(Collection<PacketInfo> packets) {
-		if (packets == null || packets.size() == 0) {
+	Burst(List<PacketInfo> packets, int beginIndex, int endIndex,
+			PacketAnnotations annotations) {
+		if (packets == null || beginIndex < 0 || endIndex > packets.size()
+				|| beginIndex >= endIndex) {
 			throw new IllegalArgumentException("Burst must have packets in it");
 		}
-		this.packets = new ArrayList<PacketInfo>(packets);
-		this.beginPacket = this.packets.get(0);
+		this.allPackets = packets;
+		this.beginIndex = beginIndex;
+		this.endIndex = endIndex;
+		this.beginPacket = packets.get(beginIndex);
 		this.beginTime = this.beginPacket.getTimeStamp();
-		this.endPacket = this.packets.get(this.packets.size() - 1);
+		this.endPacket = packets.get(endIndex - 1);
 		this.endTime = this.endPacket.getTimeStamp();
 		this.firstUplinkDataPacket = null;
+
+		for (int i = beginIndex; i < endIndex; ++i) {
+			PacketInfo p = packets.get(i);
+			int payloadLen = p.getPayloadLen();
+			burstBytes += payloadLen;
+			if (firstUplinkPayloadPacket == null && p.getDir() == Direction.UPLINK
+					&& payloadLen > 0) {
+				firstUplinkPayloadPacket = p;
+			}
+
+			// Aggregates that exclude background packets
+			if (p.getAppName() != null) {
+				appPayloadLen += payloadLen;
+				if (firstAppPacket == null) {
+					firstAppPacket = p;
+				}
+				TcpInfo tcp = annotations.getTcpInfo(p);
+				if (tcp != null) {
+					appTcpInfos.add(tcp);
+				}
+			}
+		}
 	}
 
 	/**
-	 * Merges the specified burst into this burst. 
+	 * Merges the specified burst into this burst. The specified burst must be the one 
+	 * that immediately follows this burst in the packet list.
 	 * 
 	 * @param b  The Burst object to be merged.
 	 */
 	public synchronized void merge(Burst b) {
-		this.packets.addAll(b.packets);
+		if (b.allPackets != this.allPackets || b.beginIndex != this.endIndex) {
+			throw new IllegalArgumentException("Only the following burst can be merged");
+		}
+		this.endIndex = b.endIndex;
 		if (this.beginTime > b.beginTime) {
 			this.beginTime = b.beginTime;
 			this.beginPacket = b.beginPacket;
@@ -87,6 +134,16 @@ public class Burst implements Serializable {
 			this.endTime = b.endTime;
 			this.endPacket = b.endPacket;
 		}
+
+		this.burstBytes += b.burstBytes;
+		this.appPayloadLen += b.appPayloadLen;
+		if (this.firstAppPacket == null) {
+			this.firstAppPacket = b.firstAppPacket;
+		}
+		if (this.firstUplinkPayloadPacket == null) {
+			this.firstUplinkPayloadPacket = b.firstUplinkPayloadPacket;
+		}
+		this.appTcpInfos.addAll(b.appTcpInfos);
 	}
 
 	/**
@@ -95,7 +152,36 @@ public class Burst implements Serializable {
 	 * @return A List of PacketInfo objects containing all the packets in this burst.
 	 */
 	public List<PacketInfo> getPackets() {
-		return packets;
+		return Collections.unmodifiableList(allPackets.subList(beginIndex, endIndex));
+	}
+
+	/**
+	 * Returns the number of packets in this burst. 
+	 * 
+	 * @return The packet count.
+	 */
+	public int getPacketCount() {
+		return endIndex - beginIndex;
+	}
+
+	/**
+	 * Returns the index of the first packet of this burst in the packets of the trace 
+	 * analysis. 
+	 * 
+	 * @return The index of the first packet.
+	 */
+	public int getBeginIndex() {
+		return beginIndex;
+	}
+
+	/**
+	 * Returns the index after the last packet of this burst in the packets of the trace 
+	 * analysis. 
+	 * 
+	 * @return The index after the last packet.
+	 */
+	public int getEndIndex() {
+		return endIndex;
 	}
 
 	/**
@@ -324,11 +410,46 @@ public class Burst implements Serializable {
 	 * @return long Burst bytes. 
 	 */
 	public long getBurstBytes(){
-		long bytes = 0;
-		for(PacketInfo pI : packets){
-			bytes += pI.getPayloadLen();
-		}
-		return bytes;
+		return burstBytes;
+	}
+
+	/**
+	 * Returns the payload length of the packets in this burst that belong to an 
+	 * application, excluding background packets.
+	 * 
+	 * @return The application payload length.
+	 */
+	int getAppPayloadLen() {
+		return appPayloadLen;
+	}
+
+	/**
+	 * Returns the first packet in this burst that belongs to an application.
+	 * 
+	 * @return The first application packet, or null if all packets are background 
+	 * packets.
+	 */
+	PacketInfo getFirstAppPacket() {
+		return firstAppPacket;
+	}
+
+	/**
+	 * Returns the first uplink packet in this burst that has a payload.
+	 * 
+	 * @return The first uplink payload packet, or null if there is none.
+	 */
+	PacketInfo getFirstUplinkPayloadPacket() {
+		return firstUplinkPayloadPacket;
+	}
+
+	/**
+	 * Returns the TCP information of the packets in this burst that belong to an 
+	 * application.
+	 * 
+	 * @return The set of TCP information values.
+	 */
+	Set<TcpInfo> getAppTcpInfos() {
+		return Collections.unmodifiableSet(appTcpInfos);
 	}
 	
 	/**
@@ -18,16 +18,20 @@ package com.att.aro.model;
 import java.io.Serializable;
 import java.net.InetAddress;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.att.aro.model.PacketInfo.Direction;
 import com.att.aro.model.PacketInfo.TcpInfo;
@@ -92,19 +96,6 @@ public class BurstCollectionAnalysis implements Serializable {
 		}
 	}
 
-	/**
-	 * Private utility class
-	 */
-	private class PacketTimestamp {
-		private PacketInfo packet;
-		private double timestamp;
-
-		public PacketTimestamp(PacketInfo packet) {
-			this.packet = packet;
-			this.timestamp = packet.getTimeStamp();
-		}
-	}
-
 	/**
 	 * Private utility class to keep the time stamp of tcpinfo's and HTTP
 	 * request response info's
@@ -118,32 +109,6 @@ public class BurstCollectionAnalysis implements Serializable {
 		}
 	}
 
-	/**
-	 * Bean class to contain the information of Request Event's Inter Arrival
-	 * Time.
-	 */
-	private class IatInfo {
-		private double iat;
-		private double beginTime;
-		private int beginEvent;
-		private int endEvent;
-	}
-
-	private class IatInfoSortByBasicTime2 implements Comparator<IatInfo> {
-		@Override
-		public int compare(IatInfo o1, IatInfo o2) {
-			return Double.valueOf(o1.beginTime).compareTo(o2.beginTime);
-		}
-	}
-
-	private class IatInfoSortByBasicTime1 implements Comparator<IatInfo> {
-
-		@Override
-		public int compare(IatInfo o1, IatInfo o2) {
-			return Double.valueOf(o1.iat).compareTo(o2.iat);
-		}
-	}
-
 	/**
 	 * Returns the collection of bursts.
 	 * 
@@ -153,6 +118,30 @@ public class BurstCollectionAnalysis implements Serializable {
 		return Collections.unmodifiableList(burstCollection);
 	}
 
+	/**
+	 * Returns the burst that contains the packet at the specified index in the
+	 * packets of the trace analysis.
+	 * 
+	 * @param packetIndex
+	 *            The index of the packet.
+	 * @return The Burst object, or null if the index is outside the packets.
+	 */
+	public Burst getBurst(int packetIndex) {
+		int lo = 0, hi = burstCollection.size() - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			Burst burst = burstCollection.get(mid);
+			if (packetIndex < burst.getBeginIndex()) {
+				hi = mid - 1;
+			} else if (packetIndex >= burst.getEndIndex()) {
+				lo = mid + 1;
+			} else {
+				return burst;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Gets the burst analysis information.
 	 * 
@@ -286,58 +275,35 @@ public class BurstCollectionAnalysis implements Serializable {
 	private void groupIntoBursts() {
 		// Validate that there are packets
 		List<PacketInfo> packets = this.analysis.getPackets();
+		PacketAnnotations annotations = this.analysis.getPacketAnnotations();
 		if (packets.size() <= 0) {
 			this.burstCollection = Collections.emptyList();
 			return;
 		}
-		ArrayList<Burst> result = new ArrayList<Burst>();
 		double burstThresh = profile.getBurstTh();
 		double longBurstThresh = profile.getLongBurstTh();
-		List<PacketInfo> burstPackets = new ArrayList<PacketInfo>();
-		// Step 1: Build bursts using burst time threshold
-		PacketInfo lastPacket = null;
-		for (PacketInfo packet : packets) {
-			if (lastPacket == null
-					|| (packet.getTimeStamp() - lastPacket.getTimeStamp() > burstThresh && !mss
-							.contains(lastPacket.getPayloadLen()))) {
-				if (burstPackets.size() > 0) {
-					result.add(new Burst(burstPackets));
-					burstPackets.clear();
-				}
-			}
-			burstPackets.add(packet);
-			lastPacket = packet;
-		}
-		result.add(new Burst(burstPackets));
-
-		// Step 2: Remove promotion delays and merge bursts if possible
-		Map<PacketInfo, Double> timestampList = normalizeCore(packets);
-		List<Burst> newBurstColl = new ArrayList<Burst>(result.size());
-		int n = result.size();
-		Burst newBurst = result.get(0);
-		for (int i = 0; i < n - 1; i++) {
-			Burst bnext = result.get(i + 1);
-			double time1 = timestampList.get(newBurst.getEndPacket());
-			double time2 = timestampList.get(bnext.getBeginPacket());
-			if ((time2 - time1) < burstThresh) {
-				newBurst.merge(bnext);
-			} else {
-				newBurstColl.add(newBurst);
-				newBurst = bnext;
-			}
-		}
-		newBurstColl.add(newBurst);
-		this.burstCollection = newBurstColl;
 
-		// Step 3: compute burstID for each packet
-		n = burstCollection.size();
-		for (Burst b : burstCollection) {
-			for (PacketInfo p : b.getPackets()) {
-				p.setBurst(b);
+		// Step 1: Remove promotion delays
+		double[] timestamps = normalizeCore(packets);
+
+		// Step 2: Build bursts using burst time threshold and merge bursts
+		// that are still within it once promotion delays are removed
+		List<Burst> newBurstColl = new ArrayList<Burst>();
+		int n = packets.size();
+		int begin = 0;
+		for (int i = 1; i < n; i++) {
+			PacketInfo lastPacket = packets.get(i - 1);
+			if (packets.get(i).getTimeStamp() - lastPacket.getTimeStamp() > burstThresh
+					&& !mss.contains(lastPacket.getPayloadLen())
+					&& !(timestamps[i] - timestamps[i - 1] < burstThresh)) {
+				newBurstColl.add(new Burst(packets, begin, i, annotations));
+				begin = i;
 			}
 		}
+		newBurstColl.add(new Burst(packets, begin, n, annotations));
+		this.burstCollection = newBurstColl;
 
-		// Step 4: determine short/long IBTs
+		// Step 3: determine short/long IBTs
 		n = burstCollection.size();
 		for (int i = 0; i < n; i++) {
 			Burst b = burstCollection.get(i);
@@ -356,9 +322,10 @@ public class BurstCollectionAnalysis implements Serializable {
 	 * Method orginally found in whatif.cpp
 	 * 
 	 * @param packets
-	 *            returns timestampList - List of doubles
+	 *            returns timeStampList - the time stamp of each packet with
+	 *            promotion delays removed, by packet index
 	 */
-	private Map<PacketInfo, Double> normalizeCore(List<PacketInfo> packets) {
+	private double[] normalizeCore(List<PacketInfo> packets) {
 
 		// Step 1: Identify Promotions
 		List<RrcStateRange> promoDelays = new ArrayList<RrcStateRange>();
@@ -368,9 +335,9 @@ public class BurstCollectionAnalysis implements Serializable {
 				promoDelays.add(rrc);
 		}
 		Collections.sort(promoDelays);
-		PacketTimestamp[] timeStampList = new PacketTimestamp[packets.size()];
-		for (int i = 0; i < packets.size(); i++) {
-			timeStampList[i] = new PacketTimestamp(packets.get(i));
+		double[] timeStampList = new double[packets.size()];
+		for (int i = 0; i < timeStampList.length; i++) {
+			timeStampList[i] = packets.get(i).getTimeStamp();
 		}
 
 		// Step 2: Remove all promo delays
@@ -380,7 +347,7 @@ public class BurstCollectionAnalysis implements Serializable {
 		int j0 = -1; // "in-the-middle" position
 		double middlePos = 0; // How to initialize??
 		for (int i = 0; i < timeStampList.length; i++) {
-			double timeStamp = timeStampList[i].timestamp;
+			double timeStamp = timeStampList[i];
 			while (j < m && timeStamp >= promoDelays.get(j).getEndTime() - EPS) {
 				if (j0 != -1) {
 					assert (j0 == j && i > 0 && promoDelays.get(j).getEndTime() >= middlePos);
@@ -405,21 +372,18 @@ public class BurstCollectionAnalysis implements Serializable {
 					middlePos = timeStamp;
 				}
 			}
-			timeStampList[i].timestamp = timeStampList[i].timestamp - timeStampShift;
-			assert (i == 0 || timeStampList[i].timestamp >= timeStampList[i - 1].timestamp);
-		}
-		Map<PacketInfo, Double> result = new LinkedHashMap<PacketInfo, Double>(timeStampList.length);
-		for (int i = 0; i < timeStampList.length; ++i) {
-			result.put(timeStampList[i].packet, timeStampList[i].timestamp);
+			timeStampList[i] = timeStampList[i] - timeStampShift;
+			assert (i == 0 || timeStampList[i] >= timeStampList[i - 1]);
 		}
-		return result;
+		return timeStampList;
 	}
 
 	/**
 	 * Computes the total burst energy.
 	 */
 	private void computeBurstEnergyRadioResource() {
-		List<RrcStateRange> rrcCollection = analysis.getRrcStateMachine().getRRcStateRanges();
+		RRCStateMachine rrcStateMachine = analysis.getRrcStateMachine();
+		List<RrcStateRange> rrcCollection = rrcStateMachine.getRRcStateRanges();
 		int rrcCount = rrcCollection.size();
 		if (rrcCount == 0) {
 			return;
@@ -443,14 +407,12 @@ public class BurstCollectionAnalysis implements Serializable {
 					p++;
 				} else {
 					if (time2 > rrCntrl.getEndTime()) {
-						e += profile.energy(time1, rrCntrl.getEndTime(), rrCntrl.getState(),
-								analysis.getPackets());
+						e += rrcStateMachine.getEnergy(p, time1, rrCntrl.getEndTime());
 						if (rrCntrl.getState() == RRCState.STATE_DCH
 								|| rrCntrl.getState() == RRCState.TAIL_DCH) {
-							dchTime += rrCntrl.getEndTime() - time1;
-						} else if (rrCntrl.getState() == RRCState.LTE_CONTINUOUS
-								|| rrCntrl.getState() == RRCState.LTE_CR_TAIL) {
-							crTime += rrCntrl.getEndTime() - time1;
+							dchTime += rrcStateMachine.getActiveTime(p, time1, rrCntrl.getEndTime());
+						} else {
+							crTime += rrcStateMachine.getActiveTime(p, time1, rrCntrl.getEndTime());
 						}
 						p++;
 					}
@@ -460,25 +422,21 @@ public class BurstCollectionAnalysis implements Serializable {
 			while (p < rrcCount) {
 				RrcStateRange rrCntrl = rrcCollection.get(p);
 				if (rrCntrl.getEndTime() < time2) {
-					e += profile.energy(Math.max(rrCntrl.getBeginTime(), time1),
-							rrCntrl.getEndTime(), rrCntrl.getState(), analysis.getPackets());
+					e += rrcStateMachine.getEnergy(p, time1, rrCntrl.getEndTime());
 					if (rrCntrl.getState() == RRCState.STATE_DCH
 							|| rrCntrl.getState() == RRCState.TAIL_DCH) {
-						dchTime += rrCntrl.getEndTime() - Math.max(rrCntrl.getBeginTime(), time1);
-					} else if (rrCntrl.getState() == RRCState.LTE_CONTINUOUS
-							|| rrCntrl.getState() == RRCState.LTE_CR_TAIL) {
-						crTime += rrCntrl.getEndTime() - Math.max(rrCntrl.getBeginTime(), time1);
+						dchTime += rrcStateMachine.getActiveTime(p, time1, rrCntrl.getEndTime());
+					} else {
+						crTime += rrcStateMachine.getActiveTime(p, time1, rrCntrl.getEndTime());
 					}
 					p++;
 				} else {
-					e += profile.energy(Math.max(rrCntrl.getBeginTime(), time1), time2,
-							rrCntrl.getState(), analysis.getPackets());
+					e += rrcStateMachine.getEnergy(p, time1, time2);
 					if (rrCntrl.getState() == RRCState.STATE_DCH
 							|| rrCntrl.getState() == RRCState.TAIL_DCH) {
-						dchTime += time2 - Math.max(rrCntrl.getBeginTime(), time1);
-					} else if (rrCntrl.getState() == RRCState.LTE_CONTINUOUS
-							|| rrCntrl.getState() == RRCState.LTE_CR_TAIL) {
-						crTime += time2 - Math.max(rrCntrl.getBeginTime(), time1);
+						dchTime += rrcStateMachine.getActiveTime(p, time1, time2);
+					} else {
+						crTime += rrcStateMachine.getActiveTime(p, time1, time2);
 					}
 					break;
 				}
@@ -525,7 +483,7 @@ public class BurstCollectionAnalysis implements Serializable {
 			double d = catEnergy != null ? catEnergy.doubleValue() : 0.0;
 			d += energy;
 			burstCategoryToEnergy.put(category, d);
-			int p1 = getPayloadLength(b, false);
+			int p1 = b.getAppPayloadLen();
 			totalPayload += p1;
 			Long payload = burstCategoryToPayload.get(category);
 			long l = payload != null ? payload.longValue() : 0L;
@@ -576,6 +534,7 @@ public class BurstCollectionAnalysis implements Serializable {
 	private void analyzeBursts() {
 		List<UserEvent> userEvents = analysis.getUserEvents();
 		List<CpuActivity> cpuEvents = analysis.getCpuActivityList();
+		PacketAnnotations annotations = analysis.getPacketAnnotations();
 		int userEventsSize = userEvents.size();
 		int cpuEventsSize = cpuEvents.size();
 		int userEventPointer = 0;
@@ -587,26 +546,15 @@ public class BurstCollectionAnalysis implements Serializable {
 			lastBurst = b;
 			b = i.next();
 			// Step 1: Remove background packets
-			List<PacketInfo> pktIdx = new ArrayList<PacketInfo>(b.getPackets().size());
-			int payloadLen = 0;
-			Set<TcpInfo> tcpInfo = new HashSet<TcpInfo>();
-			for (PacketInfo p : b.getPackets()) {
-				if (p.getAppName() != null) {
-					payloadLen += p.getPayloadLen();
-					pktIdx.add(p);
-					TcpInfo tcp = p.getTcpInfo();
-					if (tcp != null) {
-						tcpInfo.add(tcp);
-					}
-				}
-			}
-			if (pktIdx.size() == 0) {
+			int payloadLen = b.getAppPayloadLen();
+			Set<TcpInfo> tcpInfo = b.getAppTcpInfos();
+			PacketInfo pkt0 = b.getFirstAppPacket();
+			if (pkt0 == null) {
 				assert (payloadLen == 0);
 				b.addBurstInfo(BurstInfo.BURST_BKG);
 				continue;
 			}
-			PacketInfo pkt0 = pktIdx.get(0);
-			TcpInfo info0 = pkt0.getTcpInfo();
+			TcpInfo info0 = annotations.getTcpInfo(pkt0);
 			double time0 = pkt0.getTimeStamp();
 
 			// Step 2: a long burst?
@@ -762,6 +710,7 @@ public class BurstCollectionAnalysis implements Serializable {
 		Map<String, List<RequestEvent>> requestHost2tsList = new HashMap<String, List<RequestEvent>>();
 		Map<String, List<RequestEvent>> requestObj2tsList = new HashMap<String, List<RequestEvent>>();
 		Map<InetAddress, List<RequestEvent>> connIP2tsList = new HashMap<InetAddress, List<RequestEvent>>();
+		PacketAnnotations annotations = analysis.getPacketAnnotations();
 		clearHostPeriodicInfoSet();
 		periodicCount = 0;
 		diffPeriodicCount = 0;
@@ -770,7 +719,7 @@ public class BurstCollectionAnalysis implements Serializable {
 		for (TCPSession b : analysis.getTcpSessions()) {
 
 			PacketInfo p = b.getPackets().get(0);
-			if (p.getTcpInfo() == TcpInfo.TCP_ESTABLISH) {
+			if (annotations.getTcpInfo(p) == TcpInfo.TCP_ESTABLISH) {
 				RequestEvent re = new RequestEvent();
 				re.ts = p.getTimeStamp();
 				List<RequestEvent> res = connIP2tsList.get(b.getRemoteIP());
@@ -813,34 +762,23 @@ public class BurstCollectionAnalysis implements Serializable {
 			}
 		}
 
-		Map<String, Integer> hostList = new HashMap<String, Integer>();
-		for (Map.Entry<String, List<RequestEvent>> iter : requestHost2tsList.entrySet()) {
-			List<RequestEvent> reList = new ArrayList<RequestEvent>();
-			List<RequestEvent> requestHostList = iter.getValue();
-			Collections.sort(requestHostList);
-			if (SelfCorr(requestHostList, reList)) {
-				hostList.put(iter.getKey(), 1);
-			}
-		}
-
-		Map<String, Integer> objList = new HashMap<String, Integer>();
-		for (Map.Entry<String, List<RequestEvent>> iter : requestObj2tsList.entrySet()) {
-			List<RequestEvent> reList = new ArrayList<RequestEvent>();
-			List<RequestEvent> requestObjList = iter.getValue();
-			Collections.sort(requestObjList);
-			if (SelfCorr(requestObjList, reList)) {
-				objList.put(iter.getKey(), 1);
-			}
-		}
-
-		Map<InetAddress, Integer> ipList = new HashMap<InetAddress, Integer>();
-		for (Map.Entry<InetAddress, List<RequestEvent>> iter : connIP2tsList.entrySet()) {
-			List<RequestEvent> reList = new ArrayList<RequestEvent>();
-			List<RequestEvent> requestIpList = iter.getValue();
-			Collections.sort(requestIpList);
-			if (SelfCorr(requestIpList, reList)) {
-				ipList.put(iter.getKey(), 1);
-			}
+		Set<String> hostList;
+		Set<String> objList;
+		Set<InetAddress> ipList;
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime()
+				.availableProcessors(), new AnalysisThreadFactory("PeriodicRequests"));
+		try {
+			Map<String, Future<Boolean>> hostChecks = submitPeriodicChecks(requestHost2tsList,
+					executor);
+			Map<String, Future<Boolean>> objChecks = submitPeriodicChecks(requestObj2tsList,
+					executor);
+			Map<InetAddress, Future<Boolean>> ipChecks = submitPeriodicChecks(connIP2tsList,
+					executor);
+			hostList = getPeriodicKeys(hostChecks);
+			objList = getPeriodicKeys(objChecks);
+			ipList = getPeriodicKeys(ipChecks);
+		} finally {
+			executor.shutdownNow();
 		}
 
 		for (Burst burst : burstCollection) {
@@ -850,11 +788,11 @@ public class BurstCollectionAnalysis implements Serializable {
 			Packet beginPacket = burst.getBeginPacket().getPacket();
 			if (beginPacket instanceof IPPacket) {
 				IPPacket ip = (IPPacket) beginPacket;
-				if (ipList.containsKey(ip.getDestinationIPAddress())
-						|| ipList.containsKey(ip.getSourceIPAddress())) {
+				if (ipList.contains(ip.getDestinationIPAddress())
+						|| ipList.contains(ip.getSourceIPAddress())) {
 					periodicCount++;
 					burst.setBurstInfo(BurstInfo.BURST_PERIODICAL);
-					if (ipList.containsKey(ip.getDestinationIPAddress())) {
+					if (ipList.contains(ip.getDestinationIPAddress())) {
 						updateHostPeriodicInfoSet(ip.getDestinationIPAddress().toString());
 					} else {
 						updateHostPeriodicInfoSet(ip.getSourceIPAddress().toString());
@@ -863,24 +801,18 @@ public class BurstCollectionAnalysis implements Serializable {
 				}
 			}
 
-			PacketInfo firstUplinkPayloadPacket = null;
-			for (PacketInfo p : burst.getPackets()) {
-				if (p.getDir() == Direction.UPLINK && p.getPayloadLen() > 0) {
-					firstUplinkPayloadPacket = p;
-					break;
-				}
-			}
+			PacketInfo firstUplinkPayloadPacket = burst.getFirstUplinkPayloadPacket();
 
 			for (TCPSession session : analysis.getTcpSessions()) {
 				for (HttpRequestResponseInfo rr : session.getRequestResponseInfo()) {
 					if (rr.getDirection() == HttpRequestResponseInfo.Direction.REQUEST
-							&& (hostList.containsKey(rr.getHostName()) || objList.containsKey(rr
+							&& (hostList.contains(rr.getHostName()) || objList.contains(rr
 									.getObjNameWithoutParams()))) {
 						if (rr.getFirstDataPacket() == firstUplinkPayloadPacket) {
 							periodicCount++;
 							burst.setBurstInfo(BurstInfo.BURST_PERIODICAL);
 							burst.setFirstUplinkDataPacket(firstUplinkPayloadPacket);
-							if (hostList.containsKey(rr.getHostName())) {
+							if (hostList.contains(rr.getHostName())) {
 								updateHostPeriodicInfoSet(rr.getHostName());
 							} else {
 								updateHostPeriodicInfoSet(rr.getObjNameWithoutParams());
@@ -894,23 +826,6 @@ public class BurstCollectionAnalysis implements Serializable {
 		diffPeriodicCount = hostPeriodicInfoSet.size();
 	}
 
-	/**
-	 * Getter for getting the payload length for the provided burst.
-	 * 
-	 * @param burst
-	 * @param bIncludeBkgApp
-	 * @return
-	 */
-	private int getPayloadLength(Burst burst, boolean bIncludeBkgApp) {
-		int r = 0;
-		for (PacketInfo p : burst.getPackets()) {
-			if (bIncludeBkgApp || p.getAppName() != null) {
-				r += p.getPayloadLen();
-			}
-		}
-		return r;
-	}
-
 	/**
 	 * Getter for the payloadlength of overall packets.
 	 * 
@@ -927,134 +842,316 @@ public class BurstCollectionAnalysis implements Serializable {
 	}
 
 	/**
-	 * method to update the subV request event list also to return the cycle or
-	 * request.
+	 * Starts checking each key of the specified map for periodic request
+	 * events.
 	 * 
-	 * @param v
-	 * @param subV
-	 * @return
+	 * @param requestEvents
+	 *            The request events of each key.
+	 * @param executor
+	 *            The executor that checks the keys in parallel.
+	 * @return The pending result of each key.
 	 */
-	private boolean SelfCorr(List<RequestEvent> v, List<RequestEvent> subV) {
-		int n = v.size();
-		subV.clear();
-		if (n <= 3) {
-			return false;
+	private <K> Map<K, Future<Boolean>> submitPeriodicChecks(
+			Map<K, List<RequestEvent>> requestEvents, ExecutorService executor) {
+		Map<K, Future<Boolean>> result = new HashMap<K, Future<Boolean>>();
+		for (Map.Entry<K, List<RequestEvent>> iter : requestEvents.entrySet()) {
+			List<RequestEvent> events = iter.getValue();
+			final double[] ts = new double[events.size()];
+			for (int i = 0; i < ts.length; ++i) {
+				ts[i] = events.get(i).ts;
+			}
+			result.put(iter.getKey(), executor.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					Arrays.sort(ts);
+					return isPeriodic(ts);
+				}
+			}));
 		}
+		return result;
+	}
 
-		List<IatInfo> c = new ArrayList<IatInfo>();
-		for (int i = 0; i < n - 1; i++) {
-			for (int j = i + 1; j < n; j++) {
-				IatInfo ii = new IatInfo();
-				ii.beginTime = v.get(i).ts;
-				ii.iat = v.get(j).ts - ii.beginTime;
-				ii.beginEvent = i;
-				ii.endEvent = j;
-				c.add(ii);
+	/**
+	 * Waits for the periodic checks of a set of keys.
+	 * 
+	 * @param checks
+	 *            The pending result of each key.
+	 * @return The set of keys with periodic request events.
+	 */
+	private <K> Set<K> getPeriodicKeys(Map<K, Future<Boolean>> checks) {
+		Set<K> result = new HashSet<K>();
+		for (Map.Entry<K, Future<Boolean>> iter : checks.entrySet()) {
+			try {
+				if (iter.getValue().get()) {
+					result.add(iter.getKey());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw new IllegalStateException(cause);
 			}
+		}
+		return result;
+	}
 
+	/**
+	 * Determines whether the specified request events are periodic. The events
+	 * are periodic when there is a cluster of inter-arrival times, no wider
+	 * than the profile cycle tolerance and averaging more than the minimum
+	 * cycle, that links at least the minimum number of samples into a chain
+	 * of consecutive intervals.
+	 * <p>
+	 * Rather than building every inter-arrival pair, clusters are first
+	 * checked in bins of twice the tolerance, which contain every cluster
+	 * starting in the bin. Only the inter-arrival times of bins that can hold
+	 * a long enough chain are collected. Their running sums give the average
+	 * of each cluster, and the clusters with a large enough average are then
+	 * checked for a chain in ranges that are halved until they fail or hold a
+	 * single cluster.
+	 * <p>
+	 * A cluster holds every inter-arrival time in its range, so equal
+	 * inter-arrival times, such as those of events with identical time
+	 * stamps, are always in the same cluster. The former implementation also
+	 * started clusters between equal inter-arrival times in the order in which
+	 * the event pairs were listed, which could leave some of them out of a
+	 * cluster and change its average. Such traces may be classified
+	 * differently.
+	 * 
+	 * @param ts
+	 *            The sorted time stamps of the request events.
+	 * @return true if the events are periodic.
+	 */
+	private boolean isPeriodic(double[] ts) {
+		int n = ts.length;
+		if (n <= 3) {
+			return false;
 		}
-		Collections.sort(c, new IatInfoSortByBasicTime1());
 
 		double minPeriod = profile.getPeriodMinCycle();
 		double clusterDurationTh = profile.getPeriodCycleTol(); // tolerable
 																// cluster size
 																// (sec)
-		int clusterSizeTh = profile.getPeriodMinSamples();/* n/2 */
-
-		int m = c.size();
-		List<IatInfo> cluster = new ArrayList<IatInfo>();
-		List<IatInfo> bestCluster = new ArrayList<IatInfo>();
-		List<IatInfo> subCluster = new ArrayList<IatInfo>();
-		int bestNonOverlapSize = 0;
-		for (int i = 0; i < m; i++) {
-			cluster.clear();
-			int j = i;
-			while ((j < m) && ((c.get(j).iat - c.get(i).iat) < clusterDurationTh)) {
-				cluster.add(c.get(j++));
+		int clusterSizeTh = Math.max(profile.getPeriodMinSamples(), 1);
+		if (clusterDurationTh <= 0) {
+			return false;
+		}
+
+		// A cluster averaging more than the minimum cycle starts above
+		// minPeriod - tolerance, and a chain of clusterSizeTh intervals
+		// starting at or above it must fit into the trace
+		double minBegin = Math.max(minPeriod - clusterDurationTh, 0.0);
+		double maxBegin = (ts[n - 1] - ts[0]) / clusterSizeTh + EPS;
+		long firstBin = (long) Math.floor(minBegin / clusterDurationTh);
+		long lastBin = (long) Math.floor(maxBegin / clusterDurationTh);
+		int[] chain = new int[n];
+		int[] deque = new int[n];
+		double[] iats = new double[16];
+		double[] sums = new double[17];
+		double[] candidates = new double[16];
+		for (long bin = firstBin; bin <= lastBin; ++bin) {
+			double binBegin = bin * clusterDurationTh;
+			double binEnd = binBegin + clusterDurationTh;
+			if (getLongestChain(ts, binBegin, 2 * clusterDurationTh, chain, deque) < clusterSizeTh) {
+				continue;
 			}
-			int nonOverlapSize = GetNonOverlapSize(cluster, subCluster);
-			if (getAverage(cluster) > minPeriod && nonOverlapSize > bestNonOverlapSize) {
-				bestCluster = new ArrayList<IatInfo>(cluster);
-				bestNonOverlapSize = nonOverlapSize;
+
+			// Collect the inter-arrival times of every cluster starting in
+			// the bin, and their running sums
+			int count = 0;
+			for (int i = 0; i < n - 1; ++i) {
+				int j = firstIntervalAtLeast(ts, i, binBegin);
+				for (; j < n && ts[j] - ts[i] - binEnd < clusterDurationTh; ++j) {
+					if (count == iats.length) {
+						iats = Arrays.copyOf(iats, count * 2);
+					}
+					iats[count++] = ts[j] - ts[i];
+				}
+			}
+			Arrays.sort(iats, 0, count);
+			if (sums.length < count + 1) {
+				sums = new double[iats.length + 1];
+			}
+			for (int i = 0; i < count; ++i) {
+				sums[i + 1] = sums[i] + iats[i];
 			}
-		}
 
-		int r = GetNonOverlapSize(bestCluster, subCluster);
-		if (r < clusterSizeTh) {
-			return false;
-		} else {
-			int nSize = subCluster.size();
-			subV.add(v.get(subCluster.get(0).beginEvent));
-			for (int i = 0; i < nSize - 1; i++) {
-				subV.add(v.get(subCluster.get(i).endEvent));
+			// Every inter-arrival time in the bin starts a cluster. Keep those
+			// whose cluster averages more than the minimum cycle.
+			int candidateCount = 0;
+			for (int i = 0; i < count && iats[i] < binEnd; ++i) {
+				double begin = iats[i];
+				if ((i > 0 && begin == iats[i - 1]) || begin <= minPeriod - clusterDurationTh
+						|| begin > maxBegin) {
+					continue;
+				}
+				if (begin <= minPeriod) {
+					int end = getClusterEnd(iats, i, count, clusterDurationTh);
+					if ((sums[end] - sums[i]) / (end - i) <= minPeriod) {
+						continue;
+					}
+				}
+				if (candidateCount == candidates.length) {
+					candidates = Arrays.copyOf(candidates, candidateCount * 2);
+				}
+				candidates[candidateCount++] = begin;
+			}
+			if (hasLongChain(ts, candidates, 0, candidateCount, clusterDurationTh,
+					clusterSizeTh, chain, deque)) {
+				return true;
 			}
-			double cycle = getAverage(bestCluster);
-			return cycle > 0;
 		}
+		return false;
 	}
 
 	/**
-	 * Method to calculate the over lap events in burst.
+	 * Determines whether any of the specified clusters has a long enough
+	 * chain. A range of clusters is first checked as one cluster that
+	 * contains all of them, and is only split in half when that cluster has a
+	 * long enough chain.
+	 * 
+	 * @param ts
+	 *            The sorted time stamps of the request events.
+	 * @param candidates
+	 *            The sorted smallest inter-arrival times of the clusters.
+	 * @param from
+	 *            The index of the first cluster of the range.
+	 * @param to
+	 *            The index after the last cluster of the range.
+	 * @param width
+	 *            The width of each cluster.
+	 * @param minChain
+	 *            The minimum number of intervals in the chain.
+	 * @param chain
+	 *            Work array for the chain length ending at each event.
+	 * @param deque
+	 *            Work array for the queue of preceding events.
+	 * @return true if a cluster in the range has a long enough chain.
 	 */
-	private int GetNonOverlapSize(List<IatInfo> v, List<IatInfo> subV) {
-
-		Collections.sort(v, new IatInfoSortByBasicTime2());
-
-		// find the longest path
-		List<Integer> opt = new ArrayList<Integer>();
-		int n = v.size();
-		List<Integer> backTrack = new ArrayList<Integer>();
-
-		int best = -1;
-		int bestI = -1;
-
-		for (int i = 0; i < n; i++) {
-			int o = 1;
-			int b = -1;
+	private static boolean hasLongChain(double[] ts, double[] candidates, int from, int to,
+			double width, int minChain, int[] chain, int[] deque) {
+		if (from >= to) {
+			return false;
+		}
+		double begin = candidates[from];
+		double rangeWidth = to - from > 1 ? candidates[to - 1] - begin + width + EPS : width;
+		if (getLongestChain(ts, begin, rangeWidth, chain, deque) < minChain) {
+			return false;
+		}
+		if (to - from == 1) {
+			return true;
+		}
+		int mid = (from + to) >>> 1;
+		return hasLongChain(ts, candidates, from, mid, width, minChain, chain, deque)
+				|| hasLongChain(ts, candidates, mid, to, width, minChain, chain, deque);
+	}
 
-			for (int j = 0; j <= i - 1; j++) {
-				if ((v.get(j).endEvent == v.get(i).beginEvent) && ((opt.get(j) + 1) > o)) {
-					o = opt.get(j) + 1;
-					b = j;
+	/**
+	 * Returns the number of intervals in the longest chain of consecutive
+	 * request events whose inter-arrival times are all in the specified
+	 * cluster. For each event, the events that may precede it in the chain
+	 * form a window that only moves forward, so the best chain ending before
+	 * each event is kept in a monotonic queue.
+	 * 
+	 * @param ts
+	 *            The sorted time stamps of the request events.
+	 * @param begin
+	 *            The smallest inter-arrival time of the cluster.
+	 * @param width
+	 *            The width of the cluster.
+	 * @param chain
+	 *            Work array for the chain length ending at each event.
+	 * @param deque
+	 *            Work array for the queue of preceding events.
+	 * @return The number of intervals in the longest chain.
+	 */
+	private static int getLongestChain(double[] ts, double begin, double width, int[] chain,
+			int[] deque) {
+		int n = ts.length;
+		int best = 0;
+		int head = 0, tail = 0;
+		int lo = 0, hi = 0;
+		for (int v = 0; v < n; ++v) {
+
+			// Add the events that are now far enough before this one
+			while (hi < v && ts[v] - ts[hi] >= begin) {
+				while (tail > head && chain[deque[tail - 1]] <= chain[hi]) {
+					--tail;
 				}
+				deque[tail++] = hi++;
 			}
 
-			if (o > best) {
-				best = o;
-				bestI = i;
+			// Drop the events that are now too far before this one
+			while (lo < hi && ts[v] - ts[lo] - begin >= width) {
+				++lo;
+			}
+			while (tail > head && deque[head] < lo) {
+				++head;
 			}
 
-			opt.add(o);
-			backTrack.add(b);
-		}
-
-		List<Integer> idxList = new ArrayList<Integer>();
-		int i = bestI;
-		while (i != -1) {
-			idxList.add(i);
-			i = backTrack.get(i);
+			chain[v] = tail > head ? chain[deque[head]] + 1 : 0;
+			if (chain[v] > best) {
+				best = chain[v];
+			}
 		}
+		return best;
+	}
 
-		subV.clear();
-		int m = idxList.size();
-		for (int ki = m - 1; ki >= 0; ki--) {
-			subV.add(v.get(idxList.get(ki)));
+	/**
+	 * Returns the end of the cluster that starts at the specified
+	 * inter-arrival time.
+	 * 
+	 * @param iats
+	 *            The sorted inter-arrival times.
+	 * @param i
+	 *            The index of the first inter-arrival time of the cluster.
+	 * @param count
+	 *            The number of inter-arrival times.
+	 * @param width
+	 *            The width of the cluster.
+	 * @return The index after the last inter-arrival time of the cluster.
+	 */
+	private static int getClusterEnd(double[] iats, int i, int count, double width) {
+		int lo = i + 1, hi = count;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (iats[mid] - iats[i] < width) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
 		}
-		return best;
+		return lo;
 	}
 
 	/**
-	 * method to calculate the average.
+	 * Returns the index of the first event after the specified one whose
+	 * inter-arrival time from it is at least the specified value.
 	 * 
-	 * @param v
-	 * @return
+	 * @param ts
+	 *            The sorted time stamps of the request events.
+	 * @param i
+	 *            The index of the first event of the interval.
+	 * @param iat
+	 *            The inter-arrival time.
+	 * @return The index of the event, or the number of events if there is
+	 *         none.
 	 */
-	private double getAverage(List<IatInfo> v) {
-		double sum = 0;
-		for (IatInfo iatInfo : v) {
-			sum += iatInfo.iat;
+	private static int firstIntervalAtLeast(double[] ts, int i, double iat) {
+		int lo = i + 1, hi = ts.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (ts[mid] - ts[i] < iat) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
 		}
-		return sum / v.size();
+		return lo;
 	}
 
 	/**
@@ -1143,7 +1240,8 @@ public class BurstCollectionAnalysis implements Serializable {
 
 		if (packetId != null) {
 			shortestPeriodPacketInfo = packetId;
-			shortestPeriodTCPSession = packetId.getSession();
+			shortestPeriodTCPSession = analysis.getPacketAnnotations()
+					.getSession(packetId);
 		}
 		if (minimumRepeatTime != Double.MAX_VALUE) {
 			minimumPeriodicRepeatTime = minimumRepeatTime;
@@ -0,0 +1,108 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.model;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Maintains the set of byte ranges of an object that have been downloaded. The
+ * ranges are kept merged, so that they are always disjoint and never adjacent,
+ * and are indexed by their first byte. Ranges are half open, from the first
+ * byte up to but not including the last byte.
+ */
+class ByteRangeSet implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private NavigableMap<Long, Long> ranges = new TreeMap<Long, Long>();
+
+	/**
+	 * Adds a range to the set, merging it with every range that it overlaps or
+	 * touches.
+	 *
+	 * @param firstByte
+	 *            The first byte of the range.
+	 * @param lastByte
+	 *            The byte following the last byte of the range.
+	 */
+	public void add(long firstByte, long lastByte) {
+		if (lastByte <= firstByte) {
+			return;
+		}
+
+		Map.Entry<Long, Long> floor = ranges.floorEntry(firstByte);
+		if (floor != null && floor.getValue() >= firstByte) {
+			firstByte = floor.getKey();
+			lastByte = Math.max(lastByte, floor.getValue());
+		}
+
+		Iterator<Long> iter = ranges.subMap(firstByte, true, lastByte, true)
+				.values().iterator();
+		while (iter.hasNext()) {
+			lastByte = Math.max(lastByte, iter.next());
+			iter.remove();
+		}
+		ranges.put(firstByte, lastByte);
+	}
+
+	/**
+	 * Returns a value indicating whether the specified range lies completely
+	 * in one range of the set.
+	 *
+	 * @param firstByte
+	 *            The first byte of the range.
+	 * @param lastByte
+	 *            The byte following the last byte of the range.
+	 * @return true if the range is covered by the set.
+	 */
+	public boolean covers(long firstByte, long lastByte) {
+		Map.Entry<Long, Long> floor = ranges.floorEntry(firstByte);
+		return floor != null && floor.getValue() >= lastByte;
+	}
+
+	/**
+	 * Returns the number of bytes of the specified range that are in the set.
+	 * Only the ranges of the set that intersect the specified range are
+	 * visited.
+	 *
+	 * @param firstByte
+	 *            The first byte of the range.
+	 * @param lastByte
+	 *            The byte following the last byte of the range.
+	 * @return The overlap in bytes.
+	 */
+	public long getOverlap(long firstByte, long lastByte) {
+		if (lastByte <= firstByte) {
+			return 0;
+		}
+
+		Long from = ranges.floorKey(firstByte);
+		if (from == null) {
+			from = firstByte;
+		}
+
+		long result = 0;
+		for (Map.Entry<Long, Long> entry : ranges.subMap(from, true, lastByte,
+				false).entrySet()) {
+			result += Math.max(0, Math.min(lastByte, entry.getValue())
+					- Math.max(firstByte, entry.getKey()));
+		}
+		return result;
+	}
+}
@@ -17,19 +17,24 @@ package com.att.aro.model;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 /**
@@ -43,6 +48,8 @@ public class CacheAnalysis implements Serializable {
 	private static final Logger logger = Logger.getLogger(CacheAnalysis.class
 			.getName());
 
+	private static final String CONTENT_DIGEST_ALGORITHM = "SHA-1";
+
 	/**
 	 * The CacheAnalysis.CacheExpiration Enumeration specifies constant values that 
 	 * describe the cache expiration state. This enumeration is part of the CacheAnalysis 
@@ -67,36 +74,6 @@ public class CacheAnalysis implements Serializable {
 		CACHE_NOT_EXPIRED_HEURISTIC
 	}
 
-	private class Range implements Comparable<Range> {
-		private long firstByte;
-		private long lastByte;
-
-		public Range(long firstByte, long lastByte) {
-			this.firstByte = firstByte;
-			this.lastByte = lastByte;
-		}
-
-		@Override
-		public int compareTo(Range o) {
-			return Long.valueOf(firstByte).compareTo(o.firstByte);
-		}
-
-		@Override
-		public int hashCode() {
-			return Long.valueOf(firstByte).hashCode();
-		}
-
-		@Override
-		public boolean equals(Object obj) {
-			if (obj instanceof Range) {
-				Range r = (Range) obj;
-				return firstByte == r.firstByte && lastByte == r.lastByte;
-			}
-			return false;
-		}
-
-	}
-
 	private long totalRequestResponseBytes;
 	private long totalRequestResponseDupBytes;
 	private double duplicateContentBytesRatio;
@@ -105,12 +82,14 @@ public class CacheAnalysis implements Serializable {
 	private List<HttpRequestResponseInfo> invalidRequests = new ArrayList<HttpRequestResponseInfo>();
 	private List<HttpRequestResponseInfo> invalidResponses = new ArrayList<HttpRequestResponseInfo>();
 	private Map<String, CacheEntry> cacheEntries = new HashMap<String, CacheEntry>();
-	private Map<String, SortedSet<Range>> rangeEntries = new HashMap<String, SortedSet<Range>>();
+	private Map<String, ByteRangeSet> rangeEntries = new HashMap<String, ByteRangeSet>();
 	private Map<CacheExpiration, List<CacheEntry>> cacheExpirationResponses = new EnumMap<CacheExpiration, List<CacheEntry>>(
 			CacheExpiration.class);
 	private List<CacheEntry> diagnosisResults = new ArrayList<CacheEntry>();
 	private List<CacheEntry> duplicateContent = new ArrayList<CacheEntry>();
 	private List<CacheEntry> duplicateContentWithOriginals = new ArrayList<CacheEntry>();
+	private List<CacheEntry> contentDuplicates = new ArrayList<CacheEntry>();
+	private long contentDuplicateBytes;
 
 	/**
 	 * Initializes an instance of the CacheAnalysis class using the specified collection of TCP session data.
@@ -229,7 +208,7 @@ public class CacheAnalysis implements Serializable {
 
 			CacheExpiration expStatus = cacheExpired(cacheEntry,
 					request.getAbsTimeStamp());
-			SortedSet<Range> ranges = getPartialRanges(cacheEntry);
+			ByteRangeSet ranges = getPartialRanges(cacheEntry);
 			if (isFullCacheHit(request, response, ranges)) {
 
 				// [D] Is it expired?
@@ -374,6 +353,10 @@ public class CacheAnalysis implements Serializable {
 				break;
 			}
 		}
+
+		// Look for identical content downloaded from different URLs
+		findContentDuplicates(dupsWithOrig);
+
 		this.duplicateContentWithOriginals.addAll(dupsWithOrig);
 		Collections.sort(duplicateContentWithOriginals);
 		this.duplicateContentBytesRatio = totalRequestResponseBytes != 0 ? (double) totalRequestResponseDupBytes
@@ -409,6 +392,87 @@ public class CacheAnalysis implements Serializable {
 		return Collections.unmodifiableList(duplicateContentWithOriginals);
 	}
 
+	/**
+	 * Returns the list of responses whose content is byte-identical to a
+	 * response that was previously downloaded from a different URL. The cache
+	 * hit of each entry is the entry of the original download.
+	 * 
+	 * @return A List of CacheEntry objects with the
+	 *         CACHING_DIAG_CONTENT_DUP_DIFFERENT_URL diagnosis.
+	 */
+	public List<CacheEntry> getContentDuplicates() {
+		return Collections.unmodifiableList(contentDuplicates);
+	}
+
+	/**
+	 * Returns the total number of content bytes that were downloaded again
+	 * from a different URL.
+	 * 
+	 * @return The number of bytes wasted on identical content.
+	 */
+	public long getContentDuplicateBytes() {
+		return contentDuplicateBytes;
+	}
+
+	/**
+	 * Returns the RRC energy consumed while the identical content returned by
+	 * {@link #getContentDuplicates()} was being downloaded. Overlapping
+	 * downloads are only counted once.
+	 * 
+	 * @param rrcStateMachine
+	 *            - The RRC state machine of the trace.
+	 * @return The energy in joules.
+	 */
+	public double getContentDuplicateEnergy(RRCStateMachine rrcStateMachine) {
+		return getDownloadEnergy(contentDuplicates, rrcStateMachine);
+	}
+
+	/**
+	 * Returns the RRC energy consumed while the responses of the specified
+	 * cache entries were being downloaded. Overlapping downloads are only
+	 * counted once.
+	 * 
+	 * @param entries
+	 *            - The cache entries.
+	 * @param rrcStateMachine
+	 *            - The RRC state machine of the trace.
+	 * @return The energy in joules.
+	 */
+	static double getDownloadEnergy(Collection<CacheEntry> entries,
+			RRCStateMachine rrcStateMachine) {
+		List<double[]> spans = new ArrayList<double[]>(entries.size());
+		for (CacheEntry entry : entries) {
+			List<PacketInfo> packets = entry.getResponse().getPackets();
+			if (!packets.isEmpty()) {
+				spans.add(new double[] { packets.get(0).getTimeStamp(),
+						packets.get(packets.size() - 1).getTimeStamp() });
+			}
+		}
+		Collections.sort(spans, new Comparator<double[]>() {
+			@Override
+			public int compare(double[] o1, double[] o2) {
+				return Double.compare(o1[0], o2[0]);
+			}
+		});
+
+		double result = 0.0;
+		double[] current = null;
+		for (double[] span : spans) {
+			if (current != null && span[0] <= current[1]) {
+				current[1] = Math.max(current[1], span[1]);
+			} else {
+				if (current != null) {
+					result += rrcStateMachine.getEnergy(current[0], current[1]);
+				}
+				current = span;
+			}
+		}
+		if (current != null) {
+			result += rrcStateMachine.getEnergy(current[0], current[1]);
+		}
+		return result;
+	}
+
 	/**
 	 * Returns the ratio of the number of bytes that were sent for duplicate content, 
 	 * compared to the total bytes of downloaded content. To get a percentage of duplicate 
@@ -449,6 +513,122 @@ public class CacheAnalysis implements Serializable {
 		return Collections.unmodifiableMap(cacheExpirationResponses);
 	}
 
+	/**
+	 * Finds responses whose content is byte-identical to a response that was
+	 * previously downloaded from a different URL. Only downloads that the
+	 * cache simulation did not already report as duplicates are compared.
+	 * 
+	 * @param dupsWithOrig
+	 *            - The set of duplicates and originals to be updated.
+	 */
+	private void findContentDuplicates(Set<CacheEntry> dupsWithOrig) {
+		List<CacheEntry> candidates = new ArrayList<CacheEntry>();
+		for (CacheEntry c : diagnosisResults) {
+			switch (c.getDiagnosis()) {
+			case CACHING_DIAG_CACHE_MISSED:
+			case CACHING_DIAG_NOT_CACHABLE:
+			case CACHING_DIAG_OBJ_CHANGED:
+				if (c.getRequest() != null
+						&& c.getResponse().getStatusCode() == 200) {
+					candidates.add(c);
+				}
+				break;
+			}
+		}
+		if (candidates.isEmpty()) {
+			return;
+		}
+
+		// Candidates are in time order so the first download of the content
+		// is the original
+		List<byte[]> digests = getContentDigests(candidates);
+		Map<ByteBuffer, CacheEntry> originals = new HashMap<ByteBuffer, CacheEntry>();
+		for (int i = 0; i < candidates.size(); ++i) {
+			byte[] digest = digests.get(i);
+			if (digest == null) {
+				continue;
+			}
+
+			CacheEntry c = candidates.get(i);
+			ByteBuffer key = ByteBuffer.wrap(digest);
+			CacheEntry original = originals.get(key);
+			if (original == null) {
+				originals.put(key, c);
+			} else if (!c.getRequest().getHostName()
+					.equals(original.getRequest().getHostName())
+					|| !c.getRequest().getObjName()
+							.equals(original.getRequest().getObjName())) {
+				CacheEntry dup = new CacheEntry(
+						c.getRequest(),
+						c.getResponse(),
+						CacheEntry.Diagnosis.CACHING_DIAG_CONTENT_DUP_DIFFERENT_URL);
+				dup.setCacheHit(original);
+				contentDuplicates.add(dup);
+				contentDuplicateBytes += c.getResponse().getActualByteCount();
+				dupsWithOrig.add(dup);
+				dupsWithOrig.add(original);
+			}
+		}
+	}
+
+	/**
+	 * Computes the content digest of the response of each cache entry
+	 * concurrently on all available processors.
+	 * 
+	 * @param entries
+	 *            - The cache entries to be hashed.
+	 * @return The digests, in the order of the entries. A digest is null when
+	 *         the response has no content or the content is incomplete.
+	 */
+	private List<byte[]> getContentDigests(List<CacheEntry> entries) {
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(),
+				entries.size());
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(
+				threads, 1), new AnalysisThreadFactory("CacheAnalysis"));
+		try {
+			List<Future<byte[]>> futures = new ArrayList<Future<byte[]>>(
+					entries.size());
+			for (final CacheEntry entry : entries) {
+				futures.add(executor.submit(new Callable<byte[]>() {
+					@Override
+					public byte[] call() throws NoSuchAlgorithmException {
+						HttpRequestResponseInfo response = entry.getResponse();
+						if (response.getActualByteCount() == 0) {
+							return null;
+						}
+						try {
+							return response
+									.getContentDigest(CONTENT_DIGEST_ALGORITHM);
+						} catch (ContentException e) {
+
+							// Incomplete content cannot be compared
+							return null;
+						}
+					}
+				}));
+			}
+
+			List<byte[]> result = new ArrayList<byte[]>(futures.size());
+			for (Future<byte[]> future : futures) {
+				try {
+					result.add(future.get());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(e);
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					throw new IllegalStateException(cause);
+				}
+			}
+			return result;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
 	/**
 	 * Cache Expired status analysis.
 	 * 
@@ -535,23 +715,16 @@ public class CacheAnalysis implements Serializable {
 	 * @return true full cache found else false.
 	 */
 	private boolean isFullCacheHit(HttpRequestResponseInfo request,
-			HttpRequestResponseInfo response, SortedSet<Range> ranges) {
+			HttpRequestResponseInfo response, ByteRangeSet ranges) {
 
 		if (ranges != null) {
-			for (Range r : ranges) {
-
-				// Here we are looking at the numbers IN THE HEADER instead
-				// of ON THE WIRE
-				// We assume "Content-Range" in the RESPONSE header match
-				// "Range" in the REQUEST
-				if (response.getRangeFirst() >= r.firstByte
-						&& response.getRangeLast() < r.lastByte) {
-					return true;
-				}
-			}
 
-			// Partial cache hit
-			return false;
+			// Here we are looking at the numbers IN THE HEADER instead
+			// of ON THE WIRE
+			// We assume "Content-Range" in the RESPONSE header match
+			// "Range" in the REQUEST
+			return ranges.covers(response.getRangeFirst(),
+					response.getRangeLast() + 1);
 		}
 
 		// the cache entry contains the entire object
@@ -568,23 +741,23 @@ public class CacheAnalysis implements Serializable {
 	 * @return cache vaules in bytes
 	 */
 	private long getBytesInCache(HttpRequestResponseInfo request,
-			HttpRequestResponseInfo response, SortedSet<Range> ranges) {
+			HttpRequestResponseInfo response, ByteRangeSet ranges) {
 
 		long xferFirst = response.isRangeResponse() ? response.getRangeFirst()
 				: 0;
 		long xferLast = xferFirst + response.getRawSize();
-
-		long cachedBytes = 0L;
-		for (Range r : ranges) {
-			cachedBytes += Math.max(
-					0,
-					Math.min(xferLast, r.lastByte)
-							- Math.max(xferFirst, r.firstByte));
-		}
-		return cachedBytes;
+		return ranges.getOverlap(xferFirst, xferLast);
 	}
 
-	private String getObjFullName(HttpRequestResponseInfo request,
+	/**
+	 * Returns the key that identifies the cached object of a request and
+	 * response.
+	 * 
+	 * @param request
+	 * @param response
+	 * @return The host name, object name and ETag of the object.
+	 */
+	static String getObjFullName(HttpRequestResponseInfo request,
 			HttpRequestResponseInfo response) {
 		return request.getHostName() + "|" + request.getObjName() + "|"
 				+ response.getEtag();
@@ -595,7 +768,7 @@ public class CacheAnalysis implements Serializable {
 		return cacheEntries.get(getObjFullName(request, response));
 	}
 
-	private SortedSet<Range> getPartialRanges(CacheEntry ce) {
+	private ByteRangeSet getPartialRanges(CacheEntry ce) {
 		return rangeEntries.get(getObjFullName(ce.getRequest(),
 				ce.getResponse()));
 	}
@@ -609,37 +782,26 @@ public class CacheAnalysis implements Serializable {
 		HttpRequestResponseInfo request = ce.getRequest();
 		HttpRequestResponseInfo response = ce.getResponse();
 
-		Range r = null;
+		long first = -1;
+		long last = -1;
 		long xferSize = calculatePartialTransfer(request, response);
 		if (response.isRangeResponse()) {
-			long first = response.getRangeFirst();
-			long last = xferSize > 0 ? first + xferSize - 1 : response
-					.getRangeLast();
-			r = new Range(first, last + 1);
+			first = response.getRangeFirst();
+			last = (xferSize > 0 ? first + xferSize - 1 : response
+					.getRangeLast()) + 1;
 		} else if (xferSize > 0) {
-			r = new Range(0, xferSize);
+			first = 0;
+			last = xferSize;
 		}
 
 		String objFullName = getObjFullName(ce.getRequest(), ce.getResponse());
-		if (r != null) {
-			SortedSet<Range> ranges = rangeEntries.get(objFullName);
-			if (ranges != null) {
-				ranges.add(r);
-				Iterator<Range> iter = ranges.iterator();
-				Range last = iter.next();
-				while (iter.hasNext()) {
-					Range curr = iter.next();
-					if (curr.firstByte >= last.firstByte
-							&& curr.firstByte <= last.lastByte) {
-						last.lastByte = Math.max(last.lastByte, curr.lastByte);
-						iter.remove();
-					}
-				}
-			} else {
-				ranges = new TreeSet<Range>();
-				ranges.add(r);
+		if (first >= 0) {
+			ByteRangeSet ranges = rangeEntries.get(objFullName);
+			if (ranges == null) {
+				ranges = new ByteRangeSet();
 				rangeEntries.put(objFullName, ranges);
 			}
+			ranges.add(first, last);
 		} else {
 			rangeEntries.remove(objFullName);
 		}
@@ -87,7 +87,12 @@ public class CacheEntry implements Serializable, Comparable<CacheEntry> {
 		/**
 		 * The cache entry contains a Request that was not found.
 		 */
-		CACHING_DIAG_REQUEST_NOT_FOUND
+		CACHING_DIAG_REQUEST_NOT_FOUND,
+		/**
+		 * The cache entry contains content that is identical to content
+		 * previously downloaded from a different URL.
+		 */
+		CACHING_DIAG_CONTENT_DUP_DIFFERENT_URL
 	}
 
 	private CacheEntry cacheHit;
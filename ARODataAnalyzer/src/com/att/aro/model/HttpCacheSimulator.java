@@ -0,0 +1,348 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Replays the cacheable HTTP requests of a cache analysis against client
+ * caches of limited capacity. The cache analysis assumes an unlimited cache;
+ * the simulator reports how many of the duplicate downloads found by it would
+ * have been avoided by a cache of each capacity and eviction policy.
+ *
+ * All configurations are simulated in a single pass over the requests. LRU
+ * caches of every capacity are evaluated at once from the byte stack distance
+ * of each request, which is the total size of the distinct objects used since
+ * the previous request for the same object.
+ */
+public class HttpCacheSimulator {
+
+	/**
+	 * The HttpCacheSimulator.EvictionPolicy Enumeration specifies constant
+	 * values that describe how a full cache selects the object to be evicted.
+	 */
+	public enum EvictionPolicy {
+		/**
+		 * The least recently used object is evicted.
+		 */
+		LRU,
+		/**
+		 * The least frequently used object is evicted.
+		 */
+		LFU,
+		/**
+		 * The object with the lowest GreedyDual-Size priority is evicted,
+		 * which favors keeping small objects.
+		 */
+		SIZE_AWARE
+	}
+
+	/**
+	 * Contains the simulation results for one cache configuration.
+	 */
+	public static class Result {
+		private EvictionPolicy policy;
+		private long capacity;
+		private int requestCount;
+		private int hitCount;
+		private long bytesSaved;
+		private double energySaved;
+
+		private Result(EvictionPolicy policy, long capacity, int requestCount) {
+			this.policy = policy;
+			this.capacity = capacity;
+			this.requestCount = requestCount;
+		}
+
+		/**
+		 * Returns the eviction policy of the cache.
+		 *
+		 * @return The eviction policy.
+		 */
+		public EvictionPolicy getPolicy() {
+			return policy;
+		}
+
+		/**
+		 * Returns the capacity of the cache.
+		 *
+		 * @return The capacity in bytes.
+		 */
+		public long getCapacity() {
+			return capacity;
+		}
+
+		/**
+		 * Returns the number of duplicate downloads that the cache would have
+		 * avoided.
+		 *
+		 * @return The hit count.
+		 */
+		public int getHitCount() {
+			return hitCount;
+		}
+
+		/**
+		 * Returns the ratio of avoided downloads to all cacheable requests.
+		 *
+		 * @return The hit ratio.
+		 */
+		public double getHitRatio() {
+			return requestCount > 0 ? (double) hitCount / requestCount : 0.0;
+		}
+
+		/**
+		 * Returns the number of bytes that the cache would have saved.
+		 *
+		 * @return The bytes saved.
+		 */
+		public long getBytesSaved() {
+			return bytesSaved;
+		}
+
+		/**
+		 * Returns the RRC energy consumed by the downloads that the cache
+		 * would have avoided.
+		 *
+		 * @return The energy saved in joules.
+		 */
+		public double getEnergySaved() {
+			return energySaved;
+		}
+	}
+
+	/**
+	 * A cache of limited capacity that evicts the object with the lowest
+	 * priority. Ties are broken in favor of the most recently used object.
+	 */
+	private static class PriorityCache {
+		private static class Node {
+			private String key;
+			private long size;
+			private double priority;
+			private int lastUse;
+			private int useCount;
+		}
+
+		private EvictionPolicy policy;
+		private long capacity;
+		private long used;
+		private double inflation;
+		private Map<String, Node> nodes = new HashMap<String, Node>();
+		private TreeSet<Node> queue = new TreeSet<Node>(new Comparator<Node>() {
+			@Override
+			public int compare(Node o1, Node o2) {
+				int result = Double.compare(o1.priority, o2.priority);
+				return result != 0 ? result : o1.lastUse - o2.lastUse;
+			}
+		});
+
+		private PriorityCache(EvictionPolicy policy, long capacity) {
+			this.policy = policy;
+			this.capacity = capacity;
+		}
+
+		/**
+		 * Requests an object and stores it in the cache with its new size.
+		 *
+		 * @return true if the object was in the cache.
+		 */
+		private boolean access(String key, long size, int index) {
+			Node node = nodes.get(key);
+			boolean hit = node != null;
+			if (hit) {
+				queue.remove(node);
+				used -= node.size;
+			} else {
+				node = new Node();
+				node.key = key;
+				nodes.put(key, node);
+			}
+
+			node.size = size;
+			node.lastUse = index;
+			++node.useCount;
+			node.priority = policy == EvictionPolicy.LFU ? node.useCount
+					: inflation + 1.0 / Math.max(size, 1);
+			queue.add(node);
+			used += size;
+
+			while (used > capacity) {
+				Node evicted = queue.pollFirst();
+				used -= evicted.size;
+				nodes.remove(evicted.key);
+				if (policy == EvictionPolicy.SIZE_AWARE) {
+					inflation = evicted.priority;
+				}
+			}
+			return hit;
+		}
+	}
+
+	private CacheAnalysis cacheAnalysis;
+	private RRCStateMachine rrcStateMachine;
+
+	/**
+	 * Initializes an instance of the HttpCacheSimulator class.
+	 *
+	 * @param cacheAnalysis
+	 *            The cache analysis that supplies the requests.
+	 * @param rrcStateMachine
+	 *            The RRC state machine used to compute the energy saved.
+	 */
+	public HttpCacheSimulator(CacheAnalysis cacheAnalysis,
+			RRCStateMachine rrcStateMachine) {
+		this.cacheAnalysis = cacheAnalysis;
+		this.rrcStateMachine = rrcStateMachine;
+	}
+
+	/**
+	 * Simulates caches of every eviction policy with each of the specified
+	 * capacities.
+	 *
+	 * @param capacities
+	 *            The cache capacities in bytes.
+	 * @return The results, grouped by eviction policy in the order of the
+	 *         capacities.
+	 */
+	public List<Result> run(long[] capacities) {
+
+		// Cacheable requests in time order
+		List<CacheEntry> requests = new ArrayList<CacheEntry>();
+		for (CacheEntry entry : cacheAnalysis.getDiagnosisResults()) {
+			switch (entry.getDiagnosis()) {
+			case CACHING_DIAG_CACHE_MISSED:
+			case CACHING_DIAG_NOT_EXPIRED_DUP:
+			case CACHING_DIAG_OBJ_CHANGED:
+			case CACHING_DIAG_OBJ_NOT_CHANGED_304:
+			case CACHING_DIAG_OBJ_NOT_CHANGED_DUP_SERVER:
+			case CACHING_DIAG_OBJ_NOT_CHANGED_DUP_CLIENT:
+			case CACHING_DIAG_OBJ_NOT_CHANGED_DUP_PARTIALHIT_SERVER:
+			case CACHING_DIAG_OBJ_NOT_CHANGED_DUP_PARTIALHIT_CLIENT:
+			case CACHING_DIAG_NOT_EXPIRED_DUP_PARTIALHIT:
+				requests.add(entry);
+				break;
+			}
+		}
+
+		EvictionPolicy[] policies = EvictionPolicy.values();
+		List<Result> results = new ArrayList<Result>(policies.length
+				* capacities.length);
+		List<List<CacheEntry>> hits = new ArrayList<List<CacheEntry>>();
+		List<PriorityCache> caches = new ArrayList<PriorityCache>();
+		for (EvictionPolicy policy : policies) {
+			for (long capacity : capacities) {
+				results.add(new Result(policy, capacity, requests.size()));
+				hits.add(new ArrayList<CacheEntry>());
+				caches.add(policy != EvictionPolicy.LRU ? new PriorityCache(
+						policy, capacity) : null);
+			}
+		}
+
+		// The LRU stack holds the size of each object at the index of its
+		// last request, so that the byte stack distance is a range sum
+		long[] stack = new long[requests.size() + 1];
+		Map<String, Integer> lastUse = new HashMap<String, Integer>();
+		Map<String, Long> sizes = new HashMap<String, Long>();
+
+		for (int i = 0; i < requests.size(); ++i) {
+			CacheEntry entry = requests.get(i);
+			String key = CacheAnalysis.getObjFullName(entry.getRequest(),
+					entry.getResponse());
+
+			// The cached size of an object is the largest size it has been
+			// transferred with, so that 304 and partial responses do not
+			// shrink it. Sizes that never shrink also keep the LRU stack exact.
+			Long oldSize = sizes.get(key);
+			long size = entry.getResponse().getActualByteCount();
+			if (oldSize != null && oldSize > size) {
+				size = oldSize;
+			}
+			sizes.put(key, size);
+
+			long distance = Long.MAX_VALUE;
+			Integer previous = lastUse.put(key, i + 1);
+			if (previous != null) {
+				distance = sum(stack, i) - sum(stack, previous) + oldSize;
+				add(stack, previous, -oldSize);
+			}
+			add(stack, i + 1, size);
+
+			boolean avoidable = isAvoidable(entry);
+			for (int j = 0; j < results.size(); ++j) {
+				PriorityCache cache = caches.get(j);
+				boolean hit = cache != null ? cache.access(key, size, i)
+						: distance <= results.get(j).capacity;
+				if (hit && avoidable) {
+					Result result = results.get(j);
+					++result.hitCount;
+					result.bytesSaved += entry.getBytesInCache();
+					hits.get(j).add(entry);
+				}
+			}
+		}
+
+		for (int j = 0; j < results.size(); ++j) {
+			results.get(j).energySaved = CacheAnalysis.getDownloadEnergy(
+					hits.get(j), rrcStateMachine);
+		}
+		return results;
+	}
+
+	/**
+	 * Returns a value indicating whether the download of a cache entry is a
+	 * duplicate that a cache holding the object would have avoided.
+	 */
+	private static boolean isAvoidable(CacheEntry entry) {
+		switch (entry.getDiagnosis()) {
+		case CACHING_DIAG_NOT_EXPIRED_DUP:
+		case CACHING_DIAG_OBJ_NOT_CHANGED_DUP_SERVER:
+		case CACHING_DIAG_OBJ_NOT_CHANGED_DUP_CLIENT:
+		case CACHING_DIAG_OBJ_NOT_CHANGED_DUP_PARTIALHIT_SERVER:
+		case CACHING_DIAG_OBJ_NOT_CHANGED_DUP_PARTIALHIT_CLIENT:
+		case CACHING_DIAG_NOT_EXPIRED_DUP_PARTIALHIT:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Adds a value at a 1-based index of a binary indexed tree.
+	 */
+	private static void add(long[] tree, int index, long value) {
+		for (; index < tree.length; index += index & -index) {
+			tree[index] += value;
+		}
+	}
+
+	/**
+	 * Returns the sum of the values at the 1-based indexes up to and including
+	 * the specified index of a binary indexed tree.
+	 */
+	private static long sum(long[] tree, int index) {
+		long result = 0;
+		for (; index > 0; index -= index & -index) {
+			result += tree[index];
+		}
+		return result;
+	}
+}
@@ -22,6 +22,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -228,6 +230,7 @@ public class HttpRequestResponseInfo implements
 				.compile("If-None-Match\\s*:");
 
 		private TCPSession session;
+		private PacketAnnotations annotations;
 		private ArrayList<HttpRequestResponseInfo> result = new ArrayList<HttpRequestResponseInfo>();
 		private int counter;
 		private byte[] input;
@@ -239,8 +242,10 @@ public class HttpRequestResponseInfo implements
 		private DateFormat[] dateFormats = { rfc1123, rfc1036, asctime,
 				asctime2 };
 
-		public RequestResponseBuilder(TCPSession session) throws IOException {
+		public RequestResponseBuilder(TCPSession session,
+				PacketAnnotations annotations) throws IOException {
 			this.session = session;
+			this.annotations = annotations;
 			extractHttpRequestResponseInfo(PacketInfo.Direction.UPLINK);
 			extractHttpRequestResponseInfo(PacketInfo.Direction.DOWNLINK);
 			Collections.sort(result);
@@ -407,7 +412,7 @@ public class HttpRequestResponseInfo implements
 							&& tcp.getSequenceNumber() <= endSeq
 									+ lastDataPacket.getPayloadLen()) {
 						rrPackets.add(p);
-						p.setRequestResponseInfo(rrInfo);
+						annotations.setRequestResponseInfo(p, rrInfo);
 					}
 				}
 			}
@@ -824,13 +829,16 @@ public class HttpRequestResponseInfo implements
 	 * 
 	 * @param session
 	 *            The tcp session object.
+	 * @param annotations
+	 *            The packet annotations that receive the request/response of
+	 *            each packet.
 	 * @return The list of requests/responses that were found in the specified
 	 *         tcp session.
 	 * @throws IOException
 	 */
 	public static List<HttpRequestResponseInfo> extractHttpRequestResponseInfo(
-			TCPSession session) throws IOException {
-		return new RequestResponseBuilder(session).getResult();
+			TCPSession session, PacketAnnotations annotations) throws IOException {
+		return new RequestResponseBuilder(session, annotations).getResult();
 	}
 
 	/**
@@ -1312,6 +1320,50 @@ public class HttpRequestResponseInfo implements
 		}
 	}
 
+	/**
+	 * Returns a digest of the request/response body as it was transferred. The
+	 * digest is computed directly over the reassembled session storage, so the
+	 * content is neither copied nor uncompressed.
+	 * 
+	 * @param algorithm
+	 *            - The name of the MessageDigest algorithm, for example "SHA-1".
+	 * @return The digest of the body, or null if there is no content.
+	 * @throws ContentException
+	 *             - When part of the content is not available.
+	 * @throws NoSuchAlgorithmException
+	 *             - When the algorithm is not supported.
+	 */
+	public byte[] getContentDigest(String algorithm) throws ContentException,
+			NoSuchAlgorithmException {
+		if (contentOffsetLength != null) {
+			byte[] buffer;
+			switch (packetDirection) {
+			case DOWNLINK:
+				buffer = session.getStorageDl();
+				break;
+			case UPLINK:
+				buffer = session.getStorageUl();
+				break;
+			default:
+				return null;
+			}
+
+			MessageDigest digest = MessageDigest.getInstance(algorithm);
+			for (Map.Entry<Integer, Integer> entry : contentOffsetLength
+					.entrySet()) {
+				int start = entry.getKey();
+				int size = entry.getValue();
+				if (buffer.length < start + size) {
+					throw new ContentException("Content not available");
+				}
+				digest.update(buffer, start, size);
+			}
+			return digest.digest();
+		} else {
+			return null;
+		}
+	}
+
 	/**
 	 * Gets the number of bytes in the request/response body. The actual byte count.
 	 * 
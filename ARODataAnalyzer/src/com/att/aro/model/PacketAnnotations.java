@@ -0,0 +1,156 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.model;
+
+import java.io.Serializable;
+
+import com.att.aro.model.PacketInfo.TcpInfo;
+
+/**
+ * Contains the information that one trace analysis determines about each
+ * packet: its TCP packet type, TCP session, HTTP request/response and RRC
+ * state. The information is kept in arrays indexed by packet ID, so that the
+ * PacketInfo objects of a trace are never modified by an analysis and several
+ * analyses of the same trace can exist at the same time.
+ */
+public class PacketAnnotations implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private static final TcpInfo[] TCP_INFOS = TcpInfo.values();
+	private static final RRCState[] RRC_STATES = RRCState.values();
+
+	// Enum ordinal + 1, where 0 means no value
+	private byte[] tcpInfos;
+	private byte[] rrcStates;
+	private TCPSession[] sessions;
+	private HttpRequestResponseInfo[] requestResponses;
+
+	/**
+	 * Initializes an instance of the PacketAnnotations class for the packets
+	 * of a trace.
+	 *
+	 * @param packetCount
+	 *            - The number of packets in the trace. Packet IDs range from 1
+	 *            to this count.
+	 */
+	PacketAnnotations(int packetCount) {
+		this.tcpInfos = new byte[packetCount];
+		this.rrcStates = new byte[packetCount];
+		this.sessions = new TCPSession[packetCount];
+		this.requestResponses = new HttpRequestResponseInfo[packetCount];
+	}
+
+	/**
+	 * Returns the TCP packet type of the specified packet.
+	 *
+	 * @param packet
+	 *            - The packet.
+	 * @return The TcpInfo enumeration value, or null if no type was determined.
+	 */
+	public TcpInfo getTcpInfo(PacketInfo packet) {
+		int value = tcpInfos[packet.getId() - 1];
+		return value != 0 ? TCP_INFOS[value - 1] : null;
+	}
+
+	/**
+	 * Sets the TCP packet type of the specified packet.
+	 *
+	 * @param packet
+	 *            - The packet.
+	 * @param tcpInfo
+	 *            - The TcpInfo enumeration value, or null.
+	 */
+	void setTcpInfo(PacketInfo packet, TcpInfo tcpInfo) {
+		tcpInfos[packet.getId() - 1] = (byte) (tcpInfo != null ? tcpInfo
+				.ordinal() + 1 : 0);
+	}
+
+	/**
+	 * Returns the RRC state of the specified packet.
+	 *
+	 * @param packet
+	 *            - The packet.
+	 * @return The RRCState enumeration value, or null if the RRC state
+	 *         machine has not been simulated.
+	 */
+	public RRCState getRrcState(PacketInfo packet) {
+		int value = rrcStates[packet.getId() - 1];
+		return value != 0 ? RRC_STATES[value - 1] : null;
+	}
+
+	/**
+	 * Sets the RRC state of the specified packet.
+	 *
+	 * @param packet
+	 *            - The packet.
+	 * @param state
+	 *            - The RRCState enumeration value, or null.
+	 */
+	void setRrcState(PacketInfo packet, RRCState state) {
+		rrcStates[packet.getId() - 1] = (byte) (state != null ? state
+				.ordinal() + 1 : 0);
+	}
+
+	/**
+	 * Returns the TCP session of the specified packet.
+	 *
+	 * @param packet
+	 *            - The packet.
+	 * @return The TCPSession object, or null if the packet is not part of a
+	 *         TCP session.
+	 */
+	public TCPSession getSession(PacketInfo packet) {
+		return sessions[packet.getId() - 1];
+	}
+
+	/**
+	 * Sets the TCP session of the specified packet.
+	 *
+	 * @param packet
+	 *            - The packet.
+	 * @param session
+	 *            - The TCPSession object.
+	 */
+	void setSession(PacketInfo packet, TCPSession session) {
+		sessions[packet.getId() - 1] = session;
+	}
+
+	/**
+	 * Returns the HTTP request or response that contains the specified
+	 * packet.
+	 *
+	 * @param packet
+	 *            - The packet.
+	 * @return The HttpRequestResponseInfo object, or null if the packet is not
+	 *         part of an HTTP request or response.
+	 */
+	public HttpRequestResponseInfo getRequestResponseInfo(PacketInfo packet) {
+		return requestResponses[packet.getId() - 1];
+	}
+
+	/**
+	 * Sets the HTTP request or response that contains the specified packet.
+	 *
+	 * @param packet
+	 *            - The packet.
+	 * @param requestResponse
+	 *            - The HttpRequestResponseInfo object.
+	 */
+	void setRequestResponseInfo(PacketInfo packet,
+			HttpRequestResponseInfo requestResponse) {
+		requestResponses[packet.getId() - 1] = requestResponse;
+	}
+}
@@ -108,20 +108,12 @@ public class PacketInfo implements Comparable<PacketInfo>, Serializable {
 	private double timestamp;
 	private Direction dir; // UPLINK / DOWNLINK direction
 
-	private TCPSession session;
-	private TcpInfo tcpInfo; // ********was DWORD
-	private Burst burst;
 	private String appName;
 
-	// state machine inference
-	private RRCState stateMachine; // ********was DWORD
-
 	private Packet packet;
 
 	private String strTcpFlags = "";
 
-	private HttpRequestResponseInfo httpRequestResponseInfo = null;
-
 	/**
 	 * Initializes an instance of the PacketInfo class, using the specified packet data.
 	 * 
@@ -163,24 +155,6 @@ public class PacketInfo implements Comparable<PacketInfo>, Serializable {
 		return id;
 	}
 
-	/**
-	 * Setting the HTTP request/response information for the packet. 
-	 * 
-	 * @param httpRequestResponseInfo - The HTTP request/response information to set.
-	 */
-	public void setRequestResponseInfo(HttpRequestResponseInfo httpRequestResponseInfo) {
-		this.httpRequestResponseInfo = httpRequestResponseInfo;
-	}
-
-	/**
-	 * Returns the packet request/response information. 
-	 * 
-	 * @return An HTTPRequestResponse object containing the packet request/response information.
-	 */
-	public HttpRequestResponseInfo getRequestResponseInfo() {
-		return httpRequestResponseInfo;
-	}
-
 	/**
 	 * Compares the specified PacketInfo object to this one.
 	 */
@@ -265,60 +239,6 @@ public class PacketInfo implements Comparable<PacketInfo>, Serializable {
 		return packet.getPayloadLen();
 	}
 
-	/**
-	 * Sets the TCP information for the packet. 
-	 * 
-	 * @param tcpInfo  The TCP information to set.
-	 */
-	public void setTcpInfo(TcpInfo tcpInfo) {
-		this.tcpInfo = tcpInfo;
-	}
-
-	/**
-	 * Returns the TCP information for the packet. 
-	 * 
-	 * @return A PacketInfo.TcpInfo enumeration value.
-	 */
-	public TcpInfo getTcpInfo() {
-		return tcpInfo;
-	}
-
-	/**
-	 * Sets the burst information for the packet burst. 
-	 * 
-	 * @param burst  The burst information to set.
-	 */
-	public void setBurst(Burst burst) {
-		this.burst = burst;
-	}
-
-	/**
-	 * Returns the burst information from the packet. 
-	 * 
-	 * @return A Burst object containing the burst informaiton.
-	 */
-	public Burst getBurst() {
-		return burst;
-	}
-
-	/**
-	 * Sets the RRC state machine for the packet. 
-	 * 
-	 * @param stateMachine  The RRC state machine value.
-	 */
-	public void setStateMachine(RRCState stateMachine) {
-		this.stateMachine = stateMachine;
-	}
-
-	/**
-	 * Returns the RRC state machine for this packet. 
-	 * 
-	 * @return An RRCState enumeration value.
-	 */
-	public RRCState getStateMachine() {
-		return stateMachine;
-	}
-
 	/**
 	 * Returns the application name. 
 	 * 
@@ -337,24 +257,6 @@ public class PacketInfo implements Comparable<PacketInfo>, Serializable {
 		this.appName = appName;
 	}
 
-	/**
-	 * Returns the TCP session that contains this packet. 
-	 * 
-	 * @return A TCPSession object that containing this packet.
-	 */
-	public TCPSession getSession() {
-		return session;
-	}
-
-	/**
-	 * Sets the TCP session that is associated with this packet. 
-	 * 
-	 * @param session - The TCP session to set.
-	 */
-	public void setSession(TCPSession session) {
-		this.session = session;
-	}
-
 	/**
 	 * Sets a TCP flag as per TCPPacket type.
 	 * 
@@ -185,6 +185,22 @@ public abstract class Profile implements Serializable {
 			throws IOException, ProfileException {
 		Properties props = new Properties();
 		props.load(input);
+		return createFromProperties(name, props);
+	}
+
+	/**
+	 * Factory method that creates a new profile of the proper type from the
+	 * specified properties.
+	 * 
+	 * @param name
+	 *            The name of the profile.
+	 * @param props
+	 *            The profile properties.
+	 * @return The profile that is created.
+	 * @throws ProfileException
+	 */
+	public static Profile createFromProperties(String name, Properties props)
+			throws ProfileException {
 		String stype = props.getProperty(PROFILE_TYPE);
 		ProfileType type = stype != null ? ProfileType.valueOf(stype)
 				: ProfileType.T3G;
@@ -295,6 +311,21 @@ public abstract class Profile implements Serializable {
 	 * @throws IOException
 	 */
 	public synchronized final void saveToFile(File file) throws IOException {
+		Properties props = getProperties();
+		props.store(new FileOutputStream(file), "Set what this comment is");
+		this.file = file;
+		this.name = file.getAbsolutePath();
+	}
+
+	/**
+	 * Returns the current profile values contained in this object as
+	 * properties. Passing the result to
+	 * {@link #createFromProperties(String, Properties)} creates a copy of this
+	 * profile.
+	 * 
+	 * @return The profile properties.
+	 */
+	public synchronized final Properties getProperties() {
 		Properties props = new Properties();
 
 		// Get sub-class data
@@ -324,9 +355,7 @@ public abstract class Profile implements Serializable {
 		props.setProperty(LARGE_BURST_SIZE, String.valueOf(largeBurstSize));
 
 		props.setProperty(W_THROUGHPUT, String.valueOf(throughputWindow));
-		props.store(new FileOutputStream(file), "Set what this comment is");
-		this.file = file;
-		this.name = file.getAbsolutePath();
+		return props;
 	}
 
 	/**
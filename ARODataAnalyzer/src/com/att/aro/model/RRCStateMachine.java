@@ -46,6 +46,7 @@ public class RRCStateMachine implements Serializable {
 
 	private int idleToDch;
 	private int fachToDch;
+	private int lteIdleToCRPromotion;
 
 	private double idleToDchTime;
 	private double fachToDchTime;
@@ -74,6 +75,18 @@ public class RRCStateMachine implements Serializable {
 
 	private List<RrcStateRange> rrc = new ArrayList<RrcStateRange>();
 
+	// Energy and active time of each RRC state range, aligned with rrc
+	private double[] rrcEnergy;
+	private double[] rrcActiveTime;
+
+	// Running totals of the above, rrcCumulativeEnergy[i] covers ranges 0..i-1
+	private double[] rrcCumulativeEnergy;
+	private double[] rrcCumulativeActiveTime;
+
+	// Used to evaluate partial ranges of continuous reception states
+	private TraceData.Analysis analysis;
+	private Profile profile;
+
 	/**
 	 * Constructor
 	 * 
@@ -81,29 +94,47 @@ public class RRCStateMachine implements Serializable {
 	 *            Trace analysis
 	 */
 	public RRCStateMachine(TraceData.Analysis analysisData) {
-        
+		this(analysisData, analysisData.getProfile(), true);
+	}
+
+	/**
+	 * Simulates the state machine for the packets of the specified trace
+	 * analysis using a different profile than the analysis. The packets of
+	 * the analysis are not changed, so several of these may be created
+	 * concurrently.
+	 * 
+	 * @param analysisData
+	 *            Trace analysis
+	 * @param profile
+	 *            The profile used to model the RRC state machine
+	 */
+	public RRCStateMachine(TraceData.Analysis analysisData, Profile profile) {
+		this(analysisData, profile, false);
+	}
+
+	private RRCStateMachine(TraceData.Analysis analysisData, Profile profile,
+			boolean markPackets) {
+		this.profile = profile;
+
+		List<RrcStateRange> ranges = RrcStateRange.runTrace(analysisData, profile, markPackets);
 		TimeRange timeRange = analysisData.getFilter().getTimeRange();
 		if(timeRange == null){
-		this.rrc = RrcStateRange.runTrace(analysisData);
+		this.rrc = ranges;
 		}else{
-			this.rrc = getRRCStatesForTheTimeRange(RrcStateRange.runTrace(analysisData) , timeRange.getBeginTime() , timeRange.getEndTime());
+			this.rrc = getRRCStatesForTheTimeRange(ranges , timeRange.getBeginTime() , timeRange.getEndTime());
 		}
+		buildEnergyTable(analysisData);
 		if (logger.isLoggable(Level.FINER)) {
-			for (RrcStateRange r : rrc) {
-				logger.finer(r.getState()
-						+ ": "
-						+ (r.getEndTime() - r.getBeginTime())
-						+ " "
-						+ analysisData.getProfile().energy(r.getBeginTime(), r.getEndTime(),
-								r.getState(), analysisData.getPackets()));
+			for (int i = 0; i < rrc.size(); ++i) {
+				RrcStateRange r = rrc.get(i);
+				logger.finer(r.getState() + ": " + (r.getEndTime() - r.getBeginTime()) + " "
+						+ rrcEnergy[i]);
 			}
 		}
 
 		this.packetsDuration = analysisData.getPacketsDuration();
 		this.traceDuration = analysisData.getTraceData().getTraceDuration();
 
-		final Profile profile = analysisData.getProfile();
-
 		if (profile instanceof Profile3G) {
 			// Perform analysis on 3G RRC data
 			run3GRRcStatistics(analysisData);
@@ -167,6 +198,121 @@ public class RRCStateMachine implements Serializable {
 		return Collections.unmodifiableList(rrc);
 	}
 
+	/**
+	 * Returns the energy consumed during the RRC state range at the specified
+	 * index in the list returned by {@link #getRRcStateRanges()}.
+	 * 
+	 * @param index
+	 *            The index of the RRC state range.
+	 * @return The energy of the RRC state range.
+	 */
+	public double getEnergy(int index) {
+		return rrcEnergy[index];
+	}
+
+	/**
+	 * Returns the energy consumed during the part of the RRC state range at
+	 * the specified index that lies between the specified times.
+	 * 
+	 * @param index
+	 *            The index of the RRC state range.
+	 * @param beginTime
+	 *            The begin time of the query.
+	 * @param endTime
+	 *            The end time of the query.
+	 * @return The energy of the clipped RRC state range.
+	 */
+	public double getEnergy(int index, double beginTime, double endTime) {
+		RrcStateRange range = rrc.get(index);
+		if (beginTime <= range.getBeginTime() && endTime >= range.getEndTime()) {
+			return rrcEnergy[index];
+		}
+		beginTime = Math.max(beginTime, range.getBeginTime());
+		endTime = Math.min(endTime, range.getEndTime());
+		return endTime > beginTime ? energy(beginTime, endTime, range.getState()) : 0.0;
+	}
+
+	/**
+	 * Returns the energy consumed by all RRC state ranges between the
+	 * specified times.
+	 * 
+	 * @param beginTime
+	 *            The begin time of the query.
+	 * @param endTime
+	 *            The end time of the query.
+	 * @return The RRC energy between the specified times.
+	 */
+	public double getEnergy(double beginTime, double endTime) {
+		int first = getFirstRangeIndex(beginTime);
+		int last = getLastRangeIndex(endTime);
+		if (first > last) {
+			return 0.0;
+		} else if (first == last) {
+			return getEnergy(first, beginTime, endTime);
+		}
+		return getEnergy(first, beginTime, endTime)
+				+ (rrcCumulativeEnergy[last] - rrcCumulativeEnergy[first + 1])
+				+ getEnergy(last, beginTime, endTime);
+	}
+
+	/**
+	 * Returns the active time (DCH for 3G, continuous reception for LTE) of the
+	 * RRC state range at the specified index in the list returned by
+	 * {@link #getRRcStateRanges()}.
+	 * 
+	 * @param index
+	 *            The index of the RRC state range.
+	 * @return The active time of the RRC state range.
+	 */
+	public double getActiveTime(int index) {
+		return rrcActiveTime[index];
+	}
+
+	/**
+	 * Returns the active time of the part of the RRC state range at the
+	 * specified index that lies between the specified times.
+	 * 
+	 * @param index
+	 *            The index of the RRC state range.
+	 * @param beginTime
+	 *            The begin time of the query.
+	 * @param endTime
+	 *            The end time of the query.
+	 * @return The active time of the clipped RRC state range.
+	 */
+	public double getActiveTime(int index, double beginTime, double endTime) {
+		RrcStateRange range = rrc.get(index);
+		if (!isActive(range.getState())) {
+			return 0.0;
+		}
+		beginTime = Math.max(beginTime, range.getBeginTime());
+		endTime = Math.min(endTime, range.getEndTime());
+		return endTime > beginTime ? endTime - beginTime : 0.0;
+	}
+
+	/**
+	 * Returns the active time of all RRC state ranges between the specified
+	 * times.
+	 * 
+	 * @param beginTime
+	 *            The begin time of the query.
+	 * @param endTime
+	 *            The end time of the query.
+	 * @return The active time between the specified times.
+	 */
+	public double getActiveTime(double beginTime, double endTime) {
+		int first = getFirstRangeIndex(beginTime);
+		int last = getLastRangeIndex(endTime);
+		if (first > last) {
+			return 0.0;
+		} else if (first == last) {
+			return getActiveTime(first, beginTime, endTime);
+		}
+		return getActiveTime(first, beginTime, endTime)
+				+ (rrcCumulativeActiveTime[last] - rrcCumulativeActiveTime[first + 1])
+				+ getActiveTime(last, beginTime, endTime);
+	}
+
 	/**
 	 * Returns the Direct channel time.
 	 * 
@@ -248,6 +394,15 @@ public class RRCStateMachine implements Serializable {
 		return idleToDch;
 	}
 
+	/**
+	 * Returns the LTE idle to CR promotion count in the trace.
+	 * 
+	 * @return The number of LTE promotions
+	 */
+	public int getLteIdleToCRPromotionCount() {
+		return lteIdleToCRPromotion;
+	}
+
 	/**
 	 * Returns the FACH to DCH time.
 	 * 
@@ -572,15 +727,98 @@ public class RRCStateMachine implements Serializable {
 		return crPower;
 	}
 
+	/**
+	 * Computes the energy and active time of every RRC state range once so
+	 * that statistics, burst analysis and time range queries can share them.
+	 */
+	private void buildEnergyTable(TraceData.Analysis analysisData) {
+		this.analysis = analysisData;
+
+		int n = rrc.size();
+		this.rrcEnergy = new double[n];
+		this.rrcActiveTime = new double[n];
+		this.rrcCumulativeEnergy = new double[n + 1];
+		this.rrcCumulativeActiveTime = new double[n + 1];
+		for (int i = 0; i < n; ++i) {
+			RrcStateRange r = rrc.get(i);
+			rrcEnergy[i] = energy(r.getBeginTime(), r.getEndTime(), r.getState());
+			if (isActive(r.getState())) {
+				rrcActiveTime[i] = r.getEndTime() - r.getBeginTime();
+			}
+			rrcCumulativeEnergy[i + 1] = rrcCumulativeEnergy[i] + rrcEnergy[i];
+			rrcCumulativeActiveTime[i + 1] = rrcCumulativeActiveTime[i] + rrcActiveTime[i];
+		}
+	}
+
+	/**
+	 * Calculates the profile energy for the specified state and time range.
+	 * Only packets inside the time range affect the throughput of a continuous
+	 * reception state, so just that part of the packet list is passed on.
+	 */
+	private double energy(double beginTime, double endTime, RRCState state) {
+		List<PacketInfo> rangePackets;
+		if (state == RRCState.LTE_CONTINUOUS) {
+			rangePackets = analysis.getPackets().subList(
+					analysis.getPacketIndex(beginTime, false),
+					analysis.getPacketIndex(endTime, false));
+		} else {
+			rangePackets = Collections.emptyList();
+		}
+		return profile.energy(beginTime, endTime, state, rangePackets);
+	}
+
+	/**
+	 * Returns the index of the first RRC state range that does not end before
+	 * the specified time. RRC state ranges are contiguous so both their begin
+	 * and end times are sorted.
+	 */
+	private int getFirstRangeIndex(double time) {
+		int low = 0;
+		int high = rrc.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (rrc.get(mid).getEndTime() < time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the index of the last RRC state range that does not begin after
+	 * the specified time, or -1 if there is none.
+	 */
+	private int getLastRangeIndex(double time) {
+		int low = 0;
+		int high = rrc.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (rrc.get(mid).getBeginTime() <= time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low - 1;
+	}
+
+	/**
+	 * Indicates whether the specified state counts as active radio time.
+	 */
+	private static boolean isActive(RRCState state) {
+		return state == RRCState.STATE_DCH || state == RRCState.TAIL_DCH
+				|| state == RRCState.LTE_CONTINUOUS || state == RRCState.LTE_CR_TAIL;
+	}
+
 	/**
 	 * 3G RRC state time modification.
 	 */
 	private synchronized void run3GRRcStatistics(TraceData.Analysis analysisData) {
-		final Profile3G prof3g = (Profile3G) analysisData.getProfile();
-		List<PacketInfo> packets = analysisData.getPackets();
-		for (RrcStateRange rrc : this.rrc) {
-			double energy = prof3g.energy(rrc.getBeginTime(), rrc.getEndTime(), rrc.getState(),
-					packets);
+		for (int i = 0; i < this.rrc.size(); ++i) {
+			RrcStateRange rrc = this.rrc.get(i);
+			double energy = rrcEnergy[i];
 			double d = rrc.getEndTime() - rrc.getBeginTime();
 			switch (rrc.getState()) {
 			case STATE_IDLE:
@@ -629,12 +867,10 @@ public class RRCStateMachine implements Serializable {
 	 * LTE RRC state time modification.
 	 */
 	private synchronized void runLTERRcStatistics(TraceData.Analysis analysisData) {
-		ProfileLTE profile = (ProfileLTE) analysisData.getProfile();
-		List<PacketInfo> packets = analysisData.getPackets();
-		for (RrcStateRange rrc : this.rrc) {
+		for (int i = 0; i < this.rrc.size(); ++i) {
+			RrcStateRange rrc = this.rrc.get(i);
 			double d = rrc.getEndTime() - rrc.getBeginTime();
-			double energy = profile.energy(rrc.getBeginTime(), rrc.getEndTime(), rrc.getState(),
-					packets);
+			double energy = rrcEnergy[i];
 			this.totalRRCEnergy += energy;
 			switch (rrc.getState()) {
 			case LTE_IDLE:
@@ -642,6 +878,7 @@ public class RRCStateMachine implements Serializable {
 				this.lteIdleEnergy += energy;
 				break;
 			case LTE_PROMOTION:
+				lteIdleToCRPromotion++;
 				lteIdleToCRPromotionTime += d;
 				this.lteIdleToCRPromotionEnergy += energy;
 				break;
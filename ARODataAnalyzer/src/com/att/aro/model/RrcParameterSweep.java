@@ -0,0 +1,307 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the RRC state machine simulation and energy accounting of a trace
+ * analysis for every combination of a set of profile parameter ranges. The
+ * packets of the analysis are shared by all of the simulations, which are run
+ * concurrently on all available processors.
+ */
+public class RrcParameterSweep {
+
+	/**
+	 * Describes the range of values to be used for one profile parameter.
+	 */
+	public static class Parameter {
+		private String name;
+		private double from;
+		private double to;
+		private double step;
+
+		/**
+		 * Initializes an instance of the Parameter class.
+		 *
+		 * @param name
+		 *            The profile property name, for example
+		 *            {@link ProfileLTE#INACTIVITY_TIMER}.
+		 * @param from
+		 *            The first value.
+		 * @param to
+		 *            The last value.
+		 * @param step
+		 *            The increment between values.
+		 */
+		public Parameter(String name, double from, double to, double step) {
+			if (step <= 0.0 || to < from) {
+				throw new IllegalArgumentException("Invalid range for parameter " + name);
+			}
+			this.name = name;
+			this.from = from;
+			this.to = to;
+			this.step = step;
+		}
+
+		/**
+		 * Returns the profile property name.
+		 *
+		 * @return The property name.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns all values in the range of this parameter.
+		 *
+		 * @return The parameter values.
+		 */
+		public List<Double> getValues() {
+			List<Double> result = new ArrayList<Double>();
+			int n = (int) Math.floor((to - from) / step + 1e-6);
+			for (int i = 0; i <= n; ++i) {
+				result.add(from + i * step);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Contains the simulation results for one profile configuration.
+	 */
+	public static class Result {
+		private Map<String, Double> parameterValues;
+		private Profile profile;
+		private RRCStateMachine rrcStateMachine;
+
+		private Result(Map<String, Double> parameterValues, Profile profile,
+				RRCStateMachine rrcStateMachine) {
+			this.parameterValues = parameterValues;
+			this.profile = profile;
+			this.rrcStateMachine = rrcStateMachine;
+		}
+
+		/**
+		 * Returns the values of the swept parameters for this configuration.
+		 *
+		 * @return A map of property name to value.
+		 */
+		public Map<String, Double> getParameterValues() {
+			return Collections.unmodifiableMap(parameterValues);
+		}
+
+		/**
+		 * Returns the profile used for this configuration.
+		 *
+		 * @return The profile.
+		 */
+		public Profile getProfile() {
+			return profile;
+		}
+
+		/**
+		 * Returns the state machine simulated for this configuration.
+		 *
+		 * @return The RRC state machine.
+		 */
+		public RRCStateMachine getRrcStateMachine() {
+			return rrcStateMachine;
+		}
+
+		/**
+		 * Returns the total RRC energy of this configuration.
+		 *
+		 * @return The energy in joules.
+		 */
+		public double getEnergy() {
+			return rrcStateMachine.getTotalRRCEnergy();
+		}
+
+		/**
+		 * Returns the number of promotions of this configuration.
+		 *
+		 * @return The promotion count.
+		 */
+		public int getPromotionCount() {
+			if (profile instanceof ProfileLTE) {
+				return rrcStateMachine.getLteIdleToCRPromotionCount();
+			}
+			return rrcStateMachine.getIdleToDchCount() + rrcStateMachine.getFachToDchCount();
+		}
+
+		/**
+		 * Returns the ratio of tail time to active time of this configuration.
+		 *
+		 * @return The tail ratio.
+		 */
+		public double getTailRatio() {
+			if (profile instanceof ProfileLTE) {
+				double crTime = rrcStateMachine.getLteCrTime();
+				return crTime != 0.0 ? rrcStateMachine.getLteCrTailTime() / crTime : 0.0;
+			}
+			return rrcStateMachine.getDchTailRatio();
+		}
+	}
+
+	private TraceData.Analysis analysis;
+	private Profile baseProfile;
+	private List<Parameter> parameters = new ArrayList<Parameter>();
+
+	/**
+	 * Initializes an instance of the RrcParameterSweep class.
+	 *
+	 * @param analysis
+	 *            The trace analysis whose packets are simulated.
+	 * @param baseProfile
+	 *            The profile that supplies the values of all parameters that
+	 *            are not swept.
+	 */
+	public RrcParameterSweep(TraceData.Analysis analysis, Profile baseProfile) {
+		this.analysis = analysis;
+		this.baseProfile = baseProfile;
+	}
+
+	/**
+	 * Adds a parameter to be swept.
+	 *
+	 * @param parameter
+	 *            The parameter range.
+	 * @throws IllegalArgumentException
+	 *             If the parameter is already swept.
+	 */
+	public void addParameter(Parameter parameter) {
+		for (Parameter p : parameters) {
+			if (p.getName().equals(parameter.getName())) {
+				throw new IllegalArgumentException("Parameter already swept: "
+						+ parameter.getName());
+			}
+		}
+		parameters.add(parameter);
+	}
+
+	/**
+	 * Returns the number of configurations that will be simulated.
+	 *
+	 * @return The configuration count.
+	 */
+	public int getConfigurationCount() {
+		int result = 1;
+		for (Parameter parameter : parameters) {
+			result *= parameter.getValues().size();
+		}
+		return result;
+	}
+
+	/**
+	 * Simulates every combination of parameter values.
+	 *
+	 * @return The results, one for each configuration, in the order of the
+	 *         parameter combinations with the last parameter varying fastest.
+	 * @throws ProfileException
+	 *             when a parameter value is not valid for the profile
+	 * @throws InterruptedException
+	 *             when the calling thread is interrupted
+	 */
+	public List<Result> run() throws ProfileException, InterruptedException {
+
+		// Build the profile of each configuration up front
+		List<Map<String, Double>> combinations = new ArrayList<Map<String, Double>>();
+		combinations.add(new LinkedHashMap<String, Double>());
+		for (Parameter parameter : parameters) {
+			List<Map<String, Double>> next = new ArrayList<Map<String, Double>>();
+			for (Map<String, Double> combination : combinations) {
+				for (Double value : parameter.getValues()) {
+					Map<String, Double> m = new LinkedHashMap<String, Double>(combination);
+					m.put(parameter.getName(), value);
+					next.add(m);
+				}
+			}
+			combinations = next;
+		}
+		Properties baseProps = baseProfile.getProperties();
+		List<Profile> profiles = new ArrayList<Profile>(combinations.size());
+		for (Map<String, Double> combination : combinations) {
+			Properties props = new Properties();
+			props.putAll(baseProps);
+			for (Map.Entry<String, Double> entry : combination.entrySet()) {
+				props.setProperty(entry.getKey(),
+						formatValue(baseProps.getProperty(entry.getKey()), entry.getValue()));
+			}
+			profiles.add(Profile.createFromProperties(baseProfile.getName(), props));
+		}
+
+		// Simulate all configurations concurrently
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(), profiles.size());
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(threads, 1));
+		try {
+			List<Future<RRCStateMachine>> futures = new ArrayList<Future<RRCStateMachine>>(
+					profiles.size());
+			for (final Profile profile : profiles) {
+				futures.add(executor.submit(new Callable<RRCStateMachine>() {
+					@Override
+					public RRCStateMachine call() {
+						return new RRCStateMachine(analysis, profile);
+					}
+				}));
+			}
+
+			List<Result> result = new ArrayList<Result>(futures.size());
+			for (int i = 0; i < futures.size(); ++i) {
+				try {
+					result.add(new Result(combinations.get(i), profiles.get(i), futures.get(i)
+							.get()));
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					throw new IllegalStateException(cause);
+				}
+			}
+			return result;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Formats a parameter value so that integer profile properties can still
+	 * be read by the profile.
+	 */
+	private static String formatValue(String baseValue, double value) {
+		if (baseValue != null) {
+			try {
+				Integer.parseInt(baseValue);
+				return String.valueOf(Math.round(value));
+			} catch (NumberFormatException e) {
+				// Not an integer property
+			}
+		}
+		return String.valueOf(value);
+	}
+}
@@ -0,0 +1,34 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.model;
+
+/**
+ * Defines a listener that receives the RRC state ranges produced by an
+ * {@link RrcStateSimulator}.
+ */
+public interface RrcStateRangeListener {
+
+	/**
+	 * A method that is invoked for each RRC state range once it can no longer
+	 * be changed by packets that arrive later. Ranges are delivered in order of
+	 * their begin time.
+	 *
+	 * @param range
+	 *            - The finished RRC state range.
+	 */
+	public void rrcStateRangeFinished(RrcStateRange range);
+
+}
@@ -0,0 +1,1058 @@
+/*
+ *  Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.att.aro.model.PacketInfo.Direction;
+
+/**
+ * Simulates the Radio Resource Control (RRC) state machine incrementally. Packets
+ * are added one at a time in order of their time stamp and each RRC state range
+ * is passed to an {@link RrcStateRangeListener} as soon as it can no longer be
+ * changed by later packets, so that a trace can be simulated while it is being
+ * captured or without holding all of its state ranges in memory. On a complete
+ * trace the ranges produced are the same as those returned by
+ * {@link RrcStateRange#runTrace(TraceData.Analysis)}.
+ */
+public abstract class RrcStateSimulator {
+
+	/**
+	 * Creates a simulator for the specified device profile.
+	 *
+	 * @param profile
+	 *            The profile used to model the RRC state machine.
+	 * @param listener
+	 *            The listener that receives the finished state ranges.
+	 * @return The RRC state simulator.
+	 * @throws IllegalArgumentException
+	 *             when the profile type is not supported
+	 */
+	public static RrcStateSimulator create(Profile profile, RrcStateRangeListener listener) {
+		return create(profile, -1.0, listener);
+	}
+
+	/**
+	 * Creates a simulator for the specified device profile and a trace of
+	 * known duration. State ranges after the end of the trace are removed as
+	 * they are finished, rather than only when the simulation is finished.
+	 *
+	 * @param profile
+	 *            The profile used to model the RRC state machine.
+	 * @param traceDuration
+	 *            The duration of the trace, or a negative value if it is not
+	 *            known yet.
+	 * @param listener
+	 *            The listener that receives the finished state ranges.
+	 * @return The RRC state simulator.
+	 * @throws IllegalArgumentException
+	 *             when the profile type is not supported
+	 */
+	public static RrcStateSimulator create(Profile profile, double traceDuration,
+			RrcStateRangeListener listener) {
+		if (profile instanceof Profile3G) {
+			return new Simulator3G((Profile3G) profile, traceDuration, listener);
+		} else if (profile instanceof ProfileLTE) {
+			return new SimulatorLTE((ProfileLTE) profile, listener);
+		} else {
+			throw new IllegalArgumentException("Invalid profile type for state machine: "
+					+ profile.getClass());
+		}
+	}
+
+	private RrcStateRangeListener listener;
+
+	/**
+	 * Initializes an instance of the RrcStateSimulator class.
+	 *
+	 * @param listener
+	 *            The listener that receives the finished state ranges.
+	 */
+	private RrcStateSimulator(RrcStateRangeListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Simulates the arrival of the next packet of the trace. Packets must be
+	 * added in order of their time stamp.
+	 *
+	 * @param packet
+	 *            The packet.
+	 * @return The RRC state of the packet.
+	 */
+	public abstract RRCState addPacket(PacketInfo packet);
+
+	/**
+	 * Ends the simulation at the end of the trace. All state ranges that have
+	 * not yet been passed to the listener are finished, and those after the end
+	 * of the trace are removed. Ranges that were passed on earlier are only
+	 * checked against the end of the trace if the trace duration was given
+	 * when the simulator was created.
+	 *
+	 * @param traceDuration
+	 *            The duration of the trace.
+	 */
+	public abstract void finish(double traceDuration);
+
+	/**
+	 * Passes a finished state range to the listener.
+	 *
+	 * @param range
+	 *            The RRC state range.
+	 */
+	protected void fireStateRange(RrcStateRange range) {
+		listener.rrcStateRangeFinished(range);
+	}
+
+	/**
+	 * Simulates the RRC state machine of a 3G profile.
+	 */
+	private static class Simulator3G extends RrcStateSimulator {
+
+		/**
+		 * Margin kept before the last state range when deciding which ranges
+		 * can no longer be moved to the DCH tail.
+		 */
+		private static final double HORIZON_MARGIN = 1e-3;
+
+		// Important profile info
+		private double idleDchPromoAvg;
+		private double idleDchPromoMin;
+		private double idleDchPromoMax;
+		private double fachDchPromoAvg;
+		private double fachDchPromoMin;
+		private double fachDchPromoMax;
+		private double dchFachTimer;
+		private double fachIdleTimer;
+
+		private double timer = 0;
+		private DchDemotionQueue dchDemotionQueue;
+		private FachQueue fachQueue;
+
+		// State ranges that may still be changed, in the order they were added
+		private List<RrcStateRange> pending = new ArrayList<RrcStateRange>();
+		private RrcStateRange firstRange;
+
+		private PacketInfo prevPacket;
+		private RRCState prevState;
+
+		// Trailing packets in FACH state that a late promotion may be moved to
+		private List<PacketInfo> fachPackets = new ArrayList<PacketInfo>();
+
+		// Range being merged with following ranges of the same state
+		private RrcStateRange merged;
+		private double mergedEndTime;
+
+		private double traceDuration = -1.0;
+
+		/**
+		 * Initializes an instance of the Simulator3G class.
+		 *
+		 * @param profile
+		 *            The 3G profile.
+		 * @param traceDuration
+		 *            The duration of the trace, or a negative value if it is
+		 *            not known yet.
+		 * @param listener
+		 *            The listener that receives the finished state ranges.
+		 */
+		private Simulator3G(Profile3G profile, double traceDuration,
+				RrcStateRangeListener listener) {
+			super(listener);
+			this.traceDuration = traceDuration;
+			idleDchPromoAvg = profile.getIdleDchPromoAvg();
+			idleDchPromoMin = profile.getIdleDchPromoMin();
+			idleDchPromoMax = profile.getIdleDchPromoMax();
+			fachDchPromoAvg = profile.getFachDchPromoAvg();
+			fachDchPromoMin = profile.getFachDchPromoMin();
+			fachDchPromoMax = profile.getFachDchPromoMax();
+			dchFachTimer = profile.getDchFachTimer();
+			fachIdleTimer = profile.getFachIdleTimer();
+			dchDemotionQueue = new DchDemotionQueue(profile);
+			fachQueue = new FachQueue(profile);
+		}
+
+		@Override
+		public RRCState addPacket(PacketInfo packet) {
+			RRCState state;
+			if (prevPacket == null) {
+
+				// Add initial idle state
+				addStateRangeEx(pending, 0, Double.MAX_VALUE, RRCState.STATE_IDLE,
+						packet.getTimeStamp());
+				state = RRCState.PROMO_IDLE_DCH;
+			} else {
+				state = step(packet);
+			}
+
+			prevState = state;
+			prevPacket = packet;
+			if (state == RRCState.STATE_FACH) {
+				fachPackets.add(packet);
+			} else {
+				fachPackets.clear();
+			}
+			if (firstRange == null && !pending.isEmpty()) {
+				firstRange = pending.get(0);
+			}
+
+			releaseFinishedRanges();
+			return state;
+		}
+
+		@Override
+		public void finish(double traceDuration) {
+			if (prevPacket != null) {
+
+				// The last iteration of the simulation
+				step(null);
+				prevPacket = null;
+			}
+			this.traceDuration = traceDuration;
+
+			Collections.sort(pending);
+			for (RrcStateRange range : pending) {
+				merge(range);
+			}
+			pending.clear();
+			if (merged != null) {
+				merged.setEndTime(mergedEndTime);
+				emit(merged);
+				merged = null;
+			}
+		}
+
+		/**
+		 * Determines the state ranges between the previous packet and the
+		 * specified one.
+		 *
+		 * @param packet
+		 *            The packet, or null at the end of the trace.
+		 * @return The RRC state of the packet.
+		 */
+		private RRCState step(PacketInfo packet) {
+			Direction dir;
+			double currTimeStamp;
+			int currLen;
+			if (packet == null) {
+				dir = Direction.UPLINK;
+				currTimeStamp = Double.MAX_VALUE;
+				currLen = 0;
+			} else {
+				dir = packet.getDir();
+				currTimeStamp = packet.getTimeStamp();
+				currLen = packet.getLen();
+			}
+			double prevTimeStamp = prevPacket.getTimeStamp();
+			double deltaTime = currTimeStamp - prevTimeStamp;
+
+			RRCState state = null; // the next state to be determined
+			RRCState promoState = prevState;
+			switch (promoState) {
+			case PROMO_IDLE_DCH:
+			case PROMO_FACH_DCH: {
+				double promoAvg, promoMin, promoMax;
+				if (promoState == RRCState.PROMO_IDLE_DCH) {
+					promoAvg = idleDchPromoAvg;
+					promoMin = idleDchPromoMin;
+					promoMax = idleDchPromoMax;
+				} else {
+					promoAvg = fachDchPromoAvg;
+					promoMin = fachDchPromoMin;
+					promoMax = fachDchPromoMax;
+				}
+
+				if (dir == Direction.UPLINK && timer + deltaTime <= promoMin) { // Case
+																				// 1
+					prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, Double.MAX_VALUE,
+							promoState, currTimeStamp);
+					state = promoState;
+					timer += deltaTime;
+				} else if (dir == Direction.DOWNLINK && timer + deltaTime <= promoMin) {
+					// TODO: handle an error situation here: a DOWNLINK DCH
+					// packet follows "immediately" after a packet on
+					// FACH/IDLE
+					// promotion
+
+					prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, Double.MAX_VALUE,
+							promoState, currTimeStamp);
+					state = promoState;
+					timer += deltaTime;
+
+				} else if (timer + deltaTime <= promoMax) { // Case 2
+					prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, Double.MAX_VALUE,
+							promoState, currTimeStamp);
+					state = RRCState.STATE_DCH;
+
+					dchDemotionQueue.init(currTimeStamp, currLen, dir);
+
+				} else if (timer + deltaTime <= promoAvg + dchFachTimer) { // Case
+																			// 3
+					prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, promoAvg - timer,
+							promoState, currTimeStamp);
+					prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, Double.MAX_VALUE,
+							RRCState.STATE_DCH, currTimeStamp);
+					state = RRCState.STATE_DCH;
+
+					dchDemotionQueue.init(currTimeStamp, currLen, dir);
+
+				} else if (timer + deltaTime <= promoAvg + dchFachTimer + fachIdleTimer) { // Case
+																							// 4
+					if (dir == Direction.DOWNLINK) {
+						fachQueue.init();
+						if (fachQueue.simFACH(currTimeStamp, dir, currLen)) { // FACH->DCH
+							double tMax0 = currTimeStamp - fachDchPromoAvg;
+							prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, promoAvg
+									- timer, promoState, tMax0);
+							prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+									dchFachTimer, RRCState.TAIL_DCH, tMax0);
+							prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+									Double.MAX_VALUE, RRCState.STATE_FACH, tMax0);
+							// promoTime = tMax - tt;
+							prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+									Double.MAX_VALUE, RRCState.PROMO_FACH_DCH, currTimeStamp);
+							state = RRCState.STATE_DCH;
+
+							dchDemotionQueue.init(currTimeStamp, currLen, dir);
+
+						} else {
+							prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, promoAvg
+									- timer, promoState, currTimeStamp);
+							prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+									dchFachTimer, RRCState.TAIL_DCH, currTimeStamp);
+							prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+									Double.MAX_VALUE, RRCState.STATE_FACH, currTimeStamp);
+							state = RRCState.STATE_FACH;
+						}
+					} else { // downlink
+						fachQueue.init();
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+								promoAvg - timer, promoState, currTimeStamp);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, dchFachTimer,
+								RRCState.TAIL_DCH, currTimeStamp);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+								Double.MAX_VALUE, RRCState.STATE_FACH, currTimeStamp);
+						if (fachQueue.simFACH(currTimeStamp, dir, currLen)) {
+							state = RRCState.PROMO_FACH_DCH;
+							timer = 0;
+						} else {
+							state = RRCState.STATE_FACH;
+						}
+					}
+				} else { // case 5
+					if (dir == Direction.UPLINK) {
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+								promoAvg - timer, promoState, currTimeStamp);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, dchFachTimer,
+								RRCState.TAIL_DCH, currTimeStamp);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, fachIdleTimer,
+								RRCState.TAIL_FACH, currTimeStamp);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+								Double.MAX_VALUE, RRCState.STATE_IDLE, currTimeStamp);
+						state = RRCState.PROMO_IDLE_DCH;
+						timer = 0;
+					} else { // downlink
+						double tMax0 = currTimeStamp - idleDchPromoAvg;
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+								promoAvg - timer, promoState, tMax0);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, dchFachTimer,
+								RRCState.TAIL_DCH, tMax0);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, fachIdleTimer,
+								RRCState.TAIL_FACH, tMax0);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+								Double.MAX_VALUE, RRCState.STATE_IDLE, tMax0);
+						// promoTime = tMax - tt;
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+								Double.MAX_VALUE, RRCState.PROMO_IDLE_DCH, currTimeStamp);
+						state = RRCState.STATE_DCH;
+
+						dchDemotionQueue.init(currTimeStamp, currLen, dir);
+
+					}
+				}
+				break;
+			}
+
+			case STATE_DCH: {
+				double dchTail = dchDemotionQueue.getDCHTail(currTimeStamp); // ***
+																				// Dynamic
+																				// DCH
+				// Tail ***
+
+				if (deltaTime <= dchTail + 1e-5) { // DCH Case 1
+					prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, Double.MAX_VALUE,
+							RRCState.STATE_DCH, currTimeStamp);
+					state = RRCState.STATE_DCH;
+
+					dchDemotionQueue.update(currTimeStamp, currLen, dir);
+
+				} else if (deltaTime <= dchTail + fachIdleTimer) { // DCH
+																	// Case
+																	// 2
+					if (dir == Direction.DOWNLINK) { // downlink
+						fachQueue.init();
+						if (fachQueue.simFACH(currTimeStamp, dir, currLen)) {
+							double tMax0 = currTimeStamp - fachDchPromoAvg;
+							changeStateRangeBack(pending, dchFachTimer - dchTail,
+									RRCState.STATE_DCH, RRCState.TAIL_DCH);
+							prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, dchTail,
+									RRCState.TAIL_DCH, tMax0);
+							prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+									Double.MAX_VALUE, RRCState.STATE_FACH, tMax0);
+							// promoTime = tMax - tt;
+							prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+									Double.MAX_VALUE, RRCState.PROMO_FACH_DCH, currTimeStamp);
+							state = RRCState.STATE_DCH;
+
+							dchDemotionQueue.init(currTimeStamp, currLen, dir);
+
+						} else {
+							changeStateRangeBack(pending, dchFachTimer - dchTail,
+									RRCState.STATE_DCH, RRCState.TAIL_DCH);
+							prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, dchTail,
+									RRCState.TAIL_DCH, currTimeStamp);
+							prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+									Double.MAX_VALUE, RRCState.STATE_FACH, currTimeStamp);
+							state = RRCState.STATE_FACH;
+						}
+					} else { // uplink
+						fachQueue.init();
+						changeStateRangeBack(pending, dchFachTimer - dchTail,
+								RRCState.STATE_DCH, RRCState.TAIL_DCH);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, dchTail,
+								RRCState.TAIL_DCH, currTimeStamp);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+								Double.MAX_VALUE, RRCState.STATE_FACH, currTimeStamp);
+						if (fachQueue.simFACH(currTimeStamp, dir, currLen)) {
+							state = RRCState.PROMO_FACH_DCH;
+							timer = 0;
+						} else {
+							state = RRCState.STATE_FACH;
+						}
+					}
+				} else { // DCH Case 3
+					if (dir == Direction.UPLINK) { // uplink
+						changeStateRangeBack(pending, dchFachTimer - dchTail,
+								RRCState.STATE_DCH, RRCState.TAIL_DCH);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, dchTail,
+								RRCState.TAIL_DCH, currTimeStamp);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, fachIdleTimer,
+								RRCState.TAIL_FACH, currTimeStamp);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+								Double.MAX_VALUE, RRCState.STATE_IDLE, currTimeStamp);
+						state = RRCState.PROMO_IDLE_DCH;
+						timer = 0;
+					} else { // downlink
+						double tMax0 = currTimeStamp - idleDchPromoAvg;
+						changeStateRangeBack(pending, dchFachTimer - dchTail,
+								RRCState.STATE_DCH, RRCState.TAIL_DCH);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, dchTail,
+								RRCState.TAIL_DCH, tMax0);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, fachIdleTimer,
+								RRCState.TAIL_FACH, tMax0);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+								Double.MAX_VALUE, RRCState.STATE_IDLE, tMax0);
+						// promoTime = tMax - tt;
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+								Double.MAX_VALUE, RRCState.PROMO_IDLE_DCH, currTimeStamp);
+						state = RRCState.STATE_DCH;
+
+						dchDemotionQueue.init(currTimeStamp, currLen, dir);
+					}
+				}
+				break;
+			}
+
+			case STATE_FACH: {
+				if (deltaTime <= fachIdleTimer) {
+					if (dir == Direction.UPLINK) {
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+								Double.MAX_VALUE, RRCState.STATE_FACH, currTimeStamp);
+						if (fachQueue.simFACH(currTimeStamp, dir, currLen)) {
+							state = RRCState.PROMO_FACH_DCH;
+							timer = 0;
+						} else {
+							state = RRCState.STATE_FACH;
+						}
+					} else { // downlink
+						if (fachQueue.simFACH(currTimeStamp, dir, currLen)) {
+							double tMax0 = currTimeStamp - fachDchPromoAvg;
+
+							/*
+							 * TODO: ( diff ) handle the case where promo
+							 * delay is 0 ( for what - if )
+							 */
+							if (tMax0 > prevTimeStamp || fachDchPromoAvg < 1e-6) {
+								prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+										Double.MAX_VALUE, RRCState.STATE_FACH, tMax0);
+								// promoTime = tMax - tt;
+								prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+										Double.MAX_VALUE, RRCState.PROMO_FACH_DCH,
+										currTimeStamp);
+							} else {
+								// *** handle an error situation here: a
+								// DOWNLINK DCH packet follows "immediately"
+								// after a packet on FACH
+								tMax0 = currTimeStamp - fachDchPromoMin; // try
+																			// y1
+																			// instead
+																			// of
+																			// y?
+								if (tMax0 > prevTimeStamp) {
+									prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+											Double.MAX_VALUE, RRCState.STATE_FACH, tMax0);
+									// promoTime = tMax - tt;
+									prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+											Double.MAX_VALUE, RRCState.PROMO_FACH_DCH,
+											currTimeStamp);
+								} else { // still not working - try to
+											// insert a
+											// promotion after some previous
+											// packet
+									boolean bFixed = false;
+									for (int ii = fachPackets.size() - 1; ii >= 0; ii--) {
+										PacketInfo earlierPacket = fachPackets.get(ii);
+										// FACH-DCH promo: from
+										// packets[ii].ts to
+										// packets[ii].ts+y
+										// DCH: from packets[ii].ts+y to
+										// tMax
+
+										double t0 = earlierPacket.getTimeStamp();
+										if (earlierPacket.getDir() == Direction.UPLINK
+												&& currTimeStamp >= t0 + fachDchPromoMin) {
+											int nn = pending.size() - 1;
+											// boolean bDone = false;
+											for (int jj = nn; jj >= 0 && pending.get(jj) != firstRange; jj--) {
+												// double EPS = 1e-4;
+												if (pending.get(jj).getBeginTime() == t0) {
+
+													for (int k = 0; k < nn - jj + 1; k++)
+														pending.remove(pending.size() - 1);
+
+													double yy;
+													if (currTimeStamp >= t0
+															+ fachDchPromoAvg) {
+														yy = fachDchPromoAvg;
+													} else {
+														yy = fachDchPromoMin;
+													}
+
+													pending.add(new RrcStateRange(t0, t0
+															+ yy, RRCState.PROMO_FACH_DCH));
+													pending.add(new RrcStateRange(t0 + yy,
+															prevTimeStamp,
+															RRCState.STATE_DCH));
+
+													prevTimeStamp = addStateRangeEx(pending,
+															prevTimeStamp,
+															Double.MAX_VALUE,
+															RRCState.STATE_DCH,
+															currTimeStamp);
+													break;
+												}
+												// #undef EPS
+
+											}
+
+											bFixed = true;
+											break;
+										}
+									}
+
+									if (!bFixed) {
+										// still not working - force it on
+										// FACH
+										prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+												Double.MAX_VALUE, RRCState.STATE_FACH,
+												currTimeStamp);
+										state = RRCState.STATE_FACH;
+										fachQueue.init();
+									}
+								}
+							} // finish handling the error case
+
+							state = RRCState.STATE_DCH;
+							dchDemotionQueue.init(currTimeStamp, currLen, dir);
+
+						}
+
+						else {
+							prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+									Double.MAX_VALUE, RRCState.STATE_FACH, currTimeStamp);
+							state = RRCState.STATE_FACH;
+						}
+
+					}
+				} else {
+					if (dir == Direction.UPLINK) {
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, fachIdleTimer,
+								RRCState.TAIL_FACH, currTimeStamp);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+								Double.MAX_VALUE, RRCState.STATE_IDLE, currTimeStamp);
+						state = RRCState.PROMO_IDLE_DCH;
+						timer = 0;
+					} else { // downlink
+						double tMax0 = currTimeStamp - idleDchPromoAvg;
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp, fachIdleTimer,
+								RRCState.TAIL_FACH, tMax0);
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+								Double.MAX_VALUE, RRCState.STATE_IDLE, tMax0);
+						// promoTime = tMax - tt;
+						prevTimeStamp = addStateRangeEx(pending, prevTimeStamp,
+								Double.MAX_VALUE, RRCState.PROMO_IDLE_DCH, currTimeStamp);
+
+						state = RRCState.STATE_DCH;
+
+						dchDemotionQueue.init(currTimeStamp, currLen, dir);
+					}
+				}
+			}
+			}
+			return state;
+		}
+
+		/**
+		 * Passes on the pending state ranges that can no longer be changed.
+		 * Later packets only add ranges after the previous packet, move the
+		 * ranges within the DCH timer before the last range to the DCH tail, or
+		 * replace the ranges after a trailing packet in FACH state. Ranges are
+		 * passed on in order of their begin time, as the batch simulation sorts
+		 * them.
+		 */
+		private void releaseFinishedRanges() {
+			if (pending.isEmpty()) {
+				return;
+			}
+			double horizon = Math.min(prevPacket.getTimeStamp(),
+					pending.get(pending.size() - 1).getEndTime() - dchFachTimer - HORIZON_MARGIN);
+			if (!fachPackets.isEmpty()) {
+				horizon = Math.min(horizon, fachPackets.get(0).getTimeStamp());
+			}
+
+			int count = 0;
+			while (count < pending.size()
+					&& Math.max(pending.get(count).getBeginTime(), pending.get(count)
+							.getEndTime()) < horizon) {
+				++count;
+			}
+			if (count == 0) {
+				return;
+			}
+
+			double restBeginTime = horizon;
+			for (int i = count; i < pending.size(); ++i) {
+				restBeginTime = Math.min(restBeginTime, pending.get(i).getBeginTime());
+			}
+
+			List<RrcStateRange> ready = new ArrayList<RrcStateRange>(pending.subList(0, count));
+			Collections.sort(ready);
+			List<RrcStateRange> released = new ArrayList<RrcStateRange>(count);
+			for (RrcStateRange range : ready) {
+				if (range.getBeginTime() > restBeginTime) {
+					break;
+				}
+				merge(range);
+				released.add(range);
+			}
+			if (released.size() == count) {
+				pending.subList(0, count).clear();
+			} else {
+				pending.subList(0, count).removeAll(released);
+			}
+		}
+
+		/**
+		 * Merges a finished range with the previous one when they have the same
+		 * state, and otherwise passes on the previous one.
+		 *
+		 * @param range
+		 *            The next range in order of begin time.
+		 */
+		private void merge(RrcStateRange range) {
+			if (merged != null && merged.getState() == range.getState()) {
+				mergedEndTime = range.getEndTime();
+				return;
+			}
+			if (merged != null) {
+				merged.setEndTime(mergedEndTime);
+				emit(merged);
+			}
+			merged = range;
+			mergedEndTime = range.getEndTime();
+		}
+
+		/**
+		 * Passes on a merged range, truncated at the end of the trace once the
+		 * trace duration is known. Ranges that begin after the end of the
+		 * trace, or never end, are dropped.
+		 *
+		 * @param range
+		 *            The merged range.
+		 */
+		private void emit(RrcStateRange range) {
+			if (traceDuration >= 0.0) {
+				if (range.getBeginTime() >= traceDuration
+						|| range.getEndTime() == Double.MAX_VALUE) {
+					return;
+				}
+				if (range.getEndTime() > traceDuration) {
+					range.setEndTime(traceDuration);
+				}
+			}
+			fireStateRange(range);
+		}
+	}
+
+	/**
+	 * Simulates the RRC state machine of an LTE profile. LTE state ranges are
+	 * never changed once they have been created.
+	 */
+	private static class SimulatorLTE extends RrcStateSimulator {
+
+		private ProfileLTE profile;
+
+		// Track time of state changes
+		private double timer = 0.0;
+
+		// Keep timestamp of previous packet
+		private double last;
+		private boolean started;
+
+		/**
+		 * Initializes an instance of the SimulatorLTE class.
+		 *
+		 * @param profile
+		 *            The LTE profile.
+		 * @param listener
+		 *            The listener that receives the finished state ranges.
+		 */
+		private SimulatorLTE(ProfileLTE profile, RrcStateRangeListener listener) {
+			super(listener);
+			this.profile = profile;
+		}
+
+		@Override
+		public RRCState addPacket(PacketInfo packet) {
+			double curr = packet.getTimeStamp();
+			if (!started) {
+
+				// First packet starts continuous reception
+				started = true;
+				timer = promoteLTE(timer, curr);
+			} else if (curr - last > profile.getInactivityTimer()) {
+
+				// We dropped to CR tail
+				timer = tailLTE(timer, last, curr);
+
+				// If end of tail was reached, we need to promote for new packet
+				if (timer < curr) {
+					timer = promoteLTE(timer, curr);
+				}
+			}
+
+			// Save current packet time as last packet for next packet
+			last = curr;
+			return RRCState.LTE_CONTINUOUS;
+		}
+
+		@Override
+		public void finish(double traceDuration) {
+			if (started) {
+
+				// Do final LTE tail
+				timer = tailLTE(timer, last, traceDuration);
+
+				// Check for final idle time
+				if (timer < traceDuration) {
+					fireStateRange(new RrcStateRange(timer, traceDuration, RRCState.LTE_IDLE));
+				}
+			} else {
+
+				// State is idle for the entire trace
+				fireStateRange(new RrcStateRange(0.0, traceDuration, RRCState.LTE_IDLE));
+			}
+		}
+
+		/**
+		 * Creates state ranges for promoting between LTE idle and continuous
+		 * reception. This method will create the IDLE and PROMOTION state
+		 * ranges.
+		 *
+		 * @param start
+		 *            Indicates time of end of last LTE long tail state or
+		 *            beginning of trace
+		 * @param end
+		 *            Indicates time of packet that is causing the promotion.
+		 * @return The time at which the promotion is complete
+		 */
+		private double promoteLTE(double start, double end) {
+
+			// Find the time that the promotion started before the packet was received
+			double promoStart = Math.max(start, end - profile.getPromotionTime());
+
+			// Check to see if there was some IDLE time
+			if (promoStart > start) {
+				fireStateRange(new RrcStateRange(start, promoStart, RRCState.LTE_IDLE));
+			}
+
+			// Add the promotion state range
+			fireStateRange(new RrcStateRange(promoStart, end, RRCState.LTE_PROMOTION));
+			return end;
+		}
+
+		/**
+		 * Creates state ranges for an LTE tail sequence.
+		 *
+		 * @param timer
+		 *            Time at which first packet was received for LTE continuous
+		 *            reception
+		 * @param start
+		 *            Time at which last packet was received for LTE continuous
+		 *            reception and the tail sequence begins
+		 * @param end
+		 *            Time at which tail sequence is stopped (either by new
+		 *            continuous reception state or end of trace).
+		 * @return The time at which the tail sequence was completed or stopped
+		 */
+		private double tailLTE(double timer, double start, double end) {
+
+			// Add the continuous reception time
+			fireStateRange(new RrcStateRange(timer, start, RRCState.LTE_CONTINUOUS));
+
+			// Check for CR tail time
+			timer = Math.min(start + profile.getInactivityTimer(), end);
+			if (timer > start) {
+				fireStateRange(new RrcStateRange(start, timer, RRCState.LTE_CR_TAIL));
+
+				// Check for DRX short tail time
+				start = timer;
+				timer = Math.min(start + profile.getDrxShortTime(), end);
+				if (timer > start) {
+					fireStateRange(new RrcStateRange(start, timer, RRCState.LTE_DRX_SHORT));
+
+					// Check for DRX long tail time
+					start = timer;
+					timer = Math.min(start + profile.getDrxLongTime(), end);
+					if (timer > start) {
+						fireStateRange(new RrcStateRange(start, timer, RRCState.LTE_DRX_LONG));
+					}
+				}
+			}
+			return timer;
+		}
+	}
+
+	/**
+	 * Handles the calculation related to DCH State and DCH Tail State.
+	 */
+	private static class DchDemotionQueue {
+		private Profile3G profile;
+		private int dchDemotionQueueUL = -1;
+		private int dchDemotionQueueDL = -1;
+		private double dchTimerResetTS;
+		private double dchLastPktTSUL;
+		private double dchLastPktTSDL;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param profile
+		 */
+		public DchDemotionQueue(Profile3G profile) {
+			this.profile = profile;
+		}
+
+		/**
+		 * Initialize the DCH state information.
+		 * 
+		 * @param ts
+		 *            time stamp where DCH starts.
+		 * @param size
+		 *            size of the consumed during that DCH.
+		 * @param dir
+		 *            Direction of the DCH UPLINK/DOWNLINK.
+		 */
+		private void init(double ts, int size, Direction dir) {
+			if (dir == Direction.UPLINK) {
+				dchDemotionQueueUL = size;
+				dchDemotionQueueDL = 0;
+				dchLastPktTSUL = ts;
+				dchLastPktTSDL = -9999.0f;
+			} else if (dir == Direction.DOWNLINK) {
+				dchDemotionQueueUL = 0;
+				dchDemotionQueueDL = size;
+				dchLastPktTSDL = ts;
+				dchLastPktTSUL = -9999.0f;
+			}
+
+			dchTimerResetTS = ts;
+		}
+
+		/**
+		 * Updates the RRC information in existing RRC state.
+		 * 
+		 * @param ts
+		 * @param size
+		 * @param dir
+		 */
+		private void update(double ts, int size, Direction dir) {
+			if (dir == Direction.UPLINK) {
+				if (ts > dchLastPktTSUL + profile.getDchTimerResetWin()) {
+					dchDemotionQueueUL = size;
+				} else {
+					dchDemotionQueueUL += size;
+				}
+				if (ts > dchLastPktTSDL + profile.getDchTimerResetWin())
+					dchDemotionQueueDL = 0;
+				dchLastPktTSUL = ts;
+			}
+
+			else if (dir == Direction.DOWNLINK) {
+				if (ts > dchLastPktTSDL + profile.getDchTimerResetWin()) {
+					dchDemotionQueueDL = size;
+				} else {
+					dchDemotionQueueDL += size;
+				}
+				if (ts > dchLastPktTSUL + profile.getDchTimerResetWin())
+					dchDemotionQueueUL = 0;
+				dchLastPktTSDL = ts;
+
+			}
+
+			if (dchDemotionQueueUL >= profile.getDchTimerResetSize()
+					|| dchDemotionQueueDL >= profile.getDchTimerResetSize()) {
+				dchTimerResetTS = ts;
+			}
+		}
+
+		private double getDCHTail(double ts) {
+			double lastTS = Math.max(dchLastPktTSDL, dchLastPktTSUL);
+			double dt = profile.getDchFachTimer() - (lastTS - dchTimerResetTS);
+			return dt;
+		}
+
+	}
+
+	/**
+	 * Handles the calculation related to DCH State and DCH Tail State.
+	 */
+	private static class FachQueue {
+		private Profile3G profile;
+		private int ulQueue, dlQueue;
+		private double ulTS, dlTS;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param profile
+		 */
+		public FachQueue(Profile3G profile) {
+			this.profile = profile;
+		}
+
+		/**
+		 * Initialize the FACH data.
+		 */
+		private void init() {
+			ulQueue = dlQueue = 0;
+			ulTS = dlTS = -1000.0f;
+		}
+
+		/**
+		 * return true if it triggers a FACH->DCH promotion
+		 * 
+		 * @param ts
+		 * @param dir
+		 * @param size
+		 * @return
+		 */
+		private boolean simFACH(double ts, Direction dir, int size) {
+			if (dir == Direction.UPLINK) {
+				// MyAssert(ts >= ulTS, 113);
+				double queueConsumptionTime = (ulQueue * ulQueue * profile.getRlcUlRateP2()
+						+ ulQueue * profile.getRlcUlRateP1() + profile.getRlcUlRateP0()) / 1000.0f;
+				if (ts - ulTS > queueConsumptionTime)
+					ulQueue = 0;
+
+				// if (ts - ulTS > 0.2f) ulQueue = 0;
+
+				ulQueue += size;
+				ulTS = ts;
+
+			}
+
+			else if (dir == Direction.DOWNLINK) {
+				// MyAssert(ts >= dlTS, 114);
+				double queueConsumptionTime = (dlQueue * dlQueue * profile.getRlcDlRateP2()
+						+ dlQueue * profile.getRlcDlRateP1() + profile.getRlcDlRateP0()) / 1000.0f;
+				if (ts - dlTS > queueConsumptionTime)
+					dlQueue = 0;
+
+				dlQueue += size;
+				dlTS = ts;
+
+			}
+
+			return (dlQueue > profile.getRlcDlTh() || ulQueue > profile.getRlcUlTh());
+		}
+
+	}
+
+	/**
+	 * This method adds the an RrcStateRange to the list rrc.
+	 *
+	 * @param t
+	 * @param duration
+	 *            The duration of the state.
+	 * @param state
+	 *            The RRC state
+	 * @param tMax
+	 */
+	private static double addStateRangeEx(List<RrcStateRange> rrc, double t, double duration,
+			RRCState state, double tMax) {
+		if (t >= tMax || duration <= 0)
+			return t;
+		if (t + duration > tMax)
+			duration = tMax - t;
+
+		double end = t + duration;
+		rrc.add(new RrcStateRange(t, end, state));
+		return end;
+	}
+
+	private static void changeStateRangeBack(List<RrcStateRange> rrc, double duration,
+			RRCState oldState, RRCState newState) {
+
+		final double EPS = 1e-5;
+
+		if (duration < EPS)
+			return;
+
+		int n = rrc.size();
+		for (int i = n - 1; i >= 0; i--) {
+			rrc.get(i).setState(newState);
+			duration -= rrc.get(i).getEndTime() - rrc.get(i).getBeginTime();
+
+			if (duration > EPS)
+				continue;
+			return;
+		}
+
+	}
+}
@@ -161,12 +161,16 @@ public class TCPSession implements Serializable {
 	 * 
 	 * @param packets  A collection of PacketInfo objects holding the packet information.
 	 * 
+	 * @param annotations - The PacketAnnotations of the analysis, which receive the TCP 
+	 * packet type, TCP session and HTTP request/response of each packet.
+	 * 
 	 * @return The collection of tcp sessions that are found from the packets
 	 *         data.
 	 * @throws IOException
 	 */
 	public static List<TCPSession> extractTCPSessions(
-			Collection<PacketInfo> packets) throws IOException {
+			Collection<PacketInfo> packets, PacketAnnotations annotations)
+			throws IOException {
 		Map<String, TCPSession> sess = new LinkedHashMap<String, TCPSession>();
 		for (PacketInfo packet : packets) {
 
@@ -198,7 +202,7 @@ public class TCPSession implements Serializable {
 			}
 
 			// Clear TCP Info
-			packet.setTcpInfo(null);
+			annotations.setTcpInfo(packet, null);
 
 			String key = localPort + " " + remotePort + " "
 					+ remoteIP.getHostAddress();
@@ -245,7 +249,7 @@ public class TCPSession implements Serializable {
 				}
 
 				if (p.isSYN()) {
-					pi.setTcpInfo(TcpInfo.TCP_ESTABLISH);
+					annotations.setTcpInfo(pi, TcpInfo.TCP_ESTABLISH);
 					if (xl.baseSeq == null
 							|| xl.baseSeq.equals(p.getSequenceNumber())) {
 
@@ -293,9 +297,9 @@ public class TCPSession implements Serializable {
 						// Mark session terminated
 						bTerminated = true;
 						if (p.isFIN()) {
-							pi.setTcpInfo(TcpInfo.TCP_CLOSE);
+							annotations.setTcpInfo(pi, TcpInfo.TCP_CLOSE);
 						} else if (p.isRST()) {
-							pi.setTcpInfo(TcpInfo.TCP_RESET);
+							annotations.setTcpInfo(pi, TcpInfo.TCP_RESET);
 						}
 
 					}
@@ -323,7 +327,7 @@ public class TCPSession implements Serializable {
 				}
 
 				// Link packet to session
-				pi.setSession(session);
+				annotations.setSession(pi, session);
 
 				long seq = p.getSequenceNumber() - xl.baseSeq;
 				if (seq < 0) {
@@ -335,7 +339,7 @@ public class TCPSession implements Serializable {
 
 				if (seq == xl.seq) {
 					if (p.getPayloadLen() > 0) {
-						pi.setTcpInfo(TcpInfo.TCP_DATA);
+						annotations.setTcpInfo(pi, TcpInfo.TCP_DATA);
 						byte[] data = p.getData();
 						int l = p.getPayloadLen();
 						int dataOffset = p.getDataOffset();
@@ -362,7 +366,7 @@ public class TCPSession implements Serializable {
 
 							if (seq == xl.seq) {
 								if (p.getPayloadLen() > 0) {
-									pi1.setTcpInfo(TcpInfo.TCP_DATA);
+									annotations.setTcpInfo(pi1, TcpInfo.TCP_DATA);
 									byte[] data = p1.getData();
 									int l = p1.getPayloadLen();
 									int dataOffset = p1.getDataOffset();
@@ -393,10 +397,10 @@ public class TCPSession implements Serializable {
 					if (p.getPayloadLen() == 0 && seq == xl.seq - 1
 							&& p.isACK() && !p.isSYN() && !p.isFIN()
 							&& !p.isRST()) {
-						if (pi.getTcpInfo() != null) {
+						if (annotations.getTcpInfo(pi) != null) {
 							logger.warning("94 - ???");
 						}
-						pi.setTcpInfo(TcpInfo.TCP_KEEP_ALIVE);
+						annotations.setTcpInfo(pi, TcpInfo.TCP_KEEP_ALIVE);
 					} else {
 						xl.ooid.add(pi);
 					}
@@ -411,13 +415,13 @@ public class TCPSession implements Serializable {
 
 			for (PacketInfo p : dl.ooid) {
 				if (p.getPacket().getPayloadLen() > 0) {
-					p.setTcpInfo(TcpInfo.TCP_DATA_DUP);
+					annotations.setTcpInfo(p, TcpInfo.TCP_DATA_DUP);
 				}
 			}
 
 			for (PacketInfo p : ul.ooid) {
 				if (p.getPacket().getPayloadLen() > 0) {
-					p.setTcpInfo(TcpInfo.TCP_DATA_DUP);
+					annotations.setTcpInfo(p, TcpInfo.TCP_DATA_DUP);
 				}
 			}
 		}
@@ -427,9 +431,9 @@ public class TCPSession implements Serializable {
 			for (PacketInfo p : s.packets) {
 				s.bytesTransferred += p.getPacket().getLen();
 			}
-			s.analyzeACK();
-			s.analyzeZeroWindow();
-			s.analyzeRecoverPkts();
+			s.analyzeACK(annotations);
+			s.analyzeZeroWindow(annotations);
+			s.analyzeRecoverPkts(annotations);
 
 			// TODO Validate TCP info is set on all
 			// CheckTCPInfo(s);
@@ -441,7 +445,7 @@ public class TCPSession implements Serializable {
 
 			// Parse HTTP request response info
 			s.requestResponseInfo = HttpRequestResponseInfo
-					.extractHttpRequestResponseInfo(s);
+					.extractHttpRequestResponseInfo(s, annotations);
 			for (HttpRequestResponseInfo rr : s.requestResponseInfo) {
 				if (rr.getDirection() == HttpRequestResponseInfo.Direction.REQUEST) {
 
@@ -578,20 +582,6 @@ public class TCPSession implements Serializable {
 		return requestResponseInfo;
 	}
 
-	/**
-	 * Returns the consolidated string for uplink and downlink storage. 
-	 * 
-	 * @return The result string.
-	 */
-	public String getDataText() {
-		StringBuffer buf = new StringBuffer(storageUl.length + storageDl.length);
-		buf.append(new String(storageUl));
-		buf.append(new String(storageDl));
-		String result = buf.toString();
-		System.gc();
-		return result;
-	}
-
 	/**
 	 * Return the uplink storage. 
 	 * 
@@ -646,7 +636,7 @@ public class TCPSession implements Serializable {
 	 * Analyze the packet to find the TCPInfo. Marked flags: TCP_ACK,
 	 * TCP_ACK_DUP, TCP_WINDOW_UPDATE, TCP_KEEP_ALIVE_ACK
 	 */
-	private void analyzeACK() {
+	private void analyzeACK(PacketAnnotations annotations) {
 
 		Map<Long, Integer> ulAckWinSize = new HashMap<Long, Integer>();
 		Map<Long, Integer> dlAckWinSize = new HashMap<Long, Integer>();
@@ -685,7 +675,7 @@ public class TCPSession implements Serializable {
 				continue;
 			}
 
-			if (pi.getTcpInfo() == TcpInfo.TCP_KEEP_ALIVE) {
+			if (annotations.getTcpInfo(pi) == TcpInfo.TCP_KEEP_ALIVE) {
 				pAliveAck.add(p.getSequenceNumber());
 				continue;
 			}
@@ -706,41 +696,41 @@ public class TCPSession implements Serializable {
 			int payloadLen = p.getPayloadLen();
 			if (pAliveAck2.contains(ackNum - 1) && payloadLen == 0
 					&& !p.isSYN() && !p.isFIN() && !p.isRST()) {
-				if (pi.getTcpInfo() != null) {
+				if (annotations.getTcpInfo(pi) != null) {
 					logger.warning("34 - Packet already typed");
 				}
-				pi.setTcpInfo(TcpInfo.TCP_KEEP_ALIVE);
+				annotations.setTcpInfo(pi, TcpInfo.TCP_KEEP_ALIVE);
 			} else if (!pAckWinSize.containsKey(key)) {
 				pAckWinSize.put(key, win);
 				if (payloadLen == 0 && !p.isSYN() && !p.isFIN() && !p.isRST()) {
-					if (pi.getTcpInfo() != null) {
+					if (annotations.getTcpInfo(pi) != null) {
 						logger.warning("98 - Packet already typed");
 					}
-					pi.setTcpInfo(TcpInfo.TCP_ACK);
+					annotations.setTcpInfo(pi, TcpInfo.TCP_ACK);
 				}
 			} else {
 				int prevWin = pAckWinSize.get(key);
 				if (win == prevWin) {
 					if (payloadLen == 0 && !p.isRST()
-							&& pi.getTcpInfo() != TcpInfo.TCP_KEEP_ALIVE) {
-						if (pi.getTcpInfo() != null
-								&& pi.getTcpInfo() != TcpInfo.TCP_ESTABLISH
-								&& pi.getTcpInfo() != TcpInfo.TCP_CLOSE) {
+							&& annotations.getTcpInfo(pi) != TcpInfo.TCP_KEEP_ALIVE) {
+						if (annotations.getTcpInfo(pi) != null
+								&& annotations.getTcpInfo(pi) != TcpInfo.TCP_ESTABLISH
+								&& annotations.getTcpInfo(pi) != TcpInfo.TCP_CLOSE) {
 							logger.warning("33 - Packet already typed");
 						}
-						pi.setTcpInfo(TcpInfo.TCP_ACK_DUP);
+						annotations.setTcpInfo(pi, TcpInfo.TCP_ACK_DUP);
 					}
 				} else {
 					pAckWinSize.put(key, win);
 					if (payloadLen == 0 && !p.isRST()
-							&& pi.getTcpInfo() != TcpInfo.TCP_KEEP_ALIVE) {
-						if (pi.getTcpInfo() != null
-								&& pi.getTcpInfo() != TcpInfo.TCP_ESTABLISH
-								&& pi.getTcpInfo() != TcpInfo.TCP_CLOSE) {
+							&& annotations.getTcpInfo(pi) != TcpInfo.TCP_KEEP_ALIVE) {
+						if (annotations.getTcpInfo(pi) != null
+								&& annotations.getTcpInfo(pi) != TcpInfo.TCP_ESTABLISH
+								&& annotations.getTcpInfo(pi) != TcpInfo.TCP_CLOSE) {
 
 							logger.warning("32 - Packet already typed");
 						}
-						pi.setTcpInfo(TcpInfo.TCP_WINDOW_UPDATE);
+						annotations.setTcpInfo(pi, TcpInfo.TCP_WINDOW_UPDATE);
 					}
 				}
 			}
@@ -750,12 +740,12 @@ public class TCPSession implements Serializable {
 	/**
 	 * Analyze the packet to find the TCPInfo. Marked flags: TCP_ZERO_WINDOW
 	 */
-	private void analyzeZeroWindow() {
+	private void analyzeZeroWindow(PacketAnnotations annotations) {
 		for (PacketInfo pi : packets) {
 			TCPPacket p = (TCPPacket) pi.getPacket();
 			if (p.getPayloadLen() == 0 && p.getWindow() == 0 && !p.isSYN()
 					&& !p.isFIN() && !p.isRST()) {
-				pi.setTcpInfo(TcpInfo.TCP_ZERO_WINDOW);
+				annotations.setTcpInfo(pi, TcpInfo.TCP_ZERO_WINDOW);
 			}
 		}
 	}
@@ -764,7 +754,7 @@ public class TCPSession implements Serializable {
 	 * Analyze the packet to find the TCPInfo. Marked flags: TCP_DATA_RECOVER,
 	 * TCP_ACK_RECOVER
 	 */
-	private void analyzeRecoverPkts() {
+	private void analyzeRecoverPkts(PacketAnnotations annotations) {
 
 		// "Recover data": its seq equals to the duplicated ACK
 		// "Recover ack": its ack equals to the duplicated DATA + payload len
@@ -777,7 +767,7 @@ public class TCPSession implements Serializable {
 		for (PacketInfo pi : packets) {
 			TCPPacket p = (TCPPacket) pi.getPacket();
 
-			TcpInfo pType = pi.getTcpInfo();
+			TcpInfo pType = annotations.getTcpInfo(pi);
 			PacketInfo.Direction dir = pi.getDir();
 			if (pType == TcpInfo.TCP_DATA_DUP) {
 				if (dir == PacketInfo.Direction.UPLINK) {
@@ -799,22 +789,22 @@ public class TCPSession implements Serializable {
 			if (pType == TcpInfo.TCP_DATA) {
 				if (dir == PacketInfo.Direction.UPLINK
 						&& dupAckDl.containsKey(p.getSequenceNumber())) {
-					pi.setTcpInfo(TcpInfo.TCP_DATA_RECOVER);
+					annotations.setTcpInfo(pi, TcpInfo.TCP_DATA_RECOVER);
 				}
 				if (dir == PacketInfo.Direction.DOWNLINK
 						&& dupAckUl.containsKey(p.getSequenceNumber())) {
-					pi.setTcpInfo(TcpInfo.TCP_DATA_RECOVER);
+					annotations.setTcpInfo(pi, TcpInfo.TCP_DATA_RECOVER);
 				}
 			}
 
 			if (pType == TcpInfo.TCP_ACK) {
 				if (dir == PacketInfo.Direction.UPLINK
 						&& dupSeqDl.containsKey(p.getAckNumber())) {
-					pi.setTcpInfo(TcpInfo.TCP_DATA_RECOVER);
+					annotations.setTcpInfo(pi, TcpInfo.TCP_DATA_RECOVER);
 				}
 				if (dir == PacketInfo.Direction.DOWNLINK
 						&& dupSeqUl.containsKey(p.getAckNumber())) {
-					pi.setTcpInfo(TcpInfo.TCP_DATA_RECOVER);
+					annotations.setTcpInfo(pi, TcpInfo.TCP_DATA_RECOVER);
 				}
 			}
 
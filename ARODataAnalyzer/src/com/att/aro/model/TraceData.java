@@ -30,6 +30,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -92,6 +93,11 @@ public class TraceData implements Serializable {
 		private List<PacketInfo> packets;
 		private Map<Integer, Integer> packetSizeToCountMap = new HashMap<Integer, Integer>();
 
+		// Packet time stamps and running byte totals used for range queries
+		private double[] packetTimes;
+		private long[] cumulativeBytes;
+		private long[] cumulativePayload;
+
 		// Analysis results
 		private Set<String> appNames = new HashSet<String>();
 		private Collection<ApplicationPacketSummary> applicationPacketSummary = new ArrayList<ApplicationPacketSummary>();
@@ -101,6 +107,7 @@ public class TraceData implements Serializable {
 		private double avgKbps = 0.0;
 		private List<TCPSession> tcpSessions;
 		private RRCStateMachine rrcStateMachine;
+		private PacketAnnotations packetAnnotations;
 		private CacheAnalysis cacheAnalysis;
 		private BestPractices bestPractice;
 		private EnergyModel energyModel;
@@ -233,66 +240,47 @@ public class TraceData implements Serializable {
 		 */
 		public TimeRangeAnalysis performTimeRangeAnalysis(
 				double analyzeBeginTime, double analyzeEndTime) {
-			List<RrcStateRange> rrcCollection = this.rrcStateMachine
-					.getRRcStateRanges();
-			long payloadLength = 0;
-			long totalBytes = 0;
-			int n = packets.size();
-
-			for (int i = 0; i < n; i++) {
-				PacketInfo p = packets.get(i);
-				if (p.getTimeStamp() >= analyzeBeginTime
-						&& p.getTimeStamp() <= analyzeEndTime) {
-					payloadLength += p.getPayloadLen();
-					totalBytes += p.getLen();
-				}
-			}
+			int first = getPacketIndex(analyzeBeginTime, false);
+			int last = getPacketIndex(analyzeEndTime, true);
+			long payloadLength = cumulativePayload[last] - cumulativePayload[first];
+			long totalBytes = cumulativeBytes[last] - cumulativeBytes[first];
 
-			double energy = 0.0f;
-			double activeTime = 0.0f;
-			int m = rrcCollection.size();
+			double energy = rrcStateMachine.getEnergy(analyzeBeginTime, analyzeEndTime);
+			double activeTime = rrcStateMachine.getActiveTime(analyzeBeginTime, analyzeEndTime);
 
-			for (int i = 0; i < m; i++) {
-				double beginTime;
-				double endTime;
-
-				RrcStateRange rrc = rrcCollection.get(i);
-				if (rrc.getEndTime() < analyzeBeginTime) {
-					continue;
-				}
-				if (rrc.getBeginTime() > analyzeEndTime) {
-					continue;
-				}
-
-				if (rrc.getBeginTime() >= analyzeBeginTime) {
-					beginTime = rrc.getBeginTime();
-				} else {
-					beginTime = analyzeBeginTime;
-				}
-
-				if (rrc.getEndTime() <= analyzeEndTime) {
-					endTime = rrc.getEndTime();
-				} else {
-					endTime = analyzeEndTime;
-				}
-
-				RRCState s = rrc.getState();
+			return new TimeRangeAnalysis(analyzeBeginTime, analyzeEndTime,
+					totalBytes, payloadLength, activeTime, energy);
+		}
 
-				energy += profile.energy(beginTime, endTime, s, packets);
-				if (profile.getProfileType() == ProfileType.LTE) {
-					if (s == RRCState.LTE_CONTINUOUS
-							|| s == RRCState.LTE_CR_TAIL) {
-						activeTime += endTime - beginTime;
-					}
+		/**
+		 * Returns the index of the first packet whose time stamp is not less
+		 * than (or, when inclusive, greater than) the specified time. The
+		 * index is into the packets of this analysis, which are the packets
+		 * that pass the analysis filter, as returned by getPackets. It is
+		 * not an index into the unfiltered packets of the trace.
+		 * 
+		 * @param time
+		 *            The time to search for.
+		 * @param inclusive
+		 *            Indicates whether packets at exactly the specified time
+		 *            are skipped.
+		 * @return The index of the packet in the filtered packet list. If no
+		 *         packet matches, the size of the filtered packet list is
+		 *         returned, which is also the index at which the cumulative
+		 *         byte counts hold the totals of all packets.
+		 */
+		int getPacketIndex(double time, boolean inclusive) {
+			int low = 0;
+			int high = packetTimes.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (packetTimes[mid] < time || (inclusive && packetTimes[mid] == time)) {
+					low = mid + 1;
 				} else {
-					if (s == RRCState.STATE_DCH || s == RRCState.TAIL_DCH) {
-						activeTime += endTime - beginTime;
-					}
+					high = mid;
 				}
 			}
-
-			return new TimeRangeAnalysis(analyzeBeginTime, analyzeEndTime,
-					totalBytes, payloadLength, activeTime, energy);
+			return low;
 		}
 
 		/**
@@ -385,16 +373,6 @@ public class TraceData implements Serializable {
 			return TraceData.this;
 		}
 
-		public void clear() {
-			for (PacketInfo p : allPackets) {
-				p.setBurst(null);
-				p.setRequestResponseInfo(null);
-				p.setSession(null);
-				p.setStateMachine(null);
-				p.setTcpInfo(null);
-			}
-		}
-
 		/**
 		 * Returns the profile associated with the trace data.
 		 * 
@@ -451,6 +429,16 @@ public class TraceData implements Serializable {
 			return Collections.unmodifiableList(tcpSessions);
 		}
 
+		/**
+		 * Returns the information determined by this analysis about each
+		 * packet, such as its TCP packet type and TCP session.
+		 * 
+		 * @return The packet annotations of this analysis.
+		 */
+		public PacketAnnotations getPacketAnnotations() {
+			return packetAnnotations;
+		}
+
 		/**
 		 * @return The rrcStateMachine
 		 */
@@ -538,7 +526,19 @@ public class TraceData implements Serializable {
 		 * 
 		 * @throws IOException
 		 */
-		private synchronized void runAnalysis() throws IOException {
+		private void runAnalysis() throws IOException {
+
+			// Index packet times and byte totals for range queries
+			int packetCount = packets.size();
+			packetTimes = new double[packetCount];
+			cumulativeBytes = new long[packetCount + 1];
+			cumulativePayload = new long[packetCount + 1];
+			for (int i = 0; i < packetCount; ++i) {
+				PacketInfo packet = packets.get(i);
+				packetTimes[i] = packet.getTimeStamp();
+				cumulativeBytes[i + 1] = cumulativeBytes[i] + packet.getLen();
+				cumulativePayload[i + 1] = cumulativePayload[i] + packet.getPayloadLen();
+			}
 
 			// Collect basic statistics
 			if (packets.size() > 0) {
@@ -599,23 +599,39 @@ public class TraceData implements Serializable {
 					logger.fine("");
 				}
 			}
-			// Analyze packets for TCP sessions
-			this.tcpSessions = TCPSession.extractTCPSessions(packets);
+			// Creates BestPractices object, whose rules are run as soon as
+			// their inputs are ready
+			BestPractices bestPractices = new BestPractices(this,
+					EnumSet.of(BestPracticeRule.Input.TRACE_DATA));
+			try {
 
-			// Do cache analysis
-			this.cacheAnalysis = new CacheAnalysis(this.tcpSessions);
+				// Analyze packets for TCP sessions
+				this.packetAnnotations = new PacketAnnotations(
+						TraceData.this.allPackets.size());
+				this.tcpSessions = TCPSession.extractTCPSessions(packets,
+						packetAnnotations);
+				bestPractices.setInputReady(BestPracticeRule.Input.TCP_SESSIONS);
 
-			// Simulate RRC state machine
-			this.rrcStateMachine = new RRCStateMachine(this);
+				// Do cache analysis
+				this.cacheAnalysis = new CacheAnalysis(this.tcpSessions);
+				bestPractices.setInputReady(BestPracticeRule.Input.CACHE_ANALYSIS);
 
-			// Create energy model
-			this.energyModel = new EnergyModel(this);
+				// Simulate RRC state machine
+				this.rrcStateMachine = new RRCStateMachine(this);
+				bestPractices.setInputReady(BestPracticeRule.Input.RRC_STATE_MACHINE);
 
-			// Burst Analysis
-			this.bcAnalysis = new BurstCollectionAnalysis(this);
+				// Create energy model
+				this.energyModel = new EnergyModel(this);
 
-			// Creates BestPractices object
-			this.bestPractice = new BestPractices(this);
+				// Burst Analysis
+				this.bcAnalysis = new BurstCollectionAnalysis(this);
+				bestPractices.setInputReady(BestPracticeRule.Input.BURST_ANALYSIS);
+
+				bestPractices.awaitRules();
+			} finally {
+				bestPractices.shutdown();
+			}
+			this.bestPractice = bestPractices;
 		}
 
 		/**
@@ -1087,6 +1103,12 @@ public class TraceData implements Serializable {
 	 */
 	public static final String RADIO_EVENTS_FILE = "radio_events";
 
+	/**
+	 * The name of the event journal file that holds the peripheral traces
+	 * when the data collector writes them in journal mode
+	 */
+	public static final String EVENT_JOURNAL_FILE = "event_journal";
+
 	/**
 	 * The name of the video time file
 	 */
@@ -1258,6 +1280,7 @@ public class TraceData implements Serializable {
 	private double cameraActiveDuration;
 
 	private Set<String> missingFiles = new HashSet<String>();
+	private transient TraceEventJournal eventJournal;
 
 	// All packets included in the trace (not filtered)
 	private File pcapFile;
@@ -1476,7 +1499,9 @@ public class TraceData implements Serializable {
 
 	/**
 	 * Runs analysis on the trace data for the specified collection filter,
-	 * using the specified device profile.
+	 * using the specified device profile. The trace data is not modified by an
+	 * analysis, so several analyses of the same trace may be run at the same
+	 * time.
 	 * 
 	 * @param profile
 	 *            The device profile settings.
@@ -1487,7 +1512,7 @@ public class TraceData implements Serializable {
 	 * 
 	 * @return An Analysis object containing the trace analysis.
 	 */
-	public synchronized Analysis runAnalysis(Profile profile,
+	public Analysis runAnalysis(Profile profile,
 			AnalysisFilter filter) throws IOException {
 		return new Analysis(profile, filter);
 	}
@@ -1584,11 +1609,7 @@ public class TraceData implements Serializable {
 	 */
 	private void readDeviceInfo() throws IOException {
 
-		File file = new File(traceDir, DEVICEINFO_FILE);
-		if (!file.exists()) {
-			this.missingFiles.add(DEVICEINFO_FILE);
-		}
-		BufferedReader br = new BufferedReader(new FileReader(file));
+		BufferedReader br = openTraceFile(DEVICEINFO_FILE);
 		try {
 
 			String s;
@@ -1612,11 +1633,7 @@ public class TraceData implements Serializable {
 	 */
 	private void readDeviceDetails() throws IOException {
 
-		File file = new File(traceDir, DEVICEDETAILS_FILE);
-		if (!file.exists()) {
-			this.missingFiles.add(DEVICEDETAILS_FILE);
-		}
-		BufferedReader br = new BufferedReader(new FileReader(file));
+		BufferedReader br = openTraceFile(DEVICEDETAILS_FILE);
 		try {
 			this.collectorName = br.readLine();
 			this.deviceModel = br.readLine();
@@ -1885,7 +1902,10 @@ public class TraceData implements Serializable {
 
 		File file = new File(traceDir, SCREEN_ROTATIONS_FILE);
 
-		BufferedReader reader = new BufferedReader(new FileReader(file));
+		BufferedReader reader = !file.exists() && eventJournal != null
+				&& eventJournal.hasTrace(SCREEN_ROTATIONS_FILE) ? eventJournal
+				.getReader(SCREEN_ROTATIONS_FILE) : new BufferedReader(
+				new FileReader(file));
 		try {
 
 			String line = null;
@@ -1928,6 +1948,15 @@ public class TraceData implements Serializable {
 	 */
 	private synchronized void readData() throws IOException {
 
+		File journalFile = new File(traceDir, EVENT_JOURNAL_FILE);
+		if (journalFile.exists()) {
+			try {
+				eventJournal = new TraceEventJournal(journalFile);
+			} catch (IOException e) {
+				logger.log(Level.WARNING, "Unable to read event journal", e);
+			}
+		}
+
 		try {
 			readAppInfo();
 		} catch (IOException e) {
@@ -2015,6 +2044,31 @@ public class TraceData implements Serializable {
 			logger.warning("*** Warning: no Video time information found ***");
 		}
 
+		// The journal is only needed while reading the traces
+		eventJournal = null;
+
+	}
+
+	/**
+	 * Opens the specified peripheral trace file for reading. If the trace
+	 * directory does not contain the file, but the trace is in the event
+	 * journal, the trace lines are read from the journal.
+	 * 
+	 * @param fileName
+	 *            The name of the trace file.
+	 * @return A BufferedReader for the trace lines.
+	 * @throws IOException
+	 *             If the trace is missing.
+	 */
+	private BufferedReader openTraceFile(String fileName) throws IOException {
+		File file = new File(traceDir, fileName);
+		if (!file.exists()) {
+			if (eventJournal != null && eventJournal.hasTrace(fileName)) {
+				return eventJournal.getReader(fileName);
+			}
+			this.missingFiles.add(fileName);
+		}
+		return new BufferedReader(new FileReader(file));
 	}
 
 	/**
@@ -2069,12 +2123,8 @@ public class TraceData implements Serializable {
 	 * gpsInfos list. It also updates the active duration for GPS.
 	 */
 	private void readGps() throws IOException {
-		File file = new File(traceDir, GPS_FILE);
-		if (!file.exists()) {
-			this.missingFiles.add(GPS_FILE);
-		}
 
-		BufferedReader br = new BufferedReader(new FileReader(file));
+		BufferedReader br = openTraceFile(GPS_FILE);
 		try {
 			double dLastActiveTimeStamp = 0.0;
 			double dActiveDuration = 0.0;
@@ -2182,11 +2232,7 @@ public class TraceData implements Serializable {
 	 */
 	private void readBluetooth() throws IOException {
 
-		File file = new File(traceDir, BLUETOOTH_FILE);
-		if (!file.exists()) {
-			this.missingFiles.add(BLUETOOTH_FILE);
-		}
-		BufferedReader br = new BufferedReader(new FileReader(file));
+		BufferedReader br = openTraceFile(BLUETOOTH_FILE);
 		try {
 			double beginTime = 0.0;
 			double endTime;
@@ -2288,10 +2334,6 @@ public class TraceData implements Serializable {
 	 * wifiInfos list. It also updates the active duration for Wifi.
 	 */
 	private void readWifi() throws IOException {
-		File file = new File(traceDir, WIFI_FILE);
-		if (!file.exists()) {
-			this.missingFiles.add(WIFI_FILE);
-		}
 		double dLastTimeStamp = 0.0;
 		double dActiveDuration = 0.0;
 		double beginTime = 0.0;
@@ -2301,7 +2343,7 @@ public class TraceData implements Serializable {
 		String prevSsid = null;
 		WifiState prevWifiState = null;
 		WifiState lastWifiState = null;
-		BufferedReader br = new BufferedReader(new FileReader(file));
+		BufferedReader br = openTraceFile(WIFI_FILE);
 		try {
 			String firstLine = br.readLine();
 			if (firstLine != null) {
@@ -2450,11 +2492,7 @@ public class TraceData implements Serializable {
 	 * cameraInfos list. It also updates the active duration for Camera.
 	 */
 	private void readCamera() throws IOException {
-		File file = new File(traceDir, CAMERA_FILE);
-		if (!file.exists()) {
-			this.missingFiles.add(CAMERA_FILE);
-		}
-		BufferedReader br = new BufferedReader(new FileReader(file));
+		BufferedReader br = openTraceFile(CAMERA_FILE);
 		try {
 			double beginTime = 0.0;
 			double endTime;
@@ -2556,11 +2594,7 @@ public class TraceData implements Serializable {
 	 */
 	private void readScreenState() throws IOException {
 
-		File file = new File(traceDir, SCREEN_STATE_FILE);
-		if (!file.exists()) {
-			this.missingFiles.add(SCREEN_STATE_FILE);
-		}
-		BufferedReader br = new BufferedReader(new FileReader(file));
+		BufferedReader br = openTraceFile(SCREEN_STATE_FILE);
 		try {
 			double beginTime = 0.0;
 			double endTime = 0.0;
@@ -2661,11 +2695,7 @@ public class TraceData implements Serializable {
 		int previousLevel = 0;
 		int previousTemp = 0;
 		boolean previousState = false;
-		File file = new File(traceDir, BATTERY_FILE);
-		if (!file.exists()) {
-			this.missingFiles.add(BATTERY_FILE);
-		}
-		BufferedReader br = new BufferedReader(new FileReader(file));
+		BufferedReader br = openTraceFile(BATTERY_FILE);
 		try {
 			for (String strLineBuf = br.readLine(); strLineBuf != null; strLineBuf = br
 					.readLine()) {
@@ -2703,11 +2733,7 @@ public class TraceData implements Serializable {
 	 * Reads the Radio data from the file and stores it in the RadioInfo.
 	 */
 	private void readRadioEvents() throws IOException {
-		File file = new File(traceDir, RADIO_EVENTS_FILE);
-		if (!file.exists()) {
-			this.missingFiles.add(RADIO_EVENTS_FILE);
-		}
-		BufferedReader br = new BufferedReader(new FileReader(file));
+		BufferedReader br = openTraceFile(RADIO_EVENTS_FILE);
 		try {
 			Double lastDbmValue = null;
 			for (String strLineBuf = br.readLine(); strLineBuf != null; strLineBuf = br
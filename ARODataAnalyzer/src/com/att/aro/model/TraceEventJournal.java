@@ -0,0 +1,143 @@
+/*
+ * Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.att.aro.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the binary event journal that the data collector writes in place of
+ * the separate peripheral trace files when its journal mode is enabled. The
+ * events of each trace are turned back into the lines of the corresponding
+ * trace file, so that they can be parsed in the same way.
+ */
+class TraceEventJournal {
+
+	private static final int MAGIC = 0x41524F4A;
+	private static final int VERSION = 1;
+	private static final int RECORD_HEADER_SIZE = 12;
+	private static final int FLAG_TIMESTAMP = 1;
+	private static final int FLAG_CONTINUED = 2;
+
+	private Map<String, StringBuilder> traces = new HashMap<String, StringBuilder>();
+
+	/**
+	 * Initializes an instance of the TraceEventJournal class by reading the
+	 * specified journal file.
+	 *
+	 * @param file
+	 *            The journal file.
+	 * @throws IOException
+	 *             If the file cannot be read or is not an event journal.
+	 */
+	TraceEventJournal(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Unsupported event journal: " + file);
+			}
+			int recordSize = in.readInt();
+			int traceCount = in.readInt();
+			if (recordSize <= RECORD_HEADER_SIZE || traceCount < 0) {
+				throw new IOException("Invalid event journal header: " + file);
+			}
+			StringBuilder[] lines = new StringBuilder[traceCount];
+			for (int i = 0; i < traceCount; ++i) {
+				lines[i] = new StringBuilder();
+				traces.put(in.readUTF(), lines[i]);
+			}
+
+			byte[] record = new byte[recordSize];
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			while (readRecord(in, record)) {
+				int trace = record[0] & 0xff;
+				int flags = record[1];
+				int length = ((record[2] & 0xff) << 8) | (record[3] & 0xff);
+				if (trace >= traceCount
+						|| length > recordSize - RECORD_HEADER_SIZE) {
+					throw new IOException("Invalid event journal record: "
+							+ file);
+				}
+				content.write(record, RECORD_HEADER_SIZE, length);
+				if ((flags & FLAG_CONTINUED) != 0) {
+					continue;
+				}
+
+				StringBuilder traceLines = lines[trace];
+				if ((flags & FLAG_TIMESTAMP) != 0) {
+					long bits = 0;
+					for (int i = 4; i < RECORD_HEADER_SIZE; ++i) {
+						bits = (bits << 8) | (record[i] & 0xff);
+					}
+					traceLines.append(Double.longBitsToDouble(bits)).append(' ');
+				}
+				traceLines.append(content.toString("UTF-8")).append('\n');
+				content.reset();
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Returns a value indicating whether the journal holds the specified
+	 * trace.
+	 *
+	 * @param traceName
+	 *            The name of the trace file that the trace replaces.
+	 * @return true if the journal holds the trace.
+	 */
+	boolean hasTrace(String traceName) {
+		return traces.containsKey(traceName);
+	}
+
+	/**
+	 * Returns a reader for the lines of the specified trace.
+	 *
+	 * @param traceName
+	 *            The name of the trace file that the trace replaces.
+	 * @return A BufferedReader for the trace lines.
+	 */
+	BufferedReader getReader(String traceName) {
+		StringBuilder lines = traces.get(traceName);
+		return new BufferedReader(new StringReader(lines != null ? lines
+				.toString() : ""));
+	}
+
+	/**
+	 * Reads the next record. Returns false at the end of the journal, including
+	 * when the last record was not written completely.
+	 */
+	private static boolean readRecord(DataInputStream in, byte[] record)
+			throws IOException {
+		try {
+			in.readFully(record);
+			return true;
+		} catch (EOFException e) {
+			return false;
+		}
+	}
+}
@@ -18,16 +18,25 @@
 package com.att.aro.video;
 
 import java.awt.BorderLayout;
+import java.awt.CardLayout;
 import java.awt.Component;
 import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ResourceBundle;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -43,11 +52,13 @@ import javax.media.NoPlayerException;
 import javax.media.Player;
 import javax.media.StartEvent;
 import javax.media.Time;
+import javax.swing.ImageIcon;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 import com.att.aro.commonui.MessageDialogFactory;
 import com.att.aro.images.Images;
@@ -69,6 +80,10 @@ public class AROVideoPlayer extends JFrame {
 	private static final int SHORT_SNIPPET_DURATION_MILLISECONDS = SHORT_SNIPPET_DURATION_IN_MILLISECONDS
 			.intValue();
 	private static final float PLAYBACK_RATE = 1.0f; // 5.0f
+	private static final int SEEK_DELAY_MILLISECONDS = 250;
+	private static final long SYNC_INTERVAL_MILLISECONDS = 40;
+	private static final String VIDEO_CARD = "video";
+	private static final String FRAME_CARD = "frame";
 	private static final ResourceBundle rb = ResourceBundleManager
 			.getDefaultBundle();
 	private static final String operatingSystem = System.getProperty("os.name");
@@ -81,61 +96,84 @@ public class AROVideoPlayer extends JFrame {
 	private AROAdvancedTabb aroAdvancedTab;
 	private JPanel aroVideoPanel;
 	private JLabel jVideoLabel;
+	private JPanel videoCardPanel;
+	private JLabel frameLabel;
 	private Player videoPlayer;
+	private VideoFrameIndex frameIndex;
+	private VideoThumbnailCache thumbnailCache;
+	private Timer seekTimer;
+	private double pendingMediaDisplayTime;
 
 	/**
-	 * Runnable used to keep diagnostic chart in sync with video
+	 * Executor that keeps the diagnostic chart in sync with the video
 	 */
-	private Runnable syncThread = new Runnable() {
+	private ScheduledExecutorService syncExecutor;
+	private ScheduledFuture<?> syncTask;
+	private int syncGeneration;
+	private final Object syncLock = new Object();
+
+	/**
+	 * The video time that the diagnostic chart was last synced with. Only used
+	 * on the sync thread.
+	 */
+	private double syncedSeconds;
+
+	/**
+	 * The latest timeline time for the diagnostic chart, and whether an update
+	 * of the chart with it is already queued on the AWT thread
+	 */
+	private volatile double timelineTime;
+	private final AtomicBoolean timelineUpdatePending = new AtomicBoolean();
+
+	/**
+	 * Runnable used to keep diagnostic chart in sync with video at a fixed
+	 * rate while the video is playing. It stops itself once the video is no
+	 * longer playing, unless playback was started again after it read the
+	 * player state.
+	 */
+	private Runnable syncRunnable = new Runnable() {
 
-		private double seconds;
-		
 		@Override
 		public void run() {
-			
-			// Run this in a loop if the video is started
-			int state;
-			do {
-
-				// Get information from video player in this synchronized block
-				// in case video is cleared while running.
-				Time currentVideoTime;
-				synchronized (AROVideoPlayer.this) {
-					if (videoPlayer != null) {
-						currentVideoTime = videoPlayer.getMediaTime();
-						state = videoPlayer.getState();
-					} else {
-						break;
-					}
-				}
+			int generation;
+			synchronized (syncLock) {
+				generation = syncGeneration;
+			}
+			if (!syncTimeline()) {
+				stopSync(generation);
+			}
+		}
+		
+	};
 
-				// Check to see if video time has changed
-				if (currentVideoTime != null && currentVideoTime.getSeconds() != seconds) {
-					if (aroAdvancedTab != null) {
-						seconds = currentVideoTime.getSeconds();
-						
-						try {
-							
-							// Update diagnostics on AWT thread
-							SwingUtilities.invokeAndWait(new Runnable() {
-
-								@Override
-								public void run() {
-									aroAdvancedTab.setTimeLineLinkedComponents(seconds + videoOffset);
-								}
-								
-							});
-						} catch (InterruptedException e) {
-							logger.log(Level.SEVERE, "InterruptedException", e);
-						} catch (InvocationTargetException e) {
-							logger.log(Level.SEVERE, "InvocationTargetException", e);
-						}
-					}
-				}
-			} while (state == Controller.Started);
+	/**
+	 * Runnable used to sync the diagnostic chart with the video once, when the
+	 * media time is set.
+	 */
+	private Runnable syncOnceRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			syncTimeline();
 		}
 		
 	};
+
+	/**
+	 * Runnable that updates the diagnostic chart on the AWT thread with the
+	 * latest timeline time.
+	 */
+	private Runnable timelineUpdate = new Runnable() {
+
+		@Override
+		public void run() {
+			timelineUpdatePending.set(false);
+			if (aroAdvancedTab != null) {
+				aroAdvancedTab.setTimeLineLinkedComponents(timelineTime);
+			}
+		}
+
+	};
 	
 	/**
 	 * Initializes a new instance of the AROVideoPlayer class, and displays the
@@ -180,6 +218,7 @@ public class AROVideoPlayer extends JFrame {
 		}
 
 		TraceData traceData = analysisData.getTraceData();
+		openFrameIndex(traceData.getTraceDir());
 		double videoStartTime = traceData.getVideoStartTime();
 		this.videoOffset = videoStartTime > 0.0 ? videoStartTime
 				- ((double) traceData.getTraceDateTime().getTime() / 1000)
@@ -213,17 +252,28 @@ public class AROVideoPlayer extends JFrame {
 
 			visualComponent = videoPlayer.getVisualComponent();
 			if (visualComponent != null) {
-				aroVideoPanel.add(visualComponent, BorderLayout.CENTER);
-				visualComponent.setVisible(true);
+				getVideoCardPanel().add(visualComponent, VIDEO_CARD);
+				aroVideoPanel.add(getVideoCardPanel(), BorderLayout.CENTER);
+				showVideoCard();
 			}
 
 			videoPlayer.addControllerListener(new ControllerListener() {
 				@Override
 				public synchronized void controllerUpdate(ControllerEvent evt) {
-					if (evt instanceof StartEvent
-							|| evt instanceof MediaTimeSetEvent) {
-						
-						new Thread(syncThread).start();
+					if (evt instanceof MediaTimeSetEvent) {
+						getSyncExecutor().execute(syncOnceRunnable);
+					}
+					if (evt instanceof StartEvent) {
+						startSync();
+
+						// Playback replaces a frame shown while scrubbing
+						SwingUtilities.invokeLater(new Runnable() {
+							@Override
+							public void run() {
+								getSeekTimer().stop();
+								showVideoCard();
+							}
+						});
 					}
 				}
 			});
@@ -248,12 +298,34 @@ public class AROVideoPlayer extends JFrame {
 	 * specified current time is validated to be between 0 and the length of the
 	 * video.
 	 * 
+	 * When called on the event dispatch thread while the video is not playing,
+	 * the nearest frame is shown right away from the frame index, and the
+	 * video player itself is positioned once the time has not changed for a
+	 * short delay. This keeps repeated calls, such as when the cross hair is
+	 * moved along the timeline, from seeking the player every time.
+	 * 
 	 * @param dCurrentTimeInSeconds
 	 *            The time position, in seconds, at which the video should be
 	 *            displayed. The value must be in the range between 0 and the
 	 *            length of the video.
 	 */
 	public synchronized void setMediaDisplayTime(double dCurrentTimeInSeconds) {
+		if (thumbnailCache != null && videoPlayer != null
+				&& videoPlayer.getState() != Controller.Started
+				&& SwingUtilities.isEventDispatchThread()
+				&& showFrame(dCurrentTimeInSeconds - this.videoOffset)) {
+			pendingMediaDisplayTime = dCurrentTimeInSeconds;
+			getSeekTimer().restart();
+		} else {
+			seekVideoPlayer(dCurrentTimeInSeconds);
+		}
+	}
+
+	/**
+	 * Positions the video player at the specified time and plays a short
+	 * snippet up to that time, so that the frame is displayed.
+	 */
+	private synchronized void seekVideoPlayer(double dCurrentTimeInSeconds) {
 		if ((videoPlayer != null) && (videoPlayer.getDuration() != null)) {
 			double videoTime = dCurrentTimeInSeconds - this.videoOffset;
 
@@ -279,6 +351,194 @@ public class AROVideoPlayer extends JFrame {
 		}
 	}
 
+	/**
+	 * Reads or builds the frame index of the video in the specified trace
+	 * directory, and opens the thumbnail cache for it. The video is displayed
+	 * without thumbnails if this fails.
+	 */
+	private void openFrameIndex(File traceDirectory) {
+		File videoFile = new File(traceDirectory,
+				rb.getString("video.videoDisplayFile"));
+		File indexFile = new File(traceDirectory,
+				rb.getString("video.frameIndexFile"));
+		try {
+			frameIndex = VideoFrameIndex.load(videoFile, indexFile);
+			thumbnailCache = new VideoThumbnailCache(videoFile, frameIndex);
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Unable to index video frames", e);
+			frameIndex = null;
+			thumbnailCache = null;
+		}
+	}
+
+	/**
+	 * Shows the frame at the specified video time in place of the video
+	 * player. Returns false if the frame cannot be shown.
+	 */
+	private boolean showFrame(double videoTime) {
+		int frame = frameIndex.getFrameAt(videoTime);
+		Dimension size = getVideoCardPanel().getSize();
+		if (frame < 0 || size.width <= 0 || size.height <= 0) {
+			return false;
+		}
+		try {
+			BufferedImage thumbnail = thumbnailCache.getThumbnail(frame, size);
+			if (thumbnail == null) {
+				return false;
+			}
+			getFrameLabel().setIcon(new ImageIcon(thumbnail));
+			((CardLayout) getVideoCardPanel().getLayout()).show(
+					getVideoCardPanel(), FRAME_CARD);
+			return true;
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Unable to read video frame", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Shows the video player in place of a frame shown while scrubbing.
+	 */
+	private void showVideoCard() {
+		((CardLayout) getVideoCardPanel().getLayout()).show(
+				getVideoCardPanel(), VIDEO_CARD);
+	}
+
+	/**
+	 * Returns the panel that holds the video player and the label for frames
+	 * shown while scrubbing.
+	 */
+	private JPanel getVideoCardPanel() {
+		if (videoCardPanel == null) {
+			videoCardPanel = new JPanel(new CardLayout());
+			videoCardPanel.add(getFrameLabel(), FRAME_CARD);
+		}
+		return videoCardPanel;
+	}
+
+	/**
+	 * Returns the label that displays frames while scrubbing.
+	 */
+	private JLabel getFrameLabel() {
+		if (frameLabel == null) {
+			frameLabel = new JLabel();
+		}
+		return frameLabel;
+	}
+
+	/**
+	 * Returns the timer that positions the video player once the media
+	 * display time has stopped changing.
+	 */
+	private Timer getSeekTimer() {
+		if (seekTimer == null) {
+			seekTimer = new Timer(SEEK_DELAY_MILLISECONDS, new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					showVideoCard();
+					seekVideoPlayer(pendingMediaDisplayTime);
+				}
+			});
+			seekTimer.setRepeats(false);
+		}
+		return seekTimer;
+	}
+
+	/**
+	 * Updates the diagnostic chart with the current video time, if it has
+	 * changed. Must be run on the sync thread.
+	 * 
+	 * @return true if the video is playing, false otherwise.
+	 */
+	private boolean syncTimeline() {
+		
+		// Get information from video player in this synchronized block
+		// in case video is cleared while running.
+		Time currentVideoTime;
+		int state;
+		double offset;
+		synchronized (this) {
+			if (videoPlayer != null) {
+				currentVideoTime = videoPlayer.getMediaTime();
+				state = videoPlayer.getState();
+				offset = videoOffset;
+			} else {
+				return false;
+			}
+		}
+
+		// Check to see if video time has changed
+		if (currentVideoTime != null && currentVideoTime.getSeconds() != syncedSeconds) {
+			syncedSeconds = currentVideoTime.getSeconds();
+			timelineTime = syncedSeconds + offset;
+
+			// Update diagnostics on AWT thread, unless an update that will
+			// pick up the new time is still queued
+			if (timelineUpdatePending.compareAndSet(false, true)) {
+				SwingUtilities.invokeLater(timelineUpdate);
+			}
+		}
+		return state == Controller.Started;
+	}
+
+	/**
+	 * Starts keeping the diagnostic chart in sync with the playing video, if
+	 * it is not already being kept in sync.
+	 */
+	private void startSync() {
+		synchronized (syncLock) {
+			++syncGeneration;
+			if (syncTask == null) {
+				syncTask = getSyncExecutor().scheduleAtFixedRate(syncRunnable,
+						0, SYNC_INTERVAL_MILLISECONDS, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Stops keeping the diagnostic chart in sync with the video.
+	 */
+	private void stopSync() {
+		synchronized (syncLock) {
+			if (syncTask != null) {
+				syncTask.cancel(false);
+				syncTask = null;
+			}
+		}
+	}
+
+	/**
+	 * Stops keeping the diagnostic chart in sync with the video, unless the
+	 * sync has been started again since the specified generation was read.
+	 */
+	private void stopSync(int generation) {
+		synchronized (syncLock) {
+			if (generation == syncGeneration) {
+				stopSync();
+			}
+		}
+	}
+
+	/**
+	 * Returns the executor that runs the sync with the diagnostic chart.
+	 */
+	private ScheduledExecutorService getSyncExecutor() {
+		synchronized (syncLock) {
+			if (syncExecutor == null) {
+				syncExecutor = Executors
+						.newSingleThreadScheduledExecutor(new ThreadFactory() {
+							@Override
+							public Thread newThread(Runnable r) {
+								Thread thread = new Thread(r, "VideoSync");
+								thread.setDaemon(true);
+								return thread;
+							}
+						});
+			}
+			return syncExecutor;
+		}
+	}
+
 	/**
 	 * Method to enable the default video player image as per the provided
 	 * visible state.
@@ -296,12 +556,16 @@ public class AROVideoPlayer extends JFrame {
 	 * 
 	 */
 	public synchronized void clear() {
+		getSeekTimer().stop();
+		stopSync();
 		
 		// Make sure to remove the components before closing the video player
 		if (visualComponent != null) {
-			aroVideoPanel.remove(visualComponent);
+			getVideoCardPanel().remove(visualComponent);
+			aroVideoPanel.remove(getVideoCardPanel());
 			visualComponent = null;
 		}
+		getFrameLabel().setIcon(null);
 		if (controlComponent != null) {
 			aroVideoPanel.remove(controlComponent);
 			controlComponent = null;
@@ -316,6 +580,17 @@ public class AROVideoPlayer extends JFrame {
 			videoPlayer.close();
 			videoPlayer = null;
 		}
+
+		// Release the video frames
+		if (thumbnailCache != null) {
+			try {
+				thumbnailCache.close();
+			} catch (IOException e) {
+				logger.log(Level.WARNING, "Unable to close video file", e);
+			}
+			thumbnailCache = null;
+		}
+		frameIndex = null;
 	}
 
 	/**
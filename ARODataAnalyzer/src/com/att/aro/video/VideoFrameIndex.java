@@ -0,0 +1,371 @@
+/*
+ * Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.att.aro.video;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Maps the media time of each frame of a QuickTime video to the location of
+ * its sample data in the file. The index is read from the sample tables of
+ * the video track and saved in an index file next to the video, so it only
+ * has to be built once for each video.
+ */
+class VideoFrameIndex {
+	private static final Logger logger = Logger.getLogger(VideoFrameIndex.class
+			.getName());
+
+	private static final int INDEX_FILE_MAGIC = 0x41524F49;
+	private static final int INDEX_FILE_VERSION = 1;
+
+	private double[] frameTimes;
+	private long[] frameOffsets;
+	private int[] frameSizes;
+
+	/**
+	 * Returns the frame index of the specified video. The index is read from
+	 * the index file if it was saved for the current version of the video.
+	 * Otherwise it is built from the video and saved to the index file.
+	 *
+	 * @param videoFile
+	 *            The QuickTime video file.
+	 * @param indexFile
+	 *            The file in which the index is saved.
+	 * @return The VideoFrameIndex object.
+	 * @throws IOException
+	 *             If the video cannot be read or has no video track.
+	 */
+	static VideoFrameIndex load(File videoFile, File indexFile)
+			throws IOException {
+		if (indexFile.canRead()) {
+			try {
+				VideoFrameIndex result = read(videoFile, indexFile);
+				if (result != null) {
+					return result;
+				}
+			} catch (IOException e) {
+				logger.log(Level.WARNING, "Unable to read video frame index "
+						+ indexFile, e);
+			}
+		}
+
+		VideoFrameIndex result = build(videoFile);
+		try {
+			result.write(videoFile, indexFile);
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Unable to save video frame index "
+					+ indexFile, e);
+		}
+		return result;
+	}
+
+	/**
+	 * Private constructor. Use load.
+	 */
+	private VideoFrameIndex(double[] frameTimes, long[] frameOffsets,
+			int[] frameSizes) {
+		this.frameTimes = frameTimes;
+		this.frameOffsets = frameOffsets;
+		this.frameSizes = frameSizes;
+	}
+
+	/**
+	 * Returns the number of frames in the video.
+	 *
+	 * @return The frame count.
+	 */
+	int getFrameCount() {
+		return frameTimes.length;
+	}
+
+	/**
+	 * Returns the frame that is displayed at the specified media time.
+	 *
+	 * @param seconds
+	 *            The media time in seconds.
+	 * @return The frame number, or -1 if the video has no frames.
+	 */
+	int getFrameAt(double seconds) {
+		int index = Arrays.binarySearch(frameTimes, seconds);
+		if (index < 0) {
+			index = -index - 2;
+		}
+		return Math.min(Math.max(index, 0), frameTimes.length - 1);
+	}
+
+	/**
+	 * Returns the media time at which the specified frame is first displayed.
+	 *
+	 * @param frame
+	 *            The frame number.
+	 * @return The media time in seconds.
+	 */
+	double getFrameTime(int frame) {
+		return frameTimes[frame];
+	}
+
+	/**
+	 * Reads the sample data of the specified frame.
+	 *
+	 * @param videoFile
+	 *            The open video file.
+	 * @param frame
+	 *            The frame number.
+	 * @return The sample data of the frame.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 */
+	byte[] readFrame(RandomAccessFile videoFile, int frame) throws IOException {
+		byte[] result = new byte[frameSizes[frame]];
+		videoFile.seek(frameOffsets[frame]);
+		videoFile.readFully(result);
+		return result;
+	}
+
+	/**
+	 * Reads a saved index, or returns null if it was saved for a different
+	 * version of the video.
+	 */
+	private static VideoFrameIndex read(File videoFile, File indexFile)
+			throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(indexFile)));
+		try {
+			if (in.readInt() != INDEX_FILE_MAGIC
+					|| in.readInt() != INDEX_FILE_VERSION
+					|| in.readLong() != videoFile.length()
+					|| in.readLong() != videoFile.lastModified()) {
+				return null;
+			}
+			int count = in.readInt();
+			double[] times = new double[count];
+			long[] offsets = new long[count];
+			int[] sizes = new int[count];
+			for (int i = 0; i < count; ++i) {
+				times[i] = in.readDouble();
+				offsets[i] = in.readLong();
+				sizes[i] = in.readInt();
+			}
+			return new VideoFrameIndex(times, offsets, sizes);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Saves the index together with the length and modification time of the
+	 * video it was built from.
+	 */
+	private void write(File videoFile, File indexFile) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(indexFile)));
+		try {
+			out.writeInt(INDEX_FILE_MAGIC);
+			out.writeInt(INDEX_FILE_VERSION);
+			out.writeLong(videoFile.length());
+			out.writeLong(videoFile.lastModified());
+			out.writeInt(frameTimes.length);
+			for (int i = 0; i < frameTimes.length; ++i) {
+				out.writeDouble(frameTimes[i]);
+				out.writeLong(frameOffsets[i]);
+				out.writeInt(frameSizes[i]);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Builds the index from the sample tables of the first video track.
+	 */
+	private static VideoFrameIndex build(File videoFile) throws IOException {
+		ByteBuffer moov = readMovieAtom(videoFile);
+		ByteBuffer trak;
+		while ((trak = findAtom(moov, "trak")) != null) {
+			ByteBuffer mdia = findAtom(trak, "mdia");
+			ByteBuffer hdlr = mdia != null ? findAtom(mdia.duplicate(), "hdlr")
+					: null;
+			if (hdlr != null && "vide".equals(getType(hdlr, 8))) {
+				return build(mdia);
+			}
+		}
+		throw new IOException("No video track in " + videoFile);
+	}
+
+	/**
+	 * Builds the index from the media atom of a video track.
+	 */
+	private static VideoFrameIndex build(ByteBuffer mdia) throws IOException {
+		ByteBuffer mdhd = findAtom(mdia.duplicate(), "mdhd");
+		ByteBuffer minf = findAtom(mdia.duplicate(), "minf");
+		ByteBuffer stbl = minf != null ? findAtom(minf, "stbl") : null;
+		if (mdhd == null || stbl == null) {
+			throw new IOException("Incomplete video track");
+		}
+		ByteBuffer stts = findAtom(stbl.duplicate(), "stts");
+		ByteBuffer stsc = findAtom(stbl.duplicate(), "stsc");
+		ByteBuffer stsz = findAtom(stbl.duplicate(), "stsz");
+		ByteBuffer stco = findAtom(stbl.duplicate(), "stco");
+		ByteBuffer co64 = stco == null ? findAtom(stbl.duplicate(), "co64")
+				: null;
+		if (stts == null || stsc == null || stsz == null
+				|| (stco == null && co64 == null)) {
+			throw new IOException("Incomplete video sample tables");
+		}
+
+		// Media header: the time scale follows the creation and modification
+		// times, which are 64 bit in version 1
+		int timeScale = mdhd.get(0) == 1 ? mdhd.getInt(20) : mdhd.getInt(12);
+
+		// Sample sizes
+		int defaultSize = stsz.getInt(4);
+		int count = stsz.getInt(8);
+		int[] sizes = new int[count];
+		for (int i = 0; i < count; ++i) {
+			sizes[i] = defaultSize != 0 ? defaultSize : stsz.getInt(12 + i * 4);
+		}
+
+		// Sample times
+		double[] times = new double[count];
+		int sample = 0;
+		long time = 0;
+		int entries = stts.getInt(4);
+		for (int i = 0; i < entries; ++i) {
+			int sampleCount = stts.getInt(8 + i * 8);
+			int duration = stts.getInt(12 + i * 8);
+			for (int j = 0; j < sampleCount && sample < count; ++j) {
+				times[sample++] = (double) time / timeScale;
+				time += duration;
+			}
+		}
+
+		// Sample offsets from the chunk offsets and the samples per chunk
+		long[] offsets = new long[count];
+		int chunkCount = co64 != null ? co64.getInt(4) : stco.getInt(4);
+		int stscEntries = stsc.getInt(4);
+		int stscEntry = 0;
+		sample = 0;
+		for (int chunk = 1; chunk <= chunkCount && sample < count; ++chunk) {
+			while (stscEntry + 1 < stscEntries
+					&& stsc.getInt(8 + (stscEntry + 1) * 12) <= chunk) {
+				++stscEntry;
+			}
+			int samplesPerChunk = stsc.getInt(12 + stscEntry * 12);
+			long offset = co64 != null ? co64.getLong(8 + (chunk - 1) * 8)
+					: stco.getInt(8 + (chunk - 1) * 4) & 0xffffffffL;
+			for (int j = 0; j < samplesPerChunk && sample < count; ++j) {
+				offsets[sample] = offset;
+				offset += sizes[sample++];
+			}
+		}
+		return new VideoFrameIndex(times, offsets, sizes);
+	}
+
+	/**
+	 * Reads the contents of the movie atom, which holds the sample tables.
+	 */
+	private static ByteBuffer readMovieAtom(File videoFile) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(videoFile, "r");
+		try {
+			long position = 0;
+			long length = file.length();
+			while (position + 8 <= length) {
+				file.seek(position);
+				long size = file.readInt() & 0xffffffffL;
+				byte[] type = new byte[4];
+				file.readFully(type);
+				int headerSize = 8;
+				if (size == 1) {
+					size = file.readLong();
+					headerSize = 16;
+				} else if (size == 0) {
+					size = length - position;
+				}
+				if (size < headerSize) {
+					break;
+				}
+				if ("moov".equals(new String(type, "ISO-8859-1"))) {
+					if (size - headerSize > Integer.MAX_VALUE) {
+						break;
+					}
+					byte[] contents = new byte[(int) (size - headerSize)];
+					file.readFully(contents);
+					return ByteBuffer.wrap(contents);
+				}
+				position += size;
+			}
+		} finally {
+			file.close();
+		}
+		throw new IOException("No movie atom in " + videoFile);
+	}
+
+	/**
+	 * Finds the next atom of the specified type from the position of the
+	 * buffer, and returns its contents. The buffer is positioned after the
+	 * atom that was found.
+	 */
+	private static ByteBuffer findAtom(ByteBuffer buffer, String type) {
+		while (buffer.remaining() >= 8) {
+			int start = buffer.position();
+			long size = buffer.getInt(start) & 0xffffffffL;
+			int headerSize = 8;
+			if (size == 1 && buffer.remaining() >= 16) {
+				size = buffer.getLong(start + 8);
+				headerSize = 16;
+			} else if (size == 0) {
+				size = buffer.remaining();
+			}
+			if (size < headerSize || size > buffer.remaining()) {
+				break;
+			}
+			buffer.position(start + (int) size);
+			if (type.equals(getType(buffer, start + 4))) {
+				ByteBuffer result = buffer.duplicate();
+				result.position(start + headerSize);
+				result.limit(start + (int) size);
+				return result.slice();
+			}
+		}
+		buffer.position(buffer.limit());
+		return null;
+	}
+
+	/**
+	 * Returns the four character type code at the specified index.
+	 */
+	private static String getType(ByteBuffer buffer, int index) {
+		if (index + 4 > buffer.limit()) {
+			return null;
+		}
+		char[] result = new char[4];
+		for (int i = 0; i < 4; ++i) {
+			result[i] = (char) (buffer.get(index + i) & 0xff);
+		}
+		return new String(result);
+	}
+}
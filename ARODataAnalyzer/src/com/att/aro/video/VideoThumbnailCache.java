@@ -0,0 +1,130 @@
+/*
+ * Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.att.aro.video;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Decodes the frames of a video with JPEG or PNG frames directly from the
+ * video file, scaled to fit a display area, and keeps the most recently used
+ * thumbnails in memory.
+ */
+class VideoThumbnailCache {
+
+	/**
+	 * The maximum number of thumbnails that are kept in memory.
+	 */
+	private static final int MAX_THUMBNAILS = 32;
+
+	private VideoFrameIndex frameIndex;
+	private RandomAccessFile videoFile;
+	private Dimension size = new Dimension();
+	private Map<Integer, BufferedImage> thumbnails = new LinkedHashMap<Integer, BufferedImage>(
+			MAX_THUMBNAILS, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<Integer, BufferedImage> eldest) {
+			return size() > MAX_THUMBNAILS;
+		}
+	};
+
+	/**
+	 * Initializes a new instance of the VideoThumbnailCache class for the
+	 * specified video.
+	 *
+	 * @param videoFile
+	 *            The QuickTime video file.
+	 * @param frameIndex
+	 *            The frame index of the video.
+	 * @throws IOException
+	 *             If the video file cannot be opened.
+	 */
+	VideoThumbnailCache(File videoFile, VideoFrameIndex frameIndex)
+			throws IOException {
+		this.videoFile = new RandomAccessFile(videoFile, "r");
+		this.frameIndex = frameIndex;
+	}
+
+	/**
+	 * Returns the thumbnail of the specified frame, decoding it if it is not
+	 * in the cache. The thumbnail keeps the aspect ratio of the frame. Cached
+	 * thumbnails are dropped when the display area changes size.
+	 *
+	 * @param frame
+	 *            The frame number.
+	 * @param displaySize
+	 *            The size of the area in which the thumbnail is displayed.
+	 * @return The thumbnail image, or null if the frame format cannot be
+	 *         decoded.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 */
+	synchronized BufferedImage getThumbnail(int frame, Dimension displaySize)
+			throws IOException {
+		if (!size.equals(displaySize)) {
+			thumbnails.clear();
+			size = new Dimension(displaySize);
+		}
+		BufferedImage result = thumbnails.get(frame);
+		if (result == null) {
+			BufferedImage image = ImageIO.read(new ByteArrayInputStream(
+					frameIndex.readFrame(videoFile, frame)));
+			if (image == null) {
+				return null;
+			}
+			double scale = Math.min((double) size.width / image.getWidth(),
+					(double) size.height / image.getHeight());
+			int width = Math.max(1, (int) (image.getWidth() * scale));
+			int height = Math.max(1, (int) (image.getHeight() * scale));
+			result = new BufferedImage(width, height,
+					BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = result.createGraphics();
+			try {
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+						RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.drawImage(image, 0, 0, width, height, null);
+			} finally {
+				g.dispose();
+			}
+			thumbnails.put(frame, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Releases the cached thumbnails and closes the video file.
+	 *
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 */
+	synchronized void close() throws IOException {
+		thumbnails.clear();
+		videoFile.close();
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ Copyright [2012] [AT&T]
+ 
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+ 
+       http://www.apache.org/licenses/LICENSE-2.0
+ 
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.att.aro.videocapture;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Represents an output stream that writes to a file through a FileChannel.
+ * Bytes are collected in a large direct buffer and written to the channel in
+ * big blocks. Bytes that were already written can be overwritten at their
+ * position in the file, which is how the sizes in atom headers are filled in
+ * once an atom is complete, without moving the stream position.
+ * 
+ * The file is extended in large chunks ahead of the stream position, so that
+ * the file system does not have to grow the file on every write, and it is
+ * cut back to the length of the data when the stream is closed.
+ */
+public class ChannelOutputStream extends OutputStream {
+
+	/**
+	 * The size of the write buffer.
+	 */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * The number of bytes by which the file is extended ahead of the stream
+	 * position.
+	 */
+	private static final long PREALLOCATION_SIZE = 16L << 20;
+
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	/**
+	 * The position in the file of the first byte in the buffer.
+	 */
+	private long bufferPosition;
+
+	/**
+	 * The length to which the file has been extended.
+	 */
+	private long allocatedLength;
+
+	/**
+	 * Initializes a new instance of the ChannelOutputStream class that writes
+	 * to the specified file from its beginning.
+	 * 
+	 * @param file
+	 *            The file to write to.
+	 * @throws IOException
+	 *             If the file cannot be opened.
+	 */
+	public ChannelOutputStream(File file) throws IOException {
+		this.file = new RandomAccessFile(file, "rw");
+		this.channel = this.file.getChannel();
+		this.allocatedLength = this.file.length();
+	}
+
+	/**
+	 * Returns the current position of the stream, which is the number of bytes
+	 * written to it so far.
+	 * 
+	 * @return The stream position.
+	 */
+	public long getStreamPosition() {
+		return bufferPosition + buffer.position();
+	}
+
+	/**
+	 * Writes the specified byte at the current stream position.
+	 * 
+	 * @param b
+	 *            The byte to be written.
+	 * @exception IOException
+	 *                If an I/O error occurs.
+	 */
+	@Override
+	public void write(int b) throws IOException {
+		if (!buffer.hasRemaining()) {
+			flushBuffer();
+		}
+		buffer.put((byte) b);
+	}
+
+	/**
+	 * Writes the specified number of bytes from the supplied byte array at the
+	 * current stream position. Blocks that are larger than the write buffer
+	 * are written to the channel directly.
+	 * 
+	 * @param b
+	 *            The array of bytes to write.
+	 * @param off
+	 *            The offset in the array to begin writing from.
+	 * @param len
+	 *            The number of bytes to write from the array.
+	 * @exception IOException
+	 *                If an I/O error occurs.
+	 */
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (len > buffer.remaining()) {
+			flushBuffer();
+			if (len >= buffer.capacity()) {
+				writeFully(ByteBuffer.wrap(b, off, len), bufferPosition);
+				bufferPosition += len;
+				return;
+			}
+		}
+		buffer.put(b, off, len);
+	}
+
+	/**
+	 * Overwrites bytes that were already written to the stream, without
+	 * changing the stream position.
+	 * 
+	 * @param position
+	 *            The position of the first byte to be overwritten.
+	 * @param b
+	 *            The bytes to be written.
+	 * @exception IOException
+	 *                If an I/O error occurs.
+	 * @exception IllegalArgumentException
+	 *                If the bytes extend past the stream position.
+	 */
+	public void writeAt(long position, byte[] b) throws IOException {
+		if (position < 0 || position + b.length > getStreamPosition()) {
+			throw new IllegalArgumentException(
+					"Only bytes that were already written can be overwritten");
+		}
+		int start = (int) Math.max(0, position - bufferPosition);
+		int end = (int) Math.max(0, position + b.length - bufferPosition);
+
+		// Bytes that are still in the buffer are overwritten in place
+		for (int i = start; i < end; ++i) {
+			buffer.put(i, b[(int) (bufferPosition + i - position)]);
+		}
+		int flushedLength = b.length - (end - start);
+		ByteBuffer flushed = ByteBuffer.wrap(b, 0, flushedLength);
+		while (flushed.hasRemaining()) {
+			channel.write(flushed, position + flushed.position());
+		}
+	}
+
+	/**
+	 * Writes the buffered bytes to the file. The bytes are not forced to the
+	 * storage device.
+	 * 
+	 * @exception IOException
+	 *                If an I/O error occurs.
+	 */
+	@Override
+	public void flush() throws IOException {
+		flushBuffer();
+	}
+
+	/**
+	 * Writes the buffered bytes, cuts the file back to the length of the data
+	 * and closes it.
+	 * 
+	 * @exception IOException
+	 *                If an I/O error occurs.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (channel.isOpen()) {
+			try {
+				flushBuffer();
+				channel.truncate(bufferPosition);
+			} finally {
+				file.close();
+			}
+		}
+	}
+
+	/**
+	 * Writes the contents of the buffer to the file and empties it.
+	 */
+	private void flushBuffer() throws IOException {
+		if (buffer.position() > 0) {
+			buffer.flip();
+			int length = buffer.remaining();
+			writeFully(buffer, bufferPosition);
+			bufferPosition += length;
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Writes all of the remaining bytes of a buffer at the specified file
+	 * position, extending the file first if needed.
+	 */
+	private void writeFully(ByteBuffer source, long position)
+			throws IOException {
+		long end = position + source.remaining();
+		if (end > allocatedLength) {
+			allocatedLength = end + PREALLOCATION_SIZE;
+			file.setLength(allocatedLength);
+		}
+		while (source.hasRemaining()) {
+			position += channel.write(source, position);
+		}
+	}
+}
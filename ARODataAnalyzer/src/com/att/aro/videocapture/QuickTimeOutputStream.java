@@ -1,20 +1,26 @@
 package com.att.aro.videocapture;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.util.Date;
 import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
 import javax.imageio.ImageWriteParam;
 import javax.imageio.ImageWriter;
-import javax.imageio.stream.FileImageOutputStream;
-import javax.imageio.stream.ImageOutputStream;
 import javax.imageio.stream.MemoryCacheImageOutputStream;
 
 /**
@@ -29,7 +35,7 @@ public class QuickTimeOutputStream {
 	/**
 	 * Output stream of the QuickTimeOutputStream.
 	 */
-	private ImageOutputStream out;
+	private ChannelOutputStream out;
 
 	/**
 	 * The VideoFormat enumeration specifies constant values that describe the
@@ -131,11 +137,43 @@ public class QuickTimeOutputStream {
 	 * List of video frames.
 	 */
 	private LinkedList<Sample> videoFrames;
+	/**
+	 * The duration of the frames that failed before any frame was written,
+	 * which is added to the first frame that is written.
+	 */
+	private int skippedDuration;
 	/**
 	 * This atom holds the movie frames.
 	 */
 	private WideDataAtom mdatAtom;
 
+	/**
+	 * A frame that is being encoded by the encoder threads, and its duration.
+	 */
+	private static class PendingFrame {
+		private Future<byte[]> data;
+		private int duration;
+
+		private PendingFrame(Future<byte[]> data, int duration) {
+			this.data = data;
+			this.duration = duration;
+		}
+	}
+
+	/**
+	 * Threads that encode the images of frames, or null if images are encoded
+	 * by the writing thread.
+	 */
+	private ExecutorService encoders;
+	/**
+	 * The maximum number of frames that may wait for encoding.
+	 */
+	private int maxPendingFrames;
+	/**
+	 * Frames that are being encoded, in the order in which they were written.
+	 */
+	private LinkedList<PendingFrame> pendingFrames = new LinkedList<PendingFrame>();
+
 	/**
 	 * Atom base class.
 	 */
@@ -146,13 +184,12 @@ public class QuickTimeOutputStream {
 		 */
 		protected String type;
 		/**
-		 * The offset of the atom relative to the start of the
-		 * ImageOutputStream.
+		 * The offset of the atom relative to the start of the output stream.
 		 */
 		protected long offset;
 
 		/**
-		 * Creates a new Atom at the current position of the ImageOutputStream.
+		 * Creates a new Atom at the current position of the output stream.
 		 * 
 		 * @param type
 		 *            The type of the atom. A string with a length of 4
@@ -164,7 +201,7 @@ public class QuickTimeOutputStream {
 		}
 
 		/**
-		 * Writes the atom to the ImageOutputStream and disposes it.
+		 * Writes the atom to the output stream and disposes it.
 		 */
 		public abstract void finish() throws IOException;
 
@@ -185,15 +222,15 @@ public class QuickTimeOutputStream {
 		private boolean finished;
 
 		/**
-		 * Creates a new CompositeAtom at the current position of the
-		 * ImageOutputStream.
+		 * Creates a new CompositeAtom at the current position of the output
+		 * stream.
 		 * 
 		 * @param type
 		 *            The type of the atom.
 		 */
 		public CompositeAtom(String type) throws IOException {
 			super(type);
-			out.writeLong(0); // make room for the atom header
+			out.write(new byte[8]); // make room for the atom header
 			children = new LinkedList<Atom>();
 		}
 
@@ -205,7 +242,7 @@ public class QuickTimeOutputStream {
 		}
 
 		/**
-		 * Writes the atom and all its children to the ImageOutputStream and
+		 * Writes the atom and all its children to the output stream and
 		 * disposes of all resources held by the atom.
 		 * 
 		 * @throws java.io.IOException
@@ -217,17 +254,15 @@ public class QuickTimeOutputStream {
 							+ "\" is too large: " + size());
 				}
 
-				long pointer = out.getStreamPosition();
-				out.seek(offset);
-
+				ByteArrayOutputStream header = new ByteArrayOutputStream(8);
 				DataAtomOutputStream headerData = new DataAtomOutputStream(
-						new FilterImageOutputStream(out));
+						header);
 				headerData.writeInt((int) size());
 				headerData.writeType(type);
+				out.writeAt(offset, header.toByteArray());
 				for (Atom child : children) {
 					child.finish();
 				}
-				out.seek(pointer);
 				finished = true;
 			}
 		}
@@ -250,16 +285,15 @@ public class QuickTimeOutputStream {
 		private boolean finished;
 
 		/**
-		 * Creates a new DataAtom at the current position of the
-		 * ImageOutputStream.
+		 * Creates a new DataAtom at the current position of the output stream.
 		 * 
 		 * @param name
 		 *            The name of the atom.
 		 */
 		public DataAtom(String name) throws IOException {
 			super(name);
-			out.writeLong(0); // make room for the atom header
-			data = new DataAtomOutputStream(new FilterImageOutputStream(out));
+			out.write(new byte[8]); // make room for the atom header
+			data = new DataAtomOutputStream(out);
 		}
 
 		public DataAtomOutputStream getOutputStream() {
@@ -289,14 +323,12 @@ public class QuickTimeOutputStream {
 							+ "\" is too large: " + size());
 				}
 
-				long pointer = out.getStreamPosition();
-				out.seek(offset);
-
+				ByteArrayOutputStream header = new ByteArrayOutputStream(8);
 				DataAtomOutputStream headerData = new DataAtomOutputStream(
-						new FilterImageOutputStream(out));
+						header);
 				headerData.writeUInt(size());
 				headerData.writeType(type);
-				out.seek(pointer);
+				out.writeAt(offset, header.toByteArray());
 				finished = true;
 				long sizeAfter = size();
 				if (sizeBefore != sizeAfter) {
@@ -321,17 +353,15 @@ public class QuickTimeOutputStream {
 		private boolean finished;
 
 		/**
-		 * Creates a new DataAtom at the current position of the
-		 * ImageOutputStream.
+		 * Creates a new DataAtom at the current position of the output stream.
 		 * 
 		 * @param type
 		 *            The type of the atom.
 		 */
 		public WideDataAtom(String type) throws IOException {
 			super(type);
-			out.writeLong(0); // make room for the atom header
-			out.writeLong(0); // make room for the atom header
-			data = new DataAtomOutputStream(new FilterImageOutputStream(out));
+			out.write(new byte[16]); // make room for the atom header
+			data = new DataAtomOutputStream(out);
 		}
 
 		public DataAtomOutputStream getOutputStream() {
@@ -354,11 +384,9 @@ public class QuickTimeOutputStream {
 		@Override
 		public void finish() throws IOException {
 			if (!finished) {
-				long pointer = out.getStreamPosition();
-				out.seek(offset);
-
+				ByteArrayOutputStream header = new ByteArrayOutputStream(16);
 				DataAtomOutputStream headerData = new DataAtomOutputStream(
-						new FilterImageOutputStream(out));
+						header);
 
 				if (size() <= 0xffffffffL) {
 					headerData.writeUInt(8);
@@ -372,7 +400,7 @@ public class QuickTimeOutputStream {
 					headerData.writeLong(size());
 				}
 
-				out.seek(pointer);
+				out.writeAt(offset, header.toByteArray());
 				finished = true;
 			}
 		}
@@ -402,7 +430,7 @@ public class QuickTimeOutputStream {
 		if (file.exists()) {
 			file.delete();
 		}
-		out = new FileImageOutputStream(file);
+		out = new ChannelOutputStream(file);
 
 		if (format == null) {
 			throw new IllegalArgumentException("format must not be null");
@@ -467,6 +495,46 @@ public class QuickTimeOutputStream {
 		return quality;
 	}
 
+	/**
+	 * Sets the number of threads that encode the images of frames. By default
+	 * there are none, and writeFrame(BufferedImage, int) encodes each image
+	 * before it returns. With one or more encoder threads, images are encoded
+	 * asynchronously: writeFrame(BufferedImage, int) queues the image and
+	 * returns, and the encoded images are appended to the video in the order
+	 * in which they were written. An image must not be modified after it has
+	 * been written in this mode. Writing blocks while twice as many images as
+	 * there are encoder threads are waiting to be encoded.
+	 * <p>
+	 * The frames that are still being encoded are written when the number of
+	 * threads is changed, when a frame is written from a file or input stream,
+	 * and when the stream is finished or closed.
+	 * 
+	 * @param threads
+	 *            The number of encoder threads, or 0 to encode images
+	 *            synchronously.
+	 * @throws IOException
+	 *             If writing the frames that are being encoded failed.
+	 */
+	public void setEncoderThreads(int threads) throws IOException {
+		if (threads < 0) {
+			throw new IllegalArgumentException("threads must not be negative");
+		}
+		writePendingFrames();
+		if (encoders != null) {
+			encoders.shutdown();
+		}
+		encoders = threads > 0 ? Executors.newFixedThreadPool(threads,
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "FrameEncoder");
+						thread.setDaemon(true);
+						return thread;
+					}
+				}) : null;
+		maxPendingFrames = threads * 2;
+	}
+
 	/**
 	 * Sets the physical dimensions of the of the video. The video dimension
 	 * must be explicitly set , if all of the frames are added from files or
@@ -510,6 +578,14 @@ public class QuickTimeOutputStream {
 	 * from the first buffered image added to the QuickTimeOutputStream.
 	 * 
 	 * 
+	 * If encoder threads have been set, the image is encoded asynchronously,
+	 * and an IOException from encoding or writing the frame is thrown by a
+	 * later call that writes frames.
+	 * <p>
+	 * If a frame does not match the dimension of the video or cannot be
+	 * written, the previous frame is shown for its duration instead, so that
+	 * the later frames keep their position in the video.
+	 * 
 	 * @param image
 	 *            The frame image.
 	 * @param duration
@@ -537,16 +613,160 @@ public class QuickTimeOutputStream {
 			// The dimension of the image must match the dimension of the video
 			// track
 			if (imgWidth != image.getWidth() || imgHeight != image.getHeight()) {
+				skipFrame(duration);
 				throw new IllegalArgumentException("Dimensions of image["
-						+ videoFrames.size() + "] (width=" + image.getWidth()
+						+ (videoFrames.size() + pendingFrames.size())
+						+ "] (width=" + image.getWidth()
 						+ ", height=" + image.getHeight()
 						+ ") differs from image[0] (width=" + imgWidth
 						+ ", height=" + imgHeight);
 			}
 		}
 
+		if (encoders != null) {
+			final BufferedImage frameImage = image;
+			pendingFrames.add(new PendingFrame(encoders
+					.submit(new Callable<byte[]>() {
+						@Override
+						public byte[] call() throws IOException {
+							return encodeFrame(frameImage);
+						}
+					}), duration));
+
+			// Write the frames that are done without waiting for the others
+			while (!pendingFrames.isEmpty()
+					&& (pendingFrames.getFirst().data.isDone() || pendingFrames
+							.size() > maxPendingFrames)) {
+				writePendingFrame(pendingFrames.removeFirst());
+			}
+			return;
+		}
+
+		long offset = out.getStreamPosition();
+		boolean written = false;
+		try {
+			writeImage(image, mdatAtom.getOutputStream());
+			written = true;
+		} finally {
+			if (!written) {
+				skipFrame(duration);
+			}
+		}
+		long length = out.getStreamPosition() - offset;
+		addSample(duration, offset, length);
+	}
+
+	/**
+	 * Waits for the frames that are being encoded, and writes them in order.
+	 * A frame that fails does not stop the frames after it from being written.
+	 * 
+	 * @return The exception of the first frame that failed, or null if all of
+	 *         the frames were written.
+	 */
+	private Exception writePendingFrames() {
+		Exception failure = null;
+		while (!pendingFrames.isEmpty()) {
+			try {
+				writePendingFrame(pendingFrames.removeFirst());
+			} catch (IOException e) {
+				if (failure == null) {
+					failure = e;
+				}
+			} catch (RuntimeException e) {
+				if (failure == null) {
+					failure = e;
+				}
+			}
+		}
+		return failure;
+	}
+
+	/**
+	 * Waits for a frame to be encoded, and appends it to the media data atom.
+	 * If the frame cannot be encoded, the previous frame is shown for its
+	 * duration.
+	 */
+	private void writePendingFrame(PendingFrame frame) throws IOException {
+		byte[] data;
+		try {
+			data = frame.data.get();
+		} catch (InterruptedException e) {
+			extendLastSample(frame.duration);
+			throw new InterruptedIOException("Interrupted encoding a frame");
+		} catch (ExecutionException e) {
+			extendLastSample(frame.duration);
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else {
+				throw new IllegalStateException(cause);
+			}
+		}
 		long offset = out.getStreamPosition();
+		mdatAtom.getOutputStream().write(data);
+		long length = out.getStreamPosition() - offset;
+		addSample(frame.duration, offset, length);
+	}
+
+	/**
+	 * Adds a sample for a frame that was appended to the media data atom.
+	 */
+	private void addSample(int duration, long offset, long length) {
+		videoFrames.add(new Sample(duration + skippedDuration, offset, length));
+		skippedDuration = 0;
+	}
+
+	/**
+	 * Shows the previous frame for the duration of a new frame that could not
+	 * be written. The previous frame may still be waiting to be encoded.
+	 */
+	private void skipFrame(int duration) {
+		if (pendingFrames.isEmpty()) {
+			extendLastSample(duration);
+		} else {
+			pendingFrames.getLast().duration += duration;
+		}
+	}
 
+	/**
+	 * Shows the last frame that was written for the duration of a frame that
+	 * could not be written.
+	 */
+	private void extendLastSample(int duration) {
+		if (videoFrames.isEmpty()) {
+			skippedDuration += duration;
+		} else {
+			videoFrames.getLast().duration += duration;
+		}
+	}
+
+	/**
+	 * Encodes the specified image in the video format of the output stream,
+	 * without writing it. This method may be called concurrently from several
+	 * threads, so that frames can be encoded in parallel, and then written in
+	 * order by passing the encoded data to the writeFrame(InputStream, int)
+	 * method.
+	 * 
+	 * @param image
+	 *            The frame image.
+	 * @return The encoded image data.
+	 * @throws IOException
+	 *             If encoding the image failed.
+	 */
+	public byte[] encodeFrame(BufferedImage image) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		writeImage(image, result);
+		return result.toByteArray();
+	}
+
+	/**
+	 * Encodes an image in the video format and writes it to the specified
+	 * stream.
+	 */
+	private void writeImage(BufferedImage image, OutputStream imageOut)
+			throws IOException {
 		if (videoFormat == VideoFormat.JPG) {
 			ImageWriter iw = (ImageWriter) ImageIO.getImageWritersByMIMEType(
 					"image/jpeg").next();
@@ -558,14 +778,15 @@ public class QuickTimeOutputStream {
 			// QQQQQ iwParam.setCompressionQuality(quality);
 
 			MemoryCacheImageOutputStream imgOut = new MemoryCacheImageOutputStream(
-					mdatAtom.getOutputStream());
+					imageOut);
 			iw.setOutput(imgOut);
 			IIOImage img = new IIOImage(image, null, null);
 			iw.write(null, img, iwParam);
 			iw.dispose();
+
+			// Flushes the cached image data without closing imageOut
+			imgOut.close();
 		}
-		long length = out.getStreamPosition() - offset;
-		videoFrames.add(new Sample(duration, offset, length));
 	}
 
 	/**
@@ -632,6 +853,7 @@ public class QuickTimeOutputStream {
 		}
 		ensureOpen();
 		ensureStarted();
+		writePendingFrames();
 
 		long offset = out.getStreamPosition();
 		OutputStream mdatOut = mdatAtom.getOutputStream();
@@ -641,7 +863,7 @@ public class QuickTimeOutputStream {
 			mdatOut.write(buf, 0, len);
 		}
 		long length = out.getStreamPosition() - offset;
-		videoFrames.add(new Sample(duration, offset, length));
+		addSample(duration, offset, length);
 	}
 
 	/**
@@ -651,19 +873,28 @@ public class QuickTimeOutputStream {
 	 *                if an I/O error has occurred
 	 */
 	public void close() throws IOException {
-		if (state == States.STARTED) {
-			finish();
-		}
-		if (state != States.CLOSED) {
-			out.close();
-			state = States.CLOSED;
+		try {
+			if (state == States.STARTED) {
+				finish();
+			}
+		} finally {
+			if (encoders != null) {
+				encoders.shutdownNow();
+				encoders = null;
+			}
+			if (state != States.CLOSED) {
+				out.close();
+				state = States.CLOSED;
+			}
 		}
 	}
 
 	/**
 	 * Finishes writing the contents of the QuickTime output stream without
 	 * closing the underlying stream. This method should be used when applying
-	 * multiple filters in succession to the same output stream.
+	 * multiple filters in succession to the same output stream. If a frame that
+	 * is being encoded fails, the movie is still completed, and the failure is
+	 * thrown afterwards.
 	 * 
 	 * @exception IllegalStateException
 	 *                If the dimension of the video track has not been specified
@@ -674,6 +905,7 @@ public class QuickTimeOutputStream {
 	public void finish() throws IOException {
 		ensureOpen();
 		if (state != States.FINISHED) {
+			Exception failure = writePendingFrames();
 			if (imgWidth == -1 || imgHeight == -1) {
 				throw new IllegalStateException(
 						"image width and height must be specified");
@@ -682,6 +914,11 @@ public class QuickTimeOutputStream {
 			writeEpilog();
 			state = States.FINISHED;
 			imgWidth = imgHeight = -1;
+			if (failure instanceof IOException) {
+				throw (IOException) failure;
+			} else if (failure != null) {
+				throw (RuntimeException) failure;
+			}
 		}
 	}
 
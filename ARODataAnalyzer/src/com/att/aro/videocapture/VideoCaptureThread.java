@@ -16,9 +16,14 @@
 package com.att.aro.videocapture;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,6 +35,15 @@ import com.android.ddmlib.RawImage;
  * Emulator. The class contains methods for initiating and ending the process of
  * capturing raw images to create a video.
  * 
+ * The capture runs as a pipeline, so that the screen is grabbed at a steady
+ * rate. This thread only grabs raw images from the device. A writer thread
+ * converts the images and writes them to the video, whose encoder threads
+ * encode them in parallel. The number of images waiting to be written is
+ * bounded, so grabbing slows down when encoding cannot keep up.
+ * 
+ * A screenshot that is identical to the previous frame is not encoded.
+ * Instead, the previous frame is shown for longer: each frame is shown from
+ * the time it was grabbed until the next frame that differs from it.
  */
 public class VideoCaptureThread extends Thread {
 
@@ -37,9 +51,40 @@ public class VideoCaptureThread extends Thread {
 			.getLogger(VideoCaptureThread.class.getName());
 	private static final int MAX_FETCH_EXCEPTIONS = 5;
 
+	/**
+	 * The number of threads that encode frames.
+	 */
+	private static final int ENCODER_THREADS = Math.max(1, Runtime
+			.getRuntime().availableProcessors() - 1);
+
+	/**
+	 * The maximum number of frames that are waiting to be written.
+	 */
+	private static final int MAX_PENDING_FRAMES = ENCODER_THREADS * 2;
+
+	/**
+	 * The time in milliseconds to wait for room in the queue of pending frames
+	 * before checking that the writer thread is still running.
+	 */
+	private static final long QUEUE_TIMEOUT = 500;
+
+	/**
+	 * A grabbed image and its position in the video in time scale units. A
+	 * frame without an image marks the end of the video.
+	 */
+	private static class PendingFrame {
+		private RawImage image;
+		private int position;
+
+		private PendingFrame(RawImage image, int position) {
+			this.image = image;
+			this.position = position;
+		}
+	}
+
 	private QuickTimeOutputStream qos;
 	private IDevice device;
-	private boolean allDone;
+	private volatile boolean allDone;
 	private Date videoStartTime;
 
 	/**
@@ -58,6 +103,7 @@ public class VideoCaptureThread extends Thread {
 				QuickTimeOutputStream.VideoFormat.JPG);
 		qos.setVideoCompressionQuality(1f);
 		qos.setTimeScale(10);
+		qos.setEncoderThreads(ENCODER_THREADS);
 	}
 
 	/**
@@ -66,47 +112,61 @@ public class VideoCaptureThread extends Thread {
 	 */
 	public void run() {
 		RawImage rawImage;
-		BufferedImage image = null;
 		int iExceptionCount = 0;
 		IOException savedException = null;
 		allDone = false;
-		Date lastFrameTime = this.videoStartTime = new Date();
-		while (!allDone) {
-			try {
-				// Screen shot is captured from the emulator.
-				synchronized (device) {
-					rawImage = device.getScreenshot();
-				}
-				if (rawImage != null) {
-					Date timestamp = new Date();
-					int duration = Math
-							.round((float) (timestamp.getTime() - lastFrameTime
-									.getTime()) * qos.getTimeScale() / 1000f);
-					if (duration > 0) {
-						if (image == null) {
-							image = new BufferedImage(
-									device.getScreenshot().width,
-									device.getScreenshot().height,
-									BufferedImage.TYPE_INT_RGB);
+
+		BlockingQueue<PendingFrame> pendingFrames = new ArrayBlockingQueue<PendingFrame>(
+				MAX_PENDING_FRAMES);
+		Thread writer = startWriter(pendingFrames);
+		try {
+			this.videoStartTime = new Date();
+			RawImage lastImage = null;
+			int lastPosition = 0;
+			while (!allDone) {
+				try {
+					// Screen shot is captured from the emulator.
+					synchronized (device) {
+						rawImage = device.getScreenshot();
+					}
+					if (rawImage != null) {
+
+						// The first frame is shown from the start of the video
+						int position = lastImage != null ? getPosition(new Date())
+								: 0;
+						if ((lastImage == null || position > lastPosition)
+								&& !isSameImage(rawImage, lastImage)) {
+							if (!queueFrame(pendingFrames, new PendingFrame(
+									rawImage, position), writer)) {
+								logger.warning("Video writer stopped, ending video capture");
+								break;
+							}
+							lastImage = rawImage;
+							lastPosition = position;
 						}
-						convertImage(rawImage, image);
-						qos.writeFrame(image, duration);
-						lastFrameTime = timestamp;
 					}
+				} catch (IOException e) {
+					iExceptionCount++;
+					if (iExceptionCount > MAX_FETCH_EXCEPTIONS) {
+						allDone = true;
+					}
+					savedException = e;
 				}
-			} catch (IOException e) {
-				iExceptionCount++;
-				if (iExceptionCount > MAX_FETCH_EXCEPTIONS) {
-					allDone = true;
-				}
-				savedException = e;
 			}
-		}
-		try {
-			qos.close();
-		} catch (IOException e) {
-			logger.log(Level.WARNING, "Exception closing video output stream",
-					e);
+		} catch (InterruptedException e) {
+			logger.log(Level.WARNING, "Video capture interrupted", e);
+		} finally {
+
+			// The writer closes the video after the frames already grabbed
+			try {
+				queueFrame(pendingFrames, new PendingFrame(null,
+						getPosition(new Date())), writer);
+				writer.join();
+			} catch (InterruptedException e) {
+				logger.log(Level.WARNING,
+						"Interrupted while finishing the video", e);
+				writer.interrupt();
+			}
 		}
 		if (iExceptionCount > 0) {
 			logger.warning((new StringBuilder())
@@ -140,27 +200,175 @@ public class VideoCaptureThread extends Thread {
 		return videoStartTime;
 	}
 
+	/**
+	 * Returns the position in the video of the specified time, in time scale
+	 * units.
+	 */
+	private int getPosition(Date time) {
+		return Math.round((float) (time.getTime() - videoStartTime.getTime())
+				* qos.getTimeScale() / 1000f);
+	}
+
+	/**
+	 * Returns a value indicating whether two raw images have the same format
+	 * and pixels.
+	 */
+	private static boolean isSameImage(RawImage image1, RawImage image2) {
+		return image2 != null && image1.width == image2.width
+				&& image1.height == image2.height && image1.bpp == image2.bpp
+				&& Arrays.equals(image1.data, image2.data);
+	}
+
+	/**
+	 * Queues a frame for the writer thread, waiting while the queue is full.
+	 * Returns false if the writer thread has stopped, so that the frame will
+	 * never be taken.
+	 */
+	private static boolean queueFrame(BlockingQueue<PendingFrame> pendingFrames,
+			PendingFrame frame, Thread writer) throws InterruptedException {
+		while (!pendingFrames.offer(frame, QUEUE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+			if (!writer.isAlive()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Starts the thread that writes the grabbed images to the video in the
+	 * order in which they were queued, and closes the video at the end. A
+	 * frame is written once the position of the next frame is known, since
+	 * the frame lasts until then. An image that cannot be converted is
+	 * dropped, so that the previous frame lasts until the next image.
+	 */
+	private Thread startWriter(final BlockingQueue<PendingFrame> pendingFrames) {
+		Thread writer = new Thread("VideoCaptureWriter") {
+			@Override
+			public void run() {
+				BufferedImage previousImage = null;
+				int previousPosition = 0;
+				try {
+					PendingFrame frame;
+					do {
+						frame = pendingFrames.take();
+						BufferedImage image = null;
+						if (frame.image != null) {
+							image = convertFrame(frame.image);
+							if (image == null) {
+								continue;
+							}
+						}
+						// The first image is shown from the start of the video
+						if (previousImage != null) {
+							writeFrame(previousImage, Math.max(1,
+									frame.position - previousPosition));
+							previousPosition = frame.position;
+						}
+						previousImage = image;
+					} while (frame.image != null);
+				} catch (InterruptedException e) {
+					logger.log(Level.WARNING, "Video writer interrupted", e);
+				} finally {
+					try {
+						qos.close();
+					} catch (IOException e) {
+						logger.log(Level.WARNING,
+								"Exception closing video output stream", e);
+					}
+				}
+			}
+		};
+		writer.start();
+		return writer;
+	}
+
+	/**
+	 * Converts a raw image for the video. Returns null if the image cannot be
+	 * converted.
+	 */
+	private static BufferedImage convertFrame(RawImage rawImage) {
+		try {
+			BufferedImage image = new BufferedImage(rawImage.width,
+					rawImage.height, BufferedImage.TYPE_INT_RGB);
+			convertImage(rawImage, image);
+			return image;
+		} catch (RuntimeException e) {
+			logger.log(Level.WARNING, "Exception converting video frame", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes an image to the video for the specified duration. If the frame
+	 * cannot be written, the video shows the previous frame for its duration.
+	 */
+	private void writeFrame(BufferedImage image, int duration) {
+		try {
+			qos.writeFrame(image, duration);
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Exception writing video frame", e);
+		} catch (RuntimeException e) {
+
+			// For example, the screen size changed, which the video cannot
+			// show, or encoding an earlier frame failed
+			logger.log(Level.WARNING, "Exception writing video frame", e);
+		}
+	}
+
 	/**
 	 * Converts raw image in to buffered image object which will be provided to
-	 * quickstream for creating video {@link QuickTimeOutputStream}
+	 * quickstream for creating video {@link QuickTimeOutputStream}. The pixels
+	 * are decoded straight into the data buffer of the image, rather than set
+	 * one at a time.
 	 * 
 	 * @param rawImage
 	 *            {@link RawImage} object which is captured from the emulator
 	 *            device.
 	 * @param image
-	 *            {@link BufferedImage} object which is used in quickstream
-	 *            output
-	 */
-	private void convertImage(RawImage rawImage, BufferedImage image) {
-		int index = 0;
-		int indexInc = rawImage.bpp >> 3;
-		// RawImage is redrawn in to BufferedImage.
-		for (int y = 0; y < rawImage.height; y++) {
-			for (int x = 0; x < rawImage.width; x++, index += indexInc) {
-				int value = rawImage.getARGB(index);
-				image.setRGB(x, y, value);
+	 *            {@link BufferedImage} object of type TYPE_INT_RGB which is
+	 *            used in quickstream output
+	 */
+	private static void convertImage(RawImage rawImage, BufferedImage image) {
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer())
+				.getData();
+		int pixelCount = rawImage.width * rawImage.height;
+		byte[] data = rawImage.data;
+		if (rawImage.bpp == 16) {
+			for (int i = 0, index = 0; i < pixelCount; ++i, index += 2) {
+				int value = (data[index] & 0xFF)
+						| ((data[index + 1] & 0xFF) << 8);
+				pixels[i] = toRGB(rawImage, value);
 			}
+		} else if (rawImage.bpp == 32) {
+			for (int i = 0, index = 0; i < pixelCount; ++i, index += 4) {
+				int value = (data[index] & 0xFF)
+						| ((data[index + 1] & 0xFF) << 8)
+						| ((data[index + 2] & 0xFF) << 16)
+						| ((data[index + 3] & 0xFF) << 24);
+				pixels[i] = toRGB(rawImage, value);
+			}
+		} else {
+			throw new UnsupportedOperationException(
+					"Only 16 and 32 bit raw images are supported");
 		}
 	}
 
+	/**
+	 * Converts a raw pixel value to an RGB value in the same way as
+	 * RawImage.getARGB(int).
+	 */
+	private static int toRGB(RawImage rawImage, int value) {
+		return (getChannel(value, rawImage.red_offset, rawImage.red_length) << 16)
+				| (getChannel(value, rawImage.green_offset,
+						rawImage.green_length) << 8)
+				| getChannel(value, rawImage.blue_offset, rawImage.blue_length);
+	}
+
+	/**
+	 * Returns a color channel of a raw pixel value scaled to 8 bits.
+	 */
+	private static int getChannel(int value, int offset, int length) {
+		return ((value >>> offset) & ((1 << length) - 1)) << (8 - length);
+	}
+
 }
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2012 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.att.android.arodatacollector.main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import android.util.Log;
+
+/**
+ * Writes the events of several peripheral traces into a single binary journal
+ * file. Events are copied as fixed-size records into a ring buffer without
+ * taking a lock, and a single background thread writes the records to the
+ * file. The thread that reports an event does not format the timestamp, and
+ * does not wait for the file unless the ring buffer is full.
+ *
+ * The journal starts with a header that holds the magic number, the format
+ * version, the record size and the names of the traces. Each record holds the
+ * index of its trace, flags, the number of content bytes, the event timestamp
+ * and the UTF-8 content. An event that is longer than one record continues in
+ * the records that follow it.
+ */
+public class AROCollectorEventJournal {
+
+	/** Log TAG string for the ARO-Data Collector event journal */
+	private static final String TAG = "AROCollectorEventJournal";
+
+	/** Journal file magic number ("AROJ") */
+	public static final int MAGIC = 0x41524F4A;
+
+	/** Journal file format version */
+	public static final int VERSION = 1;
+
+	/** Size of a record in bytes */
+	public static final int RECORD_SIZE = 64;
+
+	/** Size of the record header in bytes */
+	public static final int RECORD_HEADER_SIZE = 12;
+
+	/** Record flag set when the event has a timestamp */
+	public static final int FLAG_TIMESTAMP = 1;
+
+	/** Record flag set when the event continues in the next record */
+	public static final int FLAG_CONTINUED = 2;
+
+	/** Number of records in the ring buffer */
+	private static final int CAPACITY = 4096;
+
+	/** Time the writer thread sleeps when there are no records to write */
+	private static final long WRITER_SLEEP_NANOSECONDS = 100000000L;
+
+	private static final int CONTENT_SIZE = RECORD_SIZE - RECORD_HEADER_SIZE;
+
+	/**
+	 * Maximum number of content bytes of an event. Longer events are
+	 * truncated, so that an event never needs more records than the ring
+	 * buffer can make room for while other events are being written.
+	 */
+	private static final int MAX_CONTENT_LENGTH = CAPACITY / 16 * CONTENT_SIZE;
+
+	private final byte[] mRing = new byte[CAPACITY * RECORD_SIZE];
+
+	/** Sequence number of the record that each slot holds once written */
+	private final AtomicLongArray mPublished = new AtomicLongArray(CAPACITY);
+
+	/** Sequence number of the next record to be claimed */
+	private final AtomicLong mNextSequence = new AtomicLong();
+
+	/** Sequence number of the next record to be written to the file */
+	private volatile long mWrittenSequence;
+
+	private volatile boolean mClosed;
+	private volatile IOException mWriteError;
+
+	private final FileOutputStream mOutputFile;
+	private final Thread mWriterThread;
+
+	/**
+	 * Initializes a new instance of the AROCollectorEventJournal class, writes
+	 * the journal header and starts the writer thread.
+	 *
+	 * @param fileName
+	 *            The path of the journal file.
+	 * @param traceNames
+	 *            The names of the traces. The index of a name in the array is
+	 *            the index of the trace when writing an event.
+	 * @throws IOException
+	 */
+	public AROCollectorEventJournal(String fileName, String[] traceNames)
+			throws IOException {
+		for (int i = 0; i < CAPACITY; i++) {
+			mPublished.set(i, -1);
+		}
+
+		final ByteArrayOutputStream header = new ByteArrayOutputStream();
+		final DataOutputStream headerData = new DataOutputStream(header);
+		headerData.writeInt(MAGIC);
+		headerData.writeInt(VERSION);
+		headerData.writeInt(RECORD_SIZE);
+		headerData.writeInt(traceNames.length);
+		for (String traceName : traceNames) {
+			headerData.writeUTF(traceName);
+		}
+		mOutputFile = new FileOutputStream(fileName);
+		mOutputFile.write(header.toByteArray());
+
+		mWriterThread = new Thread(new Runnable() {
+			public void run() {
+				writeRecords();
+			}
+		}, TAG);
+		mWriterThread.setDaemon(true);
+		mWriterThread.start();
+	}
+
+	/**
+	 * Adds an event to the journal. The event is written to the file later by
+	 * the writer thread. Only waits if the ring buffer is full.
+	 *
+	 * @param trace
+	 *            The index of the trace.
+	 * @param timestamp
+	 *            The event time in seconds.
+	 * @param hasTimestamp
+	 *            true if the event line starts with the timestamp.
+	 * @param content
+	 *            The event content. Content longer than the maximum event
+	 *            length is truncated.
+	 */
+	public void write(int trace, double timestamp, boolean hasTimestamp,
+			String content) {
+		if (mClosed || mWriteError != null) {
+			return;
+		}
+
+		int length = getUtf8Length(content);
+		if (length > MAX_CONTENT_LENGTH) {
+			Log.e(TAG, "event of " + length + " bytes truncated to "
+					+ MAX_CONTENT_LENGTH + " bytes");
+			content = content.substring(0,
+					getUtf8Prefix(content, MAX_CONTENT_LENGTH));
+			length = getUtf8Length(content);
+		}
+		final int records = Math.max(1, (length + CONTENT_SIZE - 1)
+				/ CONTENT_SIZE);
+		final long first = claim(records);
+		if (first < 0) {
+			return;
+		}
+
+		final long bits = Double.doubleToRawLongBits(timestamp);
+		int charIndex = 0;
+		int codePoint = 0;
+		int codePointBytes = 0;
+		int codePointIndex = 0;
+		int remaining = length;
+		for (long sequence = first; sequence < first + records; sequence++) {
+			final int slot = (int) (sequence % CAPACITY);
+			final int offset = slot * RECORD_SIZE;
+			final int recordLength = Math.min(remaining, CONTENT_SIZE);
+			remaining -= recordLength;
+
+			int flags = hasTimestamp ? FLAG_TIMESTAMP : 0;
+			if (remaining > 0) {
+				flags |= FLAG_CONTINUED;
+			}
+			mRing[offset] = (byte) trace;
+			mRing[offset + 1] = (byte) flags;
+			mRing[offset + 2] = (byte) (recordLength >> 8);
+			mRing[offset + 3] = (byte) recordLength;
+			for (int i = 0; i < 8; i++) {
+				mRing[offset + 4 + i] = (byte) (bits >> (56 - i * 8));
+			}
+
+			// Encode the content as UTF-8 straight into the record. A character
+			// may be split across records.
+			int position = offset + RECORD_HEADER_SIZE;
+			final int end = position + recordLength;
+			while (position < end) {
+				if (codePointIndex == codePointBytes) {
+					final char c = content.charAt(charIndex++);
+					if (c < 0x80) {
+						mRing[position++] = (byte) c;
+						continue;
+					}
+					codePoint = c;
+					if (Character.isHighSurrogate(c)
+							&& charIndex < content.length()
+							&& Character.isLowSurrogate(content
+									.charAt(charIndex))) {
+						codePoint = Character.toCodePoint(c,
+								content.charAt(charIndex++));
+					}
+					codePointBytes = codePoint < 0x800 ? 2
+							: codePoint < 0x10000 ? 3 : 4;
+					codePointIndex = 0;
+				}
+				mRing[position++] = getUtf8Byte(codePoint, codePointBytes,
+						codePointIndex++);
+			}
+			mPublished.lazySet(slot, sequence);
+		}
+	}
+
+	/**
+	 * Stops accepting events, waits until the writer thread has written all
+	 * records, and closes the journal file.
+	 *
+	 * @throws IOException
+	 *             If writing the journal failed.
+	 */
+	public void close() throws IOException {
+		mClosed = true;
+		LockSupport.unpark(mWriterThread);
+		try {
+			mWriterThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		mOutputFile.close();
+		if (mWriteError != null) {
+			throw mWriteError;
+		}
+	}
+
+	/**
+	 * Claims the specified number of consecutive records in the ring buffer.
+	 * Waits while the ring buffer is full. Returns the sequence number of the
+	 * first record, or -1 if the journal was closed or failed while waiting.
+	 * The number of records must not be more than the capacity of the ring
+	 * buffer, which write ensures by truncating long events.
+	 */
+	private long claim(int records) {
+		while (true) {
+			final long current = mNextSequence.get();
+			final long next = current + records;
+			if (next - mWrittenSequence > CAPACITY) {
+				if (mClosed || mWriteError != null) {
+					return -1;
+				}
+				LockSupport.unpark(mWriterThread);
+				Thread.yield();
+			} else if (mNextSequence.compareAndSet(current, next)) {
+				if (next - mWrittenSequence > CAPACITY / 2) {
+					LockSupport.unpark(mWriterThread);
+				}
+				return current;
+			}
+		}
+	}
+
+	/**
+	 * Writer thread loop. Writes the records that were published in sequence
+	 * order, and sleeps when there are none.
+	 */
+	private void writeRecords() {
+		long sequence = mWrittenSequence;
+		while (true) {
+			final long start = sequence;
+			while (mPublished.get((int) (sequence % CAPACITY)) == sequence) {
+				sequence++;
+			}
+			if (sequence > start) {
+				try {
+					if (mWriteError == null) {
+						writeRange(start, sequence);
+					}
+				} catch (IOException e) {
+					mWriteError = e;
+					Log.e(TAG, "exception in writeRecords", e);
+				}
+				mWrittenSequence = sequence;
+			} else if (mClosed && sequence == mNextSequence.get()) {
+				break;
+			} else {
+				LockSupport.parkNanos(this, WRITER_SLEEP_NANOSECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Writes the records from the start sequence number up to the end sequence
+	 * number, in one or two blocks depending on where the ring buffer wraps.
+	 */
+	private void writeRange(long start, long end) throws IOException {
+		final int startSlot = (int) (start % CAPACITY);
+		final int count = (int) (end - start);
+		final int firstCount = Math.min(count, CAPACITY - startSlot);
+		mOutputFile.write(mRing, startSlot * RECORD_SIZE, firstCount
+				* RECORD_SIZE);
+		if (count > firstCount) {
+			mOutputFile.write(mRing, 0, (count - firstCount) * RECORD_SIZE);
+		}
+	}
+
+	/**
+	 * Returns the byte at the specified index of the UTF-8 encoding of a code
+	 * point that takes more than one byte.
+	 */
+	private static byte getUtf8Byte(int codePoint, int byteCount, int index) {
+		final int shift = 6 * (byteCount - 1 - index);
+		if (index == 0) {
+			return (byte) ((0xF00 >> byteCount) | (codePoint >> shift));
+		}
+		return (byte) (0x80 | ((codePoint >> shift) & 0x3F));
+	}
+
+	/**
+	 * Returns the number of characters at the start of the string that can be
+	 * encoded as UTF-8 in the specified number of bytes, without splitting a
+	 * surrogate pair.
+	 */
+	private static int getUtf8Prefix(String content, int maxLength) {
+		int result = 0;
+		int bytes = 0;
+		final int length = content.length();
+		while (result < length) {
+			final char c = content.charAt(result);
+			int charCount = 1;
+			int charBytes;
+			if (c < 0x80) {
+				charBytes = 1;
+			} else if (c < 0x800) {
+				charBytes = 2;
+			} else if (Character.isHighSurrogate(c) && result + 1 < length
+					&& Character.isLowSurrogate(content.charAt(result + 1))) {
+				charBytes = 4;
+				charCount = 2;
+			} else {
+				charBytes = 3;
+			}
+			if (bytes + charBytes > maxLength) {
+				break;
+			}
+			bytes += charBytes;
+			result += charCount;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of bytes needed to encode the string as UTF-8.
+	 */
+	private static int getUtf8Length(String content) {
+		int result = 0;
+		final int length = content.length();
+		for (int i = 0; i < length; i++) {
+			final char c = content.charAt(i);
+			if (c < 0x80) {
+				result += 1;
+			} else if (c < 0x800) {
+				result += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(content.charAt(i + 1))) {
+				result += 4;
+				i++;
+			} else {
+				result += 3;
+			}
+		}
+		return result;
+	}
+}
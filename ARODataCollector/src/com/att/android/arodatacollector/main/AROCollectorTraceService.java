@@ -106,6 +106,29 @@ public class AROCollectorTraceService extends Service {
 	/** screen event trace file name */
 	private static final String outScreenRotationFileName = "screen_rotations";
 
+	/** event journal file name */
+	private static final String outEventJournalFileName = "event_journal";
+
+	/** Peripheral trace indexes, in the order of the trace file names */
+	private static final int WIFI_TRACE = 0;
+	private static final int BATTERY_TRACE = 1;
+	private static final int GPS_TRACE = 2;
+	private static final int RADIO_TRACE = 3;
+	private static final int CAMERA_TRACE = 4;
+	private static final int BLUETOOTH_TRACE = 5;
+	private static final int SCREEN_TRACE = 6;
+	private static final int SCREEN_ROTATION_TRACE = 7;
+	private static final int ACTIVE_PROCESS_TRACE = 8;
+	private static final int DEVICE_INFO_TRACE = 9;
+	private static final int DEVICE_DETAILS_TRACE = 10;
+
+	/** Peripheral trace file names, in the order of the trace indexes */
+	private static final String[] mTraceFileNames = { outWifiFileName,
+			outBatteryFileName, outGPSFileName, outRadioFileName,
+			outCameraFileName, outBluetoothFileName, outScreenFileName,
+			outScreenRotationFileName, outActiveProcessFileName,
+			outDeviceInfoFileName, outDeviceDetailsFileName };
+
 	/**
 	 * LandScape Screen orientation
 	 */
@@ -127,6 +150,12 @@ public class AROCollectorTraceService extends Service {
 	 */
 	private static boolean DEBUG = !mIsProduction;
 
+	/**
+	 * The boolean value to write the peripheral traces into a single binary
+	 * event journal instead of separate text files
+	 */
+	private static boolean mUseEventJournal = false;
+
 	/**
 	 * Camera/GPS/Screen trace timer repeat time value to capture camera events
 	 * ( 1/2 seconds)
@@ -217,29 +246,16 @@ public class AROCollectorTraceService extends Service {
 	private int mWifiRssi;
 	private boolean isFirstBearerChange = true;
 
-	/** Output stream and Buffer Writer for peripherals traces files */
-	private OutputStream mWifiTraceOutputFile;
-	private BufferedWriter mWifiTracewriter;
-	private OutputStream mBatteryTraceOutputFile;
-	private BufferedWriter mBatteryTracewriter;
-	private OutputStream mGPSTraceOutputFile;
-	private BufferedWriter mGPSTracewriter;
-	private OutputStream mRadioTraceOutputFile;
-	private BufferedWriter mRadioTracewriter;
-	private OutputStream mCameraTraceOutputFile;
-	private BufferedWriter mCameraTracewriter;
-	private OutputStream mBluetoohTraceOutputFile;
-	private BufferedWriter mBluetoothTracewriter;
-	private OutputStream mScreenOutputFile;
-	private BufferedWriter mScreenTracewriter;
-	private OutputStream mScreenRotationOutputFile;
-	private BufferedWriter mScreenRotationTracewriter;
-	private OutputStream mActiveProcessOutputFile;
-	private BufferedWriter mActiveProcessTracewriter;
-	private OutputStream mDeviceInfoOutputFile;
-	private OutputStream mDeviceDetailsOutputFile;
-	private BufferedWriter mDeviceInfoWriter;
-	private BufferedWriter mDeviceDetailsWriter;
+	/**
+	 * Output streams and Buffer Writers for peripherals traces files. The
+	 * writers are read by timer and receiver threads while the files are
+	 * closed.
+	 */
+	private OutputStream[] mTraceOutputFiles;
+	private volatile BufferedWriter[] mTraceWriters;
+
+	/** Event journal for the peripheral traces in journal mode */
+	private volatile AROCollectorEventJournal mEventJournal;
 
 	/** ARO Data Collector utilities class object */
 	private AROCollectorUtils mAroUtils;
@@ -321,7 +337,7 @@ public class AROCollectorTraceService extends Service {
 			startARODataBearerChangeNotification();
 			startARODeviceSDCardSpaceMidTrace();
 			startAroScreenRotationMonitor();
-		} catch (FileNotFoundException e) {
+		} catch (IOException e) {
 			Log.e(TAG,
 					"exception in initAROTraceFile: Failed to start ARO-Data Collector Trace",
 					e);
@@ -343,20 +359,20 @@ public class AROCollectorTraceService extends Service {
 		try {
 			ipAddress = mAroUtils.getLocalIpAddress();
 			if (ipAddress != null) {
-				writeTraceLineToAROTraceFile(mDeviceInfoWriter, ipAddress,
+				writeTraceLineToAROTraceFile(DEVICE_INFO_TRACE, ipAddress,
 						false);
 			}
 		} catch (SocketException e) {
 			Log.e(TAG, "exception in getLocalIpAddress", e);
 		}
-		writeTraceLineToAROTraceFile(mDeviceDetailsWriter,
+		writeTraceLineToAROTraceFile(DEVICE_DETAILS_TRACE,
 				getApplicationContext().getPackageName(), false);
-		writeTraceLineToAROTraceFile(mDeviceDetailsWriter, deviceModel, false);
-		writeTraceLineToAROTraceFile(mDeviceDetailsWriter, deviceMake, false);
-		writeTraceLineToAROTraceFile(mDeviceDetailsWriter, "android", false);
-		writeTraceLineToAROTraceFile(mDeviceDetailsWriter, osVersion, false);
-		writeTraceLineToAROTraceFile(mDeviceDetailsWriter, appVersion, false);
-		writeTraceLineToAROTraceFile(mDeviceDetailsWriter,
+		writeTraceLineToAROTraceFile(DEVICE_DETAILS_TRACE, deviceModel, false);
+		writeTraceLineToAROTraceFile(DEVICE_DETAILS_TRACE, deviceMake, false);
+		writeTraceLineToAROTraceFile(DEVICE_DETAILS_TRACE, "android", false);
+		writeTraceLineToAROTraceFile(DEVICE_DETAILS_TRACE, osVersion, false);
+		writeTraceLineToAROTraceFile(DEVICE_DETAILS_TRACE, appVersion, false);
+		writeTraceLineToAROTraceFile(DEVICE_DETAILS_TRACE,
 				Integer.toString(getDeviceNetworkType()), false);
 
 	}
@@ -402,60 +418,32 @@ public class AROCollectorTraceService extends Service {
 
 	/**
 	 * Method will initialize all the trace files Streams and open it for
-	 * writing (i.e wifi/ Baterry/Gps trace files etc)
+	 * writing (i.e wifi/ Baterry/Gps trace files etc). In journal mode, opens
+	 * the event journal instead.
 	 * 
-	 * @throws FileNotFoundException
+	 * @throws IOException
 	 */
-	private void initAROTraceFile() throws FileNotFoundException {
+	private void initAROTraceFile() throws IOException {
 
 		final String mAroTraceDatapath = mApp.getTcpDumpTraceFolderName();
 		if (DEBUG) {
 			Log.d(TAG, "mAroTraceDatapath=" + mAroTraceDatapath);
 		}
-		mWifiTraceOutputFile = new FileOutputStream(mAroTraceDatapath
-				+ outWifiFileName);
-		mWifiTracewriter = new BufferedWriter(new OutputStreamWriter(
-				mWifiTraceOutputFile));
-		mRadioTraceOutputFile = new FileOutputStream(mAroTraceDatapath
-				+ outRadioFileName);
-		mRadioTracewriter = new BufferedWriter(new OutputStreamWriter(
-				mRadioTraceOutputFile));
-		mCameraTraceOutputFile = new FileOutputStream(mAroTraceDatapath
-				+ outCameraFileName);
-		mCameraTracewriter = new BufferedWriter(new OutputStreamWriter(
-				mCameraTraceOutputFile));
-		mBatteryTraceOutputFile = new FileOutputStream(mAroTraceDatapath
-				+ outBatteryFileName);
-		mBatteryTracewriter = new BufferedWriter(new OutputStreamWriter(
-				mBatteryTraceOutputFile));
-		mGPSTraceOutputFile = new FileOutputStream(mAroTraceDatapath
-				+ outGPSFileName);
-		mGPSTracewriter = new BufferedWriter(new OutputStreamWriter(
-				mGPSTraceOutputFile));
-		mScreenOutputFile = new FileOutputStream(mAroTraceDatapath
-				+ outScreenFileName);
-		mScreenRotationOutputFile = new FileOutputStream(mAroTraceDatapath
-				+ outScreenRotationFileName);
-		mScreenTracewriter = new BufferedWriter(new OutputStreamWriter(
-				mScreenOutputFile));
-		mScreenRotationTracewriter = new BufferedWriter(new OutputStreamWriter(
-				mScreenRotationOutputFile));
-		mActiveProcessOutputFile = new FileOutputStream(mAroTraceDatapath
-				+ outActiveProcessFileName);
-		mActiveProcessTracewriter = new BufferedWriter(new OutputStreamWriter(
-				mActiveProcessOutputFile));
-		mBluetoohTraceOutputFile = new FileOutputStream(mAroTraceDatapath
-				+ outBluetoothFileName);
-		mBluetoothTracewriter = new BufferedWriter(new OutputStreamWriter(
-				mBluetoohTraceOutputFile));
-		mDeviceInfoOutputFile = new FileOutputStream(mAroTraceDatapath
-				+ outDeviceInfoFileName);
-		mDeviceDetailsOutputFile = new FileOutputStream(mAroTraceDatapath
-				+ outDeviceDetailsFileName);
-		mDeviceInfoWriter = new BufferedWriter(new OutputStreamWriter(
-				mDeviceInfoOutputFile));
-		mDeviceDetailsWriter = new BufferedWriter(new OutputStreamWriter(
-				mDeviceDetailsOutputFile));
+		if (mUseEventJournal) {
+			mEventJournal = new AROCollectorEventJournal(mAroTraceDatapath
+					+ outEventJournalFileName, mTraceFileNames);
+			return;
+		}
+		final OutputStream[] traceOutputFiles = new OutputStream[mTraceFileNames.length];
+		final BufferedWriter[] traceWriters = new BufferedWriter[mTraceFileNames.length];
+		for (int i = 0; i < mTraceFileNames.length; i++) {
+			traceOutputFiles[i] = new FileOutputStream(mAroTraceDatapath
+					+ mTraceFileNames[i]);
+			traceWriters[i] = new BufferedWriter(new OutputStreamWriter(
+					traceOutputFiles[i]));
+		}
+		mTraceOutputFiles = traceOutputFiles;
+		mTraceWriters = traceWriters;
 
 	}
 
@@ -465,39 +453,24 @@ public class AROCollectorTraceService extends Service {
 	 * @throws IOException
 	 */
 	private void closeAROTraceFile() throws IOException {
-		mWifiTracewriter.close();
-		mWifiTraceOutputFile.flush();
-		mWifiTraceOutputFile.close();
-		mRadioTracewriter.close();
-		mRadioTraceOutputFile.flush();
-		mRadioTraceOutputFile.close();
-		mCameraTracewriter.close();
-		mCameraTraceOutputFile.flush();
-		mCameraTraceOutputFile.close();
-		mBluetoothTracewriter.close();
-		mBluetoohTraceOutputFile.flush();
-		mBluetoohTraceOutputFile.close();
-		mBatteryTracewriter.close();
-		mBatteryTraceOutputFile.flush();
-		mBatteryTraceOutputFile.close();
-		mGPSTracewriter.close();
-		mGPSTraceOutputFile.flush();
-		mGPSTraceOutputFile.close();
-		mScreenTracewriter.close();
-		mScreenOutputFile.flush();
-		mScreenOutputFile.close();
-		mScreenRotationTracewriter.close();
-		mScreenRotationOutputFile.flush();
-		mScreenRotationOutputFile.close();
-		mActiveProcessTracewriter.close();
-		mActiveProcessOutputFile.flush();
-		mActiveProcessOutputFile.close();
-		mDeviceInfoWriter.close();
-		mDeviceInfoOutputFile.flush();
-		mDeviceInfoOutputFile.close();
-		mDeviceDetailsWriter.close();
-		mDeviceDetailsOutputFile.flush();
-		mDeviceDetailsOutputFile.close();
+		final AROCollectorEventJournal eventJournal = mEventJournal;
+		if (eventJournal != null) {
+			mEventJournal = null;
+			eventJournal.close();
+		}
+		final BufferedWriter[] traceWriters = mTraceWriters;
+		final OutputStream[] traceOutputFiles = mTraceOutputFiles;
+		if (traceWriters != null) {
+			mTraceWriters = null;
+			mTraceOutputFiles = null;
+			for (int i = 0; i < traceWriters.length; i++) {
+				if (traceWriters[i] != null) {
+					traceWriters[i].close();
+					traceOutputFiles[i].flush();
+					traceOutputFiles[i].close();
+				}
+			}
+		}
 
 	}
 
@@ -514,11 +487,26 @@ public class AROCollectorTraceService extends Service {
 
 	/**
 	 * Method write given String message to trace file passed as an argument
-	 * outputfilewriter : Name of Trace File writer to which trace has to be
-	 * written content : Trace message to be written
+	 * trace : Index of the Trace File to which trace has to be written
+	 * content : Trace message to be written. In journal mode the message is
+	 * added to the event journal, with the timestamp as a number. The trace
+	 * files may be closed by another thread at any time, so each one is read
+	 * only once.
 	 */
-	private void writeTraceLineToAROTraceFile(BufferedWriter outputfilewriter,
-			String content, boolean timestamp) {
+	private void writeTraceLineToAROTraceFile(int trace, String content,
+			boolean timestamp) {
+		final AROCollectorEventJournal eventJournal = mEventJournal;
+		if (eventJournal != null) {
+			eventJournal.write(trace,
+					timestamp ? mAroUtils.getDataCollectorEventTimeStamp() : 0,
+					timestamp, content);
+			return;
+		}
+		final BufferedWriter[] traceWriters = mTraceWriters;
+		if (traceWriters == null) {
+			return;
+		}
+		final BufferedWriter outputfilewriter = traceWriters[trace];
 		try {
 			final String eol = System.getProperty("line.separator");
 			if (timestamp) {
@@ -588,14 +576,14 @@ public class AROCollectorTraceService extends Service {
 						if (mCameraOn && !mPrevCameraOn) {
 							if (DEBUG)
 								Log.i(TAG, "Camera Turned on");
-							writeTraceLineToAROTraceFile(mCameraTracewriter,
+							writeTraceLineToAROTraceFile(CAMERA_TRACE,
 									"ON", true);
 							mCameraOn = true;
 							mPrevCameraOn = true;
 						} else if (!mCameraOn && mPrevCameraOn) {
 							if (DEBUG)
 								Log.i(TAG, "Camera Turned Off");
-							writeTraceLineToAROTraceFile(mCameraTracewriter,
+							writeTraceLineToAROTraceFile(CAMERA_TRACE,
 									"OFF", true);
 							mCameraOn = false;
 							mPrevCameraOn = false;
@@ -632,13 +620,13 @@ public class AROCollectorTraceService extends Service {
 			}
 			getScreenBrigthnessTimeout();
 			if (mScreenOn) {
-				writeTraceLineToAROTraceFile(mScreenTracewriter,
+				writeTraceLineToAROTraceFile(SCREEN_TRACE,
 						AroTraceFileConstants.ON + " " + mScreenTimeout + " "
 								+ mScreencurBrightness, true);
 				mPrevScreencurBrightness = mScreencurBrightness;
 				mPrevScreenTimeout = mScreenTimeout;
 			} else {
-				writeTraceLineToAROTraceFile(mScreenTracewriter,
+				writeTraceLineToAROTraceFile(SCREEN_TRACE,
 						AroTraceFileConstants.OFF, true);
 				mPrevScreencurBrightness = mScreencurBrightness;
 				mPrevScreenTimeout = mScreenTimeout;
@@ -733,10 +721,10 @@ public class AROCollectorTraceService extends Service {
 			final String action = intent.getAction();
 			if (action.equals(WifiManager.WIFI_STATE_CHANGED_ACTION)) {
 				if (mWifiManager.getWifiState() == WifiManager.WIFI_STATE_ENABLED) {
-					writeTraceLineToAROTraceFile(mWifiTracewriter,
+					writeTraceLineToAROTraceFile(WIFI_TRACE,
 							AroTraceFileConstants.DISCONNECTED_NETWORK, true);
 				} else if (mWifiManager.getWifiState() == WifiManager.WIFI_STATE_DISABLED) {
-					writeTraceLineToAROTraceFile(mWifiTracewriter,
+					writeTraceLineToAROTraceFile(WIFI_TRACE,
 							AroTraceFileConstants.OFF, true);
 				}
 			}
@@ -750,30 +738,30 @@ public class AROCollectorTraceService extends Service {
 				switch (state) {
 
 				case CONNECTING:
-					writeTraceLineToAROTraceFile(mWifiTracewriter,
+					writeTraceLineToAROTraceFile(WIFI_TRACE,
 							AroTraceFileConstants.CONNECTING_NETWORK, true);
 					break;
 				case CONNECTED:
 					collectWifiNetworkData();
-					writeTraceLineToAROTraceFile(mWifiTracewriter,
+					writeTraceLineToAROTraceFile(WIFI_TRACE,
 							AroTraceFileConstants.CONNECTED_NETWORK + " "
 									+ mWifiMacAddress + " " + mWifiRssi + " "
 									+ mWifiNetworkSSID, true);
 					break;
 				case DISCONNECTING:
-					writeTraceLineToAROTraceFile(mWifiTracewriter,
+					writeTraceLineToAROTraceFile(WIFI_TRACE,
 							AroTraceFileConstants.DISCONNECTING_NETWORK, true);
 					break;
 				case DISCONNECTED:
-					writeTraceLineToAROTraceFile(mWifiTracewriter,
+					writeTraceLineToAROTraceFile(WIFI_TRACE,
 							AroTraceFileConstants.DISCONNECTED_NETWORK, true);
 					break;
 				case SUSPENDED:
-					writeTraceLineToAROTraceFile(mWifiTracewriter,
+					writeTraceLineToAROTraceFile(WIFI_TRACE,
 							AroTraceFileConstants.SUSPENDED_NETWORK, true);
 					break;
 				case UNKNOWN:
-					writeTraceLineToAROTraceFile(mWifiTracewriter,
+					writeTraceLineToAROTraceFile(WIFI_TRACE,
 							AroTraceFileConstants.UNKNOWN_NETWORK, true);
 					break;
 				}
@@ -795,12 +783,12 @@ public class AROCollectorTraceService extends Service {
 
 				switch (BluetoothAdapter.getDefaultAdapter().getState()) {
 				case BluetoothAdapter.STATE_ON:
-					writeTraceLineToAROTraceFile(mBluetoothTracewriter,
+					writeTraceLineToAROTraceFile(BLUETOOTH_TRACE,
 							AroTraceFileConstants.DISCONNCTED, true);
 					break;
 
 				case BluetoothAdapter.STATE_OFF:
-					writeTraceLineToAROTraceFile(mBluetoothTracewriter,
+					writeTraceLineToAROTraceFile(BLUETOOTH_TRACE,
 							AroTraceFileConstants.OFF, true);
 					break;
 				}
@@ -812,10 +800,10 @@ public class AROCollectorTraceService extends Service {
 				final BluetoothDevice device = intent
 						.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
 				if (device.getBondState() != BluetoothDevice.BOND_BONDED) {
-					writeTraceLineToAROTraceFile(mBluetoothTracewriter,
+					writeTraceLineToAROTraceFile(BLUETOOTH_TRACE,
 							AroTraceFileConstants.DISCONNCTED, true);
 				} else if (device.getBondState() == BluetoothDevice.BOND_BONDED) {
-					writeTraceLineToAROTraceFile(mBluetoothTracewriter,
+					writeTraceLineToAROTraceFile(BLUETOOTH_TRACE,
 							AroTraceFileConstants.CONNECTED, true);
 				}
 			}
@@ -922,7 +910,7 @@ public class AROCollectorTraceService extends Service {
 				if (DEBUG) {
 					Log.i(TAG, "signal strength changed to "+ mRadioSignalStrength);
 				}
-				writeTraceLineToAROTraceFile(mRadioTracewriter,
+				writeTraceLineToAROTraceFile(RADIO_TRACE,
 						mRadioSignalStrength, true);
 			}
 
@@ -940,11 +928,11 @@ public class AROCollectorTraceService extends Service {
 
 			switch (event) {
 			case GpsStatus.GPS_EVENT_STARTED:
-				writeTraceLineToAROTraceFile(mGPSTracewriter, "ACTIVE", true);
+				writeTraceLineToAROTraceFile(GPS_TRACE, "ACTIVE", true);
 				mGPSActive = true;
 				break;
 			case GpsStatus.GPS_EVENT_STOPPED:
-				writeTraceLineToAROTraceFile(mGPSTracewriter, "STANDBY", true);
+				writeTraceLineToAROTraceFile(GPS_TRACE, "STANDBY", true);
 				mGPSActive = false;
 				break;
 			}
@@ -991,12 +979,12 @@ public class AROCollectorTraceService extends Service {
 								}
 								if (!mGPSActive)
 									writeTraceLineToAROTraceFile(
-											mGPSTracewriter, "STANDBY", true);
+											GPS_TRACE, "STANDBY", true);
 							} else {
 								if (DEBUG) {
 									Log.d(TAG, "gps Disabled: ");
 								}
-								writeTraceLineToAROTraceFile(mGPSTracewriter,
+								writeTraceLineToAROTraceFile(GPS_TRACE,
 										"OFF", true);
 							}
 						}
@@ -1050,7 +1038,7 @@ public class AROCollectorTraceService extends Service {
 						getScreenBrigthnessTimeout();
 						if ((mScreencurBrightness != mPrevScreencurBrightness)
 								|| (mScreenTimeout != mPrevScreenTimeout)) {
-							writeTraceLineToAROTraceFile(mScreenTracewriter,
+							writeTraceLineToAROTraceFile(SCREEN_TRACE,
 									AroTraceFileConstants.ON + " "
 											+ mScreenTimeout + " "
 											+ mScreencurBrightness, true);
@@ -1082,16 +1070,16 @@ public class AROCollectorTraceService extends Service {
 		case BluetoothAdapter.STATE_ON:
 			if (BluetoothAdapter.getDefaultAdapter().getBondedDevices()
 					.isEmpty()) {
-				writeTraceLineToAROTraceFile(mBluetoothTracewriter,
+				writeTraceLineToAROTraceFile(BLUETOOTH_TRACE,
 						AroTraceFileConstants.DISCONNCTED, true);
 			} else {
-				writeTraceLineToAROTraceFile(mBluetoothTracewriter,
+				writeTraceLineToAROTraceFile(BLUETOOTH_TRACE,
 						AroTraceFileConstants.CONNECTED, true);
 			}
 			break;
 
 		case BluetoothAdapter.STATE_OFF:
-			writeTraceLineToAROTraceFile(mBluetoothTracewriter,
+			writeTraceLineToAROTraceFile(BLUETOOTH_TRACE,
 					AroTraceFileConstants.OFF, true);
 			break;
 		}
@@ -1251,7 +1239,7 @@ public class AROCollectorTraceService extends Service {
 				mActiveProcessStates[Index] = "Name:"
 						+ runningAppProcessInfo.processName + " State:"
 						+ AroTraceFileConstants.IMPORTANCE_BACKGROUND;
-				writeTraceLineToAROTraceFile(mActiveProcessTracewriter,
+				writeTraceLineToAROTraceFile(ACTIVE_PROCESS_TRACE,
 						mActiveProcessStates[Index], true);
 				Index++;
 				break;
@@ -1260,7 +1248,7 @@ public class AROCollectorTraceService extends Service {
 				mActiveProcessStates[Index] = "Name:"
 						+ runningAppProcessInfo.processName + " State:"
 						+ AroTraceFileConstants.IMPORTANCE_FOREGROUND;
-				writeTraceLineToAROTraceFile(mActiveProcessTracewriter,
+				writeTraceLineToAROTraceFile(ACTIVE_PROCESS_TRACE,
 						mActiveProcessStates[Index], true);
 				Index++;
 				break;
@@ -1371,7 +1359,7 @@ public class AROCollectorTraceService extends Service {
 			Log.d(TAG, "received battery temp: " + mBatteryTemp / 10 + "C");
 			Log.d(TAG, "received power source " + mPowerSource);
 		}
-		writeTraceLineToAROTraceFile(mBatteryTracewriter, mBatteryLevel + " "
+		writeTraceLineToAROTraceFile(BATTERY_TRACE, mBatteryLevel + " "
 				+ mBatteryTemp / 10 + " " + mPowerSource, true);
 	}
 
@@ -1423,11 +1411,11 @@ public class AROCollectorTraceService extends Service {
 								.getConfiguration();
 						if (newConfig.orientation == Configuration.ORIENTATION_LANDSCAPE) {
 							writeTraceLineToAROTraceFile(
-									mScreenRotationTracewriter, LANDSCAPE_MODE,
+									SCREEN_ROTATION_TRACE, LANDSCAPE_MODE,
 									true);
 						} else if (newConfig.orientation == Configuration.ORIENTATION_PORTRAIT) {
 							writeTraceLineToAROTraceFile(
-									mScreenRotationTracewriter, PORTRAIT_MODE,
+									SCREEN_ROTATION_TRACE, PORTRAIT_MODE,
 									true);
 						}
 